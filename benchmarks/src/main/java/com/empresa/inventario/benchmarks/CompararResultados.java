@@ -0,0 +1,67 @@
+package com.empresa.inventario.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos informes JSON de JMH (por ejemplo, el del build anterior y el actual)
+ * y muestra la variación de cada benchmark.
+ * Uso: java -cp benchmarks.jar com.empresa.inventario.benchmarks.CompararResultados base.json nuevo.json
+ */
+public class CompararResultados {
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CompararResultados <resultados_base.json> <resultados_nuevos.json>");
+            System.exit(1);
+        }
+        
+        Map<String, JsonNode> base = leerResultados(new File(args[0]));
+        Map<String, JsonNode> nuevos = leerResultados(new File(args[1]));
+        
+        System.out.printf("%-80s %14s %14s %10s %-8s%n", "BENCHMARK", "BASE", "NUEVO", "CAMBIO", "UNIDAD");
+        for (Map.Entry<String, JsonNode> entrada : nuevos.entrySet()) {
+            JsonNode metricaNueva = entrada.getValue().get("primaryMetric");
+            double valorNuevo = metricaNueva.get("score").asDouble();
+            String unidad = metricaNueva.get("scoreUnit").asText();
+            
+            JsonNode anterior = base.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.printf("%-80s %14s %14.3f %10s %-8s%n", entrada.getKey(), "-", valorNuevo, "nuevo", unidad);
+                continue;
+            }
+            
+            double valorBase = anterior.get("primaryMetric").get("score").asDouble();
+            double cambio = valorBase == 0 ? 0 : (valorNuevo - valorBase) * 100.0 / valorBase;
+            System.out.printf("%-80s %14.3f %14.3f %+9.1f%% %-8s%n",
+                    entrada.getKey(), valorBase, valorNuevo, cambio, unidad);
+        }
+    }
+    
+    /**
+     * Lee un informe JSON de JMH indexando cada resultado por benchmark, parámetros e hilos
+     */
+    private static Map<String, JsonNode> leerResultados(File archivo) throws IOException {
+        Map<String, JsonNode> resultados = new TreeMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(archivo)) {
+            StringBuilder clave = new StringBuilder(resultado.get("benchmark").asText());
+            JsonNode parametros = resultado.get("params");
+            if (parametros != null) {
+                Iterator<Map.Entry<String, JsonNode>> it = parametros.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> parametro = it.next();
+                    clave.append(' ').append(parametro.getKey()).append('=').append(parametro.getValue().asText());
+                }
+            }
+            clave.append(" hilos=").append(resultado.get("threads").asInt());
+            resultados.put(clave.toString(), resultado);
+        }
+        return resultados;
+    }
+}
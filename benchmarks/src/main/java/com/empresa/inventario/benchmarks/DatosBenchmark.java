@@ -0,0 +1,42 @@
+package com.empresa.inventario.benchmarks;
+
+import com.empresa.inventario.herramientas.GeneradorDatos;
+import com.empresa.inventario.util.ConfiguracionUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Utilidad para preparar los archivos de datos que usan los benchmarks.
+ * Los datos se escriben en el directorio configurado con -Dinventario.datos,
+ * de modo que los benchmarks nunca tocan el inventario real.
+ */
+final class DatosBenchmark {
+    
+    /** Directorio de datos usado por todos los benchmarks */
+    static final String DIRECTORIO = "target/jmh-datos";
+    
+    private DatosBenchmark() {
+    }
+    
+    /**
+     * Genera un archivo de inventario con el número de productos indicado.
+     * Usa siempre la misma semilla para que todos los builds midan exactamente los mismos datos.
+     * @param numProductos Número de productos a generar
+     * @throws IOException si ocurre un error al escribir el archivo
+     */
+    static void generarInventario(int numProductos) throws IOException {
+        Files.createDirectories(Paths.get(ConfiguracionUtil.DIRECTORIO_DATOS));
+        GeneradorDatos.generarInventario(Paths.get(ConfiguracionUtil.rutaDatos("inventario.txt")), 
+                numProductos, 42L);
+    }
+    
+    /**
+     * Vacía el archivo de registro para que no crezca sin límite entre ejecuciones
+     * @throws IOException si ocurre un error al borrar el archivo
+     */
+    static void limpiarRegistro() throws IOException {
+        Files.deleteIfExists(Paths.get(ConfiguracionUtil.rutaDatos("registro.txt")));
+    }
+}
@@ -0,0 +1,34 @@
+package com.empresa.inventario.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de benchmarks.jar.
+ * Acepta las mismas opciones que la línea de comandos de JMH, pero si no se indica
+ * otra cosa guarda siempre los resultados en JSON (target/jmh-resultados.json)
+ * para poder compararlos entre builds con {@link CompararResultados}.
+ */
+public class EjecutarBenchmarks {
+    
+    private static final String ARCHIVO_RESULTADOS = "target/jmh-resultados.json";
+    
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions opcionesLinea = new CommandLineOptions(args);
+        ChainedOptionsBuilder opciones = new OptionsBuilder().parent(opcionesLinea);
+        
+        if (!opcionesLinea.getResultFormat().hasValue()) {
+            opciones.resultFormat(ResultFormatType.JSON);
+        }
+        if (!opcionesLinea.getResult().hasValue()) {
+            opciones.result(ARCHIVO_RESULTADOS);
+        }
+        
+        new Runner(opciones.build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.empresa.inventario.benchmarks;
+
+import com.empresa.inventario.dao.InventarioDAO;
+import com.empresa.inventario.model.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las operaciones del {@link InventarioDAO} con distintos tamaños de inventario.
+ * Cada combinación de parámetros se ejecuta en su propio fork con un archivo recién generado.
+ * La caché de consultas está desactivada para que las búsquedas midan el recorrido del archivo
+ * y se puedan comparar con los resultados anteriores a la caché; los aciertos de la caché se
+ * miden aparte en {@link #buscarPorNombreEnCache()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dinventario.datos=" + DatosBenchmark.DIRECTORIO, "-Dinventario.cache.entradas=0"})
+public class InventarioDAOBenchmark {
+    
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tamano;
+    
+    @Param({"true", "false"})
+    public boolean escaneoParalelo;
+    
+    private InventarioDAO dao;
+    
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        DatosBenchmark.generarInventario(tamano);
+        DatosBenchmark.limpiarRegistro();
+        dao = new InventarioDAO(escaneoParalelo);
+    }
+    
+    @Setup(Level.Iteration)
+    public void limpiarRegistro() throws IOException {
+        DatosBenchmark.limpiarRegistro();
+    }
+    
+    private int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(1, tamano + 1);
+    }
+    
+    @Benchmark
+    public List<Producto> listarTodos() {
+        return dao.listarTodos();
+    }
+    
+    @Benchmark
+    public Optional<Producto> buscarPorId() {
+        return dao.buscarPorId(idAleatorio());
+    }
+    
+    @Benchmark
+    public List<Producto> buscarPorNombre() {
+        return dao.buscarPorNombre("auriculares 21");
+    }
+    
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dinventario.datos=" + DatosBenchmark.DIRECTORIO)
+    public List<Producto> buscarPorNombreEnCache() {
+        return dao.buscarPorNombre("auriculares 21");
+    }
+    
+    @Benchmark
+    public String obtenerEstadisticas() {
+        return dao.obtenerEstadisticas();
+    }
+    
+    @Benchmark
+    public boolean actualizar() {
+        int id = idAleatorio();
+        Producto producto = new Producto(id, "Producto " + id, "Electrónica",
+                new BigDecimal("10.50"), ThreadLocalRandom.current().nextInt(500));
+        return dao.actualizar(producto);
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<Producto> buscarPorIdMultihilo() {
+        return dao.buscarPorId(idAleatorio());
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Producto> buscarPorNombreMultihilo() {
+        return dao.buscarPorNombre("auriculares 21");
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String obtenerEstadisticasMultihilo() {
+        return dao.obtenerEstadisticas();
+    }
+}
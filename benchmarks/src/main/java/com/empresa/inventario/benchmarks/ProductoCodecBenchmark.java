@@ -0,0 +1,54 @@
+package com.empresa.inventario.benchmarks;
+
+import com.empresa.inventario.model.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la conversión CSV de {@link Producto} (fromCSV / toCSV).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dinventario.datos=" + DatosBenchmark.DIRECTORIO)
+public class ProductoCodecBenchmark {
+    
+    private String linea;
+    private Producto producto;
+    
+    @Setup
+    public void preparar() {
+        linea = "1234;Auriculares 212;Electrónica;1322.25;423";
+        producto = new Producto(1234, "Auriculares 212", "Electrónica", new BigDecimal("1322.25"), 423);
+    }
+    
+    @Benchmark
+    public Producto fromCSV() {
+        return Producto.fromCSV(linea);
+    }
+    
+    @Benchmark
+    public String toCSV() {
+        return producto.toCSV();
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Producto fromCSVMultihilo() {
+        return Producto.fromCSV(linea);
+    }
+}
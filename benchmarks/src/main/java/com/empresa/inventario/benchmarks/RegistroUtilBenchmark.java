@@ -0,0 +1,51 @@
+package com.empresa.inventario.benchmarks;
+
+import com.empresa.inventario.util.RegistroUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la escritura en el registro de operaciones ({@link RegistroUtil#registrar}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dinventario.datos=" + DatosBenchmark.DIRECTORIO)
+public class RegistroUtilBenchmark {
+    
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        Files.createDirectories(Paths.get(DatosBenchmark.DIRECTORIO));
+        DatosBenchmark.limpiarRegistro();
+    }
+    
+    @Benchmark
+    public void registrar() {
+        RegistroUtil.registrar(RegistroUtil.TipoOperacion.MODIFICACION, 
+                "Producto ID=1 - Cambios: Stock: 10 -> 15; ");
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void registrarMultihilo() {
+        RegistroUtil.registrar(RegistroUtil.TipoOperacion.MODIFICACION, 
+                "Producto ID=1 - Cambios: Stock: 10 -> 15; ");
+    }
+}
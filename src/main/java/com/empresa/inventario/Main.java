@@ -1,10 +1,30 @@
 package com.empresa.inventario;
 
+import com.empresa.inventario.alertas.AlertaReabastecimiento;
+import com.empresa.inventario.alertas.MotorAlertasReabastecimiento;
+import com.empresa.inventario.alertas.PuntoReorden;
+import com.empresa.inventario.busqueda.AutocompletadoNombres;
+import com.empresa.inventario.dao.InventarioBloqueadoException;
+import com.empresa.inventario.http.ServidorHttp;
+import com.empresa.inventario.informes.ResumenStock;
+import com.empresa.inventario.informes.SeriesStock;
+import com.empresa.inventario.model.EstadisticasCategoria;
+import com.empresa.inventario.model.OrdenProductos;
 import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.replicacion.ReplicaInventario;
+import com.empresa.inventario.replicacion.ServidorReplicacion;
 import com.empresa.inventario.service.InventarioService;
+import com.empresa.inventario.service.ProcesadorLotes;
+import com.empresa.inventario.util.ConfiguracionUtil;
 import com.empresa.inventario.util.RegistroUtil;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
@@ -18,7 +38,30 @@ public class Main {
     private static final InventarioService service = new InventarioService();
     private static final Scanner scanner = new Scanner(System.in);
     
+    /** Número de productos por página en los listados de consola */
+    private static final int TAMANO_PAGINA = 20;
+    
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args.length > 1 ? Integer.parseInt(args[1]) : ConfiguracionUtil.PUERTO_HTTP);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--replica")) {
+            iniciarReplica(args[1], args.length > 2 ? Integer.parseInt(args[2]) : ConfiguracionUtil.PUERTO_HTTP);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--compactar")) {
+            if (!service.compactarInventario()) {
+                System.exit(1);
+            }
+            System.out.println("[INFO] Inventario compactado e instantánea binaria regenerada");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--lotes")) {
+            procesarLote(args.length > 1 ? args[1] : null);
+            return;
+        }
+        
         System.out.println("╔════════════════════════════════════════╗");
         System.out.println("║   SISTEMA DE GESTIÓN DE INVENTARIO     ║");
         System.out.println("╚════════════════════════════════════════╝");
@@ -32,90 +75,215 @@ public class Main {
             mostrarMenuPrincipal();
             int opcion = leerOpcion();
             
-            switch (opcion) {
-                case 1: // Gestión de Inventario
-                    boolean volverInventario = false;
-                    while (!volverInventario) {
-                        mostrarMenuGestionInventario();
-                        int opcionInventario = leerOpcion();
-                        
-                        switch (opcionInventario) {
-                            case 1: // Listar productos
-                                listarProductos();
-                                break;
-                            case 2: // Buscar producto
-                                buscarProducto();
-                                break;
-                            case 3: // Añadir producto
-                                anadirProducto();
-                                break;
-                            case 4: // Modificar producto
-                                modificarProducto();
-                                break;
-                            case 5: // Eliminar producto
-                                eliminarProducto();
-                                break;
-                            case 6: // Productos con stock bajo
-                                productosStockBajo();
-                                break;
-                            case 0: // Volver al menú principal
-                                volverInventario = true;
-                                break;
-                            default: // Opción no válida
-                                System.out.println("\n[INFO] Opción no válida.");
+            try {
+                switch (opcion) {
+                    case 1: // Gestión de Inventario
+                        boolean volverInventario = false;
+                        while (!volverInventario) {
+                            mostrarMenuGestionInventario();
+                            int opcionInventario = leerOpcion();
+                            
+                            try {
+                                switch (opcionInventario) {
+                                    case 1: // Listar productos
+                                        listarProductos();
+                                        break;
+                                    case 2: // Buscar producto
+                                        buscarProducto();
+                                        break;
+                                    case 3: // Añadir producto
+                                        anadirProducto();
+                                        break;
+                                    case 4: // Modificar producto
+                                        modificarProducto();
+                                        break;
+                                    case 5: // Eliminar producto
+                                        eliminarProducto();
+                                        break;
+                                    case 6: // Productos con stock bajo
+                                        productosStockBajo();
+                                        break;
+                                    case 7: // Alertas de reabastecimiento
+                                        alertasReabastecimiento();
+                                        break;
+                                    case 8: // Configurar punto de reorden
+                                        configurarPuntoReorden();
+                                        break;
+                                    case 9: // Productos con más valor, precio o stock
+                                        mostrarPrimeros();
+                                        break;
+                                    case 0: // Volver al menú principal
+                                        volverInventario = true;
+                                        break;
+                                    default: // Opción no válida
+                                        System.out.println("\n[INFO] Opción no válida.");
+                                }
+                            } catch (InventarioBloqueadoException e) {
+                                avisarInventarioBloqueado(e);
+                            }
                         }
-                    }
-                    break;
-                    
-                case 2: // Consultar Historial
-                    consultarHistorial();
-                    break;
-                    
-                case 3: // Gestión de Backups
-                    boolean volverBackup = false;
-                    while (!volverBackup) {
-                        mostrarMenuBackup();
-                        int opcionBackup = leerOpcion();
+                        break;
                         
-                        switch (opcionBackup) {
-                            case 1: // Crear backup
-                                service.crearBackup();
-                                break;
-                            case 2: // Listar backups
-                                listarBackups();
-                                break;
-                            case 3: // Restaurar backup
-                                restaurarBackup();
-                                break;
-                            case 4: // Información de backups
-                                System.out.println("\n" + service.obtenerInfoBackups());
-                                break;
-                            case 0: // Volver al menú principal
-                                volverBackup = true;
-                                break;
-                            default: // Opción no válida
-                                System.out.println("\n[INFO] Opción no válida.");
+                    case 2: // Consultar Historial
+                        consultarHistorial();
+                        break;
+                        
+                    case 3: // Gestión de Backups
+                        boolean volverBackup = false;
+                        while (!volverBackup) {
+                            mostrarMenuBackup();
+                            int opcionBackup = leerOpcion();
+                            
+                            try {
+                                switch (opcionBackup) {
+                                    case 1: // Crear backup
+                                        service.crearBackup();
+                                        break;
+                                    case 2: // Listar backups
+                                        listarBackups();
+                                        break;
+                                    case 3: // Restaurar backup
+                                        restaurarBackup();
+                                        break;
+                                    case 4: // Información de backups
+                                        System.out.println("\n" + service.obtenerInfoBackups());
+                                        break;
+                                    case 0: // Volver al menú principal
+                                        volverBackup = true;
+                                        break;
+                                    default: // Opción no válida
+                                        System.out.println("\n[INFO] Opción no válida.");
+                                }
+                            } catch (InventarioBloqueadoException e) {
+                                avisarInventarioBloqueado(e);
+                            }
                         }
-                    }
-                    break;
-                    
-                case 4: // Estadísticas
-                    mostrarEstadisticas();
-                    break;
-                    
-                case 0: // Salir
-                    salir = true;
-                    System.out.println("\n¡Hasta pronto!");
-                    break;
-                    
-                default:
-                    System.out.println("\n❌ Opción no válida. Intente nuevamente.");
+                        break;
+                        
+                    case 4: // Estadísticas
+                        mostrarEstadisticas();
+                        break;
+                        
+                    case 5: // Evolución del stock
+                        mostrarEvolucionStock();
+                        break;
+                        
+                    case 0: // Salir
+                        salir = true;
+                        service.guardarInstantanea();
+                        System.out.println("\n¡Hasta pronto!");
+                        break;
+                        
+                    default:
+                        System.out.println("\n❌ Opción no válida. Intente nuevamente.");
+                }
+            } catch (InventarioBloqueadoException e) {
+                avisarInventarioBloqueado(e);
             }
         }
         
         scanner.close();
     }
     
+    /**
+     * Arranca el modo servidor: expone el inventario por HTTP en lugar de mostrar el menú
+     */
+    private static void iniciarServidor(int puerto) {
+        try {
+            ServidorHttp servidor = new ServidorHttp(service, puerto);
+            servidor.iniciar();
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.INICIALIZACION, 
+                    "Servidor HTTP iniciado en el puerto " + servidor.getPuerto());
+            System.out.println("[INFO] Servidor HTTP escuchando en http://localhost:" + servidor.getPuerto());
+            
+            ServidorReplicacion replicacion = ConfiguracionUtil.PUERTO_REPLICACION > 0
+                    ? iniciarReplicacion(ConfiguracionUtil.PUERTO_REPLICACION)
+                    : null;
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (replicacion != null) {
+                    replicacion.detener();
+                }
+                servidor.detener();
+                service.guardarInstantanea();
+            }));
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo iniciar el servidor HTTP: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Empieza a enviar los cambios del inventario a las réplicas que se conecten
+     * @return Servidor de replicación, o null si no se pudo iniciar
+     */
+    private static ServidorReplicacion iniciarReplicacion(int puerto) {
+        try {
+            ServidorReplicacion replicacion = new ServidorReplicacion(service, puerto);
+            if (!replicacion.iniciar()) {
+                replicacion.detener();
+                return null;
+            }
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.INICIALIZACION,
+                    "Replicación iniciada en el puerto " + replicacion.getPuerto());
+            System.out.println("[INFO] Réplicas aceptadas en el puerto " + replicacion.getPuerto());
+            return replicacion;
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo iniciar la replicación: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Arranca el modo réplica: sigue los cambios de un primario y expone el inventario replicado
+     * por HTTP en modo de solo lectura. Debe usar un directorio de datos propio (inventario.datos).
+     * @param primario Máquina y puerto de replicación del primario, como host:puerto
+     */
+    private static void iniciarReplica(String primario, int puertoHttp) {
+        int separador = primario.lastIndexOf(':');
+        if (separador <= 0) {
+            System.err.println("[ERROR] El primario se indica como host:puerto: " + primario);
+            return;
+        }
+        ReplicaInventario replica = new ReplicaInventario(service, primario.substring(0, separador),
+                Integer.parseInt(primario.substring(separador + 1)));
+        try {
+            ServidorHttp servidor = new ServidorHttp(service, puertoHttp, true);
+            replica.iniciar();
+            servidor.iniciar();
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.INICIALIZACION,
+                    "Réplica de " + primario + " iniciada, HTTP en el puerto " + servidor.getPuerto());
+            System.out.println("[INFO] Réplica de " + primario + " escuchando en http://localhost:" + servidor.getPuerto());
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                replica.detener();
+                servidor.detener();
+                service.guardarInstantanea();
+            }));
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo iniciar el servidor HTTP de la réplica: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Modo por lotes: procesa las operaciones de un archivo (o de la entrada estándar)
+     * sin mostrar el menú y termina mostrando el resumen
+     */
+    private static void procesarLote(String archivo) {
+        try (BufferedReader entrada = archivo != null
+                ? new BufferedReader(new FileReader(archivo))
+                : new BufferedReader(new InputStreamReader(System.in))) {
+            ProcesadorLotes.ResumenLote resumen = service.procesarLote(entrada, System.out);
+            System.out.println("\n=== RESUMEN DEL LOTE ===");
+            System.out.println(resumen);
+            if (!resumen.isGuardado()) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] No se pudo leer el lote: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
     // ==================== MÉTODOS DE MENÚ (SOLO MUESTRAN EL MENÚ) ====================
     
     /**
@@ -129,6 +297,7 @@ public class Main {
         System.out.println("│ 2. Consultar Historial de Operaciones  │");
         System.out.println("│ 3. Gestión de Copias de Seguridad      │");
         System.out.println("│ 4. Ver Estadísticas                    │");
+        System.out.println("│ 5. Evolución del Stock                 │");
         System.out.println("│ 0. Salir                               │");
         System.out.println("└────────────────────────────────────────┘");
         System.out.print("Seleccione una opción: ");
@@ -147,6 +316,9 @@ public class Main {
         System.out.println("│ 4. Modificar producto                  │");
         System.out.println("│ 5. Eliminar producto                   │");
         System.out.println("│ 6. Productos con stock bajo            │");
+        System.out.println("│ 7. Alertas de reabastecimiento         │");
+        System.out.println("│ 8. Configurar punto de reorden         │");
+        System.out.println("│ 9. Top productos (valor/precio/stock)  │");
         System.out.println("│ 0. Volver al menú principal            │");
         System.out.println("└────────────────────────────────────────┘");
         System.out.print("Seleccione una opción: ");
@@ -178,6 +350,7 @@ public class Main {
         System.out.println("│ 1. Buscar por ID                       │");
         System.out.println("│ 2. Buscar por nombre                   │");
         System.out.println("│ 3. Buscar por categoría                │");
+        System.out.println("│ 4. Autocompletar nombre                │");
         System.out.println("│ 0. Volver                              │");
         System.out.println("└────────────────────────────────────────┘");
         System.out.print("Seleccione una opción: ");
@@ -186,35 +359,64 @@ public class Main {
     // ==================== MÉTODOS DE FUNCIONALIDAD ====================
     
     /**
-     * Lista todos los productos
+     * Lista todos los productos página a página.
+     * Cada página se pide al servicio cuando el usuario la solicita, de modo que nunca
+     * se carga el inventario completo en memoria.
      */
     private static void listarProductos() {
         System.out.println("\n╔════════════════════════════════════════╗");
         System.out.println("║       LISTADO DE PRODUCTOS             ║");
         System.out.println("╚════════════════════════════════════════╝");
         
-        List<Producto> productos = service.listarProductos();
-        
-        if (productos.isEmpty()) {
-            System.out.println("[WARN] No hay productos en el inventario.");
-            return;
+        scanner.nextLine(); // Limpiar buffer
+        System.out.print("Ordenar por (id, nombre, categoria, precio, stock, valor) [id]: ");
+        String textoOrden = scanner.nextLine().trim();
+        OrdenProductos orden;
+        try {
+            orden = textoOrden.isEmpty() ? OrdenProductos.ID : OrdenProductos.desdeTexto(textoOrden);
+        } catch (IllegalArgumentException e) {
+            System.out.println("[WARN] Orden no válido, se ordenará por ID.");
+            orden = OrdenProductos.ID;
+        }
+        boolean descendente = false;
+        if (orden != OrdenProductos.ID) {
+            System.out.print("¿Orden descendente? (S/N) [N]: ");
+            descendente = scanner.nextLine().trim().equalsIgnoreCase("S");
         }
         
-        System.out.printf("%-6s %-30s %-20s %12s %8s%n", 
-                "ID", "NOMBRE", "CATEGORÍA", "PRECIO", "STOCK");
-        System.out.println("───────────────────────────────────────────────────────────────────────────────────");
-        
-        for (Producto p : productos) {
-            System.out.printf("%-6d %-30s %-20s %12.2f %8d%n",
-                    p.getIdProducto(),
-                    truncar(p.getNombre(), 30),
-                    truncar(p.getCategoria(), 20),
-                    p.getPrecio(),
-                    p.getStock());
+        int mostrados = 0;
+        int ultimoId = 0;
+        while (true) {
+            // Por ID se pagina por clave (coste constante por página); el resto, por desplazamiento
+            List<Producto> pagina = orden == OrdenProductos.ID
+                    ? service.listarDespuesDe(ultimoId, TAMANO_PAGINA)
+                    : service.listarPagina(mostrados, TAMANO_PAGINA, orden, descendente);
+            
+            if (pagina.isEmpty()) {
+                if (mostrados == 0) {
+                    System.out.println("[WARN] No hay productos en el inventario.");
+                    return;
+                }
+                break;
+            }
+            
+            System.out.printf("%n--- Página %d ---%n", mostrados / TAMANO_PAGINA + 1);
+            mostrarListaProductos(pagina);
+            mostrados += pagina.size();
+            ultimoId = pagina.get(pagina.size() - 1).getIdProducto();
+            
+            if (pagina.size() < TAMANO_PAGINA) {
+                break;
+            }
+            System.out.print("Enter para la siguiente página, 'q' para terminar: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                break;
+            }
         }
         
         System.out.println("═══════════════════════════════════════════════════════════════════════════════════");
-        System.out.println("[INFO] Total de productos: " + productos.size());
+        System.out.println("[INFO] Productos mostrados: " + mostrados);
+        RegistroUtil.registrarListado(mostrados);
     }
     
     /**
@@ -234,6 +436,9 @@ public class Main {
             case 3:
                 buscarPorCategoria();
                 break;
+            case 4:
+                autocompletarNombre();
+                break;
             case 0:
                 // Volver
                 break;
@@ -260,6 +465,27 @@ public class Main {
         }
     }
     
+    /**
+     * Sugiere productos cuyo nombre empieza por el texto indicado, ordenados por stock o por valor
+     */
+    private static void autocompletarNombre() {
+        System.out.print("\nIngrese el comienzo del nombre: ");
+        scanner.nextLine(); // Limpiar buffer
+        String prefijo = scanner.nextLine();
+        System.out.print("¿Ordenar por stock (1) o por valor (2)?: ");
+        AutocompletadoNombres.Criterio criterio = leerOpcion() == 2
+                ? AutocompletadoNombres.Criterio.VALOR
+                : AutocompletadoNombres.Criterio.STOCK;
+        
+        List<Producto> sugerencias = service.autocompletarNombres(prefijo, TAMANO_PAGINA, criterio);
+        if (sugerencias.isEmpty()) {
+            System.out.println("\n[INFO] No hay productos cuyo nombre empiece por: " + prefijo);
+        } else {
+            System.out.println("\n[INFO] Sugerencias (" + sugerencias.size() + "):");
+            mostrarListaProductos(sugerencias);
+        }
+    }
+    
     /**
      * Busca productos por nombre
      */
@@ -428,6 +654,92 @@ public class Main {
         }
     }
     
+    /**
+     * Muestra los productos que están bajo su punto de reorden
+     */
+    private static void alertasReabastecimiento() {
+        MotorAlertasReabastecimiento alertas = service.obtenerAlertasReabastecimiento();
+        if (alertas == null) {
+            System.out.println("\n[ERROR] Las alertas de reabastecimiento no están disponibles.");
+            return;
+        }
+        
+        List<Producto> productos = new ArrayList<>();
+        for (AlertaReabastecimiento alerta : alertas.getAlertasActivas()) {
+            productos.add(alerta.getProducto());
+        }
+        if (productos.isEmpty()) {
+            System.out.println("\n[INFO] No hay productos bajo su punto de reorden.");
+        } else {
+            productos.sort(Comparator.comparingInt(Producto::getIdProducto));
+            System.out.println("\n[WARN] Productos bajo su punto de reorden (" + productos.size() + "):");
+            mostrarListaProductos(productos);
+        }
+    }
+    
+    /**
+     * Configura el punto de reorden de un producto o de una categoría
+     */
+    private static void configurarPuntoReorden() {
+        MotorAlertasReabastecimiento alertas = service.obtenerAlertasReabastecimiento();
+        if (alertas == null) {
+            System.out.println("\n[ERROR] Las alertas de reabastecimiento no están disponibles.");
+            return;
+        }
+        
+        System.out.print("\n¿Para un producto (1) o una categoría (2)?: ");
+        int tipo = leerOpcion();
+        if (tipo != 1 && tipo != 2) {
+            System.out.println("\n[INFO] Opción no válida.");
+            return;
+        }
+        scanner.nextLine(); // Limpiar buffer
+        System.out.print(tipo == 1 ? "ID del producto: " : "Categoría: ");
+        String clave = scanner.nextLine().trim();
+        System.out.print("Punto de reorden (vacío para quitarlo): ");
+        String punto = scanner.nextLine().trim();
+        
+        try {
+            PuntoReorden puntoReorden = null;
+            if (!punto.isEmpty()) {
+                System.out.print("Histéresis: ");
+                puntoReorden = new PuntoReorden(Integer.parseInt(punto), Integer.parseInt(scanner.nextLine().trim()));
+            }
+            boolean guardado = tipo == 1
+                    ? alertas.establecerPuntoProducto(Integer.parseInt(clave), puntoReorden)
+                    : alertas.establecerPuntoCategoria(clave, puntoReorden);
+            System.out.println(guardado
+                    ? "\n[INFO] Punto de reorden actualizado."
+                    : "\n[ERROR] No se pudo guardar el punto de reorden.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n[ERROR] " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Muestra los productos con más valor, precio o stock
+     */
+    private static void mostrarPrimeros() {
+        System.out.print("\n¿Por valor (1), precio (2) o stock (3)?: ");
+        int opcion = leerOpcion();
+        OrdenProductos criterio = opcion == 2 ? OrdenProductos.PRECIO
+                : opcion == 3 ? OrdenProductos.STOCK
+                : OrdenProductos.VALOR;
+        System.out.print("¿Cuántos productos?: ");
+        int k = leerOpcion();
+        if (k <= 0) {
+            k = TAMANO_PAGINA;
+        }
+        
+        List<Producto> productos = service.obtenerPrimeros(criterio, k);
+        if (productos.isEmpty()) {
+            System.out.println("\n[INFO] No hay productos en el inventario.");
+        } else {
+            System.out.println("\n[INFO] Top " + productos.size() + " por " + criterio.name().toLowerCase() + ":");
+            mostrarListaProductos(productos);
+        }
+    }
+    
     /**
      * Consulta el historial de operaciones
      */
@@ -503,14 +815,73 @@ public class Main {
         System.out.println("║      ESTADÍSTICAS DEL INVENTARIO       ║");
         System.out.println("╚════════════════════════════════════════╝");
         System.out.println("\n" + service.obtenerEstadisticas());
+        
+        List<EstadisticasCategoria> categorias = service.obtenerEstadisticasCategorias();
+        if (!categorias.isEmpty()) {
+            System.out.println("\nPor categoría (stock bajo: ≤ " + ConfiguracionUtil.PUNTO_REORDEN + " unidades):");
+            System.out.printf("%-20s %8s %10s %14s %12s %10s %10s %9s%n",
+                    "CATEGORÍA", "PROD.", "STOCK", "VALOR", "VALOR MEDIO", "P. MÍN.", "P. MÁX.", "S. BAJO");
+            System.out.println("─────────────────────────────────────────────────────────────────────────────────────────────────");
+            for (EstadisticasCategoria categoria : categorias) {
+                System.out.println(categoria);
+            }
+        }
         System.out.println("\n╔════════════════════════════════════════╗");
         System.out.println("║      INFORMACIÓN DE BACKUPS            ║");
         System.out.println("╚════════════════════════════════════════╝");
         System.out.println("\n" + service.obtenerInfoBackups());
     }
     
+    /**
+     * Muestra la evolución del stock de un producto o de una categoría por horas o por días
+     */
+    private static void mostrarEvolucionStock() {
+        System.out.print("\n¿De un producto (1) o de una categoría (2)?: ");
+        int tipo = leerOpcion();
+        if (tipo != 1 && tipo != 2) {
+            System.out.println("\n[INFO] Opción no válida.");
+            return;
+        }
+        scanner.nextLine(); // Limpiar buffer
+        System.out.print(tipo == 1 ? "ID del producto: " : "Categoría: ");
+        String clave = scanner.nextLine().trim();
+        System.out.print("¿Por horas (1) o por días (2)?: ");
+        SeriesStock.Resolucion resolucion = leerOpcion() == 1 ? SeriesStock.Resolucion.HORA : SeriesStock.Resolucion.DIA;
+        System.out.print("¿Cuántos días hacia atrás?: ");
+        int dias = leerOpcion();
+        if (dias <= 0) {
+            dias = 7;
+        }
+        
+        long hasta = System.currentTimeMillis();
+        long desde = hasta - dias * 24L * 60 * 60 * 1000;
+        try {
+            List<ResumenStock> resumenes = tipo == 1
+                    ? service.resumirStock(Integer.parseInt(clave), desde, hasta, resolucion)
+                    : service.resumirStockCategoria(clave, desde, hasta, resolucion);
+            if (resumenes.isEmpty()) {
+                System.out.println("\n[INFO] No hay datos de stock para: " + clave);
+                return;
+            }
+            System.out.printf("%n%-19s %10s %10s %10s%n", "INICIO", "MÍNIMO", "MÁXIMO", "FINAL");
+            System.out.println("──────────────────────────────────────────────────────");
+            for (ResumenStock resumen : resumenes) {
+                System.out.println(resumen);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n[ERROR] " + e.getMessage());
+        }
+    }
+    
     // ==================== MÉTODOS AUXILIARES ====================
     
+    /**
+     * Avisa de que la operación no se ha hecho porque otro proceso retiene el bloqueo del inventario
+     */
+    private static void avisarInventarioBloqueado(InventarioBloqueadoException e) {
+        System.out.println("\n[ERROR] " + e.getMessage() + ". Inténtelo de nuevo más tarde.");
+    }
+    
     /**
      * Lee una opción numérica del usuario
      */
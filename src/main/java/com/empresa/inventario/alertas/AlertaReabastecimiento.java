@@ -0,0 +1,58 @@
+package com.empresa.inventario.alertas;
+
+import com.empresa.inventario.model.Producto;
+
+/**
+ * Alerta de reabastecimiento: un producto ha cruzado su punto de reorden hacia abajo (ACTIVADA)
+ * o se ha repuesto por encima de su nivel de rearme (RESUELTA).
+ */
+public final class AlertaReabastecimiento {
+    
+    /** Tipos de alerta */
+    public enum Tipo {
+        ACTIVADA, RESUELTA
+    }
+    
+    private final Tipo tipo;
+    private final Producto producto;
+    private final PuntoReorden puntoReorden;
+    private final long instante;
+    
+    AlertaReabastecimiento(Tipo tipo, Producto producto, PuntoReorden puntoReorden, long instante) {
+        this.tipo = tipo;
+        this.producto = producto;
+        this.puntoReorden = puntoReorden;
+        this.instante = instante;
+    }
+    
+    public Tipo getTipo() {
+        return tipo;
+    }
+    
+    /** Producto en el momento de la alerta (o su última versión, si sigue activa) */
+    public Producto getProducto() {
+        return producto;
+    }
+    
+    public PuntoReorden getPuntoReorden() {
+        return puntoReorden;
+    }
+    
+    /** Instante en que se cruzó el umbral, en milisegundos desde 1970 */
+    public long getInstante() {
+        return instante;
+    }
+    
+    /**
+     * Copia de una alerta activa con la versión actual del producto, conservando el instante
+     */
+    AlertaReabastecimiento conProducto(Producto actual, PuntoReorden punto) {
+        return new AlertaReabastecimiento(tipo, actual, punto, instante);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("AlertaReabastecimiento[%s, ID=%d, Nombre=%s, Stock=%d, Punto=%s]",
+                tipo, producto.getIdProducto(), producto.getNombre(), producto.getStock(), puntoReorden);
+    }
+}
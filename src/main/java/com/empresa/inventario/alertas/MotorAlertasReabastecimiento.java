@@ -0,0 +1,322 @@
+package com.empresa.inventario.alertas;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Motor de alertas de reabastecimiento.
+ *
+ * Cada producto tiene un punto de reorden: el suyo propio si lo tiene, si no el de su categoría
+ * y si no el punto por defecto. El motor evalúa solo los productos que cambian (se suscribe al
+ * flujo de cambios del inventario) y genera una alerta únicamente cuando un producto cruza su
+ * umbral: ACTIVADA al bajar hasta el punto de reorden y RESUELTA al superar el nivel de rearme.
+ * Mientras el producto sigue bajo el punto no se repite la alerta, aunque su stock cambie.
+ *
+ * Los productos bajo el punto de reorden se mantienen en un conjunto vivo que se consulta
+ * sin recorrer el inventario. Los puntos por producto y por categoría se guardan en
+ * data/puntos_reorden.txt con líneas {@code PRODUCTO;id;punto;histeresis} o
+ * {@code CATEGORIA;nombre;punto;histeresis}.
+ */
+public class MotorAlertasReabastecimiento implements Flow.Subscriber<EventoCambio> {
+    
+    private static final MetricasOperacion METRICAS_EVALUAR = RegistroMetricas.operacion("MotorAlertasReabastecimiento.evaluar");
+    
+    private static final String TIPO_PRODUCTO = "PRODUCTO";
+    private static final String TIPO_CATEGORIA = "CATEGORIA";
+    
+    private final Path archivoPuntos;
+    private final PuntoReorden puntoPorDefecto;
+    private final Map<Integer, PuntoReorden> puntosProducto = new HashMap<>();
+    private final Map<String, PuntoReorden> puntosCategoria = new HashMap<>();
+    
+    /** Última versión conocida de cada producto, para reevaluarlo si cambia su punto de reorden */
+    private final Map<Integer, Producto> productos = new HashMap<>();
+    
+    /** Conjunto vivo de productos bajo el punto de reorden (ID -> alerta activa) */
+    private final Map<Integer, AlertaReabastecimiento> activas = new ConcurrentHashMap<>();
+    
+    private final List<Consumer<AlertaReabastecimiento>> oyentes = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Constructor del motor; carga los puntos de reorden guardados
+     * @param archivoPuntos Archivo con los puntos de reorden por producto y por categoría
+     * @param puntoPorDefecto Punto de reorden de los productos sin punto propio ni de categoría
+     */
+    public MotorAlertasReabastecimiento(Path archivoPuntos, PuntoReorden puntoPorDefecto) {
+        this.archivoPuntos = archivoPuntos;
+        this.puntoPorDefecto = puntoPorDefecto;
+        cargarPuntos();
+    }
+    
+    // ==================== EVALUACIÓN ====================
+    
+    /**
+     * Evalúa un cambio de un producto. Solo hace trabajo proporcional a ese producto.
+     * @param antes Producto antes del cambio (null en un alta o en la carga inicial)
+     * @param despues Producto después del cambio (null en una baja)
+     */
+    public synchronized void evaluar(Producto antes, Producto despues) {
+        long inicio = METRICAS_EVALUAR.iniciar();
+        try {
+            if (despues == null) {
+                // Un producto eliminado ya no necesita reposición: sale del conjunto sin alerta
+                productos.remove(antes.getIdProducto());
+                activas.remove(antes.getIdProducto());
+                return;
+            }
+            productos.put(despues.getIdProducto(), despues);
+            comprobar(despues);
+        } finally {
+            METRICAS_EVALUAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Compara el stock de un producto con su punto de reorden y genera la alerta si cruza el umbral
+     */
+    private void comprobar(Producto producto) {
+        int id = producto.getIdProducto();
+        PuntoReorden punto = obtenerPunto(id, producto.getCategoria());
+        AlertaReabastecimiento activa = activas.get(id);
+        
+        if (activa == null) {
+            if (punto.activa(producto.getStock())) {
+                AlertaReabastecimiento alerta = new AlertaReabastecimiento(AlertaReabastecimiento.Tipo.ACTIVADA,
+                        producto, punto, System.currentTimeMillis());
+                activas.put(id, alerta);
+                notificar(alerta);
+            }
+        } else if (punto.rearma(producto.getStock())) {
+            activas.remove(id);
+            notificar(new AlertaReabastecimiento(AlertaReabastecimiento.Tipo.RESUELTA,
+                    producto, punto, System.currentTimeMillis()));
+        } else {
+            // Sigue bajo el punto (o dentro de la histéresis): se actualiza sin repetir la alerta
+            activas.put(id, activa.conProducto(producto, punto));
+        }
+    }
+    
+    private void notificar(AlertaReabastecimiento alerta) {
+        for (Consumer<AlertaReabastecimiento> oyente : oyentes) {
+            try {
+                oyente.accept(alerta);
+            } catch (RuntimeException e) {
+                System.err.println("Error en un oyente de alertas de reabastecimiento: " + e.getMessage());
+            }
+        }
+    }
+    
+    // ==================== SUSCRIPCIÓN AL FLUJO DE CAMBIOS ====================
+    
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        suscripcion.request(Long.MAX_VALUE);
+    }
+    
+    @Override
+    public void onNext(EventoCambio evento) {
+        evaluar(evento.getAntes(), evento.getDespues());
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("Las alertas de reabastecimiento han dejado de recibir cambios: " + error.getMessage());
+    }
+    
+    @Override
+    public void onComplete() {
+    }
+    
+    // ==================== CONSULTAS ====================
+    
+    /**
+     * Productos bajo el punto de reorden. Es una vista del conjunto vivo: no recorre el inventario.
+     * @return Alertas activas (vista no modificable)
+     */
+    public Collection<AlertaReabastecimiento> getAlertasActivas() {
+        return Collections.unmodifiableCollection(activas.values());
+    }
+    
+    /**
+     * Indica si un producto está bajo su punto de reorden
+     */
+    public boolean estaBajoPuntoReorden(int id) {
+        return activas.containsKey(id);
+    }
+    
+    /**
+     * Número de productos bajo el punto de reorden
+     */
+    public int getNumAlertasActivas() {
+        return activas.size();
+    }
+    
+    /**
+     * Registra un oyente que recibe cada alerta activada o resuelta.
+     * Se invoca en el hilo que entrega los cambios, así que no debe bloquearse.
+     */
+    public void agregarOyente(Consumer<AlertaReabastecimiento> oyente) {
+        oyentes.add(oyente);
+    }
+    
+    /**
+     * Registra los oyentes de otro motor, al que este sustituye (por ejemplo, tras recargar el inventario)
+     * @param anterior Motor sustituido
+     */
+    public void heredarOyentes(MotorAlertasReabastecimiento anterior) {
+        oyentes.addAll(anterior.oyentes);
+    }
+    
+    // ==================== PUNTOS DE REORDEN ====================
+    
+    /**
+     * Obtiene el punto de reorden que se aplica a un producto
+     * @param id ID del producto
+     * @param categoria Categoría del producto
+     * @return Punto del producto, de su categoría o el punto por defecto
+     */
+    public synchronized PuntoReorden obtenerPunto(int id, String categoria) {
+        PuntoReorden punto = puntosProducto.get(id);
+        if (punto == null && categoria != null) {
+            punto = puntosCategoria.get(claveCategoria(categoria));
+        }
+        return punto != null ? punto : puntoPorDefecto;
+    }
+    
+    /**
+     * Establece o quita el punto de reorden propio de un producto y lo reevalúa
+     * @param id ID del producto
+     * @param punto Punto de reorden (null para usar el de su categoría o el por defecto)
+     * @return true si se guardó la configuración
+     */
+    public synchronized boolean establecerPuntoProducto(int id, PuntoReorden punto) {
+        if (punto == null) {
+            puntosProducto.remove(id);
+        } else {
+            puntosProducto.put(id, punto);
+        }
+        
+        Producto producto = productos.get(id);
+        if (producto != null) {
+            comprobar(producto);
+        }
+        return guardarPuntos();
+    }
+    
+    /**
+     * Establece o quita el punto de reorden de una categoría y reevalúa sus productos
+     * @param categoria Nombre de la categoría (sin distinguir mayúsculas)
+     * @param punto Punto de reorden (null para usar el por defecto)
+     * @return true si se guardó la configuración
+     */
+    public synchronized boolean establecerPuntoCategoria(String categoria, PuntoReorden punto) {
+        String clave = claveCategoria(categoria);
+        if (clave.isEmpty() || clave.contains(";")) {
+            throw new IllegalArgumentException("Categoría no válida: " + categoria);
+        }
+        if (punto == null) {
+            puntosCategoria.remove(clave);
+        } else {
+            puntosCategoria.put(clave, punto);
+        }
+        
+        for (Producto producto : productos.values()) {
+            if (claveCategoria(producto.getCategoria()).equals(clave)) {
+                comprobar(producto);
+            }
+        }
+        return guardarPuntos();
+    }
+    
+    private static String claveCategoria(String categoria) {
+        return categoria.trim().toLowerCase();
+    }
+    
+    /**
+     * Carga los puntos de reorden guardados; las líneas no válidas se ignoran
+     */
+    private void cargarPuntos() {
+        if (!Files.exists(archivoPuntos)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(archivoPuntos, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank() || linea.startsWith("#")) {
+                    continue;
+                }
+                String[] partes = linea.split(";");
+                try {
+                    if (partes.length != 4) {
+                        throw new IllegalArgumentException("Se esperan 4 campos");
+                    }
+                    PuntoReorden punto = new PuntoReorden(Integer.parseInt(partes[2].trim()),
+                            Integer.parseInt(partes[3].trim()));
+                    if (partes[0].equals(TIPO_PRODUCTO)) {
+                        puntosProducto.put(Integer.parseInt(partes[1].trim()), punto);
+                    } else if (partes[0].equals(TIPO_CATEGORIA)) {
+                        puntosCategoria.put(claveCategoria(partes[1]), punto);
+                    } else {
+                        throw new IllegalArgumentException("Tipo desconocido: " + partes[0]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Punto de reorden ignorado (" + e.getMessage() + "): " + linea);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer los puntos de reorden: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Guarda los puntos de reorden con un archivo temporal y un renombrado atómico
+     */
+    private boolean guardarPuntos() {
+        try {
+            if (archivoPuntos.getParent() != null) {
+                Files.createDirectories(archivoPuntos.getParent());
+            }
+            Path temporal = archivoPuntos.resolveSibling(archivoPuntos.getFileName() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporal.toFile()), StandardCharsets.UTF_8)) {
+                writer.write("# tipo;clave;punto;histeresis\n");
+                for (Map.Entry<String, PuntoReorden> entrada : new TreeMap<>(puntosCategoria).entrySet()) {
+                    escribirPunto(writer, TIPO_CATEGORIA, entrada.getKey(), entrada.getValue());
+                }
+                for (Map.Entry<Integer, PuntoReorden> entrada : new TreeMap<>(puntosProducto).entrySet()) {
+                    escribirPunto(writer, TIPO_PRODUCTO, String.valueOf(entrada.getKey()), entrada.getValue());
+                }
+            }
+            Files.move(temporal, archivoPuntos, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al guardar los puntos de reorden: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private static void escribirPunto(Writer writer, String tipo, String clave, PuntoReorden punto) throws IOException {
+        writer.write(tipo + ";" + clave + ";" + punto.getPunto() + ";" + punto.getHisteresis() + "\n");
+    }
+}
@@ -0,0 +1,63 @@
+package com.empresa.inventario.alertas;
+
+/**
+ * Punto de reorden de un producto o de una categoría.
+ *
+ * Un producto queda bajo el punto de reorden cuando su stock es menor o igual que {@link #getPunto()}
+ * y no vuelve a considerarse repuesto hasta que su stock supera {@link #getNivelRearme()}
+ * (punto + histéresis). Así, un stock que oscila alrededor del punto no genera una alerta
+ * en cada movimiento.
+ */
+public final class PuntoReorden {
+    
+    private final int punto;
+    private final int histeresis;
+    
+    /**
+     * Constructor del punto de reorden
+     * @param punto Stock a partir del cual (incluido) hay que reponer
+     * @param histeresis Unidades por encima del punto que debe superar el stock para rearmar la alerta
+     * @throws IllegalArgumentException si algún valor es negativo
+     */
+    public PuntoReorden(int punto, int histeresis) {
+        if (punto < 0 || histeresis < 0) {
+            throw new IllegalArgumentException("El punto de reorden y la histéresis no pueden ser negativos");
+        }
+        this.punto = punto;
+        this.histeresis = histeresis;
+    }
+    
+    public int getPunto() {
+        return punto;
+    }
+    
+    public int getHisteresis() {
+        return histeresis;
+    }
+    
+    /**
+     * Stock que hay que superar para que el producto deje de estar bajo el punto de reorden
+     */
+    public int getNivelRearme() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) punto + histeresis);
+    }
+    
+    /**
+     * Indica si un stock dispara la alerta de reabastecimiento
+     */
+    public boolean activa(int stock) {
+        return stock <= punto;
+    }
+    
+    /**
+     * Indica si un stock resuelve una alerta activa
+     */
+    public boolean rearma(int stock) {
+        return stock > getNivelRearme();
+    }
+    
+    @Override
+    public String toString() {
+        return "≤ " + punto + " (rearme > " + getNivelRearme() + ")";
+    }
+}
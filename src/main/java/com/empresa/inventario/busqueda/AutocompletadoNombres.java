@@ -0,0 +1,418 @@
+package com.empresa.inventario.busqueda;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletado de nombres de producto por prefijo.
+ *
+ * Los nombres se normalizan (minúsculas, sin tildes y con los espacios simplificados) y se guardan
+ * en un trie comprimido (árbol radix): cada arista lleva un fragmento de texto y los nodos con un
+ * único hijo se fusionan. Cada nodo guarda, para cada criterio de ordenación, la puntuación máxima
+ * de su subárbol; así las k mejores sugerencias de un prefijo se obtienen con una búsqueda
+ * "primero el mejor" que solo abre las ramas que pueden aportar resultados, en un tiempo que
+ * depende de la longitud del prefijo y de k y no del número de productos.
+ *
+ * El índice se mantiene al día de forma incremental suscrito al flujo de cambios del inventario:
+ * un alta inserta el nombre, un cambio de nombre lo mueve y una baja lo elimina.
+ */
+public class AutocompletadoNombres implements Flow.Subscriber<EventoCambio> {
+    
+    /** Criterios de ordenación de las sugerencias */
+    public enum Criterio {
+        /** Unidades en stock */
+        STOCK,
+        /** Valor del stock (precio × stock) */
+        VALOR;
+        
+        /**
+         * Obtiene el criterio a partir de su nombre
+         * @param texto Nombre del criterio (stock o valor)
+         * @throws IllegalArgumentException si el nombre no es válido
+         */
+        public static Criterio desdeTexto(String texto) {
+            try {
+                return valueOf(texto.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Criterio no válido: " + texto + " (use stock o valor)");
+            }
+        }
+    }
+    
+    private static final MetricasOperacion METRICAS_AUTOCOMPLETAR = RegistroMetricas.operacion("AutocompletadoNombres.autocompletar");
+    private static final int NUM_CRITERIOS = Criterio.values().length;
+    
+    private final Nodo raiz = new Nodo("", null);
+    
+    /** Nodo en el que termina el nombre de cada producto, para eliminarlo sin buscarlo */
+    private final Map<Integer, Nodo> nodoPorId = new HashMap<>();
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    
+    // ==================== CONSULTA ====================
+    
+    /**
+     * Obtiene las k mejores sugerencias para un prefijo
+     * @param prefijo Comienzo del nombre (se normaliza igual que los nombres)
+     * @param k Número máximo de sugerencias
+     * @param criterio Criterio de ordenación (de mayor a menor)
+     * @return Productos cuyo nombre empieza por el prefijo, ordenados por el criterio
+     */
+    public List<Producto> autocompletar(String prefijo, int k, Criterio criterio) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        
+        long inicio = METRICAS_AUTOCOMPLETAR.iniciar();
+        bloqueo.readLock().lock();
+        try {
+            Nodo subarbol = buscarSubarbol(normalizar(prefijo));
+            if (subarbol == null) {
+                return Collections.emptyList();
+            }
+            return mejores(subarbol, k, criterio.ordinal());
+        } finally {
+            bloqueo.readLock().unlock();
+            METRICAS_AUTOCOMPLETAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Número de productos indexados
+     */
+    public int getNumProductos() {
+        bloqueo.readLock().lock();
+        try {
+            return nodoPorId.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Desciende por el trie siguiendo el prefijo
+     * @return Nodo cuyo subárbol contiene todos los nombres con ese prefijo, o null si no hay ninguno
+     */
+    private Nodo buscarSubarbol(String prefijo) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < prefijo.length()) {
+            Nodo hijo = nodo.hijos.get(prefijo.charAt(posicion));
+            if (hijo == null) {
+                return null;
+            }
+            int comunes = prefijoComun(hijo.etiqueta, prefijo, posicion);
+            if (posicion + comunes == prefijo.length()) {
+                // El prefijo termina dentro (o al final) de la arista: todo el subárbol coincide
+                return hijo;
+            }
+            if (comunes < hijo.etiqueta.length()) {
+                return null;
+            }
+            posicion += comunes;
+            nodo = hijo;
+        }
+        return nodo;
+    }
+    
+    /**
+     * Búsqueda "primero el mejor": la cola contiene productos (con su puntuación exacta) y nodos
+     * (con la puntuación máxima de su subárbol como cota). Un producto que sale de la cola no puede
+     * ser superado por nada de lo que queda, así que se añade directamente al resultado.
+     */
+    private static List<Producto> mejores(Nodo subarbol, int k, int criterio) {
+        PriorityQueue<Candidato> cola = new PriorityQueue<>();
+        cola.add(new Candidato(subarbol.maximos[criterio], subarbol, null));
+        List<Producto> resultado = new ArrayList<>(k);
+        
+        while (!cola.isEmpty() && resultado.size() < k) {
+            Candidato candidato = cola.poll();
+            if (candidato.entrada != null) {
+                resultado.add(candidato.entrada.producto);
+                continue;
+            }
+            for (Entrada entrada : candidato.nodo.productos.values()) {
+                cola.add(new Candidato(entrada.puntuaciones[criterio], null, entrada));
+            }
+            for (Nodo hijo : candidato.nodo.hijos.values()) {
+                cola.add(new Candidato(hijo.maximos[criterio], hijo, null));
+            }
+        }
+        return resultado;
+    }
+    
+    // ==================== ACTUALIZACIÓN ====================
+    
+    /**
+     * Aplica un cambio de un producto al índice
+     * @param antes Producto antes del cambio (null en un alta o en la carga inicial)
+     * @param despues Producto después del cambio (null en una baja)
+     */
+    public void aplicar(Producto antes, Producto despues) {
+        bloqueo.writeLock().lock();
+        try {
+            int id = despues != null ? despues.getIdProducto() : antes.getIdProducto();
+            eliminar(id);
+            if (despues != null) {
+                insertar(despues);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+    
+    private void insertar(Producto producto) {
+        String nombre = normalizar(producto.getNombre());
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < nombre.length()) {
+            char primero = nombre.charAt(posicion);
+            Nodo hijo = nodo.hijos.get(primero);
+            if (hijo == null) {
+                hijo = new Nodo(nombre.substring(posicion), nodo);
+                nodo.hijos.put(primero, hijo);
+                nodo = hijo;
+                break;
+            }
+            int comunes = prefijoComun(hijo.etiqueta, nombre, posicion);
+            if (comunes < hijo.etiqueta.length()) {
+                hijo = dividir(hijo, comunes);
+            }
+            posicion += comunes;
+            nodo = hijo;
+        }
+        
+        Entrada entrada = new Entrada(producto);
+        nodo.productos.put(producto.getIdProducto(), entrada);
+        nodoPorId.put(producto.getIdProducto(), nodo);
+        // Una inserción solo puede subir los máximos del camino
+        for (Nodo n = nodo; n != null; n = n.padre) {
+            boolean cambiado = false;
+            for (int c = 0; c < NUM_CRITERIOS; c++) {
+                if (entrada.puntuaciones[c] > n.maximos[c]) {
+                    n.maximos[c] = entrada.puntuaciones[c];
+                    cambiado = true;
+                }
+            }
+            if (!cambiado) {
+                break;
+            }
+        }
+    }
+    
+    private void eliminar(int id) {
+        Nodo nodo = nodoPorId.remove(id);
+        if (nodo == null) {
+            return;
+        }
+        nodo.productos.remove(id);
+        
+        // Se quitan los nodos que quedan vacíos y se fusiona con su hijo el que queda con uno solo
+        while (nodo != raiz && nodo.productos.isEmpty() && nodo.hijos.size() <= 1) {
+            Nodo padre = nodo.padre;
+            boolean fusionado = !nodo.hijos.isEmpty();
+            if (fusionado) {
+                fusionarConHijo(nodo);
+            } else {
+                padre.hijos.remove(nodo.etiqueta.charAt(0));
+            }
+            nodo = padre;
+            if (fusionado) {
+                break;
+            }
+        }
+        
+        // Una eliminación puede bajar los máximos: se recalculan hacia arriba hasta el primer
+        // nodo cuyos máximos no cambian
+        Nodo actual = nodo;
+        while (actual != null && actual.recalcularMaximos()) {
+            actual = actual.padre;
+        }
+    }
+    
+    /**
+     * Divide la arista de un nodo tras los primeros caracteres de su etiqueta
+     * @return Nodo intermedio nuevo, que pasa a ser el padre del nodo dividido
+     */
+    private static Nodo dividir(Nodo nodo, int longitud) {
+        Nodo padre = nodo.padre;
+        Nodo intermedio = new Nodo(nodo.etiqueta.substring(0, longitud), padre);
+        padre.hijos.put(intermedio.etiqueta.charAt(0), intermedio);
+        
+        nodo.etiqueta = nodo.etiqueta.substring(longitud);
+        nodo.padre = intermedio;
+        intermedio.hijos.put(nodo.etiqueta.charAt(0), nodo);
+        System.arraycopy(nodo.maximos, 0, intermedio.maximos, 0, NUM_CRITERIOS);
+        return intermedio;
+    }
+    
+    /**
+     * Sustituye un nodo sin productos por su único hijo, concatenando las etiquetas
+     */
+    private static void fusionarConHijo(Nodo nodo) {
+        Nodo hijo = nodo.hijos.values().iterator().next();
+        hijo.etiqueta = nodo.etiqueta + hijo.etiqueta;
+        hijo.padre = nodo.padre;
+        nodo.padre.hijos.put(hijo.etiqueta.charAt(0), hijo);
+    }
+    
+    // ==================== SUSCRIPCIÓN AL FLUJO DE CAMBIOS ====================
+    
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        suscripcion.request(Long.MAX_VALUE);
+    }
+    
+    @Override
+    public void onNext(EventoCambio evento) {
+        aplicar(evento.getAntes(), evento.getDespues());
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("El autocompletado de nombres ha dejado de recibir cambios: " + error.getMessage());
+    }
+    
+    @Override
+    public void onComplete() {
+    }
+    
+    // ==================== UTILIDADES ====================
+    
+    /**
+     * Normaliza un nombre para compararlo: minúsculas, sin tildes ni diéresis y con los
+     * espacios iniciales, finales y repetidos eliminados
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+    
+    /**
+     * Número de caracteres iniciales de la etiqueta que coinciden con el texto desde una posición
+     */
+    private static int prefijoComun(String etiqueta, String texto, int desde) {
+        int maximo = Math.min(etiqueta.length(), texto.length() - desde);
+        int i = 0;
+        while (i < maximo && etiqueta.charAt(i) == texto.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Puntuación de un producto para cada criterio
+     */
+    private static long[] puntuar(Producto producto) {
+        long[] puntuaciones = new long[NUM_CRITERIOS];
+        puntuaciones[Criterio.STOCK.ordinal()] = producto.getStock();
+        // Valor en céntimos para comparar con enteros
+        puntuaciones[Criterio.VALOR.ordinal()] = producto.getValorStock()
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValue();
+        return puntuaciones;
+    }
+    
+    /**
+     * Nodo del trie: la arista que llega a él lleva la etiqueta, y los productos cuyo nombre
+     * normalizado termina aquí cuelgan del propio nodo
+     */
+    private static final class Nodo {
+        private String etiqueta;
+        private Nodo padre;
+        private final Map<Character, Nodo> hijos = new HashMap<>(4);
+        private final Map<Integer, Entrada> productos = new HashMap<>(2);
+        
+        /** Puntuación máxima del subárbol para cada criterio (Long.MIN_VALUE si está vacío) */
+        private final long[] maximos = new long[NUM_CRITERIOS];
+        
+        Nodo(String etiqueta, Nodo padre) {
+            this.etiqueta = etiqueta;
+            this.padre = padre;
+            Arrays.fill(maximos, Long.MIN_VALUE);
+        }
+        
+        /**
+         * Recalcula los máximos a partir de sus productos y de sus hijos
+         * @return true si alguno ha cambiado
+         */
+        boolean recalcularMaximos() {
+            boolean cambiado = false;
+            for (int c = 0; c < NUM_CRITERIOS; c++) {
+                long maximo = Long.MIN_VALUE;
+                for (Entrada entrada : productos.values()) {
+                    maximo = Math.max(maximo, entrada.puntuaciones[c]);
+                }
+                for (Nodo hijo : hijos.values()) {
+                    maximo = Math.max(maximo, hijo.maximos[c]);
+                }
+                if (maximo != maximos[c]) {
+                    maximos[c] = maximo;
+                    cambiado = true;
+                }
+            }
+            return cambiado;
+        }
+    }
+    
+    /**
+     * Producto indexado con sus puntuaciones precalculadas
+     */
+    private static final class Entrada {
+        private final Producto producto;
+        private final long[] puntuaciones;
+        
+        Entrada(Producto producto) {
+            this.producto = producto;
+            this.puntuaciones = puntuar(producto);
+        }
+    }
+    
+    /**
+     * Elemento de la cola de la búsqueda: un producto o un nodo por explorar.
+     * A igual puntuación van antes los productos (y entre ellos, el de menor ID).
+     */
+    private static final class Candidato implements Comparable<Candidato> {
+        private final long puntuacion;
+        private final Nodo nodo;
+        private final Entrada entrada;
+        
+        Candidato(long puntuacion, Nodo nodo, Entrada entrada) {
+            this.puntuacion = puntuacion;
+            this.nodo = nodo;
+            this.entrada = entrada;
+        }
+        
+        @Override
+        public int compareTo(Candidato otro) {
+            int comparacion = Long.compare(otro.puntuacion, puntuacion);
+            if (comparacion != 0) {
+                return comparacion;
+            }
+            if ((entrada == null) != (otro.entrada == null)) {
+                return entrada != null ? -1 : 1;
+            }
+            return entrada != null
+                    ? Integer.compare(entrada.producto.getIdProducto(), otro.entrada.producto.getIdProducto())
+                    : 0;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.empresa.inventario.cambios;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diario de cambios en disco (data/cambios.log): una línea por evento, solo se añade al final.
+ * Es la fuente de la que leen todas las suscripciones, de modo que un consumidor lento no
+ * obliga a guardar eventos en memoria y uno que se reinicia puede volver a leer desde su posición.
+ *
+ * Al abrirlo se descarta una posible última línea incompleta (escritura cortada por una caída)
+ * y se recupera el último número de secuencia.
+ *
+ * Si otro proceso que comparte el directorio de datos añade eventos al diario, este lo detecta
+ * por el tamaño del archivo antes de numerar los suyos, de modo que la secuencia sigue siendo única.
+ */
+final class DiarioCambios {
+    
+    private static final int TAMANO_BLOQUE = 64 * 1024;
+    
+    private final Path archivo;
+    private long ultimaSecuencia;
+    private long tamano;
+    
+    /**
+     * Abre o crea el diario
+     * @param archivo Ruta del diario
+     * @throws IOException si no se puede leer o reparar
+     */
+    DiarioCambios(Path archivo) throws IOException {
+        this.archivo = archivo;
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        if (!Files.exists(archivo)) {
+            Files.createFile(archivo);
+        }
+        leerFinal(true);
+    }
+    
+    Path getArchivo() {
+        return archivo;
+    }
+    
+    /**
+     * Posición del final del diario y última secuencia escrita, leídas a la vez
+     * @return {tamaño en bytes, última secuencia}
+     */
+    synchronized long[] getFinal() {
+        actualizar();
+        return new long[] {tamano, ultimaSecuencia};
+    }
+    
+    /**
+     * Se pone al día con los eventos que otro proceso haya añadido al diario
+     * @return true si había eventos nuevos
+     */
+    synchronized boolean actualizar() {
+        try {
+            if (Files.size(archivo) <= tamano) {
+                return false;
+            }
+            long anterior = ultimaSecuencia;
+            leerFinal(false);
+            return ultimaSecuencia != anterior;
+        } catch (IOException e) {
+            System.err.println("Error al comprobar el final del diario de cambios: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Numera los eventos y los añade al final del diario con una sola escritura
+     * @param eventos Eventos sin numerar
+     * @return Eventos numerados, en el mismo orden
+     * @throws IOException si falla la escritura
+     */
+    synchronized List<EventoCambio> registrar(List<EventoCambio> eventos) throws IOException {
+        actualizar();
+        List<EventoCambio> numerados = new ArrayList<>(eventos.size());
+        StringBuilder texto = new StringBuilder();
+        long secuencia = ultimaSecuencia;
+        for (EventoCambio evento : eventos) {
+            EventoCambio numerado = evento.numerar(++secuencia);
+            numerados.add(numerado);
+            texto.append(numerado.toLinea()).append('\n');
+        }
+        
+        byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+        try (FileOutputStream salida = new FileOutputStream(archivo.toFile(), true)) {
+            salida.write(bytes);
+        }
+        ultimaSecuencia = secuencia;
+        tamano += bytes.length;
+        return numerados;
+    }
+    
+    /**
+     * Lee eventos completos a partir de una posición del diario
+     * @param posicion Posición en bytes desde la que se lee (inicio de una línea)
+     * @param desdeSecuencia Se omiten los eventos con secuencia menor
+     * @param maximo Número máximo de eventos que se devuelven
+     * @param destino Lista a la que se añaden los eventos leídos
+     * @return Posición siguiente al último evento consumido (leído u omitido)
+     * @throws IOException si falla la lectura
+     */
+    long leer(long posicion, long desdeSecuencia, int maximo, List<EventoCambio> destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_BLOQUE);
+            while (destino.size() < maximo) {
+                buffer.clear();
+                int leidos = canal.read(buffer, posicion);
+                if (leidos <= 0) {
+                    break;
+                }
+                
+                byte[] datos = buffer.array();
+                int inicioLinea = 0;
+                for (int i = 0; i < leidos && destino.size() < maximo; i++) {
+                    if (datos[i] != '\n') {
+                        continue;
+                    }
+                    int finLinea = i;
+                    int comienzo = inicioLinea;
+                    inicioLinea = i + 1;
+                    if (secuenciaDeLinea(datos, comienzo, finLinea) < desdeSecuencia) {
+                        // Evento ya entregado: basta con la secuencia, no se parsea la línea entera
+                        continue;
+                    }
+                    String linea = new String(datos, comienzo, finLinea - comienzo, StandardCharsets.UTF_8);
+                    try {
+                        destino.add(EventoCambio.desdeLinea(linea));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Error al parsear evento del diario de cambios: " + linea);
+                    }
+                }
+                
+                if (inicioLinea == 0) {
+                    // Solo hay una línea incompleta: se está escribiendo y se leerá la próxima vez
+                    break;
+                }
+                posicion += inicioLinea;
+            }
+        }
+        return posicion;
+    }
+    
+    /**
+     * Lee la secuencia del comienzo de una línea (los dígitos antes del primer ';')
+     * @return Secuencia, o Long.MAX_VALUE si la línea no empieza por un número
+     */
+    private static long secuenciaDeLinea(byte[] datos, int desde, int hasta) {
+        long secuencia = 0;
+        int i = desde;
+        while (i < hasta && datos[i] >= '0' && datos[i] <= '9') {
+            secuencia = secuencia * 10 + (datos[i] - '0');
+            i++;
+        }
+        return i == desde || i == hasta || datos[i] != ';' ? Long.MAX_VALUE : secuencia;
+    }
+    
+    /**
+     * Recupera el final del diario y la última secuencia
+     * @param reparar true para descartar una última línea incompleta; si no, solo se ignora
+     */
+    private void leerFinal(boolean reparar) throws IOException {
+        try (FileChannel canal = reparar
+                ? FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long fin = canal.size();
+            int longitud = (int) Math.min(fin, TAMANO_BLOQUE);
+            ByteBuffer cola = ByteBuffer.allocate(longitud);
+            canal.read(cola, fin - longitud);
+            byte[] datos = cola.array();
+            
+            int ultimoSalto = longitud - 1;
+            while (ultimoSalto >= 0 && datos[ultimoSalto] != '\n') {
+                ultimoSalto--;
+            }
+            if (ultimoSalto < longitud - 1) {
+                fin = fin - longitud + ultimoSalto + 1;
+                if (reparar) {
+                    System.err.println("Diario de cambios con una última línea incompleta: se descarta");
+                    canal.truncate(fin);
+                }
+            }
+            tamano = fin;
+            
+            if (ultimoSalto >= 0) {
+                int inicioLinea = ultimoSalto - 1;
+                while (inicioLinea >= 0 && datos[inicioLinea] != '\n') {
+                    inicioLinea--;
+                }
+                String linea = new String(datos, inicioLinea + 1, ultimoSalto - inicioLinea - 1, StandardCharsets.UTF_8);
+                try {
+                    ultimaSecuencia = EventoCambio.desdeLinea(linea).getSecuencia();
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Última línea del diario de cambios ilegible: " + linea, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.empresa.inventario.cambios;
+
+import com.empresa.inventario.model.Producto;
+
+/**
+ * Evento de cambio del inventario (alta, modificación o baja de un producto) con las versiones
+ * anterior y posterior del producto y un número de secuencia creciente y sin repeticiones.
+ *
+ * En el diario de cambios cada evento ocupa una línea:
+ * <pre>
+ * secuencia;tipo;instante;[producto anterior];[producto posterior]
+ * </pre>
+ * donde cada producto son sus 5 campos CSV, o 5 campos vacíos si no existe.
+ */
+public final class EventoCambio {
+    
+    /** Tipos de cambio */
+    public enum Tipo {
+        CREADO, ACTUALIZADO, ELIMINADO
+    }
+    
+    private static final String PRODUCTO_VACIO = ";;;;";
+    
+    private final long secuencia;
+    private final Tipo tipo;
+    private final long instante;
+    private final Producto antes;
+    private final Producto despues;
+    
+    private EventoCambio(long secuencia, Tipo tipo, long instante, Producto antes, Producto despues) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.instante = instante;
+        this.antes = antes;
+        this.despues = despues;
+    }
+    
+    /**
+     * Crea un evento todavía sin número de secuencia; se numera al publicarlo
+     * @param antes Producto antes del cambio (null en un alta)
+     * @param despues Producto después del cambio (null en una baja)
+     * @return Evento del tipo que corresponde
+     */
+    public static EventoCambio de(Producto antes, Producto despues) {
+        if (antes == null && despues == null) {
+            throw new IllegalArgumentException("Un cambio necesita al menos una versión del producto");
+        }
+        Tipo tipo = antes == null ? Tipo.CREADO : despues == null ? Tipo.ELIMINADO : Tipo.ACTUALIZADO;
+        return new EventoCambio(0, tipo, System.currentTimeMillis(), antes, despues);
+    }
+    
+    /**
+     * Copia del evento con su número de secuencia definitivo
+     */
+    EventoCambio numerar(long secuencia) {
+        return new EventoCambio(secuencia, tipo, instante, antes, despues);
+    }
+    
+    public long getSecuencia() {
+        return secuencia;
+    }
+    
+    public Tipo getTipo() {
+        return tipo;
+    }
+    
+    /** Instante del cambio en milisegundos desde 1970 */
+    public long getInstante() {
+        return instante;
+    }
+    
+    /** Producto antes del cambio, o null si es un alta */
+    public Producto getAntes() {
+        return antes;
+    }
+    
+    /** Producto después del cambio, o null si es una baja */
+    public Producto getDespues() {
+        return despues;
+    }
+    
+    public int getIdProducto() {
+        return despues != null ? despues.getIdProducto() : antes.getIdProducto();
+    }
+    
+    /**
+     * Línea del diario de cambios que representa el evento (sin salto de línea).
+     * Es también el formato en que se envía a las réplicas.
+     */
+    public String toLinea() {
+        return secuencia + ";" + tipo + ";" + instante + ";"
+                + (antes == null ? PRODUCTO_VACIO : antes.toCSV()) + ";"
+                + (despues == null ? PRODUCTO_VACIO : despues.toCSV());
+    }
+    
+    /**
+     * Crea un evento a partir de una línea del diario de cambios
+     * @throws IllegalArgumentException si la línea no tiene el formato esperado
+     */
+    public static EventoCambio desdeLinea(String linea) {
+        String[] partes = linea.split(";", -1);
+        if (partes.length != 13) {
+            throw new IllegalArgumentException("Formato de evento inválido. Se esperan 13 campos.");
+        }
+        try {
+            return new EventoCambio(Long.parseLong(partes[0]), Tipo.valueOf(partes[1]), Long.parseLong(partes[2]),
+                    producto(partes, 3), producto(partes, 8));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error al parsear números en el evento: " + linea, e);
+        }
+    }
+    
+    private static Producto producto(String[] partes, int desde) {
+        if (partes[desde].isEmpty()) {
+            return null;
+        }
+        return Producto.fromCSV(String.join(";", partes[desde], partes[desde + 1], partes[desde + 2],
+                partes[desde + 3], partes[desde + 4]));
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("EventoCambio[Secuencia=%d, Tipo=%s, ID=%d, Antes=%s, Después=%s]",
+                secuencia, tipo, getIdProducto(), antes, despues);
+    }
+}
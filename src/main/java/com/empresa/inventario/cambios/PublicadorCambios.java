@@ -0,0 +1,287 @@
+package com.empresa.inventario.cambios;
+
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publicador de los cambios del inventario como un {@link Flow.Publisher} de {@link EventoCambio}.
+ *
+ * Cada suscripción lee del diario de cambios en disco a su propio ritmo: solo se entregan tantos
+ * eventos como haya pedido el suscriptor con {@link Flow.Subscription#request(long)}, y los que
+ * aún no ha pedido siguen en el diario sin ocupar memoria (contrapresión).
+ *
+ * Con {@link #subscribe(Flow.Subscriber)} se reciben los cambios desde el momento de suscribirse.
+ * Con {@link #suscribir(String, Flow.Subscriber)} el consumidor tiene nombre y su posición se guarda
+ * en disco tras cada lote entregado; al volver a suscribirse (por ejemplo tras reiniciar la aplicación)
+ * continúa desde el primer evento que no llegó a procesar. La entrega es "al menos una vez": tras una
+ * caída pueden repetirse los eventos del último lote, que el consumidor reconoce por su secuencia.
+ * Un consumidor que guarda su posición por su cuenta (junto con su propio estado) se suscribe con
+ * {@link #suscribirDesde(long, Flow.Subscriber)}.
+ */
+public class PublicadorCambios implements Flow.Publisher<EventoCambio> {
+    
+    /** Eventos que se leen del diario de una vez para cada suscripción */
+    private static final int TAMANO_LOTE = 256;
+    
+    private static final MetricasOperacion METRICAS_PUBLICAR = RegistroMetricas.operacion("PublicadorCambios.publicar");
+    private static final MetricasOperacion METRICAS_ENTREGAR = RegistroMetricas.operacion("PublicadorCambios.entregar");
+    
+    private final DiarioCambios diario;
+    private final Path directorioPosiciones;
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final ExecutorService ejecutor = Executors.newCachedThreadPool(tarea -> {
+        Thread hilo = new Thread(tarea, "cambios-inventario");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    
+    /**
+     * Constructor del publicador
+     * @param archivoDiario Ruta del diario de cambios
+     * @param directorioPosiciones Directorio donde se guarda la posición de cada consumidor con nombre
+     * @throws IOException si no se puede abrir el diario
+     */
+    public PublicadorCambios(Path archivoDiario, Path directorioPosiciones) throws IOException {
+        this.diario = new DiarioCambios(archivoDiario);
+        this.directorioPosiciones = directorioPosiciones;
+    }
+    
+    /**
+     * Ruta del diario de cambios, para sincronizarlo con el disco según la política de durabilidad
+     */
+    public Path getArchivoDiario() {
+        return diario.getArchivo();
+    }
+    
+    /**
+     * Secuencia del último evento publicado (0 si el diario está vacío)
+     */
+    public long getUltimaSecuencia() {
+        return diario.getFinal()[1];
+    }
+    
+    /**
+     * Registra los eventos en el diario y avisa a las suscripciones.
+     * Debe llamarse en el mismo orden en que se aplicaron los cambios.
+     * @param eventos Eventos sin numerar
+     * @throws IOException si no se pueden escribir en el diario
+     */
+    public void publicar(List<EventoCambio> eventos) throws IOException {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        
+        long inicio = METRICAS_PUBLICAR.iniciar();
+        try {
+            diario.registrar(eventos);
+        } catch (IOException e) {
+            METRICAS_PUBLICAR.registrarError();
+            throw e;
+        } finally {
+            METRICAS_PUBLICAR.finalizar(inicio);
+        }
+        
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.programar();
+        }
+    }
+    
+    /**
+     * Avisa a las suscripciones si otro proceso que comparte el diario ha publicado eventos
+     * @return true si había eventos nuevos de otro proceso
+     */
+    public boolean ponerseAlDia() {
+        if (!diario.actualizar()) {
+            return false;
+        }
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.programar();
+        }
+        return true;
+    }
+    
+    /**
+     * Suscribe a los cambios que se publiquen a partir de ahora
+     * @param suscriptor Suscriptor
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super EventoCambio> suscriptor) {
+        long[] fin = diario.getFinal();
+        iniciar(new Suscripcion(suscriptor, null, fin[0], fin[1] + 1));
+    }
+    
+    /**
+     * Suscribe un consumidor con nombre que continúa desde su última posición guardada.
+     * La primera vez recibe todos los cambios del diario.
+     * @param consumidor Nombre del consumidor (letras, dígitos, guiones y guiones bajos)
+     * @param suscriptor Suscriptor
+     * @throws IllegalArgumentException si el nombre no es válido
+     */
+    public void suscribir(String consumidor, Flow.Subscriber<? super EventoCambio> suscriptor) {
+        if (consumidor == null || !consumidor.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Nombre de consumidor no válido: " + consumidor);
+        }
+        
+        long ultimaProcesada = 0;
+        Path archivoPosicion = directorioPosiciones.resolve(consumidor + ".offset");
+        try {
+            if (Files.exists(archivoPosicion)) {
+                ultimaProcesada = Long.parseLong(new String(Files.readAllBytes(archivoPosicion),
+                        StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Posición del consumidor '" + consumidor + "' ilegible, se empieza desde el principio: "
+                    + e.getMessage());
+        }
+        iniciar(new Suscripcion(suscriptor, archivoPosicion, 0, ultimaProcesada + 1));
+    }
+    
+    /**
+     * Suscribe a partir de una secuencia concreta; los eventos anteriores del diario se saltan
+     * sin parsearlos. Sirve a los consumidores que guardan su posición junto con su estado.
+     * @param siguiente Secuencia del primer evento que se quiere recibir
+     * @param suscriptor Suscriptor
+     */
+    public void suscribirDesde(long siguiente, Flow.Subscriber<? super EventoCambio> suscriptor) {
+        iniciar(new Suscripcion(suscriptor, null, 0, siguiente));
+    }
+    
+    private void iniciar(Suscripcion suscripcion) {
+        suscripciones.add(suscripcion);
+        suscripcion.suscriptor.onSubscribe(suscripcion);
+    }
+    
+    /**
+     * Suscripción que entrega los eventos del diario según la demanda del suscriptor.
+     * Las entregas se hacen en el ejecutor del publicador y nunca a la vez para una misma suscripción.
+     */
+    private final class Suscripcion implements Flow.Subscription {
+        private final Flow.Subscriber<? super EventoCambio> suscriptor;
+        private final Path archivoPosicion;
+        private final AtomicLong demanda = new AtomicLong();
+        private final AtomicInteger pendientes = new AtomicInteger();
+        private volatile boolean cancelada;
+        
+        /** Posición en bytes del diario y secuencia del siguiente evento a entregar */
+        private long posicion;
+        private long siguiente;
+        private long ultimaGuardada;
+        
+        Suscripcion(Flow.Subscriber<? super EventoCambio> suscriptor, Path archivoPosicion,
+                    long posicion, long siguiente) {
+            this.suscriptor = suscriptor;
+            this.archivoPosicion = archivoPosicion;
+            this.posicion = posicion;
+            this.siguiente = siguiente;
+            this.ultimaGuardada = siguiente - 1;
+        }
+        
+        @Override
+        public void request(long n) {
+            if (cancelada) {
+                return;
+            }
+            if (n <= 0) {
+                terminar(new IllegalArgumentException("La demanda debe ser positiva: " + n));
+                return;
+            }
+            demanda.accumulateAndGet(n, (actual, pedida) -> actual + pedida < 0 ? Long.MAX_VALUE : actual + pedida);
+            programar();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelada = true;
+            suscripciones.remove(this);
+        }
+        
+        /**
+         * Pide una entrega en el ejecutor; si ya hay una en curso, esa misma repetirá la lectura
+         */
+        void programar() {
+            if (!cancelada && pendientes.getAndIncrement() == 0) {
+                ejecutor.execute(this::drenar);
+            }
+        }
+        
+        private void drenar() {
+            do {
+                try {
+                    entregar();
+                } catch (IOException | RuntimeException e) {
+                    terminar(e);
+                    return;
+                }
+            } while (pendientes.decrementAndGet() != 0);
+        }
+        
+        private void entregar() throws IOException {
+            while (!cancelada && demanda.get() > 0) {
+                List<EventoCambio> lote = new ArrayList<>();
+                long inicio = METRICAS_ENTREGAR.iniciar();
+                long posicionAnterior = posicion;
+                posicion = diario.leer(posicion, siguiente, (int) Math.min(demanda.get(), TAMANO_LOTE), lote);
+                METRICAS_ENTREGAR.sumarBytesLeidos(posicion - posicionAnterior);
+                METRICAS_ENTREGAR.sumarFilasLeidas(lote.size());
+                METRICAS_ENTREGAR.finalizar(inicio);
+                if (lote.isEmpty()) {
+                    return;
+                }
+                
+                for (EventoCambio evento : lote) {
+                    if (cancelada) {
+                        break;
+                    }
+                    suscriptor.onNext(evento);
+                    siguiente = evento.getSecuencia() + 1;
+                    demanda.decrementAndGet();
+                }
+                guardarPosicion();
+            }
+        }
+        
+        /**
+         * Guarda en disco la secuencia del último evento entregado a un consumidor con nombre
+         */
+        private void guardarPosicion() throws IOException {
+            long ultima = siguiente - 1;
+            if (archivoPosicion == null || ultima == ultimaGuardada) {
+                return;
+            }
+            Files.createDirectories(archivoPosicion.getParent());
+            Path temporal = archivoPosicion.resolveSibling(archivoPosicion.getFileName() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporal.toFile()), StandardCharsets.UTF_8)) {
+                writer.write(Long.toString(ultima));
+            }
+            Files.move(temporal, archivoPosicion, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ultimaGuardada = ultima;
+        }
+        
+        private void terminar(Throwable error) {
+            if (cancelada) {
+                return;
+            }
+            cancel();
+            METRICAS_ENTREGAR.registrarError();
+            suscriptor.onError(error);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.model.Producto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Almacén del inventario en ranuras de tamaño fijo (data/inventario.dat).
+ * Como cada producto ocupa siempre el mismo número de bytes, modificar o eliminar un producto
+ * solo escribe su ranura con una escritura posicional, sin reescribir el archivo.
+ *
+ * Archivos:
+ * <pre>
+ * inventario.dat      Cabecera de 64 bytes + ranuras de 128 bytes
+ * inventario.dat.ext  Zona de desbordamiento para nombres y categorías que no caben en la ranura
+ * inventario.idx      Índice ID -&gt; ranura: un int por ID en la posición ID * 4 (ranura + 1, 0 = no existe)
+ * </pre>
+ *
+ * Cabecera: int mágico 'INVF' | short versión | short reservado | int tamaño de ranura
+ *           | int número de ranuras | int primera ranura libre (-1 = ninguna)
+ *
+ * Ranura:   byte estado (0 libre, 1 ocupada, 2 ocupada con textos desbordados) | int id | int stock
+ *           | long precio sin escala | byte escala | short longitud nombre | short longitud categoría
+ *           | int siguiente ranura libre | 102 bytes de textos (o long posición en la zona de desbordamiento)
+ *
+ * Las ranuras eliminadas forman una lista enlazada de ranuras libres que se reutilizan en las altas.
+ * Como el índice tiene una entrada por ID (en memoria y en disco), solo se admiten IDs entre 1 y
+ * {@link #ID_MAXIMO}: un único ID enorme reservaría espacio para todos los anteriores.
+ * El índice se comprueba en cada uso contra el ID guardado en la ranura; si no coincide
+ * (por ejemplo tras una caída entre la escritura de la ranura y la del índice) se reconstruye.
+ * El DAO lo usa bajo su bloqueo de lectura/escritura; como varias lecturas pueden coincidir y
+ * la búsqueda por ID puede reconstruir el índice, los métodos públicos están sincronizados.
+ */
+final class AlmacenRegistrosFijos {
+    
+    private static final int MAGICO = 0x494E5646; // "INVF"
+    private static final short VERSION = 1;
+    private static final int TAMANO_CABECERA = 64;
+    static final int TAMANO_RANURA = 128;
+    
+    /** Mayor ID admitido (el índice ocuparía como mucho 256 MB) */
+    static final int ID_MAXIMO = 64 * 1024 * 1024;
+    
+    private static final int POS_NUM_RANURAS = 12;
+    private static final int POS_PRIMERA_LIBRE = 16;
+    
+    private static final byte LIBRE = 0;
+    private static final byte OCUPADA = 1;
+    private static final byte DESBORDADA = 2;
+    
+    private static final int POS_TEXTOS = 26;
+    private static final int CAPACIDAD_TEXTOS = TAMANO_RANURA - POS_TEXTOS;
+    
+    private final FileChannel datos;
+    private final FileChannel desbordamiento;
+    private final FileChannel indice;
+    
+    private int numRanuras;
+    private int primeraLibre;
+    
+    /** Copia en memoria del índice: ranura + 1 de cada ID, 0 si el ID no existe */
+    private int[] ranuraPorId = new int[1024];
+    
+    /**
+     * Abre el almacén, creándolo vacío si no existe
+     * @param archivoDatos Ruta de inventario.dat (los otros archivos se crean a su lado)
+     * @param archivoIndice Ruta del índice ID -&gt; ranura
+     * @throws IOException si no se pueden abrir los archivos o el formato no es válido
+     */
+    AlmacenRegistrosFijos(Path archivoDatos, Path archivoIndice) throws IOException {
+        boolean nuevo = !Files.exists(archivoDatos) || Files.size(archivoDatos) < TAMANO_CABECERA;
+        this.datos = FileChannel.open(archivoDatos, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.desbordamiento = FileChannel.open(archivoDatos.resolveSibling(archivoDatos.getFileName() + ".ext"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean sinIndice = !Files.exists(archivoIndice);
+        this.indice = FileChannel.open(archivoIndice, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        
+        if (nuevo) {
+            numRanuras = 0;
+            primeraLibre = -1;
+            escribirCabecera();
+        } else {
+            ByteBuffer cabecera = leer(datos, 0, TAMANO_CABECERA);
+            if (cabecera.getInt() != MAGICO || cabecera.getShort() != VERSION) {
+                cerrar();
+                throw new IOException("Formato de " + archivoDatos + " no reconocido");
+            }
+            cabecera.getShort();
+            if (cabecera.getInt() != TAMANO_RANURA) {
+                cerrar();
+                throw new IOException("Tamaño de ranura no soportado en " + archivoDatos);
+            }
+            numRanuras = cabecera.getInt();
+            primeraLibre = cabecera.getInt();
+            
+            // Si la cabecera quedó atrasada tras una caída, el tamaño del archivo manda
+            long ranurasEnArchivo = (datos.size() - TAMANO_CABECERA) / TAMANO_RANURA;
+            if (ranurasEnArchivo != numRanuras) {
+                numRanuras = (int) ranurasEnArchivo;
+                reconstruirListaLibres();
+            }
+        }
+        
+        if (sinIndice || nuevo) {
+            reconstruirIndice();
+        } else {
+            cargarIndice();
+        }
+    }
+    
+    /**
+     * Número de ranuras del archivo, ocupadas o libres
+     */
+    int getNumRanuras() {
+        return numRanuras;
+    }
+    
+    /**
+     * Recorre los productos en el orden de las ranuras
+     * @param accion Acción que se ejecuta con cada producto
+     * @return Bytes leídos
+     */
+    synchronized long recorrer(Consumer<Producto> accion) throws IOException {
+        return recorrer((producto, ranura) -> accion.accept(producto));
+    }
+    
+    /**
+     * Recorre los productos de un intervalo de ranuras, para leer el almacén por tramos
+     * @param desde Primera ranura que se lee
+     * @param cantidad Número máximo de ranuras que se leen
+     * @param accion Acción que se ejecuta con cada producto
+     * @return Ranura siguiente a la última leída (igual a {@link #getNumRanuras()} al llegar al final)
+     */
+    synchronized int recorrer(int desde, int cantidad, Consumer<Producto> accion) throws IOException {
+        int hasta = (int) Math.min(numRanuras, (long) desde + cantidad);
+        if (desde < hasta) {
+            recorrer(desde, hasta, (producto, ranura) -> accion.accept(producto));
+        }
+        return Math.max(desde, hasta);
+    }
+    
+    /**
+     * Recorre los productos en el orden de las ranuras leyendo bloques de muchas ranuras a la vez
+     * @param accion Acción que recibe cada producto y su número de ranura
+     * @return Bytes leídos
+     */
+    private long recorrer(ObjIntConsumer<Producto> accion) throws IOException {
+        return recorrer(0, numRanuras, accion);
+    }
+    
+    /**
+     * Recorre los productos de las ranuras [desde, hasta) leyendo bloques de muchas ranuras a la vez
+     * @param accion Acción que recibe cada producto y su número de ranura
+     * @return Bytes leídos
+     */
+    private long recorrer(int desde, int hasta, ObjIntConsumer<Producto> accion) throws IOException {
+        long posicion = posicionRanura(desde);
+        long fin = posicionRanura(hasta);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TAMANO_RANURA * 8192, Math.max(TAMANO_RANURA, fin - posicion)));
+        
+        while (posicion < fin) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), fin - posicion));
+            while (buffer.hasRemaining()) {
+                if (datos.read(buffer, posicion + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            if (buffer.limit() == 0) {
+                break;
+            }
+            int primeraRanura = (int) ((posicion - TAMANO_CABECERA) / TAMANO_RANURA);
+            for (int inicio = 0; inicio + TAMANO_RANURA <= buffer.limit(); inicio += TAMANO_RANURA) {
+                Producto producto = decodificar(buffer, inicio);
+                if (producto != null) {
+                    accion.accept(producto, primeraRanura + inicio / TAMANO_RANURA);
+                }
+            }
+            posicion += buffer.limit();
+        }
+        
+        return fin - posicionRanura(desde);
+    }
+    
+    /**
+     * Busca un producto por ID usando el índice
+     * @return Producto, o null si no existe
+     */
+    synchronized Producto buscar(int id) throws IOException {
+        int ranura = ranuraDe(id);
+        return ranura < 0 ? null : leerRanura(ranura);
+    }
+    
+    /**
+     * Inserta un producto en una ranura libre o al final del archivo
+     * @return false si ya existe un producto con ese ID
+     * @throws IOException si el ID está fuera del rango admitido o no se puede escribir
+     */
+    synchronized boolean insertar(Producto producto) throws IOException {
+        comprobarId(producto.getIdProducto());
+        if (ranuraDe(producto.getIdProducto()) >= 0) {
+            return false;
+        }
+        
+        if (primeraLibre >= 0 && leer(datos, posicionRanura(primeraLibre), 1).get() != LIBRE) {
+            // La cabecera quedó atrasada tras una caída: la lista de libres ya no es fiable
+            reconstruirListaLibres();
+        }
+        int ranura;
+        if (primeraLibre >= 0) {
+            ranura = primeraLibre;
+            primeraLibre = leer(datos, posicionRanura(ranura) + 22, 4).getInt();
+        } else {
+            ranura = numRanuras++;
+        }
+        
+        // Primero el índice: si hay una caída antes de escribir la ranura, el índice apunta
+        // a una ranura que no contiene el producto, se detecta al usarlo y se reconstruye
+        actualizarIndice(producto.getIdProducto(), ranura);
+        escribirRanura(ranura, producto);
+        escribirCabecera();
+        return true;
+    }
+    
+    /**
+     * Sustituye un producto existente escribiendo solo su ranura
+     * @return Versión anterior del producto, o null si no existe
+     */
+    synchronized Producto actualizar(Producto producto) throws IOException {
+        int ranura = ranuraDe(producto.getIdProducto());
+        if (ranura < 0) {
+            return null;
+        }
+        Producto anterior = leerRanura(ranura);
+        escribirRanura(ranura, producto);
+        return anterior;
+    }
+    
+    /**
+     * Elimina un producto y añade su ranura a la lista de ranuras libres
+     * @return Producto eliminado, o null si no existe
+     */
+    synchronized Producto eliminar(int id) throws IOException {
+        int ranura = ranuraDe(id);
+        if (ranura < 0) {
+            return null;
+        }
+        Producto eliminado = leerRanura(ranura);
+        
+        ByteBuffer libre = ByteBuffer.allocate(TAMANO_RANURA);
+        libre.put(0, LIBRE);
+        libre.putInt(22, primeraLibre);
+        escribir(datos, posicionRanura(ranura), libre);
+        actualizarIndice(id, -1);
+        primeraLibre = ranura;
+        escribirCabecera();
+        return eliminado;
+    }
+    
+    /**
+     * Sustituye todo el contenido del almacén por los productos indicados, sin huecos
+     * y vaciando la zona de desbordamiento
+     * @throws IOException si algún ID está fuera del rango admitido (sin cambiar el almacén)
+     *         o no se puede escribir
+     */
+    synchronized void reconstruir(Collection<Producto> productos) throws IOException {
+        for (Producto p : productos) {
+            comprobarId(p.getIdProducto());
+        }
+        datos.truncate(TAMANO_CABECERA);
+        desbordamiento.truncate(0);
+        numRanuras = 0;
+        primeraLibre = -1;
+        Arrays.fill(ranuraPorId, 0);
+        indice.truncate(0);
+        
+        for (Producto p : productos) {
+            int ranura = numRanuras++;
+            escribirRanura(ranura, p);
+            asegurarIndice(p.getIdProducto());
+            ranuraPorId[p.getIdProducto()] = ranura + 1;
+        }
+        escribirCabecera();
+        guardarIndiceCompleto();
+    }
+    
+    /**
+     * Fuerza que todos los cambios lleguen al disco
+     */
+    synchronized void sincronizar() throws IOException {
+        datos.force(false);
+        desbordamiento.force(false);
+        indice.force(false);
+    }
+    
+    synchronized void cerrar() throws IOException {
+        datos.close();
+        desbordamiento.close();
+        indice.close();
+    }
+    
+    // ==================== RANURAS ====================
+    
+    private static long posicionRanura(int ranura) {
+        return TAMANO_CABECERA + (long) ranura * TAMANO_RANURA;
+    }
+    
+    private Producto leerRanura(int ranura) throws IOException {
+        return decodificar(leer(datos, posicionRanura(ranura), TAMANO_RANURA), 0);
+    }
+    
+    /**
+     * Decodifica la ranura que empieza en la posición indicada del buffer
+     * @return Producto, o null si la ranura está libre
+     */
+    private Producto decodificar(ByteBuffer buffer, int inicio) throws IOException {
+        byte estado = buffer.get(inicio);
+        if (estado == LIBRE) {
+            return null;
+        }
+        
+        int id = buffer.getInt(inicio + 1);
+        int stock = buffer.getInt(inicio + 5);
+        long precioSinEscala = buffer.getLong(inicio + 9);
+        int escala = buffer.get(inicio + 17);
+        int longitudNombre = buffer.getShort(inicio + 18) & 0xFFFF;
+        int longitudCategoria = buffer.getShort(inicio + 20) & 0xFFFF;
+        
+        byte[] textos = new byte[longitudNombre + longitudCategoria];
+        if (estado == DESBORDADA) {
+            ByteBuffer externo = leer(desbordamiento, buffer.getLong(inicio + POS_TEXTOS), textos.length);
+            externo.get(textos);
+        } else {
+            buffer.get(inicio + POS_TEXTOS, textos);
+        }
+        
+        return new Producto(id,
+                new String(textos, 0, longitudNombre, StandardCharsets.UTF_8),
+                new String(textos, longitudNombre, longitudCategoria, StandardCharsets.UTF_8),
+                BigDecimal.valueOf(precioSinEscala, escala), stock);
+    }
+    
+    private void escribirRanura(int ranura, Producto p) throws IOException {
+        BigInteger sinEscala = p.getPrecio().unscaledValue();
+        int escala = p.getPrecio().scale();
+        if (sinEscala.bitLength() > 63 || escala < Byte.MIN_VALUE || escala > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Precio no representable: " + p.getPrecio());
+        }
+        byte[] nombre = p.getNombre().getBytes(StandardCharsets.UTF_8);
+        byte[] categoria = p.getCategoria().getBytes(StandardCharsets.UTF_8);
+        if (nombre.length > 0xFFFF || categoria.length > 0xFFFF) {
+            throw new IllegalArgumentException("Nombre o categoría demasiado largos");
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_RANURA);
+        boolean desbordada = nombre.length + categoria.length > CAPACIDAD_TEXTOS;
+        buffer.put(desbordada ? DESBORDADA : OCUPADA);
+        buffer.putInt(p.getIdProducto());
+        buffer.putInt(p.getStock());
+        buffer.putLong(sinEscala.longValue());
+        buffer.put((byte) escala);
+        buffer.putShort((short) nombre.length);
+        buffer.putShort((short) categoria.length);
+        buffer.putInt(-1);
+        
+        if (desbordada) {
+            // Los textos se añaden al final de la zona de desbordamiento; el espacio de versiones
+            // anteriores no se reutiliza hasta que se reconstruye el almacén
+            long posicion = desbordamiento.size();
+            ByteBuffer textos = ByteBuffer.allocate(nombre.length + categoria.length);
+            textos.put(nombre).put(categoria).flip();
+            escribir(desbordamiento, posicion, textos);
+            buffer.putLong(posicion);
+        } else {
+            buffer.put(nombre).put(categoria);
+        }
+        
+        buffer.clear();
+        escribir(datos, posicionRanura(ranura), buffer);
+    }
+    
+    private void escribirCabecera() throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+        cabecera.putInt(MAGICO);
+        cabecera.putShort(VERSION);
+        cabecera.putShort((short) 0);
+        cabecera.putInt(TAMANO_RANURA);
+        cabecera.putInt(POS_NUM_RANURAS, numRanuras);
+        cabecera.putInt(POS_PRIMERA_LIBRE, primeraLibre);
+        cabecera.clear();
+        escribir(datos, 0, cabecera);
+    }
+    
+    /**
+     * Reconstruye la lista de ranuras libres recorriendo todas las ranuras
+     */
+    private void reconstruirListaLibres() throws IOException {
+        primeraLibre = -1;
+        for (int ranura = numRanuras - 1; ranura >= 0; ranura--) {
+            if (leer(datos, posicionRanura(ranura), 1).get() == LIBRE) {
+                ByteBuffer enlace = ByteBuffer.allocate(4).putInt(0, primeraLibre);
+                escribir(datos, posicionRanura(ranura) + 22, enlace);
+                primeraLibre = ranura;
+            }
+        }
+        escribirCabecera();
+    }
+    
+    // ==================== ÍNDICE ====================
+    
+    /**
+     * Indica si un ID se puede guardar en el almacén
+     */
+    static boolean esIdValido(int id) {
+        return id >= 1 && id <= ID_MAXIMO;
+    }
+    
+    private static void comprobarId(int id) throws IOException {
+        if (!esIdValido(id)) {
+            throw new IOException("ID fuera del rango admitido por el formato fijo (1 a " + ID_MAXIMO + "): " + id);
+        }
+    }
+    
+    /**
+     * Obtiene la ranura de un ID, comprobando que la ranura contiene realmente ese ID
+     * @return Ranura, o -1 si el ID no existe
+     */
+    private int ranuraDe(int id) throws IOException {
+        int ranura = id >= 0 && id < ranuraPorId.length ? ranuraPorId[id] - 1 : -1;
+        if (ranura >= 0 && ranura < numRanuras) {
+            ByteBuffer cabeceraRanura = leer(datos, posicionRanura(ranura), 5);
+            if (cabeceraRanura.get() != LIBRE && cabeceraRanura.getInt() == id) {
+                return ranura;
+            }
+        } else if (ranura < 0) {
+            return -1;
+        }
+        
+        // El índice no coincide con los datos: se reconstruye desde las ranuras
+        reconstruirIndice();
+        return id < ranuraPorId.length ? ranuraPorId[id] - 1 : -1;
+    }
+    
+    private void actualizarIndice(int id, int ranura) throws IOException {
+        asegurarIndice(id);
+        ranuraPorId[id] = ranura + 1;
+        escribir(indice, (long) id * 4, ByteBuffer.allocate(4).putInt(0, ranura + 1));
+    }
+    
+    private void asegurarIndice(int id) {
+        if (id >= ranuraPorId.length) {
+            ranuraPorId = Arrays.copyOf(ranuraPorId, Math.max(id + 1, ranuraPorId.length * 2));
+        }
+    }
+    
+    private void cargarIndice() throws IOException {
+        int entradas = (int) Math.min(Integer.MAX_VALUE - 8, indice.size() / 4);
+        ByteBuffer buffer = leer(indice, 0, entradas * 4);
+        ranuraPorId = new int[Math.max(1024, entradas)];
+        buffer.asIntBuffer().get(ranuraPorId, 0, entradas);
+    }
+    
+    private void reconstruirIndice() throws IOException {
+        Arrays.fill(ranuraPorId, 0);
+        recorrer((producto, ranura) -> {
+            // Una ranura dañada con un ID imposible no se indexa
+            if (esIdValido(producto.getIdProducto())) {
+                asegurarIndice(producto.getIdProducto());
+                ranuraPorId[producto.getIdProducto()] = ranura + 1;
+            }
+        });
+        indice.truncate(0);
+        guardarIndiceCompleto();
+    }
+    
+    private void guardarIndiceCompleto() throws IOException {
+        int ultimo = ranuraPorId.length;
+        while (ultimo > 0 && ranuraPorId[ultimo - 1] == 0) {
+            ultimo--;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ultimo * 4);
+        buffer.asIntBuffer().put(ranuraPorId, 0, ultimo);
+        escribir(indice, 0, buffer);
+    }
+    
+    // ==================== E/S ====================
+    
+    private static ByteBuffer leer(FileChannel canal, long posicion, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static void escribir(FileChannel canal, long posicion, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicion + buffer.position());
+        }
+    }
+}
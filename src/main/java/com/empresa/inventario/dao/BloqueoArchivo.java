@@ -0,0 +1,311 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloqueo de lectura/escritura del inventario que coordina también a varios procesos que
+ * comparten el directorio de datos.
+ *
+ * Dentro del proceso funciona como un {@link ReentrantReadWriteLock}. Además, mientras algún hilo
+ * tiene el bloqueo de lectura, el proceso tiene un bloqueo compartido del sistema operativo
+ * ({@link FileChannel#lock}) sobre un archivo de bloqueo, y mientras un hilo tiene el de escritura,
+ * uno exclusivo: los recorridos de varios procesos son concurrentes y cada escritura excluye a
+ * todos. El bloqueo del sistema se toma con el primer lector del proceso y se suelta con el último,
+ * así que las lecturas concurrentes de un mismo proceso no hacen una llamada al sistema cada una.
+ *
+ * Un hilo que baja de escritura a lectura (toma el de lectura y suelta el de escritura) conserva
+ * el bloqueo exclusivo del sistema hasta que el proceso suelta la última lectura: el sistema no
+ * permite cambiar un bloqueo exclusivo por uno compartido sin soltarlo antes, y en ese hueco otro
+ * proceso podría escribir. Mientras tanto los demás procesos no pueden leer ni escribir.
+ *
+ * El bloqueo del sistema se espera como máximo un tiempo configurado; si otro proceso lo retiene
+ * más, la operación falla con una {@link InventarioBloqueadoException} en lugar de quedarse colgada.
+ * La espera y los tiempos agotados se publican en las métricas BloqueoArchivo.compartido y
+ * BloqueoArchivo.exclusivo.
+ */
+final class BloqueoArchivo implements ReadWriteLock {
+    
+    /** Pausa máxima entre dos intentos de tomar el bloqueo del sistema */
+    private static final long PAUSA_MAXIMA_MS = 20;
+    
+    private static final MetricasOperacion METRICAS_COMPARTIDO = RegistroMetricas.operacion("BloqueoArchivo.compartido");
+    private static final MetricasOperacion METRICAS_EXCLUSIVO = RegistroMetricas.operacion("BloqueoArchivo.exclusivo");
+    
+    private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+    private final Path archivo;
+    private final long esperaNanos;
+    private final Lock lectura = new Parte(true);
+    private final Lock escritura = new Parte(false);
+    
+    /** Canal del archivo de bloqueo; null hasta el primer uso o si no se ha podido abrir */
+    private FileChannel canal;
+    private boolean desactivado;
+    
+    /** Bloqueo del sistema que tiene el proceso (null si ninguno) */
+    private FileLock bloqueoSistema;
+    
+    /** Veces que los hilos del proceso tienen tomado el bloqueo de lectura */
+    private int lectores;
+    
+    /**
+     * Constructor del bloqueo
+     * @param archivo Archivo de bloqueo, común a todos los procesos (se crea si no existe)
+     * @param entreProcesos false para coordinar solo los hilos del proceso
+     * @param esperaMs Espera máxima por el bloqueo del sistema, en milisegundos
+     */
+    BloqueoArchivo(Path archivo, boolean entreProcesos, long esperaMs) {
+        this.archivo = archivo;
+        this.desactivado = !entreProcesos;
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+    }
+    
+    @Override
+    public Lock readLock() {
+        return lectura;
+    }
+    
+    @Override
+    public Lock writeLock() {
+        return escritura;
+    }
+    
+    /**
+     * Indica si el hilo actual tiene el bloqueo de escritura
+     */
+    boolean isWriteLockedByCurrentThread() {
+        return local.isWriteLockedByCurrentThread();
+    }
+    
+    /**
+     * Toma el bloqueo del sistema que corresponde a una adquisición local recién hecha
+     * @return false si se agotó la espera
+     */
+    private synchronized boolean adquirirSistema(boolean compartido, long esperaNanos) throws InterruptedException {
+        if (compartido) {
+            // Si el proceso ya tiene un bloqueo (compartido o, con el de escritura, exclusivo), basta
+            if (bloqueoSistema == null && !tomar(true, esperaNanos)) {
+                return false;
+            }
+            lectores++;
+            return true;
+        }
+        // El bloqueo local de escritura excluye a los lectores del proceso: solo puede quedar el
+        // bloqueo compartido de una lectura que se está soltando; se cambia por el exclusivo
+        if (local.getWriteHoldCount() > 1) {
+            return true;
+        }
+        soltarSistema();
+        return tomar(false, esperaNanos);
+    }
+    
+    /**
+     * Suelta el bloqueo del sistema que corresponde a una liberación local que se va a hacer.
+     * Nunca espera: si el proceso sigue teniendo lectores, el bloqueo que tenga se conserva.
+     */
+    private synchronized void liberarSistema(boolean compartido) {
+        if (compartido) {
+            lectores--;
+            if (lectores == 0 && !local.isWriteLocked()) {
+                soltarSistema();
+            }
+            return;
+        }
+        if (local.getWriteHoldCount() > 1 || lectores > 0) {
+            // Con lectores, el hilo que escribe ha bajado a lectura: el exclusivo se conserva y se
+            // suelta con la última lectura, para que ningún otro proceso escriba entre medias
+            return;
+        }
+        soltarSistema();
+    }
+    
+    /**
+     * Intenta tomar el bloqueo del sistema hasta que lo consigue o se agota la espera
+     */
+    private boolean tomar(boolean compartido, long esperaNanos) throws InterruptedException {
+        FileChannel abierto = abrir();
+        if (abierto == null) {
+            return true;
+        }
+        
+        MetricasOperacion metricas = compartido ? METRICAS_COMPARTIDO : METRICAS_EXCLUSIVO;
+        long inicio = metricas.iniciar();
+        try {
+            long pausa = 1;
+            while (true) {
+                try {
+                    bloqueoSistema = abierto.tryLock(0, Long.MAX_VALUE, compartido);
+                } catch (IOException e) {
+                    // Sistemas de archivos sin bloqueos (algunos montajes de red): se sigue sin ellos
+                    System.err.println("No se puede bloquear " + archivo + ", no se coordinará con otros procesos: "
+                            + e.getMessage());
+                    desactivado = true;
+                    return true;
+                }
+                if (bloqueoSistema != null) {
+                    return true;
+                }
+                if (System.nanoTime() - inicio >= esperaNanos) {
+                    metricas.registrarError();
+                    return false;
+                }
+                Thread.sleep(pausa);
+                pausa = Math.min(pausa * 2, PAUSA_MAXIMA_MS);
+            }
+        } finally {
+            metricas.finalizar(inicio);
+        }
+    }
+    
+    private void soltarSistema() {
+        if (bloqueoSistema == null) {
+            return;
+        }
+        try {
+            bloqueoSistema.release();
+        } catch (IOException e) {
+            System.err.println("Error al soltar el bloqueo de " + archivo + ": " + e.getMessage());
+        }
+        bloqueoSistema = null;
+    }
+    
+    /**
+     * Abre el archivo de bloqueo la primera vez
+     * @return Canal, o null si la coordinación entre procesos está desactivada
+     */
+    private FileChannel abrir() {
+        if (desactivado) {
+            return null;
+        }
+        if (canal == null) {
+            try {
+                if (archivo.getParent() != null) {
+                    Files.createDirectories(archivo.getParent());
+                }
+                canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                System.err.println("No se puede abrir " + archivo + ", no se coordinará con otros procesos: "
+                        + e.getMessage());
+                desactivado = true;
+                return null;
+            }
+        }
+        return canal;
+    }
+    
+    /**
+     * Bloqueo de lectura o de escritura: primero el local y después el del sistema
+     */
+    private final class Parte implements Lock {
+        private final boolean compartido;
+        
+        Parte(boolean compartido) {
+            this.compartido = compartido;
+        }
+        
+        private Lock delLocal() {
+            return compartido ? local.readLock() : local.writeLock();
+        }
+        
+        /**
+         * @throws InventarioBloqueadoException si otro proceso retiene el bloqueo más de la espera configurada
+         */
+        @Override
+        public void lock() {
+            delLocal().lock();
+            boolean interrumpido = false;
+            while (true) {
+                try {
+                    if (adquirirSistema(compartido, esperaNanos)) {
+                        break;
+                    }
+                    delLocal().unlock();
+                    throw new InventarioBloqueadoException("El inventario está bloqueado por otro proceso desde hace más de "
+                            + TimeUnit.NANOSECONDS.toMillis(esperaNanos) + " ms");
+                } catch (InterruptedException e) {
+                    // lock() no se puede interrumpir: se reintenta y se restaura la interrupción al final
+                    interrumpido = true;
+                }
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            delLocal().lockInterruptibly();
+            try {
+                if (!adquirirSistema(compartido, esperaNanos)) {
+                    throw new InventarioBloqueadoException("El inventario está bloqueado por otro proceso desde hace más de "
+                            + TimeUnit.NANOSECONDS.toMillis(esperaNanos) + " ms");
+                }
+            } catch (InterruptedException | RuntimeException e) {
+                delLocal().unlock();
+                throw e;
+            }
+        }
+        
+        @Override
+        public boolean tryLock() {
+            if (!delLocal().tryLock()) {
+                return false;
+            }
+            try {
+                if (adquirirSistema(compartido, 0)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delLocal().unlock();
+            return false;
+        }
+        
+        @Override
+        public boolean tryLock(long tiempo, TimeUnit unidad) throws InterruptedException {
+            long limite = System.nanoTime() + unidad.toNanos(tiempo);
+            if (!(compartido ? local.readLock().tryLock(tiempo, unidad) : local.writeLock().tryLock(tiempo, unidad))) {
+                return false;
+            }
+            try {
+                if (adquirirSistema(compartido, Math.max(0, limite - System.nanoTime()))) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                delLocal().unlock();
+                throw e;
+            }
+            delLocal().unlock();
+            return false;
+        }
+        
+        @Override
+        public void unlock() {
+            liberarSistema(compartido);
+            delLocal().unlock();
+        }
+        
+        /**
+         * @throws UnsupportedOperationException siempre: una espera con condición soltaría el
+         *         bloqueo local sin soltar el del sistema
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("El bloqueo del inventario no admite condiciones");
+        }
+    }
+}
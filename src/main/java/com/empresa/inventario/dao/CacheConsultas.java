@@ -0,0 +1,180 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.metricas.MetricasCache;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Caché acotada de resultados de búsquedas sobre el inventario.
+ * Cada entrada guarda, además del resultado, el filtro de la consulta, de modo que una escritura
+ * solo invalida las consultas cuyo resultado puede cambiar: las que aceptan el producto anterior
+ * o el nuevo. Las entradas se expulsan por tamaño (la menos usada recientemente) y por antigüedad.
+ *
+ * Si el archivo cambia sin pasar por el DAO (otra aplicación, restauración de un backup),
+ * su tamaño o fecha de modificación dejan de coincidir con los anotados y se vacía la caché.
+ * Los métodos de escritura deben llamarse con el bloqueo de escritura del inventario.
+ */
+final class CacheConsultas {
+    
+    private final int capacidad;
+    private final long duracionNanos;
+    private final Path archivo;
+    private final MetricasCache metricas = RegistroMetricas.cache("InventarioDAO.consultas");
+    
+    /** Entradas en orden de acceso: la primera es la menos usada recientemente */
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /** Tamaño y fecha de modificación del archivo cuando se comprobó por última vez */
+    private String estampaArchivo;
+    
+    /**
+     * Constructor de la caché
+     * @param capacidad Número máximo de consultas guardadas (0 = caché desactivada)
+     * @param segundos Tiempo máximo que una consulta permanece en la caché
+     * @param archivo Archivo de inventario cuyos cambios externos vacían la caché
+     */
+    CacheConsultas(int capacidad, long segundos, Path archivo) {
+        this.capacidad = capacidad;
+        this.duracionNanos = segundos * 1_000_000_000L;
+        this.archivo = archivo;
+    }
+    
+    /**
+     * Obtiene una copia del resultado guardado de una consulta
+     * @param clave Clave normalizada de la consulta
+     * @return Resultado de la consulta, o vacío si no está en la caché o ha caducado
+     */
+    synchronized Optional<List<Producto>> obtener(String clave) {
+        if (capacidad <= 0) {
+            return Optional.empty();
+        }
+        
+        comprobarArchivo();
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && System.nanoTime() - entrada.creada > duracionNanos) {
+            entradas.remove(clave);
+            metricas.sumarExpulsiones(1);
+            metricas.actualizarEntradas(entradas.size());
+            entrada = null;
+        }
+        
+        if (entrada == null) {
+            metricas.registrarFallo();
+            return Optional.empty();
+        }
+        
+        metricas.registrarAcierto();
+        return Optional.of(copiar(entrada.resultados));
+    }
+    
+    /**
+     * Guarda el resultado de una consulta. Debe llamarse sin soltar el bloqueo de lectura
+     * con el que se calculó el resultado, para que ninguna escritura se cuele entre ambos pasos.
+     * @param clave Clave normalizada de la consulta
+     * @param filtro Filtro de la consulta, usado para decidir qué escrituras la invalidan
+     * @param resultados Resultado de la consulta
+     */
+    synchronized void guardar(String clave, Predicate<Producto> filtro, List<Producto> resultados) {
+        if (capacidad <= 0) {
+            return;
+        }
+        
+        entradas.put(clave, new Entrada(filtro, copiar(resultados), System.nanoTime()));
+        if (entradas.size() > capacidad) {
+            Iterator<String> masAntigua = entradas.keySet().iterator();
+            masAntigua.next();
+            masAntigua.remove();
+            metricas.sumarExpulsiones(1);
+        }
+        metricas.actualizarEntradas(entradas.size());
+    }
+    
+    /**
+     * Invalida las consultas cuyo resultado incluye o podría incluir alguno de los productos.
+     * Tras una modificación se deben pasar tanto la versión anterior como la nueva del producto.
+     * @param productos Productos afectados por la escritura
+     */
+    synchronized void invalidar(Producto... productos) {
+        int antes = entradas.size();
+        entradas.values().removeIf(entrada -> {
+            for (Producto p : productos) {
+                if (p != null && entrada.filtro.test(p)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        metricas.sumarInvalidaciones(antes - entradas.size());
+        metricas.actualizarEntradas(entradas.size());
+        estampaArchivo = leerEstampa();
+    }
+    
+    /**
+     * Vacía la caché completa
+     */
+    synchronized void invalidarTodo() {
+        metricas.sumarInvalidaciones(entradas.size());
+        entradas.clear();
+        metricas.actualizarEntradas(0);
+        estampaArchivo = leerEstampa();
+    }
+    
+    /**
+     * Vacía la caché si el archivo ha cambiado desde la última comprobación
+     */
+    private void comprobarArchivo() {
+        String estampa = leerEstampa();
+        if (!estampa.equals(estampaArchivo)) {
+            metricas.sumarInvalidaciones(entradas.size());
+            entradas.clear();
+            metricas.actualizarEntradas(0);
+            estampaArchivo = estampa;
+        }
+    }
+    
+    private String leerEstampa() {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+            return atributos.size() + "@" + atributos.lastModifiedTime();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+    
+    /**
+     * Copia los productos para que quien use el resultado no pueda modificar la caché
+     */
+    private static List<Producto> copiar(List<Producto> productos) {
+        List<Producto> copia = new ArrayList<>(productos.size());
+        for (Producto p : productos) {
+            copia.add(new Producto(p.getIdProducto(), p.getNombre(), p.getCategoria(), p.getPrecio(), p.getStock()));
+        }
+        return copia;
+    }
+    
+    /**
+     * Resultado guardado de una consulta junto con su filtro y su instante de creación
+     */
+    private static final class Entrada {
+        private final Predicate<Producto> filtro;
+        private final List<Producto> resultados;
+        private final long creada;
+        
+        Entrada(Predicate<Producto> filtro, List<Producto> resultados, long creada) {
+            this.filtro = filtro;
+            this.resultados = resultados;
+            this.creada = creada;
+        }
+    }
+}
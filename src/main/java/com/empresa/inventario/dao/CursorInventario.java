@@ -0,0 +1,195 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Recorrido del inventario completo por tramos, en el orden del archivo y en una sola pasada.
+ * Cada tramo se lee con el bloqueo de lectura del inventario y el siguiente continúa donde
+ * terminó el anterior, así que entre dos tramos el bloqueo queda libre (por ejemplo mientras se
+ * envían los productos a un cliente lento) sin tener que volver a leer el archivo desde el principio.
+ *
+ * Con el CSV, el cursor mantiene abierto el archivo que había al crearlo. Las reescrituras del
+ * DAO lo sustituyen por otro archivo, por lo que el cursor sigue viendo esa versión más las
+ * altas que se le añadan mientras tanto. Con el formato "fijo" continúa desde la siguiente
+ * ranura y ve los cambios de las ranuras que aún no ha leído.
+ */
+public final class CursorInventario implements Closeable {
+    
+    private static final int TAMANO_BLOQUE_LECTURA = 64 * 1024;
+    
+    private static final MetricasOperacion METRICAS_TRAMO = RegistroMetricas.operacion("CursorInventario.siguientes");
+    
+    private final Lock bloqueo;
+    
+    /** Archivo CSV abierto (null con el formato "fijo") */
+    private final FileChannel canal;
+    
+    /** Almacén de ranuras fijas (null con el CSV) */
+    private final AlmacenRegistrosFijos almacen;
+    
+    private final VistaProducto vista = new VistaProducto(Charset.defaultCharset());
+    private byte[] bloque;
+    /** Inicio de la primera línea del bloque que aún no se ha procesado */
+    private int inicioLinea;
+    /** Fin de los bytes leídos en el bloque */
+    private int finDatos;
+    private boolean cabecera = true;
+    
+    private int siguienteRanura;
+    private boolean terminado;
+    
+    /**
+     * Cursor sobre el CSV de inventario
+     * @param bloqueo Bloqueo de lectura del inventario
+     * @param canal Archivo CSV abierto para lectura, que el cursor cierra
+     */
+    CursorInventario(Lock bloqueo, FileChannel canal) {
+        this.bloqueo = bloqueo;
+        this.canal = canal;
+        this.almacen = null;
+        this.bloque = new byte[TAMANO_BLOQUE_LECTURA];
+    }
+    
+    /**
+     * Cursor sobre el almacén de ranuras fijas
+     * @param bloqueo Bloqueo de lectura del inventario
+     * @param almacen Almacén abierto (el cursor no lo cierra)
+     */
+    CursorInventario(Lock bloqueo, AlmacenRegistrosFijos almacen) {
+        this.bloqueo = bloqueo;
+        this.canal = null;
+        this.almacen = almacen;
+    }
+    
+    /**
+     * Lee el siguiente tramo de productos
+     * @param limite Número máximo de productos del tramo
+     * @return Productos del tramo, en el orden del archivo; vacía cuando ya no quedan más
+     * @throws IOException si ocurre un error al leer el archivo
+     * @throws InventarioBloqueadoException si otro proceso retiene el bloqueo del inventario más de la espera configurada
+     */
+    public List<Producto> siguientes(int limite) throws IOException {
+        List<Producto> productos = new ArrayList<>(Math.min(limite, 1024));
+        if (terminado || limite <= 0) {
+            return productos;
+        }
+        
+        long inicio = METRICAS_TRAMO.iniciar();
+        bloqueo.lock();
+        try {
+            if (almacen != null) {
+                leerRanuras(productos, limite);
+            } else {
+                leerLineas(productos, limite);
+            }
+            METRICAS_TRAMO.sumarFilasLeidas(productos.size());
+            return productos;
+        } catch (IOException | RuntimeException e) {
+            METRICAS_TRAMO.registrarError();
+            throw e;
+        } finally {
+            bloqueo.unlock();
+            METRICAS_TRAMO.finalizar(inicio);
+        }
+    }
+    
+    private void leerRanuras(List<Producto> productos, int limite) throws IOException {
+        while (productos.size() < limite && siguienteRanura < almacen.getNumRanuras()) {
+            int desde = siguienteRanura;
+            siguienteRanura = almacen.recorrer(desde, limite - productos.size(), productos::add);
+            METRICAS_TRAMO.sumarBytesLeidos((long) (siguienteRanura - desde) * AlmacenRegistrosFijos.TAMANO_RANURA);
+        }
+        if (siguienteRanura >= almacen.getNumRanuras()) {
+            terminado = true;
+        }
+    }
+    
+    private void leerLineas(List<Producto> productos, int limite) throws IOException {
+        int buscado = inicioLinea;
+        while (productos.size() < limite) {
+            int finLinea = buscarFinLinea(buscado);
+            if (finLinea >= 0) {
+                procesarLinea(inicioLinea, finLinea, productos);
+                inicioLinea = finLinea + 1;
+                buscado = inicioLinea;
+                continue;
+            }
+            
+            buscado = finDatos - inicioLinea;
+            if (!leerBloque()) {
+                // Última línea sin salto de línea al final
+                if (finDatos > inicioLinea) {
+                    procesarLinea(inicioLinea, finDatos, productos);
+                }
+                terminado = true;
+                close();
+                return;
+            }
+        }
+    }
+    
+    private int buscarFinLinea(int desde) {
+        for (int i = desde; i < finDatos; i++) {
+            if (bloque[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Lee más bytes del archivo, moviendo al principio del bloque la línea que aún no ha terminado
+     * @return false si se ha llegado al final del archivo
+     */
+    private boolean leerBloque() throws IOException {
+        int pendientes = finDatos - inicioLinea;
+        System.arraycopy(bloque, inicioLinea, bloque, 0, pendientes);
+        inicioLinea = 0;
+        finDatos = pendientes;
+        if (pendientes == bloque.length) {
+            bloque = Arrays.copyOf(bloque, bloque.length * 2);
+        }
+        
+        int leidos = canal.read(ByteBuffer.wrap(bloque, finDatos, bloque.length - finDatos));
+        if (leidos < 0) {
+            return false;
+        }
+        finDatos += leidos;
+        METRICAS_TRAMO.sumarBytesLeidos(leidos);
+        return true;
+    }
+    
+    private void procesarLinea(int inicio, int fin, List<Producto> productos) {
+        if (cabecera) {
+            cabecera = false;
+            return;
+        }
+        vista.apuntar(bloque, inicio, fin);
+        try {
+            if (!vista.estaVacia()) {
+                productos.add(vista.materializar());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error al parsear línea: " + vista.linea());
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.model.Producto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Escaneo paralelo del archivo de inventario.
+ * Divide el archivo en rangos de bytes alineados a fin de línea, procesa cada rango
+ * en un hilo del ForkJoinPool y combina los resultados parciales respetando el orden
+ * original de las líneas.
+ */
+final class EscaneoParalelo {
+    
+    /** Tamaño máximo aproximado de cada rango procesado por una tarea hoja */
+    private static final long TAMANO_MAXIMO_RANGO = 8L * 1024 * 1024;
+    
+    /** Rangos por hilo disponibles, para repartir mejor la carga entre workers */
+    private static final int RANGOS_POR_HILO = 4;
+    
+    private EscaneoParalelo() {
+    }
+    
+    /**
+     * Recorre en paralelo todas las líneas de datos del archivo (sin la cabecera)
+     * y acumula los productos en resultados parciales que después se combinan.
+     * La combinación siempre se hace en orden (izquierda + derecha), por lo que
+     * el resultado es determinista.
+     *
+     * @param ruta Ruta del archivo de inventario
+     * @param prefiltro Condición que se comprueba sobre la vista perezosa de cada línea antes de
+     *                  crear el producto; las líneas que no la cumplen no se materializan
+     * @param nuevo Crea un acumulador parcial vacío
+     * @param acumular Añade un producto a un acumulador parcial
+     * @param combinar Combina dos acumuladores consecutivos (izquierda, derecha)
+     * @return Acumulador con el resultado de todo el archivo
+     * @throws IOException si ocurre un error al leer el archivo
+     */
+    static <A> A escanear(Path ruta, Predicate<VistaProducto> prefiltro, Supplier<A> nuevo,
+                          BiConsumer<A, Producto> acumular, BinaryOperator<A> combinar) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            long[] cortes = calcularCortes(canal);
+            if (cortes.length < 2) {
+                return nuevo.get();
+            }
+            
+            TareaRango<A> tarea = new TareaRango<>(canal, cortes, 0, cortes.length - 1,
+                    prefiltro, nuevo, acumular, combinar);
+            try {
+                return ForkJoinPool.commonPool().invoke(tarea);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    /**
+     * Calcula los puntos de corte del archivo. Cada corte es el inicio de una línea,
+     * de modo que el rango [cortes[i], cortes[i+1]) contiene solo líneas completas.
+     */
+    private static long[] calcularCortes(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        long inicioDatos = buscarSiguienteLinea(canal, 0, tamano);
+        if (inicioDatos >= tamano) {
+            return new long[0];
+        }
+        
+        long bytesDatos = tamano - inicioDatos;
+        int hilos = ForkJoinPool.getCommonPoolParallelism();
+        long numRangos = Math.max((long) hilos * RANGOS_POR_HILO,
+                (bytesDatos + TAMANO_MAXIMO_RANGO - 1) / TAMANO_MAXIMO_RANGO);
+        numRangos = Math.max(1, Math.min(numRangos, bytesDatos));
+        
+        List<Long> cortes = new ArrayList<>();
+        cortes.add(inicioDatos);
+        for (long i = 1; i < numRangos; i++) {
+            long objetivo = inicioDatos + bytesDatos * i / numRangos;
+            long corte = buscarSiguienteLinea(canal, objetivo, tamano);
+            if (corte > cortes.get(cortes.size() - 1) && corte < tamano) {
+                cortes.add(corte);
+            }
+        }
+        cortes.add(tamano);
+        
+        return cortes.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    /**
+     * Devuelve la posición del primer byte tras el siguiente salto de línea a partir de
+     * la posición indicada, o el tamaño del archivo si no hay más saltos de línea.
+     */
+    private static long buscarSiguienteLinea(FileChannel canal, long desde, long tamano) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long posicion = desde;
+        
+        while (posicion < tamano) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+        
+        return tamano;
+    }
+    
+    /**
+     * Tarea que divide recursivamente la lista de rangos en dos mitades hasta llegar
+     * a un único rango, que se lee y procesa de forma secuencial.
+     */
+    private static final class TareaRango<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        
+        private final transient FileChannel canal;
+        private final long[] cortes;
+        private final int desde;
+        private final int hasta;
+        private final transient Predicate<VistaProducto> prefiltro;
+        private final transient Supplier<A> nuevo;
+        private final transient BiConsumer<A, Producto> acumular;
+        private final transient BinaryOperator<A> combinar;
+        
+        TareaRango(FileChannel canal, long[] cortes, int desde, int hasta, Predicate<VistaProducto> prefiltro,
+                   Supplier<A> nuevo, BiConsumer<A, Producto> acumular, BinaryOperator<A> combinar) {
+            this.canal = canal;
+            this.cortes = cortes;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.prefiltro = prefiltro;
+            this.nuevo = nuevo;
+            this.acumular = acumular;
+            this.combinar = combinar;
+        }
+        
+        @Override
+        protected A compute() {
+            if (hasta - desde == 1) {
+                try {
+                    return procesarRango(cortes[desde], cortes[hasta]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            
+            int medio = (desde + hasta) >>> 1;
+            TareaRango<A> izquierda = new TareaRango<>(canal, cortes, desde, medio, prefiltro, nuevo, acumular, combinar);
+            TareaRango<A> derecha = new TareaRango<>(canal, cortes, medio, hasta, prefiltro, nuevo, acumular, combinar);
+            
+            izquierda.fork();
+            A resultadoDerecha = derecha.compute();
+            A resultadoIzquierda = izquierda.join();
+            
+            return combinar.apply(resultadoIzquierda, resultadoDerecha);
+        }
+        
+        /**
+         * Lee el rango completo con lecturas posicionales y recorre sus líneas con una vista
+         * perezosa: solo se crea el producto de las líneas que cumplen el prefiltro
+         */
+        private A procesarRango(long inicio, long fin) throws IOException {
+            byte[] datos = new byte[(int) (fin - inicio)];
+            ByteBuffer buffer = ByteBuffer.wrap(datos);
+            long posicion = inicio;
+            while (buffer.hasRemaining()) {
+                int leidos = canal.read(buffer, posicion);
+                if (leidos < 0) {
+                    break;
+                }
+                posicion += leidos;
+            }
+            
+            VistaProducto vista = new VistaProducto(Charset.defaultCharset());
+            A acumulador = nuevo.get();
+            int inicioLinea = 0;
+            for (int i = 0; i <= buffer.position(); i++) {
+                if (i == buffer.position() || datos[i] == '\n') {
+                    if (i > inicioLinea) {
+                        vista.apuntar(datos, inicioLinea, i);
+                        try {
+                            if (!vista.estaVacia() && prefiltro.test(vista)) {
+                                acumular.accept(acumulador, vista.materializar());
+                            }
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error al parsear línea: " + vista.linea());
+                        }
+                    }
+                    inicioLinea = i + 1;
+                }
+            }
+            
+            return acumulador;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.empresa.inventario.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Huella del contenido conocido de un archivo: tamaño, fecha de modificación y CRC32 de su
+ * primer y su último bloque. Sirve para saber si el archivo ha cambiado desde que se anotó y,
+ * si ha crecido, si lo anotado sigue siendo su principio (es decir, si solo se le ha añadido
+ * contenido al final) sin tener que leerlo entero.
+ */
+final class HuellaArchivo {
+    
+    /** Bytes del principio y del final del contenido que entran en la huella */
+    private static final int TAMANO_BLOQUE = 4096;
+    
+    /** Huella de un archivo que no existe */
+    static final HuellaArchivo INEXISTENTE = new HuellaArchivo(-1, 0, 0, 0);
+    
+    private final long tamano;
+    private final long modificado;
+    private final long crcInicio;
+    private final long crcFinal;
+    
+    private HuellaArchivo(long tamano, long modificado, long crcInicio, long crcFinal) {
+        this.tamano = tamano;
+        this.modificado = modificado;
+        this.crcInicio = crcInicio;
+        this.crcFinal = crcFinal;
+    }
+    
+    /**
+     * Lee la huella del contenido actual de un archivo
+     * @param archivo Archivo
+     * @return Huella, o {@link #INEXISTENTE} si el archivo no existe
+     * @throws IOException si no se puede leer
+     */
+    static HuellaArchivo leer(Path archivo) throws IOException {
+        return leer(archivo, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Lee la huella de los primeros bytes de un archivo, como si el archivo terminara ahí
+     * @param archivo Archivo
+     * @param limite Número de bytes que se consideran (se recorta al tamaño del archivo)
+     * @return Huella, o {@link #INEXISTENTE} si el archivo no existe
+     * @throws IOException si no se puede leer
+     */
+    static HuellaArchivo leer(Path archivo, long limite) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = Math.min(limite, canal.size());
+            long modificado = tamano == canal.size() ? leerModificado(archivo) : 0;
+            return new HuellaArchivo(tamano, modificado, crc(canal, 0, tamano),
+                    crc(canal, Math.max(0, tamano - TAMANO_BLOQUE), tamano));
+        } catch (NoSuchFileException e) {
+            return INEXISTENTE;
+        }
+    }
+    
+    /**
+     * Indica si el archivo sigue teniendo el tamaño y la fecha de modificación anotados.
+     * Solo consulta los atributos del archivo, sin leerlo.
+     * @param archivo Archivo
+     * @return true si no ha cambiado
+     * @throws IOException si no se pueden leer los atributos
+     */
+    boolean vigente(Path archivo) throws IOException {
+        if (!Files.exists(archivo)) {
+            return tamano < 0;
+        }
+        BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+        return atributos.size() == tamano && atributos.lastModifiedTime().to(TimeUnit.NANOSECONDS) == modificado;
+    }
+    
+    /**
+     * Indica si el contenido anotado sigue siendo el principio del archivo, de modo que lo que
+     * haya a partir de {@link #getTamano()} es contenido añadido al final. Hace falta además que
+     * el contenido anotado termine en un salto de línea, para que lo añadido sean líneas nuevas.
+     * @param archivo Archivo
+     * @return true si el archivo solo ha crecido por el final
+     * @throws IOException si no se puede leer
+     */
+    boolean esPrincipioDe(Path archivo) throws IOException {
+        if (tamano <= 0) {
+            return false;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() <= tamano) {
+                return false;
+            }
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            if (canal.read(ultimo, tamano - 1) != 1 || ultimo.get(0) != '\n') {
+                return false;
+            }
+            return crc(canal, 0, tamano) == crcInicio
+                    && crc(canal, Math.max(0, tamano - TAMANO_BLOQUE), tamano) == crcFinal;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+    
+    /** Tamaño del contenido anotado (-1 si el archivo no existía) */
+    long getTamano() {
+        return tamano;
+    }
+    
+    /**
+     * CRC32 de hasta {@link #TAMANO_BLOQUE} bytes a partir de una posición, sin pasar de un límite
+     */
+    private static long crc(FileChannel canal, long desde, long limite) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TAMANO_BLOQUE, Math.max(0, limite - desde)));
+        long posicion = desde;
+        while (buffer.hasRemaining()) {
+            int leidos = canal.read(buffer, posicion);
+            if (leidos < 0) {
+                break;
+            }
+            posicion += leidos;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+    
+    private static long leerModificado(Path archivo) throws IOException {
+        return Files.getLastModifiedTime(archivo).to(TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof HuellaArchivo)) {
+            return false;
+        }
+        HuellaArchivo huella = (HuellaArchivo) otro;
+        return tamano == huella.tamano && modificado == huella.modificado
+                && crcInicio == huella.crcInicio && crcFinal == huella.crcFinal;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(tamano) * 31 + Long.hashCode(crcFinal);
+    }
+}
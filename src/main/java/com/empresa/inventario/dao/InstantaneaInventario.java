@@ -0,0 +1,202 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.model.Producto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Instantánea binaria del inventario (inventario.bin) para evitar el parseo del CSV.
+ * Guarda el tamaño y la fecha de modificación del CSV del que procede; si el CSV ha
+ * cambiado desde entonces la instantánea se considera obsoleta y se ignora.
+ *
+ * Formato (big endian):
+ * <pre>
+ * Cabecera:  int mágico 'INVB' | short versión | long tamaño CSV | long modificación CSV (ns)
+ *            int número de productos | int número de categorías | categorías (short longitud + UTF-8)
+ * Producto:  int id | short longitud + nombre UTF-8 | int índice de categoría
+ *            long precio sin escala | byte escala | int stock
+ * </pre>
+ */
+final class InstantaneaInventario {
+    
+    private static final int MAGICO = 0x494E5642; // "INVB"
+    private static final short VERSION = 1;
+    
+    private InstantaneaInventario() {
+    }
+    
+    /**
+     * Recorre los productos de la instantánea si existe y corresponde al CSV actual
+     * @param instantanea Ruta de la instantánea binaria
+     * @param csv Ruta del archivo de inventario en CSV
+     * @param nuevo Crea el acumulador
+     * @param acumular Añade un producto al acumulador
+     * @return Acumulador con todos los productos, o null si la instantánea no existe,
+     *         está obsoleta o no se puede leer (en ese caso hay que usar el CSV)
+     */
+    static <A> A leer(Path instantanea, Path csv, Supplier<A> nuevo, BiConsumer<A, Producto> acumular) {
+        if (!Files.exists(instantanea)) {
+            return null;
+        }
+        
+        try (FileChannel canal = FileChannel.open(instantanea, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            
+            if (buffer.remaining() < 30 || buffer.getInt() != MAGICO || buffer.getShort() != VERSION) {
+                return null;
+            }
+            long[] estampa = leerEstampa(csv);
+            if (buffer.getLong() != estampa[0] || buffer.getLong() != estampa[1]) {
+                return null;
+            }
+            
+            int numProductos = buffer.getInt();
+            String[] categorias = new String[buffer.getInt()];
+            for (int i = 0; i < categorias.length; i++) {
+                categorias[i] = leerTexto(buffer);
+            }
+            
+            A acumulador = nuevo.get();
+            for (int i = 0; i < numProductos; i++) {
+                int id = buffer.getInt();
+                String nombre = leerTexto(buffer);
+                String categoria = categorias[buffer.getInt()];
+                long precioSinEscala = buffer.getLong();
+                int escala = buffer.get();
+                int stock = buffer.getInt();
+                acumular.accept(acumulador, new Producto(id, nombre, categoria,
+                        BigDecimal.valueOf(precioSinEscala, escala), stock));
+            }
+            return acumulador;
+        
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Instantánea binaria no válida, se usará el CSV: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Escribe la instantánea de los productos indicados, que deben coincidir con el contenido
+     * actual del CSV. Se escribe en un archivo temporal que después sustituye al anterior.
+     * @param instantanea Ruta de la instantánea binaria
+     * @param csv Ruta del archivo de inventario en CSV del que proceden los productos
+     * @param productos Productos en el orden del CSV
+     * @return Bytes escritos
+     * @throws IOException si ocurre un error al escribir
+     * @throws IllegalArgumentException si algún precio no cabe en el formato binario
+     */
+    static long escribir(Path instantanea, Path csv, List<Producto> productos) throws IOException {
+        Map<String, Integer> indiceCategorias = new HashMap<>();
+        List<String> categorias = new ArrayList<>();
+        for (Producto p : productos) {
+            if (!indiceCategorias.containsKey(p.getCategoria())) {
+                indiceCategorias.put(p.getCategoria(), categorias.size());
+                categorias.add(p.getCategoria());
+            }
+        }
+        
+        long[] estampa = leerEstampa(csv);
+        Path temporal = instantanea.resolveSibling(instantanea.getFileName() + ".tmp");
+        
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporal), 64 * 1024))) {
+            salida.writeInt(MAGICO);
+            salida.writeShort(VERSION);
+            salida.writeLong(estampa[0]);
+            salida.writeLong(estampa[1]);
+            salida.writeInt(productos.size());
+            salida.writeInt(categorias.size());
+            for (String categoria : categorias) {
+                escribirTexto(salida, categoria);
+            }
+            
+            for (Producto p : productos) {
+                BigInteger sinEscala = p.getPrecio().unscaledValue();
+                int escala = p.getPrecio().scale();
+                if (sinEscala.bitLength() > 63 || escala < Byte.MIN_VALUE || escala > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("Precio no representable: " + p.getPrecio());
+                }
+                salida.writeInt(p.getIdProducto());
+                escribirTexto(salida, p.getNombre());
+                salida.writeInt(indiceCategorias.get(p.getCategoria()));
+                salida.writeLong(sinEscala.longValue());
+                salida.writeByte(escala);
+                salida.writeInt(p.getStock());
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        
+        long bytes = Files.size(temporal);
+        Files.move(temporal, instantanea, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+    
+    /**
+     * Indica si la instantánea existe y corresponde al CSV actual
+     */
+    static boolean estaActualizada(Path instantanea, Path csv) {
+        if (!Files.exists(instantanea)) {
+            return false;
+        }
+        try (FileChannel canal = FileChannel.open(instantanea, StandardOpenOption.READ)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(22);
+            canal.read(cabecera, 0);
+            cabecera.flip();
+            if (cabecera.remaining() < 22 || cabecera.getInt() != MAGICO || cabecera.getShort() != VERSION) {
+                return false;
+            }
+            long[] estampa = leerEstampa(csv);
+            return cabecera.getLong() == estampa[0] && cabecera.getLong() == estampa[1];
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Tamaño y fecha de modificación (en nanosegundos) del CSV
+     */
+    private static long[] leerEstampa(Path csv) throws IOException {
+        BasicFileAttributes atributos = Files.readAttributes(csv, BasicFileAttributes.class);
+        return new long[] {atributos.size(), atributos.lastModifiedTime().to(TimeUnit.NANOSECONDS)};
+    }
+    
+    private static String leerTexto(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Texto demasiado largo para la instantánea");
+        }
+        salida.writeShort(bytes.length);
+        salida.write(bytes);
+    }
+}
@@ -0,0 +1,16 @@
+package com.empresa.inventario.dao;
+
+/**
+ * Indica que otro proceso retiene el bloqueo del inventario más de la espera configurada
+ * (inventario.bloqueo.espera). Las lecturas la dejan pasar para que quien las llama pueda
+ * distinguir el inventario bloqueado de una búsqueda sin resultados; las escrituras la
+ * convierten en un fallo de la operación ({@link InventarioDAO#bloquear}).
+ */
+public class InventarioBloqueadoException extends IllegalStateException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public InventarioBloqueadoException(String mensaje) {
+        super(mensaje);
+    }
+}
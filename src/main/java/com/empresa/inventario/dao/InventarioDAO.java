@@ -1,32 +1,169 @@
 package com.empresa.inventario.dao;
 
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.cambios.PublicadorCambios;
+import com.empresa.inventario.jfr.EventoAnexoInventario;
+import com.empresa.inventario.jfr.EventoEscaneoInventario;
+import com.empresa.inventario.jfr.EventoReescrituraInventario;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.EstadisticasCategoria;
+import com.empresa.inventario.model.EstadisticasCategorias;
+import com.empresa.inventario.model.EstadisticasInventario;
+import com.empresa.inventario.model.OrdenProductos;
 import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.util.ConfiguracionUtil;
 import com.empresa.inventario.util.RegistroUtil;
 
 import java.io.*;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Data Access Object para la gestión del inventario en archivo de texto.
- * Implementa operaciones CRUD sobre el archivo inventario.txt
+ * Implementa operaciones CRUD sobre el archivo inventario.txt o, con el formato "fijo"
+ * ({@link ConfiguracionUtil#FORMATO_FIJO}), sobre el almacén de ranuras fijas inventario.dat
  */
 public class InventarioDAO {
     
-    private static final String ARCHIVO_INVENTARIO = "data/inventario.txt";
+    private static final String ARCHIVO_INVENTARIO = ConfiguracionUtil.rutaDatos("inventario.txt");
+    private static final String ARCHIVO_INSTANTANEA = ConfiguracionUtil.rutaDatos("inventario.bin");
+    private static final String ARCHIVO_SECUENCIA = ConfiguracionUtil.rutaDatos("secuencia_ids.txt");
+    private static final String ARCHIVO_REGISTROS_FIJOS = ConfiguracionUtil.rutaDatos("inventario.dat");
+    private static final String ARCHIVO_INDICE = ConfiguracionUtil.rutaDatos("inventario.idx");
+    private static final String ARCHIVO_CAMBIOS = ConfiguracionUtil.rutaDatos("cambios.log");
+    private static final String DIRECTORIO_CONSUMIDORES = ConfiguracionUtil.rutaDatos("consumidores");
     private static final String CABECERA_CSV = "id_producto;nombre;categoria;precio;stock";
     
+    /** Tamaño a partir del cual compensa escanear el archivo en paralelo */
+    private static final long UMBRAL_ESCANEO_PARALELO = 1024 * 1024;
+    
+    /** Tamaño inicial del bloque con el que se lee el CSV en el recorrido secuencial */
+    private static final int TAMANO_BLOQUE_LECTURA = 64 * 1024;
+    
+    /** Prefiltro de los recorridos que necesitan todos los productos */
+    private static final Predicate<VistaProducto> SIN_PREFILTRO = vista -> true;
+    
+    /** true si el inventario se guarda en ranuras de tamaño fijo en lugar de en el CSV */
+    private static final boolean FORMATO_FIJO = ConfiguracionUtil.FORMATO_FIJO;
+    
+    /**
+     * Bloqueo compartido por todas las instancias, ya que todas trabajan sobre el mismo archivo.
+     * Las lecturas pueden ser concurrentes; las escrituras son exclusivas, también frente a los
+     * demás procesos que usen el mismo directorio de datos ({@link ConfiguracionUtil#BLOQUEO_ENTRE_PROCESOS}).
+     */
+    private static final BloqueoArchivo BLOQUEO = new BloqueoArchivo(Paths.get(ConfiguracionUtil.rutaDatos("inventario.lock")),
+            ConfiguracionUtil.BLOQUEO_ENTRE_PROCESOS, ConfiguracionUtil.ESPERA_BLOQUEO);
+    
+    /** Decide cuándo se sincronizan con el disco las escrituras ({@link ConfiguracionUtil#DURABILIDAD}) */
+    private static final SincronizadorDisco DURABILIDAD = new SincronizadorDisco(
+            SincronizadorDisco.Politica.desdeTexto(ConfiguracionUtil.DURABILIDAD),
+            ConfiguracionUtil.INTERVALO_DURABILIDAD);
+    
+    /** Flujo de cambios del inventario; null si está desactivado ({@link ConfiguracionUtil#FLUJO_CAMBIOS}) */
+    private static final PublicadorCambios CAMBIOS = abrirPublicadorCambios();
+    
+    /** Excluye entre sí los volcados del almacén de ranuras fijas al CSV */
+    private static final Object EXPORTACION = new Object();
+    
+    /** Caché de resultados de búsquedas, compartida por todas las instancias como el bloqueo */
+    private static final CacheConsultas CACHE = new CacheConsultas(ConfiguracionUtil.CACHE_CONSULTAS_ENTRADAS,
+            ConfiguracionUtil.CACHE_CONSULTAS_SEGUNDOS,
+            Paths.get(FORMATO_FIJO ? ARCHIVO_REGISTROS_FIJOS : ARCHIVO_INVENTARIO));
+    
+    /** Secuencia de IDs compartida por todas las instancias; se carga en el primer uso */
+    private static volatile SecuenciaIds secuencia;
+    
+    /** Almacén de ranuras fijas (solo con el formato "fijo"); se abre en el primer uso */
+    private static volatile AlmacenRegistrosFijos almacen;
+    
+    /**
+     * Vigilancia de los cambios externos del CSV ({@link ConfiguracionUtil#VIGILAR_INVENTARIO});
+     * null si está desactivada, si aún no se ha creado ningún DAO o con el formato "fijo"
+     */
+    private static volatile VigilanteInventario vigilante;
+    
+    /** Huella del CSV tal como lo dejó la última escritura del DAO o la última sincronización */
+    private static volatile HuellaArchivo archivoConocido;
+    
+    /** Acciones que se ejecutan cuando el CSV cambia por otros medios y hay que recargarlo entero */
+    private static final List<Runnable> OYENTES_RECARGA = new CopyOnWriteArrayList<>();
+    
+    // Métricas de cada operación (publicadas por JMX)
+    private static final MetricasOperacion METRICAS_ESCANEO = RegistroMetricas.operacion("InventarioDAO.escaneo");
+    private static final MetricasOperacion METRICAS_REESCRITURA = RegistroMetricas.operacion("InventarioDAO.reescritura");
+    private static final MetricasOperacion METRICAS_LISTAR = RegistroMetricas.operacion("InventarioDAO.listarTodos");
+    private static final MetricasOperacion METRICAS_LISTAR_PAGINA = RegistroMetricas.operacion("InventarioDAO.listarPagina");
+    private static final MetricasOperacion METRICAS_RECORRER = RegistroMetricas.operacion("InventarioDAO.recorrerTodos");
+    private static final MetricasOperacion METRICAS_BUSCAR_ID = RegistroMetricas.operacion("InventarioDAO.buscarPorId");
+    private static final MetricasOperacion METRICAS_BUSCAR_NOMBRE = RegistroMetricas.operacion("InventarioDAO.buscarPorNombre");
+    private static final MetricasOperacion METRICAS_BUSCAR_CATEGORIA = RegistroMetricas.operacion("InventarioDAO.buscarPorCategoria");
+    private static final MetricasOperacion METRICAS_BUSCAR_STOCK = RegistroMetricas.operacion("InventarioDAO.buscarStockBajo");
+    private static final MetricasOperacion METRICAS_CREAR = RegistroMetricas.operacion("InventarioDAO.crear");
+    private static final MetricasOperacion METRICAS_ACTUALIZAR = RegistroMetricas.operacion("InventarioDAO.actualizar");
+    private static final MetricasOperacion METRICAS_ELIMINAR = RegistroMetricas.operacion("InventarioDAO.eliminar");
+    private static final MetricasOperacion METRICAS_APLICAR_CAMBIOS = RegistroMetricas.operacion("InventarioDAO.aplicarCambios");
+    private static final MetricasOperacion METRICAS_INSTANTANEA = RegistroMetricas.operacion("InventarioDAO.guardarInstantanea");
+    private static final MetricasOperacion METRICAS_COMPACTAR = RegistroMetricas.operacion("InventarioDAO.compactar");
+    private static final MetricasOperacion METRICAS_EXPORTAR = RegistroMetricas.operacion("InventarioDAO.exportarCsv");
+    private static final MetricasOperacion METRICAS_IMPORTAR = RegistroMetricas.operacion("InventarioDAO.importarCsv");
+    private static final MetricasOperacion METRICAS_NUEVO_ID = RegistroMetricas.operacion("InventarioDAO.generarNuevoId");
+    private static final MetricasOperacion METRICAS_ESTADISTICAS = RegistroMetricas.operacion("InventarioDAO.obtenerEstadisticas");
+    private static final MetricasOperacion METRICAS_ESTADISTICAS_CATEGORIAS = RegistroMetricas.operacion("InventarioDAO.calcularEstadisticasCategorias");
+    private static final MetricasOperacion METRICAS_SINCRONIZAR = RegistroMetricas.operacion("InventarioDAO.sincronizarArchivo");
+    
+    private final boolean escaneoParalelo;
+    private final boolean usarInstantanea = ConfiguracionUtil.INSTANTANEA_BINARIA && !FORMATO_FIJO;
+    
     /**
-     * Constructor que inicializa el archivo de inventario si no existe
+     * Constructor que inicializa el archivo de inventario si no existe.
+     * El modo de escaneo se toma de la configuración ({@link ConfiguracionUtil#ESCANEO_PARALELO}).
      */
     public InventarioDAO() {
+        this(ConfiguracionUtil.ESCANEO_PARALELO);
+    }
+    
+    /**
+     * Constructor que permite indicar el modo de escaneo
+     * @param escaneoParalelo true para escanear en paralelo los archivos grandes
+     */
+    public InventarioDAO(boolean escaneoParalelo) {
+        this.escaneoParalelo = escaneoParalelo;
         inicializarArchivo();
+        if (!FORMATO_FIJO && ConfiguracionUtil.VIGILAR_INVENTARIO) {
+            iniciarVigilancia();
+        }
+        if (FORMATO_FIJO) {
+            try {
+                obtenerAlmacen();
+            } catch (IOException e) {
+                System.err.println("Error al abrir el almacén de ranuras fijas: " + e.getMessage());
+            }
+        }
     }
     
     /**
@@ -53,36 +190,474 @@ public class InventarioDAO {
         }
     }
     
+    /**
+     * Pone en marcha la vigilancia del CSV la primera vez que se crea un DAO
+     */
+    private static void iniciarVigilancia() {
+        if (vigilante != null) {
+            return;
+        }
+        synchronized (InventarioDAO.class) {
+            if (vigilante != null) {
+                return;
+            }
+            Path ruta = Paths.get(ARCHIVO_INVENTARIO);
+            VigilanteInventario nuevo = new VigilanteInventario(ruta, InventarioDAO::sincronizarConArchivo);
+            if (!bloquear(BLOQUEO.writeLock())) {
+                System.err.println("No se vigilarán los cambios externos del inventario");
+                return;
+            }
+            try {
+                archivoConocido = HuellaArchivo.leer(ruta);
+                nuevo.iniciar();
+                vigilante = nuevo;
+            } catch (IOException e) {
+                System.err.println("No se vigilarán los cambios externos del inventario: " + e.getMessage());
+            } finally {
+                BLOQUEO.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Abre el diario del flujo de cambios si está activado
+     */
+    private static PublicadorCambios abrirPublicadorCambios() {
+        if (!ConfiguracionUtil.FLUJO_CAMBIOS) {
+            return null;
+        }
+        // Con el bloqueo de escritura: la última línea de un diario que otro proceso está
+        // escribiendo no se debe tomar por una escritura cortada
+        if (!bloquear(BLOQUEO.writeLock())) {
+            System.err.println("No se ha abierto el diario de cambios, no se publicarán cambios");
+            return null;
+        }
+        try {
+            return new PublicadorCambios(Paths.get(ARCHIVO_CAMBIOS), Paths.get(DIRECTORIO_CONSUMIDORES));
+        } catch (IOException e) {
+            System.err.println("Error al abrir el diario de cambios, no se publicarán cambios: " + e.getMessage());
+            return null;
+        } finally {
+            BLOQUEO.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene el almacén de ranuras fijas, abriéndolo la primera vez.
+     * Si el almacén todavía no existe, se crea importando el CSV actual.
+     * @throws IOException si no se puede abrir o crear
+     */
+    private static AlmacenRegistrosFijos obtenerAlmacen() throws IOException {
+        AlmacenRegistrosFijos actual = almacen;
+        if (actual == null) {
+            synchronized (InventarioDAO.class) {
+                actual = almacen;
+                if (actual == null) {
+                    Path ruta = Paths.get(ARCHIVO_REGISTROS_FIJOS);
+                    boolean importar = !Files.exists(ruta);
+                    actual = new AlmacenRegistrosFijos(ruta, Paths.get(ARCHIVO_INDICE));
+                    if (importar) {
+                        List<Producto> productos = new ArrayList<>();
+                        leerCsv(SIN_PREFILTRO, productos, (lista, p) -> {
+                            if (AlmacenRegistrosFijos.esIdValido(p.getIdProducto())) {
+                                lista.add(p);
+                            } else {
+                                System.err.println("Producto no importado, ID fuera del rango del formato fijo: " + p.toCSV());
+                            }
+                        });
+                        actual.reconstruir(productos);
+                        actual.sincronizar();
+                        RegistroUtil.registrar(RegistroUtil.TipoOperacion.INICIALIZACION, 
+                                "Almacén de ranuras fijas creado desde el CSV (" + productos.size() + " productos)");
+                    }
+                    almacen = actual;
+                }
+            }
+        }
+        return actual;
+    }
+    
+    /**
+     * Obtiene el bloqueo de lectura/escritura del archivo de inventario, para que otras
+     * operaciones sobre el archivo (copias de seguridad, restauraciones) se coordinen con el DAO
+     * @return Bloqueo del archivo de inventario
+     */
+    public ReadWriteLock obtenerBloqueo() {
+        return BLOQUEO;
+    }
+    
+    /**
+     * Toma un bloqueo del inventario ({@link #obtenerBloqueo()}) sin dejar escapar la excepción
+     * que se produce si otro proceso retiene el bloqueo del sistema más de la espera configurada
+     * (inventario.bloqueo.espera): en ese caso lo avisa por la salida de error y devuelve false,
+     * para que la operación falle como falla una escritura en disco. Las consultas no lo usan:
+     * dejan pasar la {@link InventarioBloqueadoException}, porque un resultado vacío se
+     * confundiría con una búsqueda sin resultados.
+     * @param bloqueo Bloqueo de lectura o de escritura del inventario
+     * @return true si se ha tomado el bloqueo (y hay que soltarlo), false si se agotó la espera
+     */
+    public static boolean bloquear(Lock bloqueo) {
+        try {
+            bloqueo.lock();
+            return true;
+        } catch (IllegalStateException e) {
+            System.err.println("Operación no realizada: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Vacía la caché de búsquedas. Se debe llamar tras sustituir el archivo de inventario
+     * por otros medios (por ejemplo, al restaurar un backup).
+     */
+    public void invalidarCache() {
+        CACHE.invalidarTodo();
+        anotarArchivo();
+    }
+    
+    /**
+     * Registra una acción para cuando el archivo de inventario cambie por otros medios (otra
+     * aplicación, una edición a mano) de una forma que no se puede traducir en altas sueltas,
+     * de modo que quien guarde datos del inventario en memoria los vuelva a cargar. Las líneas
+     * añadidas al final del archivo no la disparan: se publican como altas en el flujo de cambios.
+     * La acción se ejecuta en segundo plano, sin ningún bloqueo del inventario.
+     * @param oyente Acción que se ejecuta tras cada recarga
+     */
+    public void alRecargarArchivo(Runnable oyente) {
+        OYENTES_RECARGA.add(oyente);
+    }
+    
     /**
      * Lee todos los productos del archivo de inventario
      * @return Lista de productos
      */
     public List<Producto> listarTodos() {
-        List<Producto> productos = new ArrayList<>();
+        long inicio = METRICAS_LISTAR.iniciar();
+        try {
+            List<Producto> productos = leerProductos(p -> true);
+            RegistroUtil.registrarListado(productos.size());
+            return productos;
+        } finally {
+            METRICAS_LISTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Lee los productos del archivo que cumplen un filtro, conservando el orden del archivo
+     * @param filtro Condición que deben cumplir los productos
+     * @return Lista de productos que cumplen el filtro
+     */
+    private List<Producto> leerProductos(Predicate<Producto> filtro) {
+        return leerProductos(filtro, SIN_PREFILTRO);
+    }
+    
+    /**
+     * Lee los productos del archivo que cumplen un filtro, descartando antes las líneas del CSV
+     * que no cumplen el prefiltro sin llegar a crear su producto
+     * @param filtro Condición que deben cumplir los productos
+     * @param prefiltro La misma condición sobre la vista perezosa de la línea
+     * @return Lista de productos que cumplen el filtro
+     */
+    private List<Producto> leerProductos(Predicate<Producto> filtro, Predicate<VistaProducto> prefiltro) {
+        return recorrer(escaneoParalelo, prefiltro, ArrayList::new,
+                (lista, p) -> {
+                    if (filtro.test(p)) {
+                        lista.add(p);
+                    }
+                },
+                (izquierda, derecha) -> {
+                    izquierda.addAll(derecha);
+                    return izquierda;
+                });
+    }
+    
+    /**
+     * Recorre todos los productos en el orden del archivo sin cargarlos a la vez en memoria.
+     * El bloqueo de lectura se mantiene durante todo el recorrido, por lo que la acción
+     * ve una versión consistente del inventario y no debe modificarlo.
+     * @param accion Acción que se ejecuta con cada producto
+     */
+    public void recorrerTodos(Consumer<Producto> accion) {
+        long inicio = METRICAS_RECORRER.iniciar();
+        try {
+            recorrer(false, SIN_PREFILTRO, () -> null, (nada, p) -> accion.accept(p), (izquierda, derecha) -> null);
+        } catch (RuntimeException e) {
+            METRICAS_RECORRER.registrarError();
+            throw e;
+        } finally {
+            METRICAS_RECORRER.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Abre un cursor para recorrer todos los productos por tramos en el orden del archivo.
+     * A diferencia de {@link #recorrerTodos}, el bloqueo de lectura solo se retiene mientras se
+     * lee cada tramo, y a diferencia de {@link #listarDespuesDe} el archivo se lee una sola vez.
+     * @return Cursor abierto, que hay que cerrar al terminar
+     * @throws IOException si no se puede abrir el archivo de inventario
+     */
+    public CursorInventario abrirCursor() throws IOException {
+        BLOQUEO.readLock().lock();
+        try {
+            if (FORMATO_FIJO) {
+                return new CursorInventario(BLOQUEO.readLock(), obtenerAlmacen());
+            }
+            return new CursorInventario(BLOQUEO.readLock(),
+                    FileChannel.open(Paths.get(ARCHIVO_INVENTARIO), StandardOpenOption.READ));
+        } finally {
+            BLOQUEO.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene una página de productos ordenados, con paginación por desplazamiento.
+     * El archivo se recorre una vez conservando solo los desde + limite primeros productos.
+     * @param desde Número de productos que se omiten al principio
+     * @param limite Número máximo de productos de la página
+     * @param orden Criterio de ordenación
+     * @param descendente true para ordenar de mayor a menor
+     * @return Productos de la página, en orden
+     */
+    public List<Producto> listarPagina(int desde, int limite, OrdenProductos orden, boolean descendente) {
+        if (desde < 0 || limite < 0) {
+            throw new IllegalArgumentException("El desplazamiento y el límite no pueden ser negativos");
+        }
+        
+        long inicio = METRICAS_LISTAR_PAGINA.iniciar();
+        try {
+            Comparator<Producto> comparador = orden.comparador(descendente);
+            int capacidad = (int) Math.min(Integer.MAX_VALUE, (long) desde + limite);
+            return recorrer(() -> new SeleccionAcotada(comparador, capacidad),
+                    SeleccionAcotada::acumular, SeleccionAcotada::combinar).resultado(desde);
+        } finally {
+            METRICAS_LISTAR_PAGINA.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Obtiene la página de productos que sigue a un ID, ordenados por ID ascendente
+     * (paginación por clave). A diferencia del desplazamiento, el coste no crece con el
+     * número de página y las altas o bajas entre páginas no provocan saltos ni repeticiones.
+     * @param ultimoId Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de productos de la página
+     * @return Productos con ID mayor que ultimoId, en orden de ID
+     */
+    public List<Producto> listarDespuesDe(int ultimoId, int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo");
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(ARCHIVO_INVENTARIO))) {
-            // Saltar la cabecera
-            reader.readLine();
+        long inicio = METRICAS_LISTAR_PAGINA.iniciar();
+        try {
+            Comparator<Producto> comparador = OrdenProductos.ID.comparador(false);
+            return recorrer(escaneoParalelo, vista -> vista.getIdProducto() > ultimoId,
+                    () -> new SeleccionAcotada(comparador, limite),
+                    (seleccion, p) -> {
+                        if (p.getIdProducto() > ultimoId) {
+                            seleccion.acumular(p);
+                        }
+                    },
+                    SeleccionAcotada::combinar).resultado(0);
+        } finally {
+            METRICAS_LISTAR_PAGINA.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Resuelve una búsqueda desde la caché o, si no está, leyendo el archivo y guardando el resultado.
+     * La lectura y el guardado se hacen bajo el mismo bloqueo de lectura, de modo que ninguna
+     * escritura puede cambiar el archivo entre ambos pasos.
+     * @param clave Clave normalizada de la consulta
+     * @param filtro Condición que deben cumplir los productos
+     * @param prefiltro La misma condición sobre la vista perezosa de cada línea del CSV
+     * @return Lista de productos que cumplen el filtro
+     * @throws InventarioBloqueadoException si otro proceso retiene el bloqueo más de la espera configurada
+     */
+    private List<Producto> consultar(String clave, Predicate<Producto> filtro, Predicate<VistaProducto> prefiltro) {
+        BLOQUEO.readLock().lock();
+        try {
+            Optional<List<Producto>> guardado = CACHE.obtener(clave);
+            if (guardado.isPresent()) {
+                return guardado.get();
+            }
             
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                try {
-                    if (!linea.trim().isEmpty()) {
-                        Producto producto = Producto.fromCSV(linea);
-                        productos.add(producto);
-                    }
-                } catch (IllegalArgumentException e) {
-                    System.err.println("Error al parsear línea: " + linea);
+            List<Producto> resultados = leerProductos(filtro, prefiltro);
+            CACHE.guardar(clave, filtro, resultados);
+            return resultados;
+        } finally {
+            BLOQUEO.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Recorre todos los productos del archivo acumulándolos en un resultado.
+     * Si el escaneo paralelo está activo y el archivo es grande, el archivo se divide
+     * en rangos que se procesan en paralelo y los resultados parciales se combinan en orden.
+     * @param nuevo Crea un acumulador vacío
+     * @param acumular Añade un producto al acumulador
+     * @param combinar Combina dos acumuladores consecutivos
+     * @return Acumulador con el resultado del recorrido
+     */
+    private <A> A recorrer(Supplier<A> nuevo, BiConsumer<A, Producto> acumular, BinaryOperator<A> combinar) {
+        return recorrer(escaneoParalelo, SIN_PREFILTRO, nuevo, acumular, combinar);
+    }
+    
+    /**
+     * Recorre todos los productos del archivo acumulándolos en un resultado.
+     * Al leer el CSV, cada línea se examina primero con una vista perezosa y solo se crea el
+     * producto de las que cumplen el prefiltro; el almacén de ranuras fijas y la instantánea
+     * binaria no lo aplican, así que el acumulador debe comprobar igualmente su condición.
+     * @param paralelo true si se permite el escaneo paralelo de archivos grandes; con false
+     *                 los productos se acumulan en un único hilo y en el orden del archivo
+     * @param prefiltro Condición sobre la vista de cada línea del CSV para que se acumule
+     * @param nuevo Crea un acumulador vacío
+     * @param acumular Añade un producto al acumulador
+     * @param combinar Combina dos acumuladores consecutivos
+     * @return Acumulador con el resultado del recorrido
+     */
+    private <A> A recorrer(boolean paralelo, Predicate<VistaProducto> prefiltro, Supplier<A> nuevo,
+                           BiConsumer<A, Producto> acumular, BinaryOperator<A> combinar) {
+        LongAdder filas = new LongAdder();
+        LongAdder materializadas = new LongAdder();
+        BiConsumer<A, Producto> acumularContando = (acumulador, p) -> {
+            materializadas.increment();
+            acumular.accept(acumulador, p);
+        };
+        Predicate<VistaProducto> prefiltroContando = vista -> {
+            filas.increment();
+            return prefiltro.test(vista);
+        };
+        
+        EventoEscaneoInventario evento = new EventoEscaneoInventario();
+        evento.begin();
+        long inicio = METRICAS_ESCANEO.iniciar();
+        try {
+            BLOQUEO.readLock().lock();
+        } catch (InventarioBloqueadoException e) {
+            // Se deja pasar: un recorrido vacío se confundiría con un inventario sin productos
+            METRICAS_ESCANEO.registrarError();
+            METRICAS_ESCANEO.finalizar(inicio);
+            throw e;
+        }
+        try {
+            if (FORMATO_FIJO) {
+                A acumulador = nuevo.get();
+                long bytesRanuras = obtenerAlmacen().recorrer(p -> {
+                    filas.increment();
+                    acumularContando.accept(acumulador, p);
+                });
+                METRICAS_ESCANEO.sumarBytesLeidos(bytesRanuras);
+                evento.bytes = bytesRanuras;
+                return acumulador;
+            }
+            
+            Path ruta = Paths.get(ARCHIVO_INVENTARIO);
+            
+            if (usarInstantanea) {
+                A desdeInstantanea = InstantaneaInventario.leer(Paths.get(ARCHIVO_INSTANTANEA), ruta,
+                        nuevo, (acumulador, p) -> {
+                            filas.increment();
+                            acumularContando.accept(acumulador, p);
+                        });
+                if (desdeInstantanea != null) {
+                    long bytesInstantanea = Files.size(Paths.get(ARCHIVO_INSTANTANEA));
+                    METRICAS_ESCANEO.sumarBytesLeidos(bytesInstantanea);
+                    evento.bytes = bytesInstantanea;
+                    evento.instantanea = true;
+                    return desdeInstantanea;
                 }
             }
             
-            RegistroUtil.registrarListado(productos.size());
+            long tamano = Files.size(ruta);
+            METRICAS_ESCANEO.sumarBytesLeidos(tamano);
+            evento.bytes = tamano;
+            
+            if (paralelo && tamano >= UMBRAL_ESCANEO_PARALELO) {
+                evento.paralelo = true;
+                return EscaneoParalelo.escanear(ruta, prefiltroContando, nuevo, acumularContando, combinar);
+            }
             
+            A acumulador = nuevo.get();
+            leerCsv(prefiltroContando, acumulador, acumularContando);
+            return acumulador;
+        
         } catch (IOException e) {
+            METRICAS_ESCANEO.registrarError();
             System.err.println("Error al leer el archivo de inventario: " + e.getMessage());
+            return nuevo.get();
+        } finally {
+            BLOQUEO.readLock().unlock();
+            METRICAS_ESCANEO.sumarFilasLeidas(filas.sum());
+            METRICAS_ESCANEO.finalizar(inicio);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.filas = filas.sum();
+                evento.materializadas = materializadas.sum();
+                evento.commit();
+            }
         }
+    }
+    
+    /**
+     * Lee el CSV de inventario secuencialmente, en el orden del archivo.
+     * Se lee por bloques de bytes y cada línea se examina con una vista perezosa sobre el
+     * bloque, sin decodificarla entera a texto
+     * @param prefiltro Condición sobre la vista de cada línea para que se cree su producto
+     * @param acumulador Acumulador que recibe los productos
+     * @param acumular Añade un producto al acumulador
+     * @throws IOException si ocurre un error al leer el archivo
+     */
+    private static <A> void leerCsv(Predicate<VistaProducto> prefiltro, A acumulador,
+                                    BiConsumer<A, Producto> acumular) throws IOException {
+        VistaProducto vista = new VistaProducto(Charset.defaultCharset());
+        byte[] bloque = new byte[TAMANO_BLOQUE_LECTURA];
+        // Bytes al principio del bloque de una línea que aún no ha terminado
+        int pendientes = 0;
+        boolean cabecera = true;
         
-        return productos;
+        try (InputStream entrada = new FileInputStream(ARCHIVO_INVENTARIO)) {
+            int leidos;
+            while ((leidos = entrada.read(bloque, pendientes, bloque.length - pendientes)) > 0) {
+                int limite = pendientes + leidos;
+                int inicioLinea = 0;
+                for (int i = pendientes; i < limite; i++) {
+                    if (bloque[i] == '\n') {
+                        if (cabecera) {
+                            cabecera = false;
+                        } else {
+                            vista.apuntar(bloque, inicioLinea, i);
+                            acumularLinea(vista, prefiltro, acumulador, acumular);
+                        }
+                        inicioLinea = i + 1;
+                    }
+                }
+                
+                pendientes = limite - inicioLinea;
+                System.arraycopy(bloque, inicioLinea, bloque, 0, pendientes);
+                if (pendientes == bloque.length) {
+                    bloque = Arrays.copyOf(bloque, bloque.length * 2);
+                }
+            }
+            
+            if (pendientes > 0 && !cabecera) {
+                vista.apuntar(bloque, 0, pendientes);
+                acumularLinea(vista, prefiltro, acumulador, acumular);
+            }
+        }
+    }
+    
+    /**
+     * Acumula el producto de la línea a la que apunta la vista si cumple el prefiltro
+     */
+    private static <A> void acumularLinea(VistaProducto vista, Predicate<VistaProducto> prefiltro, A acumulador,
+                                          BiConsumer<A, Producto> acumular) {
+        try {
+            if (!vista.estaVacia() && prefiltro.test(vista)) {
+                acumular.accept(acumulador, vista.materializar());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error al parsear línea: " + vista.linea());
+        }
     }
     
     /**
@@ -91,12 +666,40 @@ public class InventarioDAO {
      * @return Optional con el producto si se encuentra, Optional.empty() si no
      */
     public Optional<Producto> buscarPorId(int id) {
-        Optional<Producto> resultado = listarTodos().stream()
-                .filter(p -> p.getIdProducto() == id)
-                .findFirst();
-        
-        RegistroUtil.registrarBusqueda("ID=" + id, resultado.isPresent() ? 1 : 0);
-        return resultado;
+        long inicio = METRICAS_BUSCAR_ID.iniciar();
+        try {
+            Optional<Producto> resultado = FORMATO_FIJO
+                    ? buscarEnAlmacen(id)
+                    : leerProductos(p -> p.getIdProducto() == id, vista -> vista.getIdProducto() == id)
+                            .stream().findFirst();
+            
+            RegistroUtil.registrarBusqueda("ID=" + id, resultado.isPresent() ? 1 : 0);
+            return resultado;
+        } finally {
+            METRICAS_BUSCAR_ID.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Busca un producto en el almacén de ranuras fijas a través del índice, sin recorrerlo
+     */
+    private Optional<Producto> buscarEnAlmacen(int id) {
+        try {
+            BLOQUEO.readLock().lock();
+        } catch (InventarioBloqueadoException e) {
+            // Se deja pasar: Optional.empty() se confundiría con un producto que no existe
+            METRICAS_BUSCAR_ID.registrarError();
+            throw e;
+        }
+        try {
+            return Optional.ofNullable(obtenerAlmacen().buscar(id));
+        } catch (IOException e) {
+            METRICAS_BUSCAR_ID.registrarError();
+            System.err.println("Error al leer el almacén de ranuras fijas: " + e.getMessage());
+            return Optional.empty();
+        } finally {
+            BLOQUEO.readLock().unlock();
+        }
     }
     
     /**
@@ -105,12 +708,18 @@ public class InventarioDAO {
      * @return Lista de productos que coinciden con el criterio
      */
     public List<Producto> buscarPorNombre(String nombre) {
-        List<Producto> resultados = listarTodos().stream()
-                .filter(p -> p.getNombre().toLowerCase().contains(nombre.toLowerCase()))
-                .collect(Collectors.toList());
-        
-        RegistroUtil.registrarBusqueda("Nombre contiene '" + nombre + "'", resultados.size());
-        return resultados;
+        long inicio = METRICAS_BUSCAR_NOMBRE.iniciar();
+        try {
+            String nombreBuscado = nombre.toLowerCase();
+            List<Producto> resultados = consultar("nombre:" + nombreBuscado,
+                    p -> p.getNombre().toLowerCase().contains(nombreBuscado),
+                    vista -> vista.getNombre().toLowerCase().contains(nombreBuscado));
+            
+            RegistroUtil.registrarBusqueda("Nombre contiene '" + nombre + "'", resultados.size());
+            return resultados;
+        } finally {
+            METRICAS_BUSCAR_NOMBRE.finalizar(inicio);
+        }
     }
     
     /**
@@ -119,12 +728,17 @@ public class InventarioDAO {
      * @return Lista de productos de la categoría especificada
      */
     public List<Producto> buscarPorCategoria(String categoria) {
-        List<Producto> resultados = listarTodos().stream()
-                .filter(p -> p.getCategoria().equalsIgnoreCase(categoria))
-                .collect(Collectors.toList());
-        
-        RegistroUtil.registrarBusqueda("Categoría=" + categoria, resultados.size());
-        return resultados;
+        long inicio = METRICAS_BUSCAR_CATEGORIA.iniciar();
+        try {
+            List<Producto> resultados = consultar("categoria:" + categoria.toLowerCase(),
+                    p -> p.getCategoria().equalsIgnoreCase(categoria),
+                    vista -> vista.getCategoria().equalsIgnoreCase(categoria));
+            
+            RegistroUtil.registrarBusqueda("Categoría=" + categoria, resultados.size());
+            return resultados;
+        } finally {
+            METRICAS_BUSCAR_CATEGORIA.finalizar(inicio);
+        }
     }
     
     /**
@@ -133,12 +747,16 @@ public class InventarioDAO {
      * @return Lista de productos con stock menor o igual al umbral
      */
     public List<Producto> buscarStockBajo(int umbral) {
-        List<Producto> resultados = listarTodos().stream()
-                .filter(p -> p.getStock() <= umbral)
-                .collect(Collectors.toList());
-        
-        RegistroUtil.registrarBusqueda("Stock <= " + umbral, resultados.size());
-        return resultados;
+        long inicio = METRICAS_BUSCAR_STOCK.iniciar();
+        try {
+            List<Producto> resultados = consultar("stock<=" + umbral, p -> p.getStock() <= umbral,
+                    vista -> vista.getStock() <= umbral);
+            
+            RegistroUtil.registrarBusqueda("Stock <= " + umbral, resultados.size());
+            return resultados;
+        } finally {
+            METRICAS_BUSCAR_STOCK.finalizar(inicio);
+        }
     }
     
     /**
@@ -147,22 +765,79 @@ public class InventarioDAO {
      * @return true si se añadió correctamente, false si ya existe un producto con ese ID
      */
     public boolean crear(Producto producto) {
-        // Verificar que no existe un producto con ese ID
-        if (buscarPorId(producto.getIdProducto()).isPresent()) {
-            System.err.println("Ya existe un producto con ID: " + producto.getIdProducto());
+        long inicio = METRICAS_CREAR.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_CREAR.registrarError();
+            METRICAS_CREAR.finalizar(inicio);
             return false;
         }
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARCHIVO_INVENTARIO, true))) {
-            writer.write(producto.toCSV());
-            writer.newLine();
+        try {
+            // Verificar que no existe un producto con ese ID
+            if (buscarPorId(producto.getIdProducto()).isPresent()) {
+                System.err.println("Ya existe un producto con ID: " + producto.getIdProducto());
+                return false;
+            }
             
-            RegistroUtil.registrarAlta(producto.getIdProducto(), producto.getNombre());
-            return true;
+            EventoAnexoInventario evento = new EventoAnexoInventario();
+            evento.begin();
+            if (FORMATO_FIJO) {
+                try {
+                    if (!obtenerAlmacen().insertar(producto)) {
+                        System.err.println("Ya existe un producto con ID: " + producto.getIdProducto());
+                        return false;
+                    }
+                    DURABILIDAD.escrito(ARCHIVO_REGISTROS_FIJOS, almacen::sincronizar);
+                    publicarCambios(List.of(EventoCambio.de(null, producto)));
+                    METRICAS_CREAR.sumarBytesEscritos(AlmacenRegistrosFijos.TAMANO_RANURA);
+                    
+                    evento.idProducto = producto.getIdProducto();
+                    evento.filas = 1;
+                    evento.bytes = AlmacenRegistrosFijos.TAMANO_RANURA;
+                    evento.commit();
+                    
+                    RegistroUtil.registrarAlta(producto.getIdProducto(), producto.getNombre());
+                    return true;
+                
+                } catch (IOException e) {
+                    METRICAS_CREAR.registrarError();
+                    System.err.println("Error al añadir producto: " + e.getMessage());
+                    return false;
+                }
+            }
             
-        } catch (IOException e) {
-            System.err.println("Error al añadir producto: " + e.getMessage());
-            return false;
+            try {
+                sincronizarConArchivo();
+                String linea = producto.toCSV();
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARCHIVO_INVENTARIO, true))) {
+                    writer.write(linea);
+                    writer.newLine();
+                }
+                anotarArchivo();
+                DURABILIDAD.escrito(ARCHIVO_INVENTARIO, InventarioDAO::sincronizarInventario);
+                publicarCambios(List.of(EventoCambio.de(null, producto)));
+                // FileWriter codifica con el juego de caracteres por defecto
+                long bytes = (linea + System.lineSeparator()).getBytes(Charset.defaultCharset()).length;
+                METRICAS_CREAR.sumarBytesEscritos(bytes);
+                
+                evento.idProducto = producto.getIdProducto();
+                evento.filas = 1;
+                evento.bytes = bytes;
+                evento.commit();
+                
+                RegistroUtil.registrarAlta(producto.getIdProducto(), producto.getNombre());
+                return true;
+            
+            } catch (IOException e) {
+                METRICAS_CREAR.registrarError();
+                System.err.println("Error al añadir producto: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            // La línea puede haberse escrito aunque falle el registro posterior; se invalida igualmente
+            CACHE.invalidar(producto);
+            BLOQUEO.writeLock().unlock();
+            esperarDurabilidad();
+            METRICAS_CREAR.finalizar(inicio);
         }
     }
     
@@ -172,51 +847,97 @@ public class InventarioDAO {
      * @return true si se actualizó correctamente, false si no se encontró el producto
      */
     public boolean actualizar(Producto producto) {
-        List<Producto> productos = listarTodos();
-        boolean encontrado = false;
-        StringBuilder cambios = new StringBuilder();
-        
-        // Buscar y actualizar el producto
-        for (int i = 0; i < productos.size(); i++) {
-            if (productos.get(i).getIdProducto() == producto.getIdProducto()) {
-                Producto anterior = productos.get(i);
-                
-                // Registrar cambios
-                if (!anterior.getNombre().equals(producto.getNombre())) {
-                    cambios.append(String.format("Nombre: '%s' -> '%s'; ", 
-                            anterior.getNombre(), producto.getNombre()));
-                }
-                if (!anterior.getCategoria().equals(producto.getCategoria())) {
-                    cambios.append(String.format("Categoría: '%s' -> '%s'; ", 
-                            anterior.getCategoria(), producto.getCategoria()));
-                }
-                if (!anterior.getPrecio().equals(producto.getPrecio())) {
-                    cambios.append(String.format("Precio: %.2f -> %.2f; ", 
-                            anterior.getPrecio(), producto.getPrecio()));
-                }
-                if (anterior.getStock() != producto.getStock()) {
-                    cambios.append(String.format("Stock: %d -> %d; ", 
-                            anterior.getStock(), producto.getStock()));
+        long inicio = METRICAS_ACTUALIZAR.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_ACTUALIZAR.registrarError();
+            METRICAS_ACTUALIZAR.finalizar(inicio);
+            return false;
+        }
+        try {
+            if (FORMATO_FIJO) {
+                return actualizarEnAlmacen(producto);
+            }
+            
+            List<Producto> productos = listarTodos();
+            Producto anterior = null;
+            
+            // Buscar y actualizar el producto
+            for (int i = 0; i < productos.size(); i++) {
+                if (productos.get(i).getIdProducto() == producto.getIdProducto()) {
+                    anterior = productos.get(i);
+                    productos.set(i, producto);
+                    break;
                 }
-                
-                productos.set(i, producto);
-                encontrado = true;
-                break;
             }
+            
+            if (anterior == null) {
+                return false;
+            }
+            
+            // Reescribir el archivo completo
+            boolean reescrito = reescribirArchivo(productos);
+            CACHE.invalidar(anterior, producto);
+            if (reescrito) {
+                publicarCambios(List.of(EventoCambio.de(anterior, producto)));
+                RegistroUtil.registrarModificacion(producto.getIdProducto(), describirCambios(anterior, producto));
+                return true;
+            }
+            
+            return false;
+        } finally {
+            BLOQUEO.writeLock().unlock();
+            esperarDurabilidad();
+            METRICAS_ACTUALIZAR.finalizar(inicio);
         }
+    }
+    
+    /**
+     * Actualiza un producto en el almacén de ranuras fijas escribiendo solo su ranura
+     */
+    private boolean actualizarEnAlmacen(Producto producto) {
+        try {
+            Producto anterior = obtenerAlmacen().actualizar(producto);
+            if (anterior == null) {
+                return false;
+            }
+            DURABILIDAD.escrito(ARCHIVO_REGISTROS_FIJOS, almacen::sincronizar);
+            CACHE.invalidar(anterior, producto);
+            publicarCambios(List.of(EventoCambio.de(anterior, producto)));
+            METRICAS_ACTUALIZAR.sumarBytesEscritos(AlmacenRegistrosFijos.TAMANO_RANURA);
+            RegistroUtil.registrarModificacion(producto.getIdProducto(), describirCambios(anterior, producto));
+            return true;
         
-        if (!encontrado) {
+        } catch (IOException e) {
+            // La ranura puede haber quedado a medias: no se conserva ninguna consulta
+            CACHE.invalidarTodo();
+            METRICAS_ACTUALIZAR.registrarError();
+            System.err.println("Error al actualizar producto: " + e.getMessage());
             return false;
         }
-        
-        // Reescribir el archivo completo
-        if (reescribirArchivo(productos)) {
-            RegistroUtil.registrarModificacion(producto.getIdProducto(), 
-                    cambios.length() > 0 ? cambios.toString() : "Sin cambios");
-            return true;
+    }
+    
+    /**
+     * Describe los campos que cambian entre dos versiones de un producto, para el registro
+     */
+    private static String describirCambios(Producto anterior, Producto producto) {
+        StringBuilder cambios = new StringBuilder();
+        if (!anterior.getNombre().equals(producto.getNombre())) {
+            cambios.append(String.format("Nombre: '%s' -> '%s'; ", 
+                    anterior.getNombre(), producto.getNombre()));
         }
-        
-        return false;
+        if (!anterior.getCategoria().equals(producto.getCategoria())) {
+            cambios.append(String.format("Categoría: '%s' -> '%s'; ", 
+                    anterior.getCategoria(), producto.getCategoria()));
+        }
+        if (!anterior.getPrecio().equals(producto.getPrecio())) {
+            cambios.append(String.format("Precio: %.2f -> %.2f; ", 
+                    anterior.getPrecio(), producto.getPrecio()));
+        }
+        if (anterior.getStock() != producto.getStock()) {
+            cambios.append(String.format("Stock: %d -> %d; ", 
+                    anterior.getStock(), producto.getStock()));
+        }
+        return cambios.length() > 0 ? cambios.toString() : "Sin cambios";
     }
     
     /**
@@ -225,36 +946,467 @@ public class InventarioDAO {
      * @return true si se eliminó correctamente, false si no se encontró el producto
      */
     public boolean eliminar(int id) {
-        List<Producto> productos = listarTodos();
-        Optional<Producto> productoEliminado = productos.stream()
-                .filter(p -> p.getIdProducto() == id)
-                .findFirst();
+        long inicio = METRICAS_ELIMINAR.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_ELIMINAR.registrarError();
+            METRICAS_ELIMINAR.finalizar(inicio);
+            return false;
+        }
+        try {
+            if (FORMATO_FIJO) {
+                return eliminarEnAlmacen(id);
+            }
+            
+            List<Producto> productos = listarTodos();
+            Optional<Producto> productoEliminado = productos.stream()
+                    .filter(p -> p.getIdProducto() == id)
+                    .findFirst();
+            
+            if (!productoEliminado.isPresent()) {
+                return false;
+            }
+            
+            // Eliminar el producto de la lista
+            productos.removeIf(p -> p.getIdProducto() == id);
+            
+            // Reescribir el archivo
+            boolean reescrito = reescribirArchivo(productos);
+            CACHE.invalidar(productoEliminado.get());
+            if (reescrito) {
+                publicarCambios(List.of(EventoCambio.de(productoEliminado.get(), null)));
+                RegistroUtil.registrarBaja(id, productoEliminado.get().getNombre());
+                return true;
+            }
+            
+            return false;
+        } finally {
+            BLOQUEO.writeLock().unlock();
+            esperarDurabilidad();
+            METRICAS_ELIMINAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Elimina un producto del almacén de ranuras fijas marcando su ranura como libre
+     */
+    private boolean eliminarEnAlmacen(int id) {
+        try {
+            Producto eliminado = obtenerAlmacen().eliminar(id);
+            if (eliminado == null) {
+                return false;
+            }
+            DURABILIDAD.escrito(ARCHIVO_REGISTROS_FIJOS, almacen::sincronizar);
+            CACHE.invalidar(eliminado);
+            publicarCambios(List.of(EventoCambio.de(eliminado, null)));
+            METRICAS_ELIMINAR.sumarBytesEscritos(AlmacenRegistrosFijos.TAMANO_RANURA);
+            RegistroUtil.registrarBaja(id, eliminado.getNombre());
+            return true;
         
-        if (!productoEliminado.isPresent()) {
+        } catch (IOException e) {
+            CACHE.invalidarTodo();
+            METRICAS_ELIMINAR.registrarError();
+            System.err.println("Error al eliminar producto: " + e.getMessage());
             return false;
         }
+    }
+    
+    /**
+     * Aplica un conjunto de cambios sobre el inventario completo cargado en memoria.
+     * El inventario se lee una vez, se pasa a la función de cambios como mapa ID -> producto
+     * (en el orden del archivo) y, si la función devuelve true, se reescribe el archivo una sola vez
+     * y se sincroniza con el disco. Con el formato de ranuras fijas solo se escriben las ranuras
+     * de los productos que cambian. Todo ocurre bajo el bloqueo de escritura.
+     * @param cambios Función que modifica el mapa y devuelve true si hay que guardar el resultado
+     * @return true si no había nada que guardar o se guardó correctamente, false si falló la escritura
+     */
+    public boolean aplicarCambios(Predicate<Map<Integer, Producto>> cambios) {
+        long inicio = METRICAS_APLICAR_CAMBIOS.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_APLICAR_CAMBIOS.registrarError();
+            METRICAS_APLICAR_CAMBIOS.finalizar(inicio);
+            return false;
+        }
+        try {
+            Map<Integer, Producto> productos = new LinkedHashMap<>();
+            Map<Integer, String> originales = new HashMap<>();
+            for (Producto p : leerProductos(p -> true)) {
+                productos.put(p.getIdProducto(), p);
+                originales.put(p.getIdProducto(), p.toCSV());
+            }
+            
+            if (!cambios.test(productos)) {
+                return true;
+            }
+            
+            List<EventoCambio> diferencias = calcularDiferencias(originales, productos);
+            boolean guardado = FORMATO_FIJO
+                    ? aplicarEnAlmacen(diferencias)
+                    : reescribirArchivo(productos.values(), true);
+            for (EventoCambio diferencia : diferencias) {
+                CACHE.invalidar(diferencia.getAntes(), diferencia.getDespues());
+            }
+            if (!guardado) {
+                METRICAS_APLICAR_CAMBIOS.registrarError();
+                return false;
+            }
+            publicarCambios(diferencias);
+            
+            // El archivo se acaba de reescribir completo: se aprovecha para renovar la instantánea
+            escribirInstantanea(new ArrayList<>(productos.values()));
+            return true;
+        } finally {
+            BLOQUEO.writeLock().unlock();
+            METRICAS_APLICAR_CAMBIOS.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Aplica las diferencias en el almacén de ranuras fijas, escribiendo solo las ranuras
+     * de los productos que cambian, y lo sincroniza con el disco
+     */
+    private boolean aplicarEnAlmacen(List<EventoCambio> diferencias) {
+        try {
+            AlmacenRegistrosFijos registros = obtenerAlmacen();
+            for (EventoCambio diferencia : diferencias) {
+                switch (diferencia.getTipo()) {
+                    case CREADO:
+                        registros.insertar(diferencia.getDespues());
+                        break;
+                    case ACTUALIZADO:
+                        registros.actualizar(diferencia.getDespues());
+                        break;
+                    default:
+                        registros.eliminar(diferencia.getIdProducto());
+                        break;
+                }
+            }
+            registros.sincronizar();
+            METRICAS_APLICAR_CAMBIOS.sumarBytesEscritos((long) diferencias.size() * AlmacenRegistrosFijos.TAMANO_RANURA);
+            return true;
         
-        // Eliminar el producto de la lista
-        productos.removeIf(p -> p.getIdProducto() == id);
+        } catch (IOException e) {
+            System.err.println("Error al guardar los cambios en el almacén de ranuras fijas: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Guarda la instantánea binaria del inventario si no existe o está obsoleta,
+     * para que los siguientes recorridos no tengan que parsear el CSV.
+     * Se llama al cerrar la aplicación de forma ordenada.
+     * @return true si la instantánea queda actualizada
+     */
+    public boolean guardarInstantanea() {
+        if (!usarInstantanea) {
+            return false;
+        }
         
-        // Reescribir el archivo
-        if (reescribirArchivo(productos)) {
-            RegistroUtil.registrarBaja(id, productoEliminado.get().getNombre());
+        long inicio = METRICAS_INSTANTANEA.iniciar();
+        // Con el bloqueo de escritura: otro proceso que se cierra a la vez escribiría la misma instantánea
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_INSTANTANEA.registrarError();
+            METRICAS_INSTANTANEA.finalizar(inicio);
+            return false;
+        }
+        try {
+            if (InstantaneaInventario.estaActualizada(Paths.get(ARCHIVO_INSTANTANEA), Paths.get(ARCHIVO_INVENTARIO))) {
+                return true;
+            }
+            return escribirInstantanea(leerProductos(p -> true));
+        } finally {
+            BLOQUEO.writeLock().unlock();
+            METRICAS_INSTANTANEA.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Compacta el archivo de inventario: lo reescribe sin líneas vacías ni erróneas,
+     * lo sincroniza con el disco y regenera la instantánea binaria.
+     * Con el formato de ranuras fijas reconstruye el almacén sin ranuras libres
+     * y vacía la zona de desbordamiento.
+     * @return true si se compactó correctamente
+     */
+    public boolean compactar() {
+        long inicio = METRICAS_COMPACTAR.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_COMPACTAR.registrarError();
+            METRICAS_COMPACTAR.finalizar(inicio);
+            return false;
+        }
+        try {
+            List<Producto> productos = leerProductos(p -> true);
+            boolean reescrito = FORMATO_FIJO ? reconstruirAlmacen(productos) : reescribirArchivo(productos, true);
+            CACHE.invalidarTodo();
+            if (!reescrito) {
+                METRICAS_COMPACTAR.registrarError();
+                return false;
+            }
+            escribirInstantanea(productos);
+            return true;
+        } finally {
+            BLOQUEO.writeLock().unlock();
+            METRICAS_COMPACTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Vuelca el almacén de ranuras fijas al CSV (inventario.txt), que sigue siendo el formato
+     * de intercambio y el que copian los backups. Con el formato CSV no hace nada.
+     * Basta el bloqueo de lectura, porque con ese formato ninguna otra operación escribe el CSV;
+     * dos volcados simultáneos se excluyen entre sí.
+     * @return true si el CSV queda al día
+     */
+    public boolean exportarCsv() {
+        if (!FORMATO_FIJO) {
             return true;
         }
         
-        return false;
+        long inicio = METRICAS_EXPORTAR.iniciar();
+        if (!bloquear(BLOQUEO.readLock())) {
+            METRICAS_EXPORTAR.registrarError();
+            METRICAS_EXPORTAR.finalizar(inicio);
+            return false;
+        }
+        try {
+            synchronized (EXPORTACION) {
+                boolean exportado = reescribirArchivo(leerProductos(p -> true), true);
+                if (!exportado) {
+                    METRICAS_EXPORTAR.registrarError();
+                }
+                return exportado;
+            }
+        } finally {
+            BLOQUEO.readLock().unlock();
+            METRICAS_EXPORTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Sustituye el contenido del almacén de ranuras fijas por el del CSV, por ejemplo tras
+     * restaurar un backup. Con el formato CSV no hace nada.
+     * @return true si el almacén queda al día
+     */
+    public boolean importarCsv() {
+        if (!FORMATO_FIJO) {
+            return true;
+        }
+        
+        long inicio = METRICAS_IMPORTAR.iniciar();
+        if (!bloquear(BLOQUEO.writeLock())) {
+            METRICAS_IMPORTAR.registrarError();
+            METRICAS_IMPORTAR.finalizar(inicio);
+            return false;
+        }
+        try {
+            List<Producto> productos = new ArrayList<>();
+            leerCsv(SIN_PREFILTRO, productos, List::add);
+            boolean importado = reconstruirAlmacen(productos);
+            if (!importado) {
+                METRICAS_IMPORTAR.registrarError();
+            }
+            return importado;
+        } catch (IOException e) {
+            METRICAS_IMPORTAR.registrarError();
+            System.err.println("Error al leer el archivo de inventario: " + e.getMessage());
+            return false;
+        } finally {
+            CACHE.invalidarTodo();
+            BLOQUEO.writeLock().unlock();
+            METRICAS_IMPORTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Reconstruye el almacén de ranuras fijas con los productos indicados, sin huecos,
+     * y lo sincroniza con el disco
+     */
+    private boolean reconstruirAlmacen(Collection<Producto> productos) {
+        long inicio = METRICAS_REESCRITURA.iniciar();
+        try {
+            obtenerAlmacen().reconstruir(productos);
+            obtenerAlmacen().sincronizar();
+            METRICAS_REESCRITURA.sumarBytesEscritos((long) productos.size() * AlmacenRegistrosFijos.TAMANO_RANURA);
+            return true;
+        } catch (IOException e) {
+            METRICAS_REESCRITURA.registrarError();
+            System.err.println("Error al reconstruir el almacén de ranuras fijas: " + e.getMessage());
+            return false;
+        } finally {
+            METRICAS_REESCRITURA.finalizar(inicio);
+        }
     }
     
     /**
-     * Genera un nuevo ID único para un producto
-     * @return Nuevo ID (máximo ID actual + 1)
+     * Escribe la instantánea binaria con los productos indicados, que deben coincidir con el CSV.
+     * Un fallo no afecta al inventario: los recorridos seguirán usando el CSV.
+     */
+    private boolean escribirInstantanea(List<Producto> productos) {
+        if (!usarInstantanea) {
+            return false;
+        }
+        try {
+            long bytes = InstantaneaInventario.escribir(Paths.get(ARCHIVO_INSTANTANEA),
+                    Paths.get(ARCHIVO_INVENTARIO), productos);
+            METRICAS_INSTANTANEA.sumarBytesEscritos(bytes);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            METRICAS_INSTANTANEA.registrarError();
+            System.err.println("Error al guardar la instantánea binaria: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Calcula la diferencia entre el contenido original (en CSV) y el resultado de aplicar
+     * los cambios: primero las modificaciones y bajas en el orden original, después las altas
+     */
+    private static List<EventoCambio> calcularDiferencias(Map<Integer, String> originales,
+                                                          Map<Integer, Producto> productos) {
+        List<EventoCambio> diferencias = new ArrayList<>();
+        for (Map.Entry<Integer, String> original : originales.entrySet()) {
+            Producto actual = productos.get(original.getKey());
+            if (actual == null || !original.getValue().equals(actual.toCSV())) {
+                diferencias.add(EventoCambio.de(Producto.fromCSV(original.getValue()), actual));
+            }
+        }
+        for (Producto actual : productos.values()) {
+            if (!originales.containsKey(actual.getIdProducto())) {
+                diferencias.add(EventoCambio.de(null, actual));
+            }
+        }
+        return diferencias;
+    }
+    
+    /**
+     * Publica los cambios ya guardados para los suscriptores del flujo de cambios.
+     * Se llama con el bloqueo de escritura, de modo que los eventos quedan en el orden de los cambios.
+     * Un fallo al escribir el diario no deshace el cambio, que ya está guardado.
+     */
+    private static void publicarCambios(List<EventoCambio> eventos) {
+        if (CAMBIOS == null || eventos.isEmpty()) {
+            return;
+        }
+        try {
+            CAMBIOS.publicar(eventos);
+            DURABILIDAD.escrito(ARCHIVO_CAMBIOS, () -> SincronizadorDisco.forzarArchivo(CAMBIOS.getArchivoDiario()));
+        } catch (IOException e) {
+            System.err.println("Error al publicar los cambios del inventario: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Obtiene el publicador de cambios del inventario (altas, modificaciones y bajas)
+     * @return Publicador, o null si el flujo de cambios está desactivado o no se pudo abrir su diario
+     */
+    public PublicadorCambios obtenerPublicadorCambios() {
+        return CAMBIOS;
+    }
+    
+    /**
+     * Captura el estado actual del inventario para publicar después las diferencias con
+     * {@link #publicarCambiosDesde(Map)}, cuando el archivo se va a sustituir por otros medios
+     * (por ejemplo, al restaurar un backup). Debe llamarse con el bloqueo de escritura.
+     * @return Productos por ID en CSV, o null si el flujo de cambios está desactivado
+     */
+    public Map<Integer, String> capturarEstado() {
+        if (CAMBIOS == null) {
+            return null;
+        }
+        sincronizarConArchivo();
+        Map<Integer, String> estado = new LinkedHashMap<>();
+        for (Producto p : leerProductos(p -> true)) {
+            estado.put(p.getIdProducto(), p.toCSV());
+        }
+        return estado;
+    }
+    
+    /**
+     * Publica las diferencias entre un estado capturado con {@link #capturarEstado()} y el actual
+     * @param estadoAnterior Estado capturado (null = no hacer nada)
+     */
+    public void publicarCambiosDesde(Map<Integer, String> estadoAnterior) {
+        if (estadoAnterior == null) {
+            return;
+        }
+        if (!bloquear(BLOQUEO.writeLock())) {
+            System.err.println("No se han publicado los cambios de la restauración");
+            return;
+        }
+        try {
+            Map<Integer, Producto> actuales = new LinkedHashMap<>();
+            for (Producto p : leerProductos(p -> true)) {
+                actuales.put(p.getIdProducto(), p);
+            }
+            publicarCambios(calcularDiferencias(estadoAnterior, actuales));
+        } finally {
+            BLOQUEO.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Genera un nuevo ID único para un producto desde la secuencia persistente.
+     * Es seguro con varios hilos: cada llamada devuelve un ID distinto y creciente.
+     * @return Nuevo ID
      */
     public int generarNuevoId() {
-        return listarTodos().stream()
-                .mapToInt(Producto::getIdProducto)
-                .max()
-                .orElse(0) + 1;
+        long inicio = METRICAS_NUEVO_ID.iniciar();
+        try {
+            return obtenerSecuencia().asignar();
+        } catch (RuntimeException e) {
+            METRICAS_NUEVO_ID.registrarError();
+            throw e;
+        } finally {
+            METRICAS_NUEVO_ID.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Reserva un rango de IDs consecutivos para una importación o un lote
+     * @param cantidad Número de IDs
+     * @return Primer ID del rango; el rango es [primero, primero + cantidad)
+     */
+    public int reservarIds(int cantidad) {
+        long inicio = METRICAS_NUEVO_ID.iniciar();
+        try {
+            return obtenerSecuencia().asignarRango(cantidad);
+        } catch (RuntimeException e) {
+            METRICAS_NUEVO_ID.registrarError();
+            throw e;
+        } finally {
+            METRICAS_NUEVO_ID.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Obtiene la secuencia de IDs, cargándola la primera vez. Solo en esa carga se recorre
+     * el inventario para conocer el máximo ID existente.
+     */
+    private SecuenciaIds obtenerSecuencia() {
+        SecuenciaIds actual = secuencia;
+        if (actual == null) {
+            synchronized (InventarioDAO.class) {
+                actual = secuencia;
+                if (actual == null) {
+                    actual = new SecuenciaIds(Paths.get(ARCHIVO_SECUENCIA), ConfiguracionUtil.BLOQUE_IDS,
+                            calcularMaximoId(), BLOQUEO.writeLock());
+                    secuencia = actual;
+                }
+            }
+        }
+        return actual;
+    }
+    
+    /**
+     * Calcula el máximo ID presente en el archivo de inventario
+     */
+    private int calcularMaximoId() {
+        int[] maximo = recorrer(() -> new int[1],
+                (m, p) -> m[0] = Math.max(m[0], p.getIdProducto()),
+                (izquierda, derecha) -> {
+                    izquierda[0] = Math.max(izquierda[0], derecha[0]);
+                    return izquierda;
+                });
+        return maximo[0];
     }
     
     /**
@@ -262,23 +1414,276 @@ public class InventarioDAO {
      * @param productos Lista de productos a escribir
      * @return true si se escribió correctamente, false en caso contrario
      */
-    private boolean reescribirArchivo(List<Producto> productos) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARCHIVO_INVENTARIO))) {
-            // Escribir cabecera
-            writer.write(CABECERA_CSV);
-            writer.newLine();
-            
-            // Escribir productos
-            for (Producto p : productos) {
-                writer.write(p.toCSV());
+    private boolean reescribirArchivo(Collection<Producto> productos) {
+        return reescribirArchivo(productos, false);
+    }
+    
+    /**
+     * Reescribe completamente el archivo de inventario con la lista de productos proporcionada.
+     * Se escribe en un archivo temporal que después sustituye al inventario con un renombrado
+     * atómico, de modo que una caída nunca deja el inventario a medias. Cuándo llegan los datos
+     * al disco depende de la política de durabilidad, salvo que se pida sincronizar.
+     * @param productos Productos a escribir, en orden
+     * @param sincronizar true para forzar que los datos lleguen al disco (fsync) antes de volver,
+     *                    sea cual sea la política de durabilidad
+     * @return true si se escribió correctamente, false en caso contrario
+     */
+    private boolean reescribirArchivo(Collection<Producto> productos, boolean sincronizar) {
+        EventoReescrituraInventario evento = new EventoReescrituraInventario();
+        evento.begin();
+        long inicio = METRICAS_REESCRITURA.iniciar();
+        Path ruta = Paths.get(ARCHIVO_INVENTARIO);
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        boolean forzar = sincronizar || DURABILIDAD.esSincrona();
+        
+        // Lo que otra aplicación haya cambiado hasta ahora se publica antes de sustituir el archivo
+        sincronizarConArchivo();
+        try {
+            try (FileOutputStream salida = new FileOutputStream(temporal.toFile());
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(salida))) {
+                // Escribir cabecera
+                writer.write(CABECERA_CSV);
                 writer.newLine();
+                
+                // Escribir productos
+                for (Producto p : productos) {
+                    writer.write(p.toCSV());
+                    writer.newLine();
+                }
+                
+                writer.flush();
+                if (forzar) {
+                    salida.getFD().sync();
+                }
             }
             
-            return true;
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            anotarArchivo();
+            if (forzar) {
+                SincronizadorDisco.forzarDirectorio(ruta.toAbsolutePath().getParent());
+            } else {
+                DURABILIDAD.escrito(ARCHIVO_INVENTARIO, InventarioDAO::sincronizarInventario);
+            }
             
+            long bytes = Files.size(ruta);
+            METRICAS_REESCRITURA.sumarBytesEscritos(bytes);
+            evento.filas = productos.size();
+            evento.bytes = bytes;
+            return true;
+        
         } catch (IOException e) {
+            METRICAS_REESCRITURA.registrarError();
             System.err.println("Error al reescribir el archivo de inventario: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                // El temporal se sobrescribe en la siguiente reescritura
+            }
             return false;
+        } finally {
+            METRICAS_REESCRITURA.finalizar(inicio);
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Anota el estado del CSV tras una escritura del propio DAO, para que la vigilancia no la
+     * tome por un cambio externo. Se llama con el bloqueo de escritura.
+     */
+    private static void anotarArchivo() {
+        if (vigilante == null) {
+            return;
+        }
+        try {
+            archivoConocido = HuellaArchivo.leer(Paths.get(ARCHIVO_INVENTARIO));
+        } catch (IOException e) {
+            // La próxima comprobación lo tomará por un cambio externo y recargará el inventario
+            System.err.println("Error al anotar el estado del archivo de inventario: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Pone al día la caché de consultas y el flujo de cambios si el CSV ha cambiado sin pasar
+     * por el DAO. Lo llama la vigilancia del directorio de datos y, antes de escribir, el propio
+     * DAO, para que ningún cambio externo quede oculto tras una escritura suya.
+     *
+     * Si al archivo solo se le han añadido líneas al final, se leen únicamente esas líneas y se
+     * publican como altas. En cualquier otro caso se vacía la caché y se avisa en segundo plano a
+     * los oyentes de recarga ({@link #alRecargarArchivo(Runnable)}). La comparación y la lectura
+     * se hacen con el bloqueo de lectura, sin detener las consultas en curso; solo la publicación
+     * toma un momento el de escritura.
+     */
+    private static void sincronizarConArchivo() {
+        if (vigilante == null) {
+            return;
+        }
+        Path ruta = Paths.get(ARCHIVO_INVENTARIO);
+        try {
+            while (!archivoConocido.vigente(ruta)) {
+                if (intentarSincronizar(ruta)) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // IllegalStateException: otro proceso retiene el bloqueo; se comprobará en el siguiente aviso
+            METRICAS_SINCRONIZAR.registrarError();
+            System.err.println("Error al comprobar los cambios del archivo de inventario: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Compara el CSV con su huella anotada y aplica la diferencia
+     * @return false si una escritura del DAO se ha adelantado y hay que volver a comparar
+     */
+    private static boolean intentarSincronizar(Path ruta) throws IOException {
+        long inicio = METRICAS_SINCRONIZAR.iniciar();
+        try {
+            HuellaArchivo anotada = archivoConocido;
+            HuellaArchivo actual;
+            List<Producto> anadidos = null;
+            boolean ajeno;
+            
+            BLOQUEO.readLock().lock();
+            try {
+                if (anotada.esPrincipioDe(ruta)) {
+                    anadidos = new ArrayList<>();
+                    long fin = leerAnadidos(ruta, anotada.getTamano(), anadidos);
+                    if (fin < 0) {
+                        // Truncado o sustituido tras la comparación: se recarga completo
+                        anadidos = null;
+                        actual = HuellaArchivo.leer(ruta);
+                    } else {
+                        actual = HuellaArchivo.leer(ruta, fin);
+                    }
+                } else {
+                    actual = HuellaArchivo.leer(ruta);
+                }
+            } finally {
+                BLOQUEO.readLock().unlock();
+            }
+            
+            BLOQUEO.writeLock().lock();
+            try {
+                if (archivoConocido != anotada) {
+                    return false;
+                }
+                archivoConocido = actual;
+                // Si el cambio lo ha hecho otro proceso con este DAO, sus eventos ya están en el
+                // diario compartido y las vistas los reciben de ahí: no se publican ni se recarga nada
+                ajeno = CAMBIOS != null && CAMBIOS.ponerseAlDia();
+                if (anadidos == null) {
+                    CACHE.invalidarTodo();
+                    // La secuencia se vuelve a cargar, con el máximo ID del nuevo contenido
+                    secuencia = null;
+                } else if (!anadidos.isEmpty()) {
+                    List<EventoCambio> altas = new ArrayList<>(anadidos.size());
+                    int maximoId = 0;
+                    for (Producto p : anadidos) {
+                        CACHE.invalidar(p);
+                        altas.add(EventoCambio.de(null, p));
+                        maximoId = Math.max(maximoId, p.getIdProducto());
+                    }
+                    if (!ajeno) {
+                        publicarCambios(altas);
+                    }
+                    SecuenciaIds actualSecuencia = secuencia;
+                    if (actualSecuencia != null) {
+                        actualSecuencia.avanzarHasta(maximoId);
+                    }
+                }
+            } finally {
+                BLOQUEO.writeLock().unlock();
+            }
+            
+            if (ajeno) {
+                return true;
+            }
+            if (anadidos == null) {
+                RegistroUtil.registrar(RegistroUtil.TipoOperacion.CAMBIO_EXTERNO,
+                        "Archivo de inventario modificado por otros medios: se recarga completo");
+                vigilante.ejecutar(InventarioDAO::avisarRecarga);
+            } else if (!anadidos.isEmpty()) {
+                RegistroUtil.registrar(RegistroUtil.TipoOperacion.CAMBIO_EXTERNO,
+                        "Líneas añadidas al archivo de inventario por otros medios: " + anadidos.size());
+            }
+            return true;
+        } finally {
+            METRICAS_SINCRONIZAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Lee los productos de las líneas completas añadidas al CSV a partir de una posición
+     * @param ruta Archivo de inventario
+     * @param desde Posición en la que empiezan las líneas añadidas
+     * @param productos Lista que recibe los productos
+     * @return Posición siguiente a la última línea completa (las líneas a medio escribir se dejan
+     *         para la siguiente comprobación), o -1 si el archivo ya es más corto que la posición
+     */
+    private static long leerAnadidos(Path ruta, long desde, List<Producto> productos) throws IOException {
+        byte[] datos;
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            // Entre la comparación de la huella y la apertura otro proceso puede haberlo truncado
+            long tamano = canal.size();
+            if (tamano < desde) {
+                return -1;
+            }
+            datos = new byte[(int) Math.min(Integer.MAX_VALUE - 8, tamano - desde)];
+            ByteBuffer buffer = ByteBuffer.wrap(datos);
+            long posicion = desde;
+            while (buffer.hasRemaining()) {
+                int leidos = canal.read(buffer, posicion);
+                if (leidos < 0) {
+                    break;
+                }
+                posicion += leidos;
+            }
+        }
+        
+        VistaProducto vista = new VistaProducto(Charset.defaultCharset());
+        int inicioLinea = 0;
+        for (int i = 0; i < datos.length; i++) {
+            if (datos[i] == '\n') {
+                vista.apuntar(datos, inicioLinea, i);
+                acumularLinea(vista, SIN_PREFILTRO, productos, List::add);
+                inicioLinea = i + 1;
+            }
+        }
+        METRICAS_SINCRONIZAR.sumarBytesLeidos(inicioLinea);
+        METRICAS_SINCRONIZAR.sumarFilasLeidas(productos.size());
+        return desde + inicioLinea;
+    }
+    
+    /**
+     * Ejecuta los oyentes de recarga tras un cambio externo completo del CSV
+     */
+    private static void avisarRecarga() {
+        for (Runnable oyente : OYENTES_RECARGA) {
+            try {
+                oyente.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error al recargar tras un cambio externo del inventario: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Sincroniza con el disco el archivo de inventario y su directorio (por el renombrado)
+     */
+    private static void sincronizarInventario() throws IOException {
+        Path ruta = Paths.get(ARCHIVO_INVENTARIO).toAbsolutePath();
+        SincronizadorDisco.forzarArchivo(ruta);
+        SincronizadorDisco.forzarDirectorio(ruta.getParent());
+    }
+    
+    /**
+     * Con la política de durabilidad agrupada, espera a que se sincronice la escritura recién hecha.
+     * Se llama tras soltar el bloqueo de escritura para que otras escrituras entren en el mismo grupo;
+     * si el hilo aún tiene el bloqueo (una escritura dentro de otra operación) no se espera.
+     */
+    private static void esperarDurabilidad() {
+        if (!BLOQUEO.isWriteLockedByCurrentThread()) {
+            DURABILIDAD.esperar();
         }
     }
     
@@ -287,25 +1692,36 @@ public class InventarioDAO {
      * @return String con información estadística
      */
     public String obtenerEstadisticas() {
-        List<Producto> productos = listarTodos();
-        
-        int totalProductos = productos.size();
-        int stockTotal = productos.stream().mapToInt(Producto::getStock).sum();
-        BigDecimal valorTotal = productos.stream()
-                .map(p -> p.getPrecio().multiply(new BigDecimal(p.getStock())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        long categorias = productos.stream()
-                .map(Producto::getCategoria)
-                .distinct()
-                .count();
-        
-        return String.format(
-                "Total de productos: %d%n" +
-                "Stock total: %d unidades%n" +
-                "Valor total del inventario: %.2f EUR%n" +
-                "Número de categorías: %d",
-                totalProductos, stockTotal, valorTotal, categorias
-        );
+        return calcularEstadisticas().toString();
+    }
+    
+    /**
+     * Calcula las estadísticas del inventario en un único recorrido del archivo
+     * @return Estadísticas del inventario
+     */
+    public EstadisticasInventario calcularEstadisticas() {
+        long inicio = METRICAS_ESTADISTICAS.iniciar();
+        try {
+            return recorrer(EstadisticasInventario::new, EstadisticasInventario::acumular,
+                    EstadisticasInventario::combinar);
+        } finally {
+            METRICAS_ESTADISTICAS.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Calcula las estadísticas de cada categoría en un único recorrido del archivo
+     * (en paralelo si el archivo es grande)
+     * @param umbralStockBajo Un producto tiene stock bajo si su stock es menor o igual que este valor
+     * @return Estadísticas por categoría, ordenadas por nombre
+     */
+    public List<EstadisticasCategoria> calcularEstadisticasCategorias(int umbralStockBajo) {
+        long inicio = METRICAS_ESTADISTICAS_CATEGORIAS.iniciar();
+        try {
+            return recorrer(() -> new EstadisticasCategorias(umbralStockBajo), EstadisticasCategorias::acumular,
+                    EstadisticasCategorias::combinar).resultado();
+        } finally {
+            METRICAS_ESTADISTICAS_CATEGORIAS.finalizar(inicio);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.empresa.inventario.dao;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Secuencia persistente de IDs de producto (estilo hi/lo).
+ * Los IDs se reparten desde un AtomicLong sin bloqueos; en disco solo se guarda el límite
+ * del bloque reservado, de modo que se escribe una vez por bloque y no por cada alta.
+ *
+ * Recuperación: tras una caída se continúa desde el límite guardado, nunca por debajo,
+ * así que los IDs no usados del último bloque se pierden pero ninguno se repite.
+ * Si el archivo de la secuencia falta o es ilegible, se parte del máximo ID del inventario.
+ *
+ * Varios procesos pueden compartir el archivo: cada reserva se hace con el bloqueo de escritura
+ * del inventario (exclusivo también entre procesos) y parte del límite que haya en disco, de modo
+ * que si otro proceso ha reservado un bloque después que este, sus IDs se saltan.
+ */
+final class SecuenciaIds {
+    
+    private final Path archivo;
+    private final int tamanoBloque;
+    private final AtomicLong siguiente;
+    private final Lock bloqueoReserva;
+    
+    /** IDs reservados en disco para este proceso que se pueden repartir */
+    private volatile Reserva reserva;
+    
+    /**
+     * Carga la secuencia desde disco
+     * @param archivo Archivo donde se guarda el límite reservado
+     * @param tamanoBloque Número de IDs que se reservan cada vez que se escribe en disco
+     * @param maximoIdExistente Máximo ID presente en el inventario, por si el archivo falta o está atrasado
+     * @param bloqueoReserva Bloqueo que se toma para reservar un bloque (antes que el de la secuencia)
+     */
+    SecuenciaIds(Path archivo, int tamanoBloque, long maximoIdExistente, Lock bloqueoReserva) {
+        this.archivo = archivo;
+        this.tamanoBloque = Math.max(1, tamanoBloque);
+        this.bloqueoReserva = bloqueoReserva;
+        
+        long inicio = Math.max(leerGuardado(), maximoIdExistente + 1);
+        this.siguiente = new AtomicLong(Math.max(1, inicio));
+        this.reserva = new Reserva(siguiente.get(), siguiente.get());
+    }
+    
+    /**
+     * Asigna un nuevo ID
+     * @return ID asignado, mayor que todos los asignados anteriormente
+     */
+    int asignar() {
+        return asignarRango(1);
+    }
+    
+    /**
+     * Asigna un rango de IDs consecutivos, por ejemplo para una importación
+     * @param cantidad Número de IDs del rango
+     * @return Primer ID del rango; el rango es [primero, primero + cantidad)
+     * @throws IllegalStateException si se agotan los IDs representables
+     * @throws UncheckedIOException si no se puede guardar la reserva en disco
+     */
+    int asignarRango(int cantidad) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser positiva");
+        }
+        
+        long primero = siguiente.getAndAdd(cantidad);
+        if (!reserva.contiene(primero, cantidad)) {
+            bloqueoReserva.lock();
+            try {
+                primero = reservar(primero, cantidad);
+            } finally {
+                bloqueoReserva.unlock();
+            }
+        }
+        return (int) primero;
+    }
+    
+    /**
+     * Garantiza que los próximos IDs sean mayores que uno que ya existe en el inventario,
+     * por ejemplo porque otra aplicación ha añadido productos al archivo
+     * @param maximoId ID existente
+     */
+    void avanzarHasta(long maximoId) {
+        siguiente.accumulateAndGet(maximoId + 1, Math::max);
+    }
+    
+    /**
+     * Reserva en disco un nuevo bloque que cubra un rango asignado. Si otro proceso ha reservado
+     * IDs más allá de la reserva actual, el rango se vuelve a asignar a continuación de los suyos.
+     * La reserva se guarda antes de devolver cualquier ID del bloque.
+     * @return Primer ID del rango, el asignado o el nuevo
+     */
+    private synchronized long reservar(long primero, int cantidad) {
+        Reserva actual = reserva;
+        if (actual.contiene(primero, cantidad)) {
+            return primero;
+        }
+        
+        long inicio = actual.inicio;
+        long guardado = leerGuardado();
+        if (guardado > actual.limite) {
+            siguiente.accumulateAndGet(guardado, Math::max);
+            inicio = guardado;
+        }
+        if (primero < inicio) {
+            primero = siguiente.getAndAdd(cantidad);
+        }
+        long fin = primero + cantidad;
+        if (fin - 1 > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Se han agotado los IDs de producto");
+        }
+        
+        long nuevoLimite = Math.min((long) Integer.MAX_VALUE + 1, fin + tamanoBloque);
+        try {
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            try (FileOutputStream salida = new FileOutputStream(temporal.toFile());
+                 Writer writer = new OutputStreamWriter(salida, StandardCharsets.UTF_8)) {
+                writer.write(Long.toString(nuevoLimite));
+                writer.flush();
+                salida.getFD().sync();
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reservar un bloque de IDs", e);
+        }
+        reserva = new Reserva(inicio, nuevoLimite);
+        return primero;
+    }
+    
+    /**
+     * Límite guardado en disco (0 si el archivo falta o es ilegible)
+     */
+    private long leerGuardado() {
+        try {
+            if (Files.exists(archivo)) {
+                return Long.parseLong(new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Secuencia de IDs ilegible, se recalcula desde el inventario: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * IDs reservados por este proceso desde el último salto: [inicio, limite)
+     */
+    private static final class Reserva {
+        final long inicio;
+        final long limite;
+        
+        Reserva(long inicio, long limite) {
+            this.inicio = inicio;
+            this.limite = limite;
+        }
+        
+        boolean contiene(long primero, int cantidad) {
+            return primero >= inicio && primero + cantidad <= limite;
+        }
+    }
+}
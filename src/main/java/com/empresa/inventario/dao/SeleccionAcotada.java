@@ -0,0 +1,68 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.model.Producto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Acumulador que conserva solo los N primeros productos según un orden.
+ * Permite obtener una página ordenada recorriendo el archivo una vez con memoria
+ * proporcional al tamaño de la página (desplazamiento + límite), no al del inventario.
+ * Los acumuladores parciales de un escaneo paralelo se combinan con {@link #combinar}.
+ */
+final class SeleccionAcotada {
+    
+    private final Comparator<Producto> orden;
+    private final int capacidad;
+    
+    /** Montículo con el orden invertido: la cabeza es el peor de los productos conservados */
+    private final PriorityQueue<Producto> seleccion;
+    
+    SeleccionAcotada(Comparator<Producto> orden, int capacidad) {
+        this.orden = orden;
+        this.capacidad = capacidad;
+        this.seleccion = new PriorityQueue<>(Math.min(capacidad, 1024) + 1, orden.reversed());
+    }
+    
+    /**
+     * Ofrece un producto a la selección, descartando el peor si se supera la capacidad
+     */
+    void acumular(Producto producto) {
+        if (capacidad == 0) {
+            return;
+        }
+        if (seleccion.size() < capacidad) {
+            seleccion.add(producto);
+        } else if (orden.compare(producto, seleccion.peek()) < 0) {
+            seleccion.poll();
+            seleccion.add(producto);
+        }
+    }
+    
+    /**
+     * Añade a esta selección los productos de otra
+     * @return Esta misma selección
+     */
+    SeleccionAcotada combinar(SeleccionAcotada otra) {
+        for (Producto p : otra.seleccion) {
+            acumular(p);
+        }
+        return this;
+    }
+    
+    /**
+     * Devuelve los productos conservados, ordenados, a partir de un desplazamiento
+     * @param desde Número de productos iniciales que se omiten
+     */
+    List<Producto> resultado(int desde) {
+        List<Producto> ordenados = new ArrayList<>(seleccion);
+        ordenados.sort(orden);
+        if (desde >= ordenados.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(ordenados.subList(desde, ordenados.size()));
+    }
+}
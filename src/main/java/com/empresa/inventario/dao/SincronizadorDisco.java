@@ -0,0 +1,205 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aplica la política de durabilidad de las escrituras del inventario:
+ * <ul>
+ * <li>SINCRONA: cada escritura se sincroniza con el disco (fsync) antes de volver</li>
+ * <li>AGRUPADA: un hilo sincroniza cada cierto intervalo todos los archivos escritos desde
+ *     la vez anterior; quien escribe espera a esa sincronización después de soltar el bloqueo,
+ *     de modo que un único fsync cubre todas las escrituras del intervalo</li>
+ * <li>SISTEMA: no se fuerza nada; el sistema operativo decide cuándo llegan los datos al disco</li>
+ * </ul>
+ * La política solo decide cuándo se hacen duraderos los datos: las reescrituras completas
+ * usan siempre un archivo temporal y un renombrado atómico, así que ninguna deja el
+ * inventario a medias.
+ */
+final class SincronizadorDisco {
+    
+    /** Políticas de durabilidad disponibles */
+    enum Politica {
+        SINCRONA, AGRUPADA, SISTEMA;
+        
+        /**
+         * Obtiene la política a partir de su nombre en la configuración
+         * @param texto Nombre de la política (sincrona, agrupada o sistema)
+         * @return Política; SINCRONA si el nombre no es válido
+         */
+        static Politica desdeTexto(String texto) {
+            try {
+                return valueOf(texto.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Política de durabilidad no válida: " + texto + " (se usa 'sincrona')");
+                return SINCRONA;
+            }
+        }
+    }
+    
+    /** Acción que hace duraderos los datos escritos en un archivo */
+    @FunctionalInterface
+    interface Sincronizable {
+        void sincronizar() throws IOException;
+    }
+    
+    private static final MetricasOperacion METRICAS = RegistroMetricas.operacion("InventarioDAO.sincronizacion");
+    
+    private final Politica politica;
+    private final long intervaloMillis;
+    
+    /** Archivos escritos y pendientes de sincronizar con la política agrupada, por clave */
+    private final Map<String, Sincronizable> pendientes = new LinkedHashMap<>();
+    private long registradas;
+    private long completadas;
+    private Thread hilo;
+    
+    /**
+     * Constructor del sincronizador
+     * @param politica Política de durabilidad
+     * @param intervaloMillis Milisegundos entre sincronizaciones con la política agrupada
+     */
+    SincronizadorDisco(Politica politica, long intervaloMillis) {
+        this.politica = politica;
+        this.intervaloMillis = Math.max(1, intervaloMillis);
+    }
+    
+    /**
+     * Indica si cada escritura debe sincronizarse antes de volver
+     */
+    boolean esSincrona() {
+        return politica == Politica.SINCRONA;
+    }
+    
+    /**
+     * Notifica que se ha escrito en un archivo. Con la política síncrona se sincroniza ya;
+     * con la agrupada se anota para la siguiente sincronización; con la del sistema no se hace nada.
+     * @param clave Identifica el archivo; varias escrituras con la misma clave se sincronizan una vez
+     * @param accion Sincroniza el archivo con el disco
+     * @throws IOException si falla la sincronización inmediata
+     */
+    void escrito(String clave, Sincronizable accion) throws IOException {
+        switch (politica) {
+            case SINCRONA:
+                long inicio = METRICAS.iniciar();
+                try {
+                    accion.sincronizar();
+                } catch (IOException e) {
+                    METRICAS.registrarError();
+                    throw e;
+                } finally {
+                    METRICAS.finalizar(inicio);
+                }
+                break;
+            case AGRUPADA:
+                synchronized (this) {
+                    pendientes.put(clave, accion);
+                    registradas++;
+                    if (hilo == null) {
+                        hilo = new Thread(this::sincronizarPeriodicamente, "sincronizador-inventario");
+                        hilo.setDaemon(true);
+                        hilo.start();
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Con la política agrupada, espera a que se sincronicen todas las escrituras anotadas
+     * hasta ahora. No debe llamarse con el bloqueo de escritura del inventario, para que
+     * otras escrituras puedan sumarse al mismo grupo mientras tanto.
+     */
+    void esperar() {
+        if (politica != Politica.AGRUPADA) {
+            return;
+        }
+        
+        synchronized (this) {
+            long objetivo = registradas;
+            while (completadas < objetivo) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bucle del hilo de sincronización de la política agrupada
+     */
+    private void sincronizarPeriodicamente() {
+        while (true) {
+            try {
+                Thread.sleep(intervaloMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            
+            List<Sincronizable> grupo;
+            long hasta;
+            synchronized (this) {
+                if (pendientes.isEmpty()) {
+                    continue;
+                }
+                grupo = new ArrayList<>(pendientes.values());
+                pendientes.clear();
+                hasta = registradas;
+            }
+            
+            long inicio = METRICAS.iniciar();
+            for (Sincronizable accion : grupo) {
+                try {
+                    accion.sincronizar();
+                } catch (IOException e) {
+                    METRICAS.registrarError();
+                    System.err.println("Error al sincronizar el inventario con el disco: " + e.getMessage());
+                }
+            }
+            METRICAS.finalizar(inicio);
+            
+            synchronized (this) {
+                completadas = hasta;
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Fuerza que el contenido de un archivo llegue al disco
+     * @param archivo Archivo a sincronizar
+     * @throws IOException si falla la sincronización
+     */
+    static void forzarArchivo(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+    }
+    
+    /**
+     * Fuerza que las entradas de un directorio (por ejemplo, un renombrado) lleguen al disco.
+     * Algunos sistemas no permiten abrir directorios; en ese caso no se hace nada.
+     * @param directorio Directorio a sincronizar
+     */
+    static void forzarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // No soportado en este sistema: el renombrado ya es atómico, solo se pierde la garantía de durabilidad
+        }
+    }
+}
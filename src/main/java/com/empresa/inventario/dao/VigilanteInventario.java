@@ -0,0 +1,118 @@
+package com.empresa.inventario.dao;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vigila con un {@link WatchService} el directorio de datos y avisa cuando cambia el archivo de
+ * inventario, tanto por las escrituras del propio DAO como por otras aplicaciones. Qué ha cambiado
+ * lo decide quien recibe el aviso, comparando el archivo con lo último que anotó.
+ *
+ * Los avisos se agrupan: tras el primer evento se espera un momento a que terminen las escrituras
+ * seguidas (un editor que guarda por partes, una copia) y se avisa una sola vez. Los avisos y las
+ * tareas encargadas con {@link #ejecutar(Runnable)} se ejecutan en un único hilo, en orden.
+ */
+final class VigilanteInventario {
+    
+    /** Milisegundos sin eventos que se esperan antes de avisar */
+    private static final long RETARDO_MS = 50;
+    
+    /** Máximo de milisegundos que se agrupan eventos, para avisar aunque el archivo no deje de cambiar */
+    private static final long AGRUPACION_MAXIMA_MS = 1000;
+    
+    private final Path archivo;
+    private final Runnable alCambiar;
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "vigilante-inventario");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    
+    /**
+     * Constructor del vigilante
+     * @param archivo Archivo de inventario
+     * @param alCambiar Acción que se ejecuta cuando el archivo puede haber cambiado
+     */
+    VigilanteInventario(Path archivo, Runnable alCambiar) {
+        this.archivo = archivo.toAbsolutePath();
+        this.alCambiar = alCambiar;
+    }
+    
+    /**
+     * Empieza a vigilar el directorio del archivo en un hilo en segundo plano
+     * @throws IOException si el sistema no permite vigilar el directorio
+     */
+    void iniciar() throws IOException {
+        WatchService servicio = FileSystems.getDefault().newWatchService();
+        archivo.getParent().register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        
+        Thread hilo = new Thread(() -> vigilar(servicio), "vigilante-inventario-eventos");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    /**
+     * Encarga una tarea al hilo de los avisos, detrás de los avisos pendientes
+     * @param tarea Tarea
+     */
+    void ejecutar(Runnable tarea) {
+        ejecutor.execute(tarea);
+    }
+    
+    private void vigilar(WatchService servicio) {
+        try {
+            while (true) {
+                WatchKey clave = servicio.take();
+                boolean cambiado = procesar(clave);
+                
+                // Agrupar los eventos que lleguen seguidos
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AGRUPACION_MAXIMA_MS);
+                while (System.nanoTime() < limite
+                        && (clave = servicio.poll(RETARDO_MS, TimeUnit.MILLISECONDS)) != null) {
+                    cambiado |= procesar(clave);
+                }
+                if (cambiado) {
+                    ejecutar(this::avisar);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // El servicio se ha cerrado: se deja de vigilar
+        }
+    }
+    
+    /**
+     * Indica si alguno de los eventos de la clave es del archivo de inventario (o si se han
+     * perdido eventos) y la prepara para recibir los siguientes
+     */
+    private boolean procesar(WatchKey clave) {
+        boolean cambiado = false;
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW
+                    || archivo.getFileName().equals(evento.context())) {
+                cambiado = true;
+            }
+        }
+        clave.reset();
+        return cambiado;
+    }
+    
+    private void avisar() {
+        try {
+            alCambiar.run();
+        } catch (RuntimeException e) {
+            System.err.println("Error al comprobar los cambios del archivo de inventario: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.empresa.inventario.dao;
+
+import com.empresa.inventario.model.Producto;
+
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+
+/**
+ * Vista perezosa de una línea del CSV de inventario.
+ * Envuelve el rango de bytes de la línea sin copiarlo y decodifica cada campo la primera vez
+ * que se pide, de modo que un filtro que solo mira el stock o la categoría descarta la fila sin
+ * crear el resto de objetos. Solo las filas que pasan el filtro pagan {@link #materializar()}.
+ *
+ * Una misma vista se reutiliza para todas las líneas de un rango con {@link #apuntar}: quien la
+ * recibe no debe conservarla. Los campos se interpretan igual que en {@link Producto#fromCSV}
+ * (separados por ';' y sin los espacios de los extremos).
+ */
+final class VistaProducto {
+    
+    private static final int NUM_CAMPOS = 5;
+    private static final int CAMPO_ID = 0;
+    private static final int CAMPO_NOMBRE = 1;
+    private static final int CAMPO_CATEGORIA = 2;
+    private static final int CAMPO_PRECIO = 3;
+    private static final int CAMPO_STOCK = 4;
+    
+    /** Dígitos que caben siempre en un int sin comprobar el desbordamiento */
+    private static final int MAXIMO_DIGITOS_RAPIDO = 9;
+    
+    private final Charset charset;
+    
+    private byte[] datos;
+    private int inicio;
+    private int fin;
+    
+    /** Inicio de cada campo y, en la última posición, el fin del quinto (válidos si localizada) */
+    private final int[] limites = new int[NUM_CAMPOS + 1];
+    private boolean localizada;
+    
+    private boolean idLeido;
+    private int idProducto;
+    private String nombre;
+    private String categoria;
+    private BigDecimal precio;
+    private boolean stockLeido;
+    private int stock;
+    
+    /**
+     * Constructor de la vista
+     * @param charset Codificación de los campos de texto
+     */
+    VistaProducto(Charset charset) {
+        this.charset = charset;
+    }
+    
+    /**
+     * Apunta la vista a una nueva línea, olvidando lo decodificado de la anterior
+     * @param datos Bytes que contienen la línea
+     * @param inicio Posición del primer byte de la línea
+     * @param fin Posición siguiente al último byte de la línea (sin el salto de línea)
+     */
+    void apuntar(byte[] datos, int inicio, int fin) {
+        this.datos = datos;
+        this.inicio = inicio;
+        this.fin = fin;
+        localizada = false;
+        idLeido = false;
+        nombre = null;
+        categoria = null;
+        precio = null;
+        stockLeido = false;
+    }
+    
+    /**
+     * Indica si la línea está vacía o solo tiene espacios
+     */
+    boolean estaVacia() {
+        for (int i = inicio; i < fin; i++) {
+            if (!esEspacio(datos[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    int getIdProducto() {
+        if (!idLeido) {
+            idProducto = entero(CAMPO_ID);
+            idLeido = true;
+        }
+        return idProducto;
+    }
+    
+    String getNombre() {
+        if (nombre == null) {
+            nombre = texto(CAMPO_NOMBRE);
+        }
+        return nombre;
+    }
+    
+    String getCategoria() {
+        if (categoria == null) {
+            categoria = texto(CAMPO_CATEGORIA);
+        }
+        return categoria;
+    }
+    
+    BigDecimal getPrecio() {
+        if (precio == null) {
+            try {
+                precio = new BigDecimal(texto(CAMPO_PRECIO));
+            } catch (NumberFormatException e) {
+                throw errorNumerico(e);
+            }
+        }
+        return precio;
+    }
+    
+    int getStock() {
+        if (!stockLeido) {
+            stock = entero(CAMPO_STOCK);
+            stockLeido = true;
+        }
+        return stock;
+    }
+    
+    /**
+     * Crea el producto completo, reutilizando los campos ya decodificados
+     * @return Producto equivalente a {@link Producto#fromCSV} sobre la misma línea
+     * @throws IllegalArgumentException si la línea no tiene un formato válido
+     */
+    Producto materializar() {
+        return new Producto(getIdProducto(), getNombre(), getCategoria(), getPrecio(), getStock());
+    }
+    
+    /**
+     * Texto completo de la línea, para los mensajes de error
+     */
+    String linea() {
+        return new String(datos, inicio, fin - inicio, charset);
+    }
+    
+    /**
+     * Busca los separadores de la línea. Igual que String.split, los campos vacíos del
+     * final no cuentan, así que tras el quinto campo solo puede haber más separadores.
+     */
+    private void localizar() {
+        if (localizada) {
+            return;
+        }
+        
+        int campo = 0;
+        limites[0] = inicio;
+        int i = inicio;
+        while (i < fin && campo < NUM_CAMPOS - 1) {
+            if (datos[i] == ';') {
+                limites[++campo] = i + 1;
+            }
+            i++;
+        }
+        if (campo < NUM_CAMPOS - 1) {
+            throw new IllegalArgumentException("Formato CSV inválido. Se esperan 5 campos.");
+        }
+        
+        while (i < fin && datos[i] != ';') {
+            i++;
+        }
+        limites[NUM_CAMPOS] = i;
+        for (int j = i; j < fin; j++) {
+            if (datos[j] != ';') {
+                throw new IllegalArgumentException("Formato CSV inválido. Se esperan 5 campos.");
+            }
+        }
+        localizada = true;
+    }
+    
+    /**
+     * Fin de un campo, sin su separador
+     */
+    private int finCampo(int campo) {
+        return campo == NUM_CAMPOS - 1 ? limites[NUM_CAMPOS] : limites[campo + 1] - 1;
+    }
+    
+    /**
+     * Decodifica un campo de texto sin los espacios de los extremos
+     */
+    private String texto(int campo) {
+        localizar();
+        int desde = limites[campo];
+        int hasta = finCampo(campo);
+        while (desde < hasta && esEspacio(datos[desde])) {
+            desde++;
+        }
+        while (hasta > desde && esEspacio(datos[hasta - 1])) {
+            hasta--;
+        }
+        return new String(datos, desde, hasta - desde, charset);
+    }
+    
+    /**
+     * Lee un campo entero directamente de los bytes. Los casos poco habituales (dígitos no
+     * ASCII o números largos) se delegan en Integer.parseInt para aceptar lo mismo que fromCSV.
+     */
+    private int entero(int campo) {
+        localizar();
+        int desde = limites[campo];
+        int hasta = finCampo(campo);
+        while (desde < hasta && esEspacio(datos[desde])) {
+            desde++;
+        }
+        while (hasta > desde && esEspacio(datos[hasta - 1])) {
+            hasta--;
+        }
+        
+        int i = desde;
+        boolean negativo = false;
+        if (i < hasta && (datos[i] == '-' || datos[i] == '+')) {
+            negativo = datos[i] == '-';
+            i++;
+        }
+        if (i < hasta && hasta - i <= MAXIMO_DIGITOS_RAPIDO) {
+            int valor = 0;
+            while (i < hasta && datos[i] >= '0' && datos[i] <= '9') {
+                valor = valor * 10 + (datos[i] - '0');
+                i++;
+            }
+            if (i == hasta) {
+                return negativo ? -valor : valor;
+            }
+        }
+        
+        try {
+            return Integer.parseInt(new String(datos, desde, hasta - desde, charset));
+        } catch (NumberFormatException e) {
+            throw errorNumerico(e);
+        }
+    }
+    
+    private IllegalArgumentException errorNumerico(NumberFormatException causa) {
+        return new IllegalArgumentException("Error al parsear números en la línea CSV: " + linea(), causa);
+    }
+    
+    /**
+     * Mismo criterio que String.trim: espacios y caracteres de control ASCII
+     */
+    private static boolean esEspacio(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+}
@@ -0,0 +1,191 @@
+package com.empresa.inventario.herramientas;
+
+import com.empresa.inventario.util.ConfiguracionUtil;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generador de datos sintéticos para pruebas de rendimiento.
+ * Crea archivos de inventario y de registro de cualquier tamaño con una semilla,
+ * de modo que la misma semilla produce siempre exactamente los mismos archivos.
+ * 
+ * Uso: GeneradorDatos <numProductos> [numLineasRegistro] [semilla]
+ */
+public class GeneradorDatos {
+    
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    /**
+     * Categorías con su peso relativo, nombres de producto típicos y precio medio
+     */
+    private enum Categoria {
+        ELECTRONICA("Electrónica", 20, 180.0, "Auriculares", "Altavoz", "Televisor", "Cámara", "Smartwatch"),
+        INFORMATICA("Informática", 15, 450.0, "Portátil", "Monitor", "Teclado", "Ratón", "Disco SSD"),
+        ROPA("Ropa", 18, 35.0, "Camiseta", "Pantalón", "Gorra", "Chaqueta", "Zapatillas"),
+        HOGAR("Hogar", 14, 60.0, "Lámpara", "Sartén", "Cojín", "Toalla", "Estantería"),
+        DEPORTES("Deportes", 10, 45.0, "Balón", "Raqueta", "Esterilla", "Mancuerna", "Bicicleta"),
+        ALIMENTACION("Alimentación", 15, 6.0, "Café", "Aceite", "Galletas", "Chocolate", "Té"),
+        JUGUETES("Juguetes", 8, 25.0, "Puzzle", "Peluche", "Muñeca", "Construcciones", "Coche RC");
+        
+        private final String nombre;
+        private final int peso;
+        private final double precioMedio;
+        private final String[] productos;
+        
+        Categoria(String nombre, int peso, double precioMedio, String... productos) {
+            this.nombre = nombre;
+            this.peso = peso;
+            this.precioMedio = precioMedio;
+            this.productos = productos;
+        }
+    }
+    
+    private static final int PESO_TOTAL;
+    
+    static {
+        int total = 0;
+        for (Categoria c : Categoria.values()) {
+            total += c.peso;
+        }
+        PESO_TOTAL = total;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: GeneradorDatos <numProductos> [numLineasRegistro] [semilla]");
+            System.exit(1);
+        }
+        
+        int numProductos = Integer.parseInt(args[0]);
+        int numLineas = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        
+        Files.createDirectories(Paths.get(ConfiguracionUtil.DIRECTORIO_DATOS));
+        generarInventario(Paths.get(ConfiguracionUtil.rutaDatos("inventario.txt")), numProductos, semilla);
+        System.out.println("[INFO] Inventario generado con " + numProductos + " productos");
+        
+        if (numLineas > 0) {
+            generarRegistro(Paths.get(ConfiguracionUtil.rutaDatos("registro.txt")), numLineas, numProductos, semilla);
+            System.out.println("[INFO] Registro generado con " + numLineas + " líneas");
+        }
+    }
+    
+    /**
+     * Genera un archivo de inventario con IDs consecutivos desde 1.
+     * Los precios siguen una distribución log-normal alrededor del precio medio de la categoría
+     * y el stock una distribución exponencial, con un 5% de productos agotados.
+     * 
+     * @param archivo Archivo a generar (se sobrescribe)
+     * @param numProductos Número de productos
+     * @param semilla Semilla del generador aleatorio
+     * @throws IOException si ocurre un error al escribir el archivo
+     */
+    public static void generarInventario(Path archivo, int numProductos, long semilla) throws IOException {
+        Random random = new Random(semilla);
+        
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivo.toFile()))) {
+            writer.write("id_producto;nombre;categoria;precio;stock");
+            writer.newLine();
+            
+            for (int id = 1; id <= numProductos; id++) {
+                Categoria categoria = elegirCategoria(random);
+                String nombre = categoria.productos[random.nextInt(categoria.productos.length)]
+                        + " " + random.nextInt(1000);
+                
+                writer.write(id + ";" + nombre + ";" + categoria.nombre + ";"
+                        + generarPrecio(random, categoria) + ";" + generarStock(random));
+                writer.newLine();
+            }
+        }
+    }
+    
+    /**
+     * Genera un archivo de registro con el mismo formato que RegistroUtil.
+     * Las entradas son cronológicas y mezclan altas, bajas, modificaciones de stock,
+     * búsquedas, listados y backups sobre productos con ID entre 1 y numProductos.
+     * 
+     * @param archivo Archivo a generar (se sobrescribe)
+     * @param numLineas Número de entradas
+     * @param numProductos Rango de IDs de producto referenciados
+     * @param semilla Semilla del generador aleatorio
+     * @throws IOException si ocurre un error al escribir el archivo
+     */
+    public static void generarRegistro(Path archivo, int numLineas, int numProductos, long semilla) throws IOException {
+        Random random = new Random(semilla + 1);
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 1, 8, 0, 0);
+        int maxId = Math.max(1, numProductos);
+        
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivo.toFile()))) {
+            for (int i = 0; i < numLineas; i++) {
+                fecha = fecha.plusSeconds(1 + random.nextInt(120));
+                int id = 1 + random.nextInt(maxId);
+                int tipo = random.nextInt(100);
+                String entrada;
+                
+                if (tipo < 45) {
+                    int anterior = generarStock(random);
+                    int nuevo = Math.max(0, anterior + random.nextInt(41) - 25);
+                    entrada = String.format("MODIFICACIÓN: Producto ID=%d - Cambios: Stock: %d -> %d; ", 
+                            id, anterior, nuevo);
+                } else if (tipo < 80) {
+                    entrada = String.format("BÚSQUEDA: Criterio='ID=%d', Resultados=1", id);
+                } else if (tipo < 88) {
+                    Categoria categoria = elegirCategoria(random);
+                    entrada = String.format("ALTA: Producto ID=%d, Nombre='%s %d'", id,
+                            categoria.productos[random.nextInt(categoria.productos.length)], random.nextInt(1000));
+                } else if (tipo < 93) {
+                    entrada = String.format("BAJA: Producto ID=%d, Nombre='Producto %d'", id, id);
+                } else if (tipo < 99) {
+                    entrada = String.format("LISTAR: Total de productos listados: %d", numProductos);
+                } else {
+                    entrada = String.format("BACKUP: Backup creado: inventario_backup_%s.txt", fecha.toLocalDate());
+                }
+                
+                writer.write("[" + fecha.format(FORMATO_FECHA) + "] " + entrada);
+                writer.newLine();
+            }
+        }
+    }
+    
+    /**
+     * Elige una categoría según su peso relativo
+     */
+    private static Categoria elegirCategoria(Random random) {
+        int valor = random.nextInt(PESO_TOTAL);
+        for (Categoria c : Categoria.values()) {
+            valor -= c.peso;
+            if (valor < 0) {
+                return c;
+            }
+        }
+        return Categoria.ELECTRONICA;
+    }
+    
+    /**
+     * Precio log-normal alrededor del precio medio de la categoría, con dos decimales
+     */
+    private static BigDecimal generarPrecio(Random random, Categoria categoria) {
+        double precio = categoria.precioMedio * Math.exp(random.nextGaussian() * 0.6);
+        return BigDecimal.valueOf(Math.max(0.5, precio)).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Stock con distribución exponencial (media 120 unidades) y un 5% de productos agotados
+     */
+    private static int generarStock(Random random) {
+        if (random.nextInt(100) < 5) {
+            return 0;
+        }
+        return (int) Math.min(5000, -120 * Math.log(1 - random.nextDouble()));
+    }
+}
@@ -0,0 +1,187 @@
+package com.empresa.inventario.herramientas;
+
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.util.ConfiguracionUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Informe de la memoria que ocupan los productos residentes.
+ * Carga las líneas del inventario y mide el heap ocupado (tras recolectar la basura) al crear
+ * un objeto por línea con dos representaciones: la original (String para nombre y categoría y
+ * BigDecimal para el precio, todos propios de cada producto) y la compacta de {@link Producto}.
+ *
+ * Uso: InformeMemoria [--productos N] [--semilla N] [--maximo N]
+ *
+ * Con --productos se genera antes un inventario nuevo con {@link GeneradorDatos};
+ * con --maximo solo se cargan las N primeras líneas.
+ */
+public class InformeMemoria {
+    
+    private static final MemoryMXBean MEMORIA = ManagementFactory.getMemoryMXBean();
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int productos = 0;
+        long semilla = 42L;
+        int maximo = Integer.MAX_VALUE;
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--productos":
+                    productos = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[i + 1]);
+                    break;
+                case "--maximo":
+                    maximo = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        
+        Path inventario = Paths.get(ConfiguracionUtil.rutaDatos("inventario.txt"));
+        if (productos > 0) {
+            Files.createDirectories(Paths.get(ConfiguracionUtil.DIRECTORIO_DATOS));
+            GeneradorDatos.generarInventario(inventario, productos, semilla);
+        }
+        if (!Files.exists(inventario)) {
+            System.err.println("No existe " + inventario + " (genérelo con --productos N)");
+            System.exit(1);
+        }
+        
+        List<String> lineas = leerLineas(inventario, maximo);
+        System.out.printf("[INFO] %d líneas de %s | %s | heap máximo %d MB%n", lineas.size(), inventario,
+                System.getProperty("java.vm.name"), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        
+        Medicion original = medir(lineas, ProductoOriginal::fromCSV);
+        Medicion compacta = medir(lineas, Producto::fromCSV);
+        
+        System.out.println();
+        System.out.printf("%-40s %10s %14s %12s%n", "REPRESENTACIÓN", "PRODUCTOS", "HEAP (MB)", "BYTES/PROD.");
+        System.out.println("──────────────────────────────────────────────────────────────────────────────");
+        mostrar("Original (String, String, BigDecimal)", original);
+        mostrar("Compacta (Producto)", compacta);
+        System.out.printf("%nAhorro: %.1f bytes por producto (%.1f%%)%n",
+                original.bytesPorProducto() - compacta.bytesPorProducto(),
+                100.0 * (1 - compacta.bytesPorProducto() / original.bytesPorProducto()));
+    }
+    
+    /**
+     * Lee las líneas de datos del inventario (sin la cabecera)
+     */
+    private static List<String> leerLineas(Path inventario, int maximo) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(inventario, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String linea;
+            while (lineas.size() < maximo && (linea = reader.readLine()) != null) {
+                if (!linea.isBlank()) {
+                    lineas.add(linea);
+                }
+            }
+        }
+        return lineas;
+    }
+    
+    /**
+     * Crea un objeto por línea y mide cuánto crece el heap ocupado mientras siguen vivos.
+     * El array que los referencia se reserva antes de la primera medida, así que no se cuenta.
+     */
+    private static Medicion medir(List<String> lineas, Function<String, ?> parsear) throws InterruptedException {
+        Object[] objetos = new Object[lineas.size()];
+        long antes = heapOcupado();
+        int creados = 0;
+        for (String linea : lineas) {
+            try {
+                objetos[creados] = parsear.apply(linea);
+                creados++;
+            } catch (IllegalArgumentException e) {
+                // Las líneas no válidas se ignoran igual que al cargar el inventario
+            }
+        }
+        long despues = heapOcupado();
+        Reference.reachabilityFence(objetos);
+        return new Medicion(creados, despues - antes);
+    }
+    
+    /**
+     * Heap ocupado tras varias recolecciones completas
+     */
+    private static long heapOcupado() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return MEMORIA.getHeapMemoryUsage().getUsed();
+    }
+    
+    private static void mostrar(String nombre, Medicion medicion) {
+        System.out.printf("%-40s %10d %14.1f %12.1f%n", nombre, medicion.productos,
+                medicion.bytes / (1024.0 * 1024.0), medicion.bytesPorProducto());
+    }
+    
+    /**
+     * Resultado de una medición
+     */
+    private static final class Medicion {
+        final int productos;
+        final long bytes;
+        
+        Medicion(int productos, long bytes) {
+            this.productos = productos;
+            this.bytes = bytes;
+        }
+        
+        double bytesPorProducto() {
+            return productos == 0 ? 0 : (double) bytes / productos;
+        }
+    }
+    
+    /**
+     * Representación original de un producto, como referencia de la medición: cada producto
+     * tiene sus propias cadenas de nombre y categoría y su propio BigDecimal
+     */
+    private static final class ProductoOriginal {
+        final int idProducto;
+        final String nombre;
+        final String categoria;
+        final BigDecimal precio;
+        final int stock;
+        
+        ProductoOriginal(int idProducto, String nombre, String categoria, BigDecimal precio, int stock) {
+            this.idProducto = idProducto;
+            this.nombre = nombre;
+            this.categoria = categoria;
+            this.precio = precio;
+            this.stock = stock;
+        }
+        
+        static ProductoOriginal fromCSV(String linea) {
+            String[] partes = linea.split(";");
+            if (partes.length != 5) {
+                throw new IllegalArgumentException("Formato CSV inválido. Se esperan 5 campos.");
+            }
+            try {
+                return new ProductoOriginal(Integer.parseInt(partes[0].trim()), partes[1].trim(), partes[2].trim(),
+                        new BigDecimal(partes[3].trim()), Integer.parseInt(partes[4].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Error al parsear números en la línea CSV: " + linea, e);
+            }
+        }
+    }
+}
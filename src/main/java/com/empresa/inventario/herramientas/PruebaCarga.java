@@ -0,0 +1,309 @@
+package com.empresa.inventario.herramientas;
+
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.service.InventarioService;
+import com.empresa.inventario.util.ConfiguracionUtil;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prueba de carga sin interfaz sobre {@link InventarioService}.
+ * Lanza varios hilos que ejecutan una mezcla configurable de operaciones durante
+ * un tiempo determinado y al final muestra el rendimiento y los percentiles de latencia.
+ *
+ * Uso: PruebaCarga [--hilos N] [--duracion segundos] [--productos N] [--semilla N]
+ *                  [--mezcla buscar=70,crear=10,modificar=15,eliminar=4,backup=1]
+ *
+ * Con --productos se genera antes un inventario nuevo con {@link GeneradorDatos}.
+ */
+public class PruebaCarga {
+    
+    /**
+     * Operaciones que puede ejecutar la prueba de carga
+     */
+    enum Operacion {
+        BUSCAR, CREAR, MODIFICAR, ELIMINAR, BACKUP
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int hilos = 8;
+        int duracion = 30;
+        int productos = 0;
+        long semilla = 42L;
+        String mezcla = "buscar=70,crear=10,modificar=15,eliminar=4,backup=1";
+        
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--hilos":
+                    hilos = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--duracion":
+                    duracion = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--productos":
+                    productos = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(args[i + 1]);
+                    break;
+                case "--mezcla":
+                    mezcla = args[i + 1];
+                    break;
+                default:
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        
+        if (productos > 0) {
+            Files.createDirectories(Paths.get(ConfiguracionUtil.DIRECTORIO_DATOS));
+            GeneradorDatos.generarInventario(Paths.get(ConfiguracionUtil.rutaDatos("inventario.txt")),
+                    productos, semilla);
+        }
+        
+        new PruebaCarga(parsearMezcla(mezcla), hilos, duracion, semilla).ejecutar();
+    }
+    
+    private final Map<Operacion, Integer> mezcla;
+    private final int hilos;
+    private final int duracionSegundos;
+    private final long semilla;
+    private final InventarioService service = new InventarioService();
+    private final AtomicInteger maxIdConocido = new AtomicInteger();
+    
+    /**
+     * Constructor de la prueba de carga
+     * @param mezcla Peso relativo de cada operación
+     * @param hilos Número de hilos concurrentes
+     * @param duracionSegundos Duración de la prueba
+     * @param semilla Semilla para la elección de operaciones y argumentos
+     */
+    public PruebaCarga(Map<Operacion, Integer> mezcla, int hilos, int duracionSegundos, long semilla) {
+        this.mezcla = mezcla;
+        this.hilos = hilos;
+        this.duracionSegundos = duracionSegundos;
+        this.semilla = semilla;
+    }
+    
+    /**
+     * Ejecuta la prueba y muestra el informe por consola
+     */
+    public void ejecutar() throws InterruptedException {
+        maxIdConocido.set(service.listarProductos().stream()
+                .mapToInt(p -> p.getIdProducto()).max().orElse(0));
+        
+        int pesoTotal = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+        long fin = System.nanoTime() + duracionSegundos * 1_000_000_000L;
+        List<Trabajador> trabajadores = new ArrayList<>();
+        CountDownLatch terminados = new CountDownLatch(hilos);
+        
+        System.out.printf("[INFO] Prueba de carga: %d hilos, %d s, mezcla %s%n", hilos, duracionSegundos, mezcla);
+        long inicio = System.nanoTime();
+        
+        for (int i = 0; i < hilos; i++) {
+            Trabajador trabajador = new Trabajador(new Random(semilla + i), pesoTotal, fin, terminados);
+            trabajadores.add(trabajador);
+            Thread hilo = new Thread(trabajador, "carga-" + i);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        
+        terminados.await();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        
+        mostrarInforme(trabajadores, segundos);
+    }
+    
+    /**
+     * Combina las latencias de todos los hilos y muestra rendimiento y percentiles por operación
+     */
+    private void mostrarInforme(List<Trabajador> trabajadores, double segundos) {
+        System.out.println();
+        System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "OPERACIÓN", "TOTAL", "ERRORES", "OPS/S", "P50 ms", "P90 ms", "P99 ms", "MAX ms");
+        System.out.println("──────────────────────────────────────────────────────────────────────────────────────");
+        
+        long totalOperaciones = 0;
+        for (Operacion op : Operacion.values()) {
+            int total = 0;
+            int errores = 0;
+            for (Trabajador t : trabajadores) {
+                total += t.latencias.get(op).tamano;
+                errores += t.errores.get(op).get();
+            }
+            if (total == 0) {
+                continue;
+            }
+            
+            long[] todas = new long[total];
+            int posicion = 0;
+            for (Trabajador t : trabajadores) {
+                ListaLatencias lista = t.latencias.get(op);
+                System.arraycopy(lista.valores, 0, todas, posicion, lista.tamano);
+                posicion += lista.tamano;
+            }
+            Arrays.sort(todas);
+            totalOperaciones += total;
+            
+            System.out.printf("%-10s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    op, total, errores, total / segundos,
+                    percentil(todas, 50), percentil(todas, 90), percentil(todas, 99),
+                    todas[todas.length - 1] / 1e6);
+        }
+        
+        System.out.println("══════════════════════════════════════════════════════════════════════════════════════");
+        System.out.printf("[INFO] Total: %d operaciones en %.1f s (%.1f ops/s)%n",
+                totalOperaciones, segundos, totalOperaciones / segundos);
+        
+        System.out.println();
+        System.out.println("[INFO] Métricas internas por operación:");
+        System.out.print(RegistroMetricas.obtenerInstantanea());
+    }
+    
+    /**
+     * Percentil sobre un array ordenado de latencias en nanosegundos, devuelto en milisegundos
+     */
+    private static double percentil(long[] ordenadas, double p) {
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))] / 1e6;
+    }
+    
+    /**
+     * Parsea una mezcla con formato "operacion=peso,operacion=peso"
+     */
+    static Map<Operacion, Integer> parsearMezcla(String texto) {
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        for (String parte : texto.split(",")) {
+            String[] claveValor = parte.split("=");
+            if (claveValor.length != 2) {
+                throw new IllegalArgumentException("Formato de mezcla inválido: " + parte);
+            }
+            int peso = Integer.parseInt(claveValor[1].trim());
+            if (peso > 0) {
+                mezcla.put(Operacion.valueOf(claveValor[0].trim().toUpperCase()), peso);
+            }
+        }
+        if (mezcla.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla no contiene ninguna operación");
+        }
+        return mezcla;
+    }
+    
+    /**
+     * Lista de latencias de un único hilo, sin sincronización
+     */
+    private static final class ListaLatencias {
+        private long[] valores = new long[1024];
+        private int tamano;
+        
+        void anadir(long valor) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = valor;
+        }
+    }
+    
+    /**
+     * Hilo de carga: elige operaciones según la mezcla y mide cada una
+     */
+    private final class Trabajador implements Runnable {
+        private final Random random;
+        private final int pesoTotal;
+        private final long fin;
+        private final CountDownLatch terminados;
+        private final Map<Operacion, ListaLatencias> latencias = new EnumMap<>(Operacion.class);
+        private final Map<Operacion, AtomicInteger> errores = new EnumMap<>(Operacion.class);
+        
+        Trabajador(Random random, int pesoTotal, long fin, CountDownLatch terminados) {
+            this.random = random;
+            this.pesoTotal = pesoTotal;
+            this.fin = fin;
+            this.terminados = terminados;
+            for (Operacion op : Operacion.values()) {
+                latencias.put(op, new ListaLatencias());
+                errores.put(op, new AtomicInteger());
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < fin) {
+                    Operacion op = elegirOperacion();
+                    long inicio = System.nanoTime();
+                    boolean correcto;
+                    try {
+                        correcto = ejecutar(op);
+                    } catch (RuntimeException e) {
+                        correcto = false;
+                    }
+                    latencias.get(op).anadir(System.nanoTime() - inicio);
+                    if (!correcto) {
+                        errores.get(op).incrementAndGet();
+                    }
+                }
+            } finally {
+                terminados.countDown();
+            }
+        }
+        
+        private Operacion elegirOperacion() {
+            int valor = random.nextInt(pesoTotal);
+            for (Map.Entry<Operacion, Integer> entrada : mezcla.entrySet()) {
+                valor -= entrada.getValue();
+                if (valor < 0) {
+                    return entrada.getKey();
+                }
+            }
+            return Operacion.BUSCAR;
+        }
+        
+        private int idAleatorio() {
+            return 1 + random.nextInt(Math.max(1, maxIdConocido.get()));
+        }
+        
+        private boolean ejecutar(Operacion op) {
+            switch (op) {
+                case BUSCAR:
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            service.buscarProductoPorId(idAleatorio());
+                            break;
+                        case 1:
+                            service.buscarProductosPorNombre(String.valueOf(random.nextInt(1000)));
+                            break;
+                        default:
+                            service.buscarProductosStockBajo(random.nextInt(20));
+                    }
+                    return true;
+                case CREAR:
+                    boolean creado = service.agregarProducto("Producto carga " + random.nextInt(1000), "Carga",
+                            BigDecimal.valueOf(1 + random.nextInt(10000), 2), random.nextInt(500));
+                    if (creado) {
+                        maxIdConocido.incrementAndGet();
+                    }
+                    return creado;
+                case MODIFICAR:
+                    return service.modificarProducto(idAleatorio(), null, null, null, random.nextInt(500));
+                case ELIMINAR:
+                    return service.eliminarProducto(idAleatorio());
+                case BACKUP:
+                    return service.crearBackup() != null;
+                default:
+                    return false;
+            }
+        }
+    }
+}
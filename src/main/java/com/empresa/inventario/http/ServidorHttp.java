@@ -0,0 +1,687 @@
+package com.empresa.inventario.http;
+
+import com.empresa.inventario.alertas.AlertaReabastecimiento;
+import com.empresa.inventario.alertas.MotorAlertasReabastecimiento;
+import com.empresa.inventario.busqueda.AutocompletadoNombres;
+import com.empresa.inventario.dao.CursorInventario;
+import com.empresa.inventario.dao.InventarioBloqueadoException;
+import com.empresa.inventario.informes.PuntoStock;
+import com.empresa.inventario.informes.ResumenStock;
+import com.empresa.inventario.informes.SeriesStock;
+import com.empresa.inventario.model.EstadisticasCategoria;
+import com.empresa.inventario.model.EstadisticasInventario;
+import com.empresa.inventario.model.OrdenProductos;
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.service.InventarioService;
+import com.empresa.inventario.util.ConfiguracionUtil;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP que expone las operaciones de {@link InventarioService} como API JSON.
+ * Usa el HttpServer incluido en el JDK y atiende cada petición en un hilo virtual,
+ * por lo que no hay un límite fijo de peticiones concurrentes.
+ *
+ * Rutas disponibles:
+ * <pre>
+ * GET    /productos                     Lista todos los productos (en streaming)
+ * GET    /productos?desde=N&amp;limite=N&amp;orden=campo&amp;desc=true
+ *                                       Página ordenada por id, nombre, categoria, precio, stock o valor
+ * GET    /productos?despuesDe=ID&amp;limite=N  Página siguiente a un ID (cabecera X-Siguiente-Despues-De)
+ * GET    /productos?nombre=texto        Busca por nombre (parcial)
+ * GET    /productos?categoria=texto     Busca por categoría
+ * GET    /productos/stock-bajo?umbral=N Productos con stock menor o igual a N
+ * GET    /productos/bajo-reorden        Productos bajo su punto de reorden (alertas activas)
+ * GET    /productos/top?orden=valor|precio|stock&amp;k=N
+ *                                       Los k productos con mayor valor, precio o stock
+ * GET    /productos/autocompletar?prefijo=texto&amp;k=N&amp;orden=stock|valor
+ *                                       Las k mejores sugerencias de nombre para un prefijo
+ * GET    /productos/{id}                Busca por ID
+ * GET    /productos/{id}/stock?desde=fecha&amp;hasta=fecha&amp;resolucion=hora|dia
+ *                                       Serie de stock del producto (puntos, o resúmenes si hay resolución)
+ * POST   /productos                     Crea un producto {nombre, categoria, precio, stock}
+ * PUT    /productos/{id}                Modifica los campos indicados
+ * DELETE /productos/{id}                Elimina un producto
+ * GET    /estadisticas                  Estadísticas del inventario
+ * GET    /estadisticas/categorias       Estadísticas de cada categoría
+ * GET    /estadisticas/stock?categoria=texto&amp;desde=fecha&amp;hasta=fecha&amp;resolucion=hora|dia
+ *                                       Stock total de una categoría por horas o por días
+ * GET    /backups                       Lista las copias de seguridad
+ * POST   /backups                       Crea una copia de seguridad
+ * </pre>
+ * En una réplica ({@link #ServidorHttp(InventarioService, int, boolean)} con soloLectura) las rutas
+ * de /productos solo admiten GET; POST, PUT y DELETE responden 405.
+ * Si otro proceso retiene el bloqueo del inventario más de la espera configurada, las consultas
+ * responden 503.
+ *
+ * Las fechas se indican como 2025-01-31, 2025-01-31T10:00 (hora local) o 2025-01-31T09:00:00Z;
+ * por defecto se consultan los últimos 7 días.
+ */
+public class ServidorHttp {
+    
+    private static final JsonFactory FABRICA_JSON = new JsonFactory();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String LIMITE_POR_DEFECTO = "100";
+    private static final long DIAS_SERIE_POR_DEFECTO = 7;
+    private static final long MILISEGUNDOS_DIA = 24L * 60 * 60 * 1000;
+    
+    /** Productos que se leen de una vez al enviar el inventario completo */
+    private static final int TAMANO_TRAMO_COMPLETO = 1000;
+    
+    private final InventarioService service;
+    private final boolean soloLectura;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    
+    /**
+     * Constructor del servidor (no empieza a escuchar hasta llamar a {@link #iniciar()})
+     * @param service Servicio de inventario a exponer
+     * @param puerto Puerto TCP en el que escuchar
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ServidorHttp(InventarioService service, int puerto) throws IOException {
+        this(service, puerto, false);
+    }
+    
+    /**
+     * Constructor del servidor (no empieza a escuchar hasta llamar a {@link #iniciar()}). Escucha
+     * en la dirección de {@link ConfiguracionUtil#DIRECCION_HTTP}, por defecto solo la local.
+     * @param service Servicio de inventario a exponer
+     * @param puerto Puerto TCP en el que escuchar
+     * @param soloLectura true para rechazar las peticiones que modifican productos (réplicas)
+     * @throws IOException si no se puede abrir el puerto o resolver la dirección
+     */
+    public ServidorHttp(InventarioService service, int puerto, boolean soloLectura) throws IOException {
+        this.service = service;
+        this.soloLectura = soloLectura;
+        this.servidor = HttpServer.create(new InetSocketAddress(
+                ConfiguracionUtil.direccionEscucha(ConfiguracionUtil.DIRECCION_HTTP), puerto), 0);
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/productos", this::atenderProductos);
+        servidor.createContext("/estadisticas", this::atenderEstadisticas);
+        servidor.createContext("/backups", this::atenderBackups);
+    }
+    
+    /**
+     * Empieza a atender peticiones
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+    
+    /**
+     * Detiene el servidor esperando como máximo un segundo a las peticiones en curso
+     */
+    public void detener() {
+        servidor.stop(1);
+        ejecutor.shutdown();
+    }
+    
+    /**
+     * Obtiene el puerto en el que escucha el servidor
+     * @return Puerto TCP
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+    
+    // ==================== MANEJADORES ====================
+    
+    /**
+     * Atiende las rutas /productos y /productos/...
+     */
+    private void atenderProductos(HttpExchange intercambio) throws IOException {
+        try {
+            String ruta = intercambio.getRequestURI().getPath();
+            String metodo = intercambio.getRequestMethod();
+            Map<String, String> parametros = leerParametros(intercambio.getRequestURI().getRawQuery());
+            String resto = ruta.length() > "/productos".length() ? ruta.substring("/productos/".length()) : "";
+            
+            if (soloLectura && !metodo.equals("GET")) {
+                enviarError(intercambio, 405, "Inventario de solo lectura: los cambios se hacen en el primario");
+                return;
+            }
+            
+            if (resto.isEmpty()) {
+                if (metodo.equals("GET")) {
+                    List<Producto> productos;
+                    if (parametros.containsKey("nombre")) {
+                        productos = service.buscarProductosPorNombre(parametros.get("nombre"));
+                    } else if (parametros.containsKey("categoria")) {
+                        productos = service.buscarProductosPorCategoria(parametros.get("categoria"));
+                    } else if (parametros.containsKey("despuesDe")) {
+                        int limite = Integer.parseInt(parametros.getOrDefault("limite", LIMITE_POR_DEFECTO));
+                        productos = service.listarDespuesDe(Integer.parseInt(parametros.get("despuesDe")), limite);
+                        if (productos.size() == limite && limite > 0) {
+                            intercambio.getResponseHeaders().set("X-Siguiente-Despues-De",
+                                    String.valueOf(productos.get(productos.size() - 1).getIdProducto()));
+                        }
+                    } else if (parametros.containsKey("limite") || parametros.containsKey("orden")) {
+                        productos = service.listarPagina(
+                                Integer.parseInt(parametros.getOrDefault("desde", "0")),
+                                Integer.parseInt(parametros.getOrDefault("limite", LIMITE_POR_DEFECTO)),
+                                OrdenProductos.desdeTexto(parametros.getOrDefault("orden", "id")),
+                                Boolean.parseBoolean(parametros.getOrDefault("desc", "false")));
+                    } else {
+                        enviarTodosProductos(intercambio);
+                        return;
+                    }
+                    enviarProductos(intercambio, productos);
+                } else if (metodo.equals("POST")) {
+                    crearProducto(intercambio);
+                } else {
+                    enviarError(intercambio, 405, "Método no permitido");
+                }
+                return;
+            }
+            
+            if (resto.equals("stock-bajo")) {
+                if (!metodo.equals("GET")) {
+                    enviarError(intercambio, 405, "Método no permitido");
+                    return;
+                }
+                int umbral = Integer.parseInt(parametros.getOrDefault("umbral", "10"));
+                enviarProductos(intercambio, service.buscarProductosStockBajo(umbral));
+                return;
+            }
+            
+            if (resto.equals("top")) {
+                if (!metodo.equals("GET")) {
+                    enviarError(intercambio, 405, "Método no permitido");
+                    return;
+                }
+                enviarProductos(intercambio, service.obtenerPrimeros(
+                        OrdenProductos.desdeTexto(parametros.getOrDefault("orden", "valor")),
+                        Integer.parseInt(parametros.getOrDefault("k", "10"))));
+                return;
+            }
+            
+            if (resto.equals("autocompletar")) {
+                if (!metodo.equals("GET")) {
+                    enviarError(intercambio, 405, "Método no permitido");
+                    return;
+                }
+                enviarProductos(intercambio, service.autocompletarNombres(
+                        parametros.getOrDefault("prefijo", ""),
+                        Integer.parseInt(parametros.getOrDefault("k", "10")),
+                        AutocompletadoNombres.Criterio.desdeTexto(parametros.getOrDefault("orden", "stock"))));
+                return;
+            }
+            
+            if (resto.equals("bajo-reorden")) {
+                if (!metodo.equals("GET")) {
+                    enviarError(intercambio, 405, "Método no permitido");
+                    return;
+                }
+                MotorAlertasReabastecimiento alertas = service.obtenerAlertasReabastecimiento();
+                if (alertas == null) {
+                    enviarError(intercambio, 503, "Alertas de reabastecimiento no disponibles");
+                    return;
+                }
+                List<Producto> productos = new ArrayList<>(alertas.getNumAlertasActivas());
+                for (AlertaReabastecimiento alerta : alertas.getAlertasActivas()) {
+                    productos.add(alerta.getProducto());
+                }
+                productos.sort(Comparator.comparingInt(Producto::getIdProducto));
+                enviarProductos(intercambio, productos);
+                return;
+            }
+            
+            if (resto.endsWith("/stock")) {
+                if (!metodo.equals("GET")) {
+                    enviarError(intercambio, 405, "Método no permitido");
+                    return;
+                }
+                enviarSerieStock(intercambio, Integer.parseInt(resto.substring(0, resto.length() - "/stock".length())),
+                        parametros);
+                return;
+            }
+            
+            int id = Integer.parseInt(resto);
+            switch (metodo) {
+                case "GET":
+                    Optional<Producto> producto = service.buscarProductoPorId(id);
+                    if (producto.isPresent()) {
+                        enviarProducto(intercambio, 200, producto.get());
+                    } else {
+                        enviarError(intercambio, 404, "No se encontró el producto con ID: " + id);
+                    }
+                    break;
+                case "PUT":
+                    modificarProducto(intercambio, id);
+                    break;
+                case "DELETE":
+                    if (service.eliminarProducto(id)) {
+                        enviarMensaje(intercambio, 200, "Producto eliminado");
+                    } else {
+                        enviarError(intercambio, 404, "No se encontró el producto con ID: " + id);
+                    }
+                    break;
+                default:
+                    enviarError(intercambio, 405, "Método no permitido");
+            }
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            enviarError(intercambio, 400, "Petición no válida: " + e.getMessage());
+        } catch (InventarioBloqueadoException e) {
+            enviarError(intercambio, 503, "Inventario no disponible: " + e.getMessage());
+        } catch (RuntimeException e) {
+            enviarError(intercambio, 500, "Error interno: " + e.getMessage());
+        } finally {
+            intercambio.close();
+        }
+    }
+    
+    /**
+     * Crea un producto a partir del JSON del cuerpo de la petición
+     */
+    private void crearProducto(HttpExchange intercambio) throws IOException {
+        JsonNode cuerpo = leerCuerpo(intercambio);
+        if (!cuerpo.hasNonNull("nombre") || !cuerpo.hasNonNull("categoria")
+                || !cuerpo.hasNonNull("precio") || !cuerpo.hasNonNull("stock")) {
+            enviarError(intercambio, 400, "Se requieren los campos nombre, categoria, precio y stock");
+            return;
+        }
+        
+        boolean creado = service.agregarProducto(
+                leerTexto(cuerpo, "nombre"),
+                leerTexto(cuerpo, "categoria"),
+                leerPrecio(cuerpo),
+                leerStock(cuerpo));
+        
+        if (creado) {
+            enviarMensaje(intercambio, 201, "Producto creado");
+        } else {
+            enviarError(intercambio, 400, "No se pudo crear el producto");
+        }
+    }
+    
+    /**
+     * Modifica los campos presentes en el JSON del cuerpo de la petición
+     */
+    private void modificarProducto(HttpExchange intercambio, int id) throws IOException {
+        JsonNode cuerpo = leerCuerpo(intercambio);
+        
+        boolean modificado = service.modificarProducto(id,
+                cuerpo.hasNonNull("nombre") ? leerTexto(cuerpo, "nombre") : null,
+                cuerpo.hasNonNull("categoria") ? leerTexto(cuerpo, "categoria") : null,
+                cuerpo.hasNonNull("precio") ? leerPrecio(cuerpo) : null,
+                cuerpo.hasNonNull("stock") ? leerStock(cuerpo) : null);
+        
+        if (modificado) {
+            enviarMensaje(intercambio, 200, "Producto modificado");
+        } else {
+            enviarError(intercambio, 404, "No se pudo modificar el producto con ID: " + id);
+        }
+    }
+    
+    /**
+     * Atiende la ruta /estadisticas
+     */
+    private void atenderEstadisticas(HttpExchange intercambio) throws IOException {
+        try {
+            if (!intercambio.getRequestMethod().equals("GET")) {
+                enviarError(intercambio, 405, "Método no permitido");
+                return;
+            }
+            
+            if (intercambio.getRequestURI().getPath().equals("/estadisticas/categorias")) {
+                enviarEstadisticasCategorias(intercambio);
+                return;
+            }
+            if (intercambio.getRequestURI().getPath().equals("/estadisticas/stock")) {
+                Map<String, String> parametros = leerParametros(intercambio.getRequestURI().getRawQuery());
+                if (!parametros.containsKey("categoria")) {
+                    enviarError(intercambio, 400, "Se requiere el parámetro categoria");
+                    return;
+                }
+                long hasta = leerInstante(parametros.get("hasta"), System.currentTimeMillis());
+                long desde = leerInstante(parametros.get("desde"), hasta - DIAS_SERIE_POR_DEFECTO * MILISEGUNDOS_DIA);
+                enviarResumenesStock(intercambio, service.resumirStockCategoria(parametros.get("categoria"), desde, hasta,
+                        SeriesStock.Resolucion.desdeTexto(parametros.getOrDefault("resolucion", "dia"))));
+                return;
+            }
+            
+            EstadisticasInventario estadisticas = service.calcularEstadisticas();
+            try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+                json.writeStartObject();
+                json.writeNumberField("totalProductos", estadisticas.getTotalProductos());
+                json.writeNumberField("stockTotal", estadisticas.getStockTotal());
+                json.writeNumberField("valorTotal", estadisticas.getValorTotal());
+                json.writeNumberField("numeroCategorias", estadisticas.getNumeroCategorias());
+                json.writeEndObject();
+            }
+        } catch (IllegalArgumentException e) {
+            enviarError(intercambio, 400, "Petición no válida: " + e.getMessage());
+        } catch (InventarioBloqueadoException e) {
+            enviarError(intercambio, 503, "Inventario no disponible: " + e.getMessage());
+        } catch (RuntimeException e) {
+            enviarError(intercambio, 500, "Error interno: " + e.getMessage());
+        } finally {
+            intercambio.close();
+        }
+    }
+    
+    /**
+     * Envía la serie de stock de un producto: sus puntos o, si se indica una resolución, sus resúmenes
+     */
+    private void enviarSerieStock(HttpExchange intercambio, int id, Map<String, String> parametros) throws IOException {
+        long hasta = leerInstante(parametros.get("hasta"), System.currentTimeMillis());
+        long desde = leerInstante(parametros.get("desde"), hasta - DIAS_SERIE_POR_DEFECTO * MILISEGUNDOS_DIA);
+        if (parametros.containsKey("resolucion")) {
+            enviarResumenesStock(intercambio, service.resumirStock(id, desde, hasta,
+                    SeriesStock.Resolucion.desdeTexto(parametros.get("resolucion"))));
+            return;
+        }
+        
+        List<PuntoStock> puntos = service.consultarSerieStock(id, desde, hasta);
+        try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+            json.writeStartArray();
+            for (PuntoStock punto : puntos) {
+                json.writeStartObject();
+                json.writeStringField("instante", Instant.ofEpochMilli(punto.getInstante()).toString());
+                json.writeNumberField("stock", punto.getStock());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+    
+    /**
+     * Envía resúmenes de stock por hora o por día
+     */
+    private static void enviarResumenesStock(HttpExchange intercambio, List<ResumenStock> resumenes) throws IOException {
+        try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+            json.writeStartArray();
+            for (ResumenStock resumen : resumenes) {
+                json.writeStartObject();
+                json.writeStringField("inicio", Instant.ofEpochMilli(resumen.getInicio()).toString());
+                json.writeNumberField("minimo", resumen.getMinimo());
+                json.writeNumberField("maximo", resumen.getMaximo());
+                json.writeNumberField("ultimo", resumen.getUltimo());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+    
+    /**
+     * Convierte una fecha de la query string en milisegundos desde 1970
+     * @param texto Fecha (2025-01-31), fecha y hora local (2025-01-31T10:00) o instante UTC (terminado en Z)
+     * @param porDefecto Valor si no se indica la fecha
+     * @throws IllegalArgumentException si la fecha no es válida
+     */
+    private static long leerInstante(String texto, long porDefecto) {
+        if (texto == null || texto.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            if (texto.endsWith("Z")) {
+                return Instant.parse(texto).toEpochMilli();
+            }
+            ZoneId zona = ZoneId.systemDefault();
+            return (texto.contains("T") ? LocalDateTime.parse(texto).atZone(zona) : LocalDate.parse(texto).atStartOfDay(zona))
+                    .toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha no válida (use 2025-01-31 o 2025-01-31T10:00): " + texto);
+        }
+    }
+    
+    /**
+     * Envía las estadísticas de cada categoría
+     */
+    private void enviarEstadisticasCategorias(HttpExchange intercambio) throws IOException {
+        List<EstadisticasCategoria> categorias = service.obtenerEstadisticasCategorias();
+        try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+            json.writeStartArray();
+            for (EstadisticasCategoria categoria : categorias) {
+                json.writeStartObject();
+                json.writeStringField("categoria", categoria.getCategoria());
+                json.writeNumberField("numProductos", categoria.getNumProductos());
+                json.writeNumberField("stockTotal", categoria.getStockTotal());
+                json.writeNumberField("valorTotal", categoria.getValorTotal());
+                json.writeNumberField("valorMedio", categoria.getValorMedio());
+                json.writeNumberField("precioMinimo", categoria.getPrecioMinimo());
+                json.writeNumberField("precioMaximo", categoria.getPrecioMaximo());
+                json.writeNumberField("numStockBajo", categoria.getNumStockBajo());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+    
+    /**
+     * Atiende la ruta /backups
+     */
+    private void atenderBackups(HttpExchange intercambio) throws IOException {
+        try {
+            switch (intercambio.getRequestMethod()) {
+                case "GET":
+                    try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+                        json.writeStartArray();
+                        for (String backup : service.listarBackups()) {
+                            json.writeString(backup);
+                        }
+                        json.writeEndArray();
+                    }
+                    break;
+                case "POST":
+                    String nombreBackup = service.crearBackup();
+                    if (nombreBackup != null) {
+                        enviarMensaje(intercambio, 201, nombreBackup);
+                    } else {
+                        enviarError(intercambio, 500, "No se pudo crear la copia de seguridad");
+                    }
+                    break;
+                default:
+                    enviarError(intercambio, 405, "Método no permitido");
+            }
+        } catch (InventarioBloqueadoException e) {
+            enviarError(intercambio, 503, "Inventario no disponible: " + e.getMessage());
+        } catch (RuntimeException e) {
+            enviarError(intercambio, 500, "Error interno: " + e.getMessage());
+        } finally {
+            intercambio.close();
+        }
+    }
+    
+    // ==================== MÉTODOS AUXILIARES ====================
+    
+    /**
+     * Envía las cabeceras de una respuesta JSON con codificación por trozos (chunked)
+     * y devuelve un generador que escribe directamente en el cuerpo de la respuesta
+     */
+    private static JsonGenerator iniciarRespuesta(HttpExchange intercambio, int codigo) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, 0);
+        OutputStream salida = intercambio.getResponseBody();
+        return FABRICA_JSON.createGenerator(salida, JsonEncoding.UTF8);
+    }
+    
+    /**
+     * Envía una lista de productos como array JSON, escribiendo producto a producto
+     */
+    private static void enviarProductos(HttpExchange intercambio, List<Producto> productos) throws IOException {
+        try (JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+            json.writeStartArray();
+            for (Producto p : productos) {
+                escribirProducto(json, p);
+            }
+            json.writeEndArray();
+        }
+    }
+    
+    /**
+     * Envía el inventario completo como array JSON, en el orden del archivo, sin cargar la lista
+     * completa en memoria. El archivo se lee una sola vez con un cursor, por tramos, y cada tramo
+     * se escribe después de soltar el bloqueo del inventario, para que un cliente lento no detenga
+     * las escrituras mientras recibe la respuesta.
+     */
+    private void enviarTodosProductos(HttpExchange intercambio) throws IOException {
+        try (CursorInventario cursor = service.abrirCursor();
+             JsonGenerator json = iniciarRespuesta(intercambio, 200)) {
+            json.writeStartArray();
+            List<Producto> tramo;
+            while (!(tramo = cursor.siguientes(TAMANO_TRAMO_COMPLETO)).isEmpty()) {
+                for (Producto p : tramo) {
+                    escribirProducto(json, p);
+                }
+            }
+            json.writeEndArray();
+        }
+    }
+    
+    /**
+     * Envía un único producto como objeto JSON
+     */
+    private static void enviarProducto(HttpExchange intercambio, int codigo, Producto producto) throws IOException {
+        try (JsonGenerator json = iniciarRespuesta(intercambio, codigo)) {
+            escribirProducto(json, producto);
+        }
+    }
+    
+    /**
+     * Escribe un producto como objeto JSON
+     */
+    static void escribirProducto(JsonGenerator json, Producto p) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", p.getIdProducto());
+        json.writeStringField("nombre", p.getNombre());
+        json.writeStringField("categoria", p.getCategoria());
+        json.writeNumberField("precio", p.getPrecio());
+        json.writeNumberField("stock", p.getStock());
+        json.writeEndObject();
+    }
+    
+    /**
+     * Envía un mensaje informativo {"mensaje": ...}
+     */
+    private static void enviarMensaje(HttpExchange intercambio, int codigo, String mensaje) throws IOException {
+        try (JsonGenerator json = iniciarRespuesta(intercambio, codigo)) {
+            json.writeStartObject();
+            json.writeStringField("mensaje", mensaje);
+            json.writeEndObject();
+        }
+    }
+    
+    /**
+     * Envía un error {"error": ...}. Si las cabeceras ya se enviaron, solo cierra la respuesta.
+     */
+    private static void enviarError(HttpExchange intercambio, int codigo, String mensaje) throws IOException {
+        if (intercambio.getResponseCode() != -1) {
+            return;
+        }
+        try (JsonGenerator json = iniciarRespuesta(intercambio, codigo)) {
+            json.writeStartObject();
+            json.writeStringField("error", mensaje);
+            json.writeEndObject();
+        }
+    }
+    
+    /**
+     * Lee el cuerpo de la petición como JSON
+     */
+    private static JsonNode leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            JsonNode cuerpo = MAPPER.readTree(entrada);
+            if (cuerpo == null || !cuerpo.isObject()) {
+                throw new IllegalArgumentException("Se esperaba un objeto JSON");
+            }
+            return cuerpo;
+        }
+    }
+    
+    /**
+     * Lee un campo de texto del cuerpo (nombre o categoria)
+     * @throws IllegalArgumentException si no es un texto o está vacío
+     */
+    private static String leerTexto(JsonNode cuerpo, String campo) {
+        JsonNode texto = cuerpo.get(campo);
+        if (!texto.isTextual() || texto.asText().trim().isEmpty()) {
+            throw new IllegalArgumentException("El campo " + campo + " debe ser un texto no vacío");
+        }
+        return texto.asText();
+    }
+    
+    /**
+     * Lee el campo precio del cuerpo, como número o como texto ("12.50")
+     * @throws IllegalArgumentException si no es un número decimal o es negativo
+     */
+    private static BigDecimal leerPrecio(JsonNode cuerpo) {
+        JsonNode nodo = cuerpo.get("precio");
+        if (!nodo.isNumber() && !nodo.isTextual()) {
+            throw new IllegalArgumentException("El precio debe ser un número");
+        }
+        BigDecimal precio;
+        try {
+            precio = new BigDecimal(nodo.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El precio debe ser un número: " + nodo.asText());
+        }
+        if (precio.signum() < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo: " + precio);
+        }
+        return precio;
+    }
+    
+    /**
+     * Lee el campo stock del cuerpo, que debe ser un entero JSON dentro del rango de int
+     * @throws IllegalArgumentException si no es un entero (asInt() daría 0 o lo truncaría) o es negativo
+     */
+    private static int leerStock(JsonNode cuerpo) {
+        JsonNode stock = cuerpo.get("stock");
+        if (!stock.isIntegralNumber() || !stock.canConvertToInt()) {
+            throw new IllegalArgumentException("El stock debe ser un número entero: " + stock);
+        }
+        if (stock.intValue() < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo: " + stock);
+        }
+        return stock.intValue();
+    }
+    
+    /**
+     * Decodifica los parámetros de la query string
+     */
+    private static Map<String, String> leerParametros(String query) {
+        Map<String, String> parametros = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parametros;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+}
@@ -0,0 +1,138 @@
+package com.empresa.inventario.informes;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.OrdenProductos;
+import com.empresa.inventario.model.Producto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Clasificaciones de productos (los de más valor, los más caros y los de más stock)
+ * mantenidas de forma incremental.
+ *
+ * Cada clasificación es un índice ordenado (árbol rojo-negro) con el orden descendente del
+ * criterio y desempate por ID. Cada cambio del flujo de cambios quita la versión anterior del
+ * producto y añade la nueva en O(log n), y los k primeros se leen en O(k) sin recorrer
+ * ni ordenar el inventario.
+ */
+public class ClasificacionProductos implements Flow.Subscriber<EventoCambio> {
+    
+    /** Criterios para los que se mantiene una clasificación */
+    public static final Set<OrdenProductos> CRITERIOS =
+            Collections.unmodifiableSet(EnumSet.of(OrdenProductos.VALOR, OrdenProductos.PRECIO, OrdenProductos.STOCK));
+    
+    private static final MetricasOperacion METRICAS_ACTUALIZAR = RegistroMetricas.operacion("ClasificacionProductos.actualizar");
+    
+    private final Map<OrdenProductos, TreeSet<Producto>> indices = new EnumMap<>(OrdenProductos.class);
+    
+    /** Versión indexada de cada producto, para quitarla de los índices cuando cambia */
+    private final Map<Integer, Producto> indexados = new HashMap<>();
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    
+    /**
+     * Constructor de las clasificaciones (vacías)
+     */
+    public ClasificacionProductos() {
+        for (OrdenProductos criterio : CRITERIOS) {
+            indices.put(criterio, new TreeSet<>(criterio.comparador(true)));
+        }
+    }
+    
+    /**
+     * Obtiene los k primeros productos de una clasificación
+     * @param criterio Criterio (valor, precio o stock), de mayor a menor
+     * @param k Número máximo de productos
+     * @return Productos en orden descendente del criterio
+     * @throws IllegalArgumentException si no se mantiene una clasificación para el criterio
+     */
+    public List<Producto> primeros(OrdenProductos criterio, int k) {
+        TreeSet<Producto> indice = indices.get(criterio);
+        if (indice == null) {
+            throw new IllegalArgumentException("No hay clasificación por " + criterio.name().toLowerCase());
+        }
+        
+        bloqueo.readLock().lock();
+        try {
+            List<Producto> resultado = new ArrayList<>(Math.max(0, Math.min(k, indice.size())));
+            Iterator<Producto> iterador = indice.iterator();
+            while (resultado.size() < k && iterador.hasNext()) {
+                resultado.add(iterador.next());
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Número de productos clasificados
+     */
+    public int getNumProductos() {
+        bloqueo.readLock().lock();
+        try {
+            return indexados.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Aplica un cambio de un producto a todas las clasificaciones
+     * @param antes Producto antes del cambio (null en un alta o en la carga inicial)
+     * @param despues Producto después del cambio (null en una baja)
+     */
+    public void aplicar(Producto antes, Producto despues) {
+        long inicio = METRICAS_ACTUALIZAR.iniciar();
+        bloqueo.writeLock().lock();
+        try {
+            int id = despues != null ? despues.getIdProducto() : antes.getIdProducto();
+            Producto anterior = despues != null ? indexados.put(id, despues) : indexados.remove(id);
+            for (TreeSet<Producto> indice : indices.values()) {
+                if (anterior != null) {
+                    indice.remove(anterior);
+                }
+                if (despues != null) {
+                    indice.add(despues);
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+            METRICAS_ACTUALIZAR.finalizar(inicio);
+        }
+    }
+    
+    // ==================== SUSCRIPCIÓN AL FLUJO DE CAMBIOS ====================
+    
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        suscripcion.request(Long.MAX_VALUE);
+    }
+    
+    @Override
+    public void onNext(EventoCambio evento) {
+        aplicar(evento.getAntes(), evento.getDespues());
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("Las clasificaciones de productos han dejado de recibir cambios: " + error.getMessage());
+    }
+    
+    @Override
+    public void onComplete() {
+    }
+}
@@ -0,0 +1,42 @@
+package com.empresa.inventario.informes;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Punto de la serie temporal de stock: el stock que tiene un producto desde un instante
+ * (hasta el punto siguiente)
+ */
+public final class PuntoStock {
+    
+    static final DateTimeFormatter FORMATO_INSTANTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    
+    private final long instante;
+    private final long stock;
+    
+    /**
+     * Constructor del punto
+     * @param instante Instante en milisegundos desde 1970
+     * @param stock Stock a partir de ese instante
+     */
+    public PuntoStock(long instante, long stock) {
+        this.instante = instante;
+        this.stock = stock;
+    }
+    
+    /** Instante en milisegundos desde 1970 */
+    public long getInstante() {
+        return instante;
+    }
+    
+    public long getStock() {
+        return stock;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s %10d", FORMATO_INSTANTE.format(Instant.ofEpochMilli(instante)), stock);
+    }
+}
@@ -0,0 +1,52 @@
+package com.empresa.inventario.informes;
+
+import java.time.Instant;
+
+/**
+ * Resumen del stock en un intervalo (una hora o un día): mínimo y máximo alcanzados
+ * durante el intervalo y el valor con el que termina
+ */
+public final class ResumenStock {
+    
+    private final long inicio;
+    private final long minimo;
+    private final long maximo;
+    private final long ultimo;
+    
+    /**
+     * Constructor del resumen
+     * @param inicio Comienzo del intervalo en milisegundos desde 1970
+     * @param minimo Stock mínimo en el intervalo
+     * @param maximo Stock máximo en el intervalo
+     * @param ultimo Stock al final del intervalo
+     */
+    public ResumenStock(long inicio, long minimo, long maximo, long ultimo) {
+        this.inicio = inicio;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.ultimo = ultimo;
+    }
+    
+    /** Comienzo del intervalo en milisegundos desde 1970 */
+    public long getInicio() {
+        return inicio;
+    }
+    
+    public long getMinimo() {
+        return minimo;
+    }
+    
+    public long getMaximo() {
+        return maximo;
+    }
+    
+    public long getUltimo() {
+        return ultimo;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s %10d %10d %10d",
+                PuntoStock.FORMATO_INSTANTE.format(Instant.ofEpochMilli(inicio)), minimo, maximo, ultimo);
+    }
+}
@@ -0,0 +1,786 @@
+package com.empresa.inventario.informes;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Series temporales del stock de cada producto, construidas de forma incremental con el flujo
+ * de cambios en lugar de volver a leer el registro de operaciones.
+ *
+ * Cada producto tiene una serie de puntos (instante, stock, categoría) a la que solo se añade un
+ * punto cuando cambia su stock o su categoría. Los puntos se guardan en tres columnas codificadas
+ * por diferencias: cada valor es la diferencia con el anterior de su columna, como entero de
+ * longitud variable (zigzag + varint). Un cambio de stock habitual ocupa así unos pocos bytes.
+ *
+ * El stock se interpreta como una función escalonada: entre dos puntos vale lo que indica el
+ * primero. Se pueden consultar los puntos de un intervalo y resúmenes por hora o por día (mínimo,
+ * máximo y último valor) de un producto o de la suma de los productos de una categoría.
+ *
+ * Las series se guardan en disco junto con la secuencia del último cambio aplicado; al arrancar
+ * se cargan y solo se aplican los cambios del diario posteriores a esa secuencia.
+ *
+ * Formato del archivo (big endian):
+ * <pre>
+ * Cabecera:  int mágico 'STKS' | short versión | long última secuencia
+ *            int número de categorías | categorías (short longitud + UTF-8) | int número de series
+ * Serie:     int id | int número de puntos
+ *            3 columnas (instantes, stocks, categorías): int longitud | bytes codificados
+ * </pre>
+ */
+public class SeriesStock implements Flow.Subscriber<EventoCambio> {
+    
+    /** Resoluciones de los resúmenes; los intervalos se alinean con la zona horaria del sistema */
+    public enum Resolucion {
+        HORA(ChronoUnit.HOURS),
+        DIA(ChronoUnit.DAYS);
+        
+        private final ChronoUnit unidad;
+        
+        Resolucion(ChronoUnit unidad) {
+            this.unidad = unidad;
+        }
+        
+        /**
+         * Comienzo del intervalo que contiene un instante
+         */
+        long inicio(long instante, ZoneId zona) {
+            return Instant.ofEpochMilli(instante).atZone(zona).truncatedTo(unidad).toInstant().toEpochMilli();
+        }
+        
+        /**
+         * Comienzo del intervalo siguiente
+         */
+        long siguiente(long inicio, ZoneId zona) {
+            return Instant.ofEpochMilli(inicio).atZone(zona).plus(1, unidad).toInstant().toEpochMilli();
+        }
+        
+        /**
+         * Obtiene la resolución a partir de su nombre
+         * @param texto Nombre de la resolución (hora o dia)
+         * @throws IllegalArgumentException si el nombre no es válido
+         */
+        public static Resolucion desdeTexto(String texto) {
+            String nombre = texto.trim().toUpperCase();
+            try {
+                return valueOf(nombre.equals("DÍA") ? "DIA" : nombre);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Resolución no válida: " + texto + " (use hora o dia)");
+            }
+        }
+    }
+    
+    private static final int MAGICO = 0x53544B53; // "STKS"
+    private static final short VERSION = 1;
+    
+    /** Máximo de intervalos de un resumen (unos 13 meses por horas) */
+    private static final int MAXIMO_RESUMENES = 10_000;
+    
+    /** Puntos nuevos tras los que las series se vuelven a guardar en disco */
+    private static final int PUNTOS_ENTRE_GUARDADOS = 4096;
+    
+    private static final MetricasOperacion METRICAS_REGISTRAR = RegistroMetricas.operacion("SeriesStock.registrar");
+    private static final MetricasOperacion METRICAS_CONSULTAR = RegistroMetricas.operacion("SeriesStock.consultar");
+    private static final MetricasOperacion METRICAS_GUARDAR = RegistroMetricas.operacion("SeriesStock.guardar");
+    
+    private final Path archivo;
+    private final ZoneId zona = ZoneId.systemDefault();
+    private final Map<Integer, Serie> series = new HashMap<>();
+    
+    /** Diccionario de categorías y, por categoría, los productos que alguna vez han pertenecido a ella */
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private final List<String> categorias = new ArrayList<>();
+    private final List<BitSet> miembros = new ArrayList<>();
+    
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private long ultimaSecuencia;
+    private long numPuntos;
+    private int puntosSinGuardar;
+    
+    /**
+     * Constructor de las series (vacías)
+     * @param archivo Ruta del archivo en el que se guardan
+     */
+    public SeriesStock(Path archivo) {
+        this.archivo = archivo;
+    }
+    
+    // ==================== REGISTRO ====================
+    
+    /**
+     * Añade un punto a la serie de un producto si su stock o su categoría han cambiado
+     * @param instante Instante del cambio en milisegundos desde 1970 (si es anterior al último
+     *                 punto de la serie se toma el del último punto, para que la serie siga ordenada)
+     * @param idProducto ID del producto
+     * @param stock Stock desde ese instante
+     * @param categoria Categoría del producto
+     * @return true si se añadió un punto
+     */
+    public boolean registrar(long instante, int idProducto, int stock, String categoria) {
+        long inicio = METRICAS_REGISTRAR.iniciar();
+        bloqueo.writeLock().lock();
+        try {
+            int codigo = codificar(categoria);
+            miembros.get(codigo).set(idProducto);
+            Serie serie = series.computeIfAbsent(idProducto, id -> new Serie());
+            if (serie.numPuntos > 0 && serie.stocks.ultimo == stock && serie.categorias.ultimo == codigo) {
+                return false;
+            }
+            serie.instantes.anadir(Math.max(instante, serie.instantes.ultimo));
+            serie.stocks.anadir(stock);
+            serie.categorias.anadir(codigo);
+            serie.numPuntos++;
+            numPuntos++;
+            puntosSinGuardar++;
+            return true;
+        } finally {
+            bloqueo.writeLock().unlock();
+            METRICAS_REGISTRAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Aplica un cambio del flujo de cambios: un alta o una modificación registran el stock del
+     * producto y una baja lo deja a 0
+     * @param evento Cambio numerado
+     */
+    public void aplicar(EventoCambio evento) {
+        Producto producto = evento.getDespues() != null ? evento.getDespues() : evento.getAntes();
+        registrar(evento.getInstante(), producto.getIdProducto(),
+                evento.getDespues() != null ? producto.getStock() : 0, producto.getCategoria());
+        bloqueo.writeLock().lock();
+        try {
+            ultimaSecuencia = Math.max(ultimaSecuencia, evento.getSecuencia());
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+    
+    /**
+     * Espera a que las series incluyan un cambio del diario (por ejemplo, al ponerse al día tras arrancar)
+     * @param secuencia Secuencia del cambio
+     * @param milisegundos Tiempo máximo de espera
+     * @return true si ya lo incluyen; false si se agotó el tiempo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public synchronized boolean esperarSecuencia(long secuencia, long milisegundos) throws InterruptedException {
+        long limite = System.currentTimeMillis() + milisegundos;
+        while (getUltimaSecuencia() < secuencia) {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                return false;
+            }
+            wait(restante);
+        }
+        return true;
+    }
+    
+    /**
+     * Secuencia del último cambio del diario incluido en las series
+     */
+    public long getUltimaSecuencia() {
+        bloqueo.readLock().lock();
+        try {
+            return ultimaSecuencia;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Indica que las series ya incluyen todos los cambios del diario hasta una secuencia
+     * (por ejemplo, tras construirlas a partir del estado actual del inventario)
+     * @param secuencia Secuencia del último cambio incluido
+     */
+    public void marcarSecuencia(long secuencia) {
+        bloqueo.writeLock().lock();
+        try {
+            ultimaSecuencia = secuencia;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta las series al estado completo del inventario cuando no se conocen los cambios que
+     * llevaron a él (por ejemplo, si otra aplicación ha reescrito el archivo): registra el stock
+     * actual de cada producto y deja a 0 los que ya no existen
+     * @param instante Instante del ajuste en milisegundos desde 1970
+     * @param productos Productos actuales por ID
+     * @return Número de puntos añadidos
+     */
+    public int conciliar(long instante, Map<Integer, Producto> productos) {
+        Map<Integer, String> desaparecidos = new HashMap<>();
+        bloqueo.readLock().lock();
+        try {
+            series.forEach((id, serie) -> {
+                if (!productos.containsKey(id) && serie.numPuntos > 0 && serie.stocks.ultimo != 0) {
+                    desaparecidos.put(id, categorias.get((int) serie.categorias.ultimo));
+                }
+            });
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        
+        int anadidos = 0;
+        for (Producto producto : productos.values()) {
+            if (registrar(instante, producto.getIdProducto(), producto.getStock(), producto.getCategoria())) {
+                anadidos++;
+            }
+        }
+        for (Map.Entry<Integer, String> desaparecido : desaparecidos.entrySet()) {
+            if (registrar(instante, desaparecido.getKey(), 0, desaparecido.getValue())) {
+                anadidos++;
+            }
+        }
+        return anadidos;
+    }
+    
+    // ==================== CONSULTA ====================
+    
+    /**
+     * Obtiene los puntos de la serie de un producto en un intervalo. Si la serie empieza antes
+     * del intervalo, el primer punto es el stock que tenía el producto al comenzar el intervalo.
+     * @param idProducto ID del producto
+     * @param desde Comienzo del intervalo en milisegundos desde 1970 (incluido)
+     * @param hasta Fin del intervalo en milisegundos desde 1970 (incluido)
+     * @return Puntos en orden cronológico; lista vacía si el producto no tiene serie
+     */
+    public List<PuntoStock> consultar(int idProducto, long desde, long hasta) {
+        long inicio = METRICAS_CONSULTAR.iniciar();
+        bloqueo.readLock().lock();
+        try {
+            List<PuntoStock> puntos = new ArrayList<>();
+            Serie serie = series.get(idProducto);
+            if (serie == null) {
+                return puntos;
+            }
+            
+            Lector lector = new Lector(serie);
+            PuntoStock anterior = null;
+            while (lector.siguiente() && lector.instante <= hasta) {
+                if (lector.instante < desde) {
+                    anterior = new PuntoStock(desde, lector.stock);
+                    continue;
+                }
+                if (anterior != null && lector.instante > desde) {
+                    puntos.add(anterior);
+                }
+                anterior = null;
+                puntos.add(new PuntoStock(lector.instante, lector.stock));
+            }
+            if (anterior != null) {
+                puntos.add(anterior);
+            }
+            return puntos;
+        } finally {
+            bloqueo.readLock().unlock();
+            METRICAS_CONSULTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Resume el stock de un producto por horas o por días
+     * @param idProducto ID del producto
+     * @param desde Comienzo del intervalo en milisegundos desde 1970
+     * @param hasta Fin del intervalo en milisegundos desde 1970
+     * @param resolucion Hora o día
+     * @return Un resumen por cada hora o día del intervalo desde el primer punto de la serie
+     */
+    public List<ResumenStock> resumir(int idProducto, long desde, long hasta, Resolucion resolucion) {
+        long inicio = METRICAS_CONSULTAR.iniciar();
+        bloqueo.readLock().lock();
+        try {
+            Resumidor resumidor = new Resumidor(desde, hasta, resolucion, zona);
+            Serie serie = series.get(idProducto);
+            if (serie != null) {
+                Lector lector = new Lector(serie);
+                while (lector.siguiente() && lector.instante <= hasta) {
+                    resumidor.valor(lector.instante, lector.stock);
+                }
+            }
+            return resumidor.terminar();
+        } finally {
+            bloqueo.readLock().unlock();
+            METRICAS_CONSULTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Resume por horas o por días el stock total de una categoría (la suma del stock de los
+     * productos mientras pertenecen a ella)
+     * @param categoria Nombre de la categoría (exacto)
+     * @param desde Comienzo del intervalo en milisegundos desde 1970
+     * @param hasta Fin del intervalo en milisegundos desde 1970
+     * @param resolucion Hora o día
+     * @return Un resumen por cada hora o día del intervalo desde el primer punto de la categoría
+     */
+    public List<ResumenStock> resumirCategoria(String categoria, long desde, long hasta, Resolucion resolucion) {
+        long inicio = METRICAS_CONSULTAR.iniciar();
+        bloqueo.readLock().lock();
+        try {
+            Resumidor resumidor = new Resumidor(desde, hasta, resolucion, zona);
+            Integer codigo = codigos.get(categoria);
+            if (codigo == null) {
+                return resumidor.terminar();
+            }
+            
+            // Variación del total de la categoría en cada instante en que cambia algún producto
+            TreeMap<Long, Long> variaciones = new TreeMap<>();
+            BitSet productos = miembros.get(codigo);
+            for (int id = productos.nextSetBit(0); id >= 0; id = productos.nextSetBit(id + 1)) {
+                Lector lector = new Lector(series.get(id));
+                long aportado = 0;
+                while (lector.siguiente() && lector.instante <= hasta) {
+                    long aporte = lector.categoria == codigo ? lector.stock : 0;
+                    if (aporte != aportado) {
+                        variaciones.merge(lector.instante, aporte - aportado, Long::sum);
+                        aportado = aporte;
+                    }
+                }
+            }
+            
+            long total = 0;
+            for (Map.Entry<Long, Long> variacion : variaciones.entrySet()) {
+                total += variacion.getValue();
+                resumidor.valor(variacion.getKey(), total);
+            }
+            return resumidor.terminar();
+        } finally {
+            bloqueo.readLock().unlock();
+            METRICAS_CONSULTAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Número de productos con serie
+     */
+    public int getNumSeries() {
+        bloqueo.readLock().lock();
+        try {
+            return series.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Número total de puntos de todas las series
+     */
+    public long getNumPuntos() {
+        bloqueo.readLock().lock();
+        try {
+            return numPuntos;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Bytes que ocupan las columnas codificadas de todas las series
+     */
+    public long getBytesPuntos() {
+        bloqueo.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Serie serie : series.values()) {
+                bytes += serie.instantes.longitud + serie.stocks.longitud + serie.categorias.longitud;
+            }
+            return bytes;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    // ==================== PERSISTENCIA ====================
+    
+    /**
+     * Carga las series guardadas en disco
+     * @param ultimaSecuenciaDiario Última secuencia del diario de cambios: si las series dicen
+     *                              incluir cambios posteriores, el diario se ha reiniciado y las
+     *                              series guardadas no sirven
+     * @return true si se cargaron; false si no existen o no se pueden usar
+     */
+    public boolean cargar(long ultimaSecuenciaDiario) {
+        if (!Files.exists(archivo)) {
+            return false;
+        }
+        
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                return false;
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.remaining() < 18 || buffer.getInt() != MAGICO || buffer.getShort() != VERSION) {
+                System.err.println("Series de stock no válidas, se reconstruyen: " + archivo);
+                return false;
+            }
+            long secuencia = buffer.getLong();
+            if (secuencia > ultimaSecuenciaDiario) {
+                System.err.println("Las series de stock son posteriores al diario de cambios, se reconstruyen");
+                return false;
+            }
+            
+            bloqueo.writeLock().lock();
+            try {
+                int numCategorias = buffer.getInt();
+                for (int i = 0; i < numCategorias; i++) {
+                    byte[] nombre = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(nombre);
+                    codificar(new String(nombre, StandardCharsets.UTF_8));
+                }
+                int numSeries = buffer.getInt();
+                for (int i = 0; i < numSeries; i++) {
+                    int id = buffer.getInt();
+                    Serie serie = new Serie();
+                    serie.numPuntos = buffer.getInt();
+                    serie.instantes.leer(buffer);
+                    serie.stocks.leer(buffer);
+                    serie.categorias.leer(buffer);
+                    series.put(id, serie);
+                    numPuntos += serie.numPuntos;
+                    
+                    // Al decodificar la serie se recuperan sus últimos valores y sus categorías
+                    Lector lector = new Lector(serie);
+                    while (lector.siguiente()) {
+                        miembros.get((int) lector.categoria).set(id);
+                    }
+                    serie.instantes.ultimo = lector.instante;
+                    serie.stocks.ultimo = lector.stock;
+                    serie.categorias.ultimo = lector.categoria;
+                }
+                ultimaSecuencia = secuencia;
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error al cargar las series de stock, se reconstruyen: " + e.getMessage());
+            bloqueo.writeLock().lock();
+            try {
+                series.clear();
+                codigos.clear();
+                categorias.clear();
+                miembros.clear();
+                numPuntos = 0;
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Guarda las series en un archivo temporal que después sustituye al anterior
+     * @return true si se guardaron
+     */
+    public synchronized boolean guardar() {
+        long inicio = METRICAS_GUARDAR.iniciar();
+        bloqueo.readLock().lock();
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporal), 64 * 1024))) {
+                salida.writeInt(MAGICO);
+                salida.writeShort(VERSION);
+                salida.writeLong(ultimaSecuencia);
+                salida.writeInt(categorias.size());
+                for (String categoria : categorias) {
+                    byte[] bytes = categoria.getBytes(StandardCharsets.UTF_8);
+                    salida.writeShort(bytes.length);
+                    salida.write(bytes);
+                }
+                salida.writeInt(series.size());
+                for (Map.Entry<Integer, Serie> entrada : series.entrySet()) {
+                    Serie serie = entrada.getValue();
+                    salida.writeInt(entrada.getKey());
+                    salida.writeInt(serie.numPuntos);
+                    serie.instantes.escribir(salida);
+                    serie.stocks.escribir(salida);
+                    serie.categorias.escribir(salida);
+                }
+            }
+            METRICAS_GUARDAR.sumarBytesEscritos(Files.size(temporal));
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            puntosSinGuardar = 0;
+            return true;
+        } catch (IOException e) {
+            METRICAS_GUARDAR.registrarError();
+            System.err.println("Error al guardar las series de stock: " + e.getMessage());
+            return false;
+        } finally {
+            bloqueo.readLock().unlock();
+            METRICAS_GUARDAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Obtiene el código de una categoría, asignándole uno nuevo si es la primera vez que aparece
+     */
+    private int codificar(String categoria) {
+        Integer codigo = codigos.get(categoria);
+        if (codigo != null) {
+            return codigo;
+        }
+        int nuevo = categorias.size();
+        categorias.add(categoria);
+        miembros.add(new BitSet());
+        codigos.put(categoria, nuevo);
+        return nuevo;
+    }
+    
+    // ==================== SUSCRIPCIÓN AL FLUJO DE CAMBIOS ====================
+    
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        suscripcion.request(Long.MAX_VALUE);
+    }
+    
+    @Override
+    public void onNext(EventoCambio evento) {
+        aplicar(evento);
+        if (puntosSinGuardar >= PUNTOS_ENTRE_GUARDADOS) {
+            guardar();
+        }
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("Las series de stock han dejado de recibir cambios: " + error.getMessage());
+    }
+    
+    @Override
+    public void onComplete() {
+    }
+    
+    // ==================== ESTRUCTURAS INTERNAS ====================
+    
+    /**
+     * Serie de un producto: una columna por campo, con el mismo número de valores
+     */
+    private static final class Serie {
+        final Columna instantes = new Columna();
+        final Columna stocks = new Columna();
+        final Columna categorias = new Columna();
+        int numPuntos;
+    }
+    
+    /**
+     * Columna de enteros codificada por diferencias: cada valor se guarda como la diferencia con
+     * el anterior en zigzag (los negativos pequeños también ocupan poco) y varint (7 bits por byte)
+     */
+    private static final class Columna {
+        private static final byte[] VACIA = new byte[0];
+        
+        byte[] bytes = VACIA;
+        int longitud;
+        long ultimo;
+        
+        void anadir(long valor) {
+            long diferencia = valor - ultimo;
+            long zigzag = (diferencia << 1) ^ (diferencia >> 63);
+            if (bytes.length - longitud < 10) {
+                bytes = Arrays.copyOf(bytes, Math.max(longitud + 10, longitud + longitud / 2));
+            }
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[longitud++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[longitud++] = (byte) zigzag;
+            ultimo = valor;
+        }
+        
+        void escribir(DataOutputStream salida) throws IOException {
+            salida.writeInt(longitud);
+            salida.write(bytes, 0, longitud);
+        }
+        
+        void leer(MappedByteBuffer buffer) {
+            longitud = buffer.getInt();
+            bytes = new byte[longitud];
+            buffer.get(bytes);
+        }
+    }
+    
+    /**
+     * Recorre los puntos de una serie decodificando las tres columnas a la vez
+     */
+    private static final class Lector {
+        private final Serie serie;
+        private int restantes;
+        private int posInstantes;
+        private int posStocks;
+        private int posCategorias;
+        
+        long instante;
+        long stock;
+        long categoria;
+        
+        Lector(Serie serie) {
+            this.serie = serie;
+            this.restantes = serie.numPuntos;
+        }
+        
+        boolean siguiente() {
+            if (restantes == 0) {
+                return false;
+            }
+            restantes--;
+            posInstantes = leerDiferencia(serie.instantes.bytes, posInstantes, 0);
+            posStocks = leerDiferencia(serie.stocks.bytes, posStocks, 1);
+            posCategorias = leerDiferencia(serie.categorias.bytes, posCategorias, 2);
+            return true;
+        }
+        
+        /**
+         * Decodifica un varint en zigzag y lo suma al campo indicado
+         * @return Posición siguiente al varint
+         */
+        private int leerDiferencia(byte[] bytes, int pos, int campo) {
+            long zigzag = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = bytes[pos++];
+                zigzag |= (long) (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            long diferencia = (zigzag >>> 1) ^ -(zigzag & 1);
+            switch (campo) {
+                case 0:
+                    instante += diferencia;
+                    break;
+                case 1:
+                    stock += diferencia;
+                    break;
+                default:
+                    categoria += diferencia;
+            }
+            return pos;
+        }
+    }
+    
+    /**
+     * Convierte una función escalonada (valores en orden cronológico) en resúmenes por intervalo.
+     * El mínimo y el máximo de un intervalo incluyen el valor con el que empieza, heredado del
+     * intervalo anterior, y los intervalos sin cambios repiten ese valor.
+     */
+    private static final class Resumidor {
+        private final long desde;
+        private final long hasta;
+        private final Resolucion resolucion;
+        private final ZoneId zona;
+        private final List<ResumenStock> resumenes = new ArrayList<>();
+        
+        private boolean definido;
+        private long actual;
+        private boolean abierto;
+        private long inicioIntervalo;
+        private long finIntervalo;
+        private long minimo;
+        private long maximo;
+        
+        Resumidor(long desde, long hasta, Resolucion resolucion, ZoneId zona) {
+            if (hasta < desde) {
+                throw new IllegalArgumentException("El intervalo termina antes de empezar");
+            }
+            if ((hasta - desde) / resolucion.unidad.getDuration().toMillis() >= MAXIMO_RESUMENES) {
+                throw new IllegalArgumentException("Demasiados intervalos: use una resolución mayor o un intervalo más corto");
+            }
+            this.desde = desde;
+            this.hasta = hasta;
+            this.resolucion = resolucion;
+            this.zona = zona;
+        }
+        
+        /**
+         * Registra que desde un instante (no posterior a hasta) la función vale un valor
+         */
+        void valor(long instante, long valor) {
+            if (instante >= desde) {
+                avanzar(instante);
+                if (!abierto) {
+                    abrir(instante);
+                }
+                minimo = Math.min(minimo, valor);
+                maximo = Math.max(maximo, valor);
+            }
+            actual = valor;
+            definido = true;
+        }
+        
+        List<ResumenStock> terminar() {
+            if (!abierto && definido) {
+                abrir(desde);
+            }
+            if (abierto) {
+                while (finIntervalo <= hasta) {
+                    cerrar();
+                    abrir(finIntervalo);
+                }
+                cerrar();
+            }
+            return resumenes;
+        }
+        
+        /**
+         * Cierra los intervalos que terminan antes del instante
+         */
+        private void avanzar(long instante) {
+            if (!abierto) {
+                if (!definido) {
+                    return;
+                }
+                abrir(desde);
+            }
+            while (instante >= finIntervalo) {
+                cerrar();
+                abrir(finIntervalo);
+            }
+        }
+        
+        private void abrir(long instante) {
+            inicioIntervalo = resolucion.inicio(instante, zona);
+            finIntervalo = resolucion.siguiente(inicioIntervalo, zona);
+            minimo = definido ? actual : Long.MAX_VALUE;
+            maximo = definido ? actual : Long.MIN_VALUE;
+            abierto = true;
+        }
+        
+        private void cerrar() {
+            resumenes.add(new ResumenStock(inicioIntervalo, minimo, maximo, actual));
+            abierto = false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.empresa.inventario.informes;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.model.EstadisticasCategoria;
+import com.empresa.inventario.model.EstadisticasCategorias;
+import com.empresa.inventario.model.Producto;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * Vista de las estadísticas por categoría que se mantiene al día con el flujo de cambios:
+ * cada cambio retira la versión anterior del producto y acumula la nueva, de modo que
+ * consultarla no recorre el inventario.
+ */
+public class VistaEstadisticasCategorias implements Flow.Subscriber<EventoCambio> {
+    
+    private final EstadisticasCategorias estadisticas;
+    
+    /**
+     * Constructor de la vista (vacía)
+     * @param umbralStockBajo Un producto tiene stock bajo si su stock es menor o igual que este valor
+     */
+    public VistaEstadisticasCategorias(int umbralStockBajo) {
+        this.estadisticas = EstadisticasCategorias.incremental(umbralStockBajo);
+    }
+    
+    /**
+     * Aplica un cambio de un producto
+     * @param antes Producto antes del cambio (null en un alta o en la carga inicial)
+     * @param despues Producto después del cambio (null en una baja)
+     */
+    public synchronized void aplicar(Producto antes, Producto despues) {
+        if (antes != null) {
+            estadisticas.retirar(antes);
+        }
+        if (despues != null) {
+            estadisticas.acumular(despues);
+        }
+    }
+    
+    /**
+     * Estadísticas actuales de cada categoría, ordenadas por nombre
+     */
+    public synchronized List<EstadisticasCategoria> obtener() {
+        return estadisticas.resultado();
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription suscripcion) {
+        suscripcion.request(Long.MAX_VALUE);
+    }
+    
+    @Override
+    public void onNext(EventoCambio evento) {
+        aplicar(evento.getAntes(), evento.getDespues());
+    }
+    
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("Las estadísticas por categoría han dejado de recibir cambios: " + error.getMessage());
+    }
+    
+    @Override
+    public void onComplete() {
+    }
+}
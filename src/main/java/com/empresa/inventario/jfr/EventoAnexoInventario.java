@@ -0,0 +1,30 @@
+package com.empresa.inventario.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emitido al añadir un producto al final del archivo de inventario.
+ */
+@Name("com.empresa.inventario.AnexoInventario")
+@Label("Alta en el inventario")
+@Category({"Inventario", "DAO"})
+@Description("Escritura de un producto nuevo al final del archivo de inventario")
+@StackTrace(false)
+public class EventoAnexoInventario extends Event {
+    
+    @Label("ID del producto")
+    public int idProducto;
+    
+    @Label("Filas")
+    public long filas;
+    
+    @Label("Bytes escritos")
+    @DataAmount
+    public long bytes;
+}
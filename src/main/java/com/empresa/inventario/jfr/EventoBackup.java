@@ -0,0 +1,29 @@
+package com.empresa.inventario.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR emitido al crear o restaurar una copia de seguridad.
+ */
+@Name("com.empresa.inventario.Backup")
+@Label("Copia de seguridad")
+@Category({"Inventario", "Backup"})
+@Description("Creación o restauración de una copia de seguridad del inventario")
+public class EventoBackup extends Event {
+    
+    @Label("Operación")
+    @Description("CREAR o RESTAURAR")
+    public String operacion;
+    
+    @Label("Archivo")
+    public String archivo;
+    
+    @Label("Tamaño")
+    @DataAmount
+    public long bytes;
+}
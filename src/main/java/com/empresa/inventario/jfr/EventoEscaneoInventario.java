@@ -0,0 +1,39 @@
+package com.empresa.inventario.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emitido por cada recorrido completo del archivo de inventario.
+ */
+@Name("com.empresa.inventario.EscaneoInventario")
+@Label("Escaneo del inventario")
+@Category({"Inventario", "DAO"})
+@Description("Lectura y parseo completo del archivo de inventario")
+@StackTrace(false)
+public class EventoEscaneoInventario extends Event {
+    
+    @Label("Filas")
+    public long filas;
+    
+    @Label("Productos materializados")
+    @Description("Filas que pasaron el filtro de la consulta y se convirtieron en productos")
+    public long materializadas;
+    
+    @Label("Bytes leídos")
+    @DataAmount
+    public long bytes;
+    
+    @Label("Paralelo")
+    @Description("Indica si el archivo se escaneó por rangos en el ForkJoinPool")
+    public boolean paralelo;
+    
+    @Label("Instantánea")
+    @Description("Indica si los productos se leyeron de la instantánea binaria en lugar del CSV")
+    public boolean instantanea;
+}
@@ -0,0 +1,25 @@
+package com.empresa.inventario.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR emitido cada vez que se reescribe completo el archivo de inventario.
+ */
+@Name("com.empresa.inventario.ReescrituraInventario")
+@Label("Reescritura del inventario")
+@Category({"Inventario", "DAO"})
+@Description("Reescritura completa del archivo de inventario tras una modificación o baja")
+public class EventoReescrituraInventario extends Event {
+    
+    @Label("Filas")
+    public long filas;
+    
+    @Label("Bytes escritos")
+    @DataAmount
+    public long bytes;
+}
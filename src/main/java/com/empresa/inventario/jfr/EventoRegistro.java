@@ -0,0 +1,27 @@
+package com.empresa.inventario.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emitido por cada escritura en el registro de operaciones.
+ */
+@Name("com.empresa.inventario.Registro")
+@Label("Escritura en el registro")
+@Category({"Inventario", "Registro"})
+@Description("Escritura de una entrada en el archivo registro.txt")
+@StackTrace(false)
+public class EventoRegistro extends Event {
+    
+    @Label("Tipo de operación")
+    public String tipo;
+    
+    @Label("Bytes escritos")
+    @DataAmount
+    public long bytes;
+}
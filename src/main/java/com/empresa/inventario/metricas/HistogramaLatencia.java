@@ -0,0 +1,120 @@
+package com.empresa.inventario.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias con cubetas log-lineales (al estilo HdrHistogram).
+ * Los valores menores de 64 ns tienen cubeta propia y, a partir de ahí, cada potencia de dos
+ * se divide en 32 cubetas, lo que da un error relativo máximo de ~3% en cualquier escala.
+ * El registro es libre de bloqueos: solo incrementa contadores atómicos.
+ */
+public class HistogramaLatencia {
+    
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int LINEALES = SUBCUBETAS * 2;
+    private static final int NUM_CUBETAS = LINEALES + (63 - BITS_SUBCUBETA) * SUBCUBETAS;
+    
+    private final AtomicLongArray cubetas = new AtomicLongArray(NUM_CUBETAS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong suma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+    
+    /**
+     * Registra una latencia
+     * @param nanos Latencia en nanosegundos
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(indice(valor));
+        total.incrementAndGet();
+        suma.addAndGet(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+    
+    /**
+     * Obtiene el número de valores registrados
+     * @return Número de valores
+     */
+    public long getTotal() {
+        return total.get();
+    }
+    
+    /**
+     * Obtiene la latencia media
+     * @return Media en nanosegundos, 0 si no hay valores
+     */
+    public double getMedia() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) suma.get() / n;
+    }
+    
+    /**
+     * Obtiene la latencia máxima registrada
+     * @return Máximo en nanosegundos
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+    
+    /**
+     * Calcula un percentil aproximado
+     * @param percentil Percentil entre 0 y 100
+     * @return Valor aproximado del percentil en nanosegundos, 0 si no hay valores
+     */
+    public long percentil(double percentil) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * n));
+        long acumulado = 0;
+        for (int i = 0; i < NUM_CUBETAS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(valorMedio(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+    
+    /**
+     * Pone a cero todos los contadores
+     */
+    public void reiniciar() {
+        for (int i = 0; i < NUM_CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        total.set(0);
+        suma.set(0);
+        maximo.set(0);
+    }
+    
+    /**
+     * Calcula la cubeta de un valor
+     */
+    private static int indice(long valor) {
+        if (valor < LINEALES) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        int superior = (int) (valor >>> desplazamiento);
+        return LINEALES + (desplazamiento - 1) * SUBCUBETAS + (superior - SUBCUBETAS);
+    }
+    
+    /**
+     * Calcula el valor representativo (punto medio) de una cubeta
+     */
+    private static long valorMedio(int indice) {
+        if (indice < LINEALES) {
+            return indice;
+        }
+        int desplazamiento = (indice - LINEALES) / SUBCUBETAS + 1;
+        long superior = (indice - LINEALES) % SUBCUBETAS + SUBCUBETAS;
+        long inferior = superior << desplazamiento;
+        return inferior + (1L << desplazamiento) / 2;
+    }
+}
@@ -0,0 +1,108 @@
+package com.empresa.inventario.metricas;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una caché: aciertos, fallos, expulsiones por tamaño o antigüedad,
+ * invalidaciones por escrituras y número de entradas actual.
+ * Se obtienen siempre a través de {@link RegistroMetricas#cache(String)}.
+ */
+public class MetricasCache implements MetricasCacheMBean {
+    
+    private final String nombre;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+    private final AtomicInteger entradas = new AtomicInteger();
+    
+    MetricasCache(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    /**
+     * Obtiene el nombre de la caché
+     * @return Nombre de la caché
+     */
+    public String getNombre() {
+        return nombre;
+    }
+    
+    /**
+     * Registra una consulta resuelta desde la caché
+     */
+    public void registrarAcierto() {
+        aciertos.increment();
+    }
+    
+    /**
+     * Registra una consulta que no estaba en la caché
+     */
+    public void registrarFallo() {
+        fallos.increment();
+    }
+    
+    /**
+     * Registra entradas descartadas por falta de espacio o por antigüedad
+     * @param numero Número de entradas
+     */
+    public void sumarExpulsiones(long numero) {
+        expulsiones.add(numero);
+    }
+    
+    /**
+     * Registra entradas descartadas porque una escritura podía cambiar su resultado
+     * @param numero Número de entradas
+     */
+    public void sumarInvalidaciones(long numero) {
+        invalidaciones.add(numero);
+    }
+    
+    /**
+     * Actualiza el número de entradas que contiene la caché
+     * @param numero Número de entradas actual
+     */
+    public void actualizarEntradas(int numero) {
+        entradas.set(numero);
+    }
+    
+    @Override
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+    
+    @Override
+    public long getFallos() {
+        return fallos.sum();
+    }
+    
+    @Override
+    public double getTasaAciertos() {
+        long total = getAciertos() + getFallos();
+        return total == 0 ? 0.0 : (double) getAciertos() / total;
+    }
+    
+    @Override
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+    
+    @Override
+    public long getInvalidaciones() {
+        return invalidaciones.sum();
+    }
+    
+    @Override
+    public int getEntradas() {
+        return entradas.get();
+    }
+    
+    @Override
+    public void reiniciar() {
+        aciertos.reset();
+        fallos.reset();
+        expulsiones.reset();
+        invalidaciones.reset();
+    }
+}
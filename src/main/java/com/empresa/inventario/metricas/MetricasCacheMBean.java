@@ -0,0 +1,24 @@
+package com.empresa.inventario.metricas;
+
+/**
+ * Interfaz JMX de las métricas de una caché.
+ */
+public interface MetricasCacheMBean {
+    
+    long getAciertos();
+    
+    long getFallos();
+    
+    double getTasaAciertos();
+    
+    long getExpulsiones();
+    
+    long getInvalidaciones();
+    
+    int getEntradas();
+    
+    /**
+     * Pone a cero los contadores de la caché (no vacía la caché)
+     */
+    void reiniciar();
+}
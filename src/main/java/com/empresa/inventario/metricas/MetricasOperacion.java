@@ -0,0 +1,174 @@
+package com.empresa.inventario.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Métricas de una operación concreta: histograma de latencias, número de llamadas,
+ * errores, filas leídas y bytes leídos/escritos.
+ * Se obtienen siempre a través de {@link RegistroMetricas#operacion(String)}.
+ */
+public class MetricasOperacion implements MetricasOperacionMBean {
+    
+    private final String nombre;
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder filasLeidas = new LongAdder();
+    private final LongAdder bytesLeidos = new LongAdder();
+    private final LongAdder bytesEscritos = new LongAdder();
+    
+    MetricasOperacion(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    /**
+     * Obtiene el nombre de la operación
+     * @return Nombre con formato Clase.metodo
+     */
+    public String getNombre() {
+        return nombre;
+    }
+    
+    /**
+     * Marca el inicio de una operación
+     * @return Instante de inicio, que se debe pasar a {@link #finalizar(long)}
+     */
+    public long iniciar() {
+        return System.nanoTime();
+    }
+    
+    /**
+     * Marca el final de una operación y registra su latencia
+     * @param inicio Instante devuelto por {@link #iniciar()}
+     */
+    public void finalizar(long inicio) {
+        latencias.registrar(System.nanoTime() - inicio);
+    }
+    
+    /**
+     * Mide una operación que devuelve un valor. Las excepciones cuentan como error.
+     * @param operacion Operación a medir
+     * @return Resultado de la operación
+     */
+    public <T> T medir(Supplier<T> operacion) {
+        long inicio = iniciar();
+        try {
+            return operacion.get();
+        } catch (RuntimeException e) {
+            registrarError();
+            throw e;
+        } finally {
+            finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Mide una operación que indica su éxito con un boolean. Un resultado false cuenta como error.
+     * @param operacion Operación a medir
+     * @return Resultado de la operación
+     */
+    public boolean medirCondicion(BooleanSupplier operacion) {
+        long inicio = iniciar();
+        boolean correcto = false;
+        try {
+            correcto = operacion.getAsBoolean();
+            return correcto;
+        } finally {
+            if (!correcto) {
+                registrarError();
+            }
+            finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Registra un error de la operación
+     */
+    public void registrarError() {
+        errores.increment();
+    }
+    
+    /**
+     * Suma filas leídas por la operación
+     * @param filas Número de filas
+     */
+    public void sumarFilasLeidas(long filas) {
+        filasLeidas.add(filas);
+    }
+    
+    /**
+     * Suma bytes leídos por la operación
+     * @param bytes Número de bytes
+     */
+    public void sumarBytesLeidos(long bytes) {
+        bytesLeidos.add(bytes);
+    }
+    
+    /**
+     * Suma bytes escritos por la operación
+     * @param bytes Número de bytes
+     */
+    public void sumarBytesEscritos(long bytes) {
+        bytesEscritos.add(bytes);
+    }
+    
+    @Override
+    public long getLlamadas() {
+        return latencias.getTotal();
+    }
+    
+    @Override
+    public long getErrores() {
+        return errores.sum();
+    }
+    
+    @Override
+    public double getMediaMs() {
+        return latencias.getMedia() / 1e6;
+    }
+    
+    @Override
+    public double getP50Ms() {
+        return latencias.percentil(50) / 1e6;
+    }
+    
+    @Override
+    public double getP90Ms() {
+        return latencias.percentil(90) / 1e6;
+    }
+    
+    @Override
+    public double getP99Ms() {
+        return latencias.percentil(99) / 1e6;
+    }
+    
+    @Override
+    public double getMaximoMs() {
+        return latencias.getMaximo() / 1e6;
+    }
+    
+    @Override
+    public long getFilasLeidas() {
+        return filasLeidas.sum();
+    }
+    
+    @Override
+    public long getBytesLeidos() {
+        return bytesLeidos.sum();
+    }
+    
+    @Override
+    public long getBytesEscritos() {
+        return bytesEscritos.sum();
+    }
+    
+    @Override
+    public void reiniciar() {
+        latencias.reiniciar();
+        errores.reset();
+        filasLeidas.reset();
+        bytesLeidos.reset();
+        bytesEscritos.reset();
+    }
+}
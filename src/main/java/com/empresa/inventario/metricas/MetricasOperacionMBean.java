@@ -0,0 +1,33 @@
+package com.empresa.inventario.metricas;
+
+/**
+ * Interfaz JMX de las métricas de una operación.
+ * Los tiempos se publican en milisegundos.
+ */
+public interface MetricasOperacionMBean {
+    
+    long getLlamadas();
+    
+    long getErrores();
+    
+    double getMediaMs();
+    
+    double getP50Ms();
+    
+    double getP90Ms();
+    
+    double getP99Ms();
+    
+    double getMaximoMs();
+    
+    long getFilasLeidas();
+    
+    long getBytesLeidos();
+    
+    long getBytesEscritos();
+    
+    /**
+     * Pone a cero todas las métricas de la operación
+     */
+    void reiniciar();
+}
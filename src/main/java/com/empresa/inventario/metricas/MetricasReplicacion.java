@@ -0,0 +1,140 @@
+package com.empresa.inventario.metricas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una réplica del inventario: si está conectada al primario, la última secuencia
+ * que conoce del primario, la última que ha aplicado y el retraso, en eventos y en tiempo.
+ * El retraso en tiempo es lo que lleva la réplica por detrás del primario desde la última vez
+ * que estuvo al día, medido con el reloj de la réplica (0 si está al día).
+ * Se obtienen siempre a través de {@link RegistroMetricas#replicacion(String)}.
+ */
+public class MetricasReplicacion implements MetricasReplicacionMBean {
+    
+    private final String nombre;
+    private final LongAdder eventosAplicados = new LongAdder();
+    private final LongAdder instantaneas = new LongAdder();
+    private final LongAdder reconexiones = new LongAdder();
+    
+    private volatile boolean conectada;
+    private long secuenciaPrimario;
+    private long secuenciaAplicada;
+    
+    /** Instante (System.nanoTime) en que la réplica dejó de estar al día; 0 si lo está */
+    private long atrasadaDesde;
+    
+    MetricasReplicacion(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    /**
+     * Obtiene el nombre de la réplica
+     * @return Nombre de la réplica
+     */
+    public String getNombre() {
+        return nombre;
+    }
+    
+    /**
+     * Registra que la réplica se ha conectado o desconectado del primario
+     * @param conectada true si está conectada
+     */
+    public void actualizarConexion(boolean conectada) {
+        this.conectada = conectada;
+    }
+    
+    /**
+     * Registra un nuevo intento de conexión tras perder la anterior
+     */
+    public void registrarReconexion() {
+        reconexiones.increment();
+    }
+    
+    /**
+     * Registra la última secuencia que ha anunciado el primario
+     * @param secuencia Secuencia del primario
+     */
+    public synchronized void actualizarPrimario(long secuencia) {
+        secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+        actualizarRetraso();
+    }
+    
+    /**
+     * Registra un lote de eventos aplicados
+     * @param numero Número de eventos
+     * @param secuencia Secuencia del último evento aplicado
+     */
+    public synchronized void registrarAplicados(int numero, long secuencia) {
+        eventosAplicados.add(numero);
+        secuenciaAplicada = secuencia;
+        secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+        actualizarRetraso();
+    }
+    
+    /**
+     * Registra una instantánea completa recibida del primario
+     * @param secuencia Secuencia del primario en la instantánea
+     */
+    public synchronized void registrarInstantanea(long secuencia) {
+        instantaneas.increment();
+        secuenciaAplicada = secuencia;
+        secuenciaPrimario = Math.max(secuenciaPrimario, secuencia);
+        actualizarRetraso();
+    }
+    
+    private void actualizarRetraso() {
+        if (secuenciaAplicada >= secuenciaPrimario) {
+            atrasadaDesde = 0;
+        } else if (atrasadaDesde == 0) {
+            atrasadaDesde = System.nanoTime();
+        }
+    }
+    
+    @Override
+    public boolean isConectada() {
+        return conectada;
+    }
+    
+    @Override
+    public synchronized long getSecuenciaPrimario() {
+        return secuenciaPrimario;
+    }
+    
+    @Override
+    public synchronized long getSecuenciaAplicada() {
+        return secuenciaAplicada;
+    }
+    
+    @Override
+    public synchronized long getRetrasoEventos() {
+        return Math.max(0, secuenciaPrimario - secuenciaAplicada);
+    }
+    
+    @Override
+    public synchronized long getRetrasoMs() {
+        return atrasadaDesde == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - atrasadaDesde);
+    }
+    
+    @Override
+    public long getEventosAplicados() {
+        return eventosAplicados.sum();
+    }
+    
+    @Override
+    public long getInstantaneas() {
+        return instantaneas.sum();
+    }
+    
+    @Override
+    public long getReconexiones() {
+        return reconexiones.sum();
+    }
+    
+    @Override
+    public void reiniciar() {
+        eventosAplicados.reset();
+        instantaneas.reset();
+        reconexiones.reset();
+    }
+}
@@ -0,0 +1,28 @@
+package com.empresa.inventario.metricas;
+
+/**
+ * Interfaz JMX de las métricas de una réplica del inventario.
+ */
+public interface MetricasReplicacionMBean {
+    
+    boolean isConectada();
+    
+    long getSecuenciaPrimario();
+    
+    long getSecuenciaAplicada();
+    
+    long getRetrasoEventos();
+    
+    long getRetrasoMs();
+    
+    long getEventosAplicados();
+    
+    long getInstantaneas();
+    
+    long getReconexiones();
+    
+    /**
+     * Pone a cero los contadores de la réplica (no cambia su posición)
+     */
+    void reiniciar();
+}
@@ -0,0 +1,177 @@
+package com.empresa.inventario.metricas;
+
+import com.empresa.inventario.util.ConfiguracionUtil;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro central de las métricas de todas las operaciones del sistema.
+ * Cada operación se publica como MBean JMX ({@code com.empresa.inventario:type=Operacion,name=...}),
+ * cada caché como {@code com.empresa.inventario:type=Cache,name=...}, cada réplica como
+ * {@code com.empresa.inventario:type=Replicacion,name=...}
+ * y, si se configura un intervalo, se vuelca periódicamente una instantánea en data/metricas.txt.
+ */
+public class RegistroMetricas {
+    
+    private static final String DOMINIO_JMX = "com.empresa.inventario";
+    private static final String ARCHIVO_METRICAS = ConfiguracionUtil.rutaDatos("metricas.txt");
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private static final Map<String, MetricasOperacion> OPERACIONES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Boolean> REGISTRADAS_JMX = new ConcurrentHashMap<>();
+    private static final Map<String, MetricasCache> CACHES = new ConcurrentSkipListMap<>();
+    private static final Map<String, MetricasReplicacion> REPLICAS = new ConcurrentSkipListMap<>();
+    
+    static {
+        if (ConfiguracionUtil.INTERVALO_VOLCADO_METRICAS > 0) {
+            iniciarVolcadoPeriodico(ConfiguracionUtil.INTERVALO_VOLCADO_METRICAS);
+        }
+    }
+    
+    /**
+     * Obtiene (o crea y publica por JMX) las métricas de una operación
+     * @param nombre Nombre de la operación, con formato Clase.metodo
+     * @return Métricas de la operación
+     */
+    public static MetricasOperacion operacion(String nombre) {
+        MetricasOperacion metricas = OPERACIONES.computeIfAbsent(nombre, MetricasOperacion::new);
+        if (REGISTRADAS_JMX.putIfAbsent(nombre, Boolean.TRUE) == null) {
+            registrarMBean(metricas);
+        }
+        return metricas;
+    }
+    
+    /**
+     * Obtiene (o crea y publica por JMX) las métricas de una caché
+     * @param nombre Nombre de la caché
+     * @return Métricas de la caché
+     */
+    public static MetricasCache cache(String nombre) {
+        return CACHES.computeIfAbsent(nombre, n -> {
+            MetricasCache metricas = new MetricasCache(n);
+            registrarMBean(metricas, "Cache", n);
+            return metricas;
+        });
+    }
+    
+    /**
+     * Obtiene (o crea y publica por JMX) las métricas de una réplica
+     * @param nombre Nombre de la réplica
+     * @return Métricas de la réplica
+     */
+    public static MetricasReplicacion replicacion(String nombre) {
+        return REPLICAS.computeIfAbsent(nombre, n -> {
+            MetricasReplicacion metricas = new MetricasReplicacion(n);
+            registrarMBean(metricas, "Replicacion", n);
+            return metricas;
+        });
+    }
+    
+    /**
+     * Publica las métricas de una operación en el servidor de MBeans de la plataforma
+     */
+    private static void registrarMBean(MetricasOperacion metricas) {
+        registrarMBean(metricas, "Operacion", metricas.getNombre());
+    }
+    
+    /**
+     * Publica un MBean con el tipo y nombre indicados
+     */
+    private static void registrarMBean(Object mbean, String tipo, String nombreMBean) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(DOMINIO_JMX + ":type=" + tipo + ",name=" 
+                    + ObjectName.quote(nombreMBean));
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(mbean, nombre);
+            }
+        } catch (JMException e) {
+            System.err.println("Error al publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Genera una instantánea en texto de todas las operaciones con llamadas
+     * @return Tabla con las métricas de cada operación
+     */
+    public static String obtenerInstantanea() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-44s %9s %7s %9s %9s %9s %9s %11s %13s %13s%n",
+                "OPERACIÓN", "LLAMADAS", "ERRORES", "MEDIA ms", "P50 ms", "P99 ms", "MAX ms",
+                "FILAS", "BYTES LEÍDOS", "BYTES ESCR."));
+        
+        for (MetricasOperacion m : OPERACIONES.values()) {
+            if (m.getLlamadas() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-44s %9d %7d %9.3f %9.3f %9.3f %9.3f %11d %13d %13d%n",
+                    m.getNombre(), m.getLlamadas(), m.getErrores(), m.getMediaMs(), m.getP50Ms(),
+                    m.getP99Ms(), m.getMaximoMs(), m.getFilasLeidas(), m.getBytesLeidos(),
+                    m.getBytesEscritos()));
+        }
+        
+        if (!CACHES.isEmpty()) {
+            sb.append(String.format("%n%-44s %9s %9s %8s %11s %14s %9s%n",
+                    "CACHÉ", "ACIERTOS", "FALLOS", "TASA %", "EXPULSIONES", "INVALIDACIONES", "ENTRADAS"));
+            for (MetricasCache c : CACHES.values()) {
+                sb.append(String.format("%-44s %9d %9d %8.1f %11d %14d %9d%n",
+                        c.getNombre(), c.getAciertos(), c.getFallos(), c.getTasaAciertos() * 100,
+                        c.getExpulsiones(), c.getInvalidaciones(), c.getEntradas()));
+            }
+        }
+        
+        if (!REPLICAS.isEmpty()) {
+            sb.append(String.format("%n%-44s %9s %12s %12s %10s %10s %10s %12s%n",
+                    "RÉPLICA", "CONECTADA", "SEC. PRIM.", "SEC. APLIC.", "RETRASO", "RETRASO ms",
+                    "EVENTOS", "INSTANTÁNEAS"));
+            for (MetricasReplicacion r : REPLICAS.values()) {
+                sb.append(String.format("%-44s %9s %12d %12d %10d %10d %10d %12d%n",
+                        r.getNombre(), r.isConectada() ? "sí" : "no", r.getSecuenciaPrimario(),
+                        r.getSecuenciaAplicada(), r.getRetrasoEventos(), r.getRetrasoMs(),
+                        r.getEventosAplicados(), r.getInstantaneas()));
+            }
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Escribe la instantánea actual en el archivo de métricas (sobrescribiendo la anterior)
+     */
+    public static void volcarInstantanea() {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARCHIVO_METRICAS))) {
+            writer.write("Instantánea de métricas: " + LocalDateTime.now().format(FORMATO_FECHA));
+            writer.newLine();
+            writer.write(obtenerInstantanea());
+        } catch (IOException e) {
+            System.err.println("Error al volcar las métricas: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Inicia un hilo demonio que vuelca la instantánea de métricas periódicamente
+     * @param segundos Intervalo entre volcados
+     */
+    private static void iniciarVolcadoPeriodico(long segundos) {
+        ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "volcado-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleAtFixedRate(RegistroMetricas::volcarInstantanea, segundos, segundos, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,81 @@
+package com.empresa.inventario.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Estadísticas de una categoría del inventario (resultado de {@link EstadisticasCategorias})
+ */
+public class EstadisticasCategoria {
+    
+    private final String categoria;
+    private final int numProductos;
+    private final long stockTotal;
+    private final BigDecimal valorTotal;
+    private final BigDecimal precioMinimo;
+    private final BigDecimal precioMaximo;
+    private final int numStockBajo;
+    
+    /**
+     * Constructor con todos los valores
+     * @param categoria Nombre de la categoría
+     * @param numProductos Número de productos
+     * @param stockTotal Suma del stock
+     * @param valorTotal Suma de precio × stock
+     * @param precioMinimo Precio más bajo
+     * @param precioMaximo Precio más alto
+     * @param numStockBajo Número de productos con stock bajo
+     */
+    public EstadisticasCategoria(String categoria, int numProductos, long stockTotal, BigDecimal valorTotal,
+                                 BigDecimal precioMinimo, BigDecimal precioMaximo, int numStockBajo) {
+        this.categoria = categoria;
+        this.numProductos = numProductos;
+        this.stockTotal = stockTotal;
+        this.valorTotal = valorTotal;
+        this.precioMinimo = precioMinimo;
+        this.precioMaximo = precioMaximo;
+        this.numStockBajo = numStockBajo;
+    }
+    
+    public String getCategoria() {
+        return categoria;
+    }
+    
+    public int getNumProductos() {
+        return numProductos;
+    }
+    
+    public long getStockTotal() {
+        return stockTotal;
+    }
+    
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+    
+    /**
+     * Valor medio por producto de la categoría
+     */
+    public BigDecimal getValorMedio() {
+        return valorTotal.divide(BigDecimal.valueOf(numProductos), 2, RoundingMode.HALF_UP);
+    }
+    
+    public BigDecimal getPrecioMinimo() {
+        return precioMinimo;
+    }
+    
+    public BigDecimal getPrecioMaximo() {
+        return precioMaximo;
+    }
+    
+    public int getNumStockBajo() {
+        return numStockBajo;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%-20s %8d %10d %14.2f %12.2f %10.2f %10.2f %9d",
+                categoria.length() > 20 ? categoria.substring(0, 17) + "..." : categoria,
+                numProductos, stockTotal, valorTotal, getValorMedio(), precioMinimo, precioMaximo, numStockBajo);
+    }
+}
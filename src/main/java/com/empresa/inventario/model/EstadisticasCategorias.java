@@ -0,0 +1,183 @@
+package com.empresa.inventario.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acumulador de estadísticas por categoría (agrupación en un solo recorrido).
+ *
+ * Cada categoría se codifica la primera vez que aparece con un número consecutivo (diccionario
+ * nombre -> código) y sus valores se acumulan en arrays de tipos primitivos indexados por ese
+ * código: acumular un producto no crea objetos por categoría ni por producto. Los importes se
+ * llevan en céntimos como enteros. Como {@link EstadisticasInventario}, se puede calcular por
+ * partes (por ejemplo en un recorrido paralelo) y combinar los resultados parciales.
+ *
+ * En modo incremental ({@link #incremental(int)}) también admite retirar productos; para que
+ * el precio mínimo y máximo sigan siendo exactos tras una retirada se guarda además, por
+ * categoría, cuántos productos hay de cada precio.
+ */
+public class EstadisticasCategorias {
+    
+    private static final int CAPACIDAD_INICIAL = 16;
+    
+    private final int umbralStockBajo;
+    private final Map<String, Integer> codigos = new HashMap<>();
+    private int numCategorias;
+    
+    private String[] nombres = new String[CAPACIDAD_INICIAL];
+    private int[] numProductos = new int[CAPACIDAD_INICIAL];
+    private long[] stockTotal = new long[CAPACIDAD_INICIAL];
+    private long[] valorCentimos = new long[CAPACIDAD_INICIAL];
+    private long[] precioMinimo = new long[CAPACIDAD_INICIAL];
+    private long[] precioMaximo = new long[CAPACIDAD_INICIAL];
+    private int[] numStockBajo = new int[CAPACIDAD_INICIAL];
+    
+    /** Solo en modo incremental: por categoría, número de productos de cada precio (en céntimos) */
+    private final List<TreeMap<Long, Integer>> precios;
+    
+    /**
+     * Constructor del acumulador
+     * @param umbralStockBajo Un producto tiene stock bajo si su stock es menor o igual que este valor
+     */
+    public EstadisticasCategorias(int umbralStockBajo) {
+        this(umbralStockBajo, false);
+    }
+    
+    private EstadisticasCategorias(int umbralStockBajo, boolean incremental) {
+        this.umbralStockBajo = umbralStockBajo;
+        this.precios = incremental ? new ArrayList<>() : null;
+    }
+    
+    /**
+     * Crea un acumulador que además admite retirar productos con {@link #retirar(Producto)}
+     * @param umbralStockBajo Un producto tiene stock bajo si su stock es menor o igual que este valor
+     */
+    public static EstadisticasCategorias incremental(int umbralStockBajo) {
+        return new EstadisticasCategorias(umbralStockBajo, true);
+    }
+    
+    /**
+     * Añade un producto a las estadísticas de su categoría
+     * @param producto Producto a acumular
+     */
+    public void acumular(Producto producto) {
+        int codigo = codificar(producto.getCategoria());
+        long precio = producto.getPrecioCentimos();
+        numProductos[codigo]++;
+        stockTotal[codigo] += producto.getStock();
+        valorCentimos[codigo] += precio * producto.getStock();
+        if (producto.getStock() <= umbralStockBajo) {
+            numStockBajo[codigo]++;
+        }
+        precioMinimo[codigo] = Math.min(precioMinimo[codigo], precio);
+        precioMaximo[codigo] = Math.max(precioMaximo[codigo], precio);
+        if (precios != null) {
+            precios.get(codigo).merge(precio, 1, Integer::sum);
+        }
+    }
+    
+    /**
+     * Retira de las estadísticas un producto acumulado antes (solo en modo incremental)
+     * @param producto Producto tal como se acumuló
+     * @throws IllegalStateException si el acumulador no es incremental
+     */
+    public void retirar(Producto producto) {
+        if (precios == null) {
+            throw new IllegalStateException("Solo se pueden retirar productos en modo incremental");
+        }
+        Integer codigo = codigos.get(producto.getCategoria());
+        if (codigo == null) {
+            return;
+        }
+        
+        long precio = producto.getPrecioCentimos();
+        numProductos[codigo]--;
+        stockTotal[codigo] -= producto.getStock();
+        valorCentimos[codigo] -= precio * producto.getStock();
+        if (producto.getStock() <= umbralStockBajo) {
+            numStockBajo[codigo]--;
+        }
+        
+        TreeMap<Long, Integer> preciosCategoria = precios.get(codigo);
+        preciosCategoria.computeIfPresent(precio, (clave, cantidad) -> cantidad > 1 ? cantidad - 1 : null);
+        precioMinimo[codigo] = preciosCategoria.isEmpty() ? Long.MAX_VALUE : preciosCategoria.firstKey();
+        precioMaximo[codigo] = preciosCategoria.isEmpty() ? Long.MIN_VALUE : preciosCategoria.lastKey();
+    }
+    
+    /**
+     * Combina estas estadísticas con otras calculadas por separado.
+     * Cada parte tiene su propio diccionario, así que las categorías se emparejan por nombre.
+     * @param otras Estadísticas a añadir (con el mismo umbral de stock bajo)
+     * @return Estas mismas estadísticas, ya combinadas
+     */
+    public EstadisticasCategorias combinar(EstadisticasCategorias otras) {
+        for (int otro = 0; otro < otras.numCategorias; otro++) {
+            int codigo = codificar(otras.nombres[otro]);
+            numProductos[codigo] += otras.numProductos[otro];
+            stockTotal[codigo] += otras.stockTotal[otro];
+            valorCentimos[codigo] += otras.valorCentimos[otro];
+            numStockBajo[codigo] += otras.numStockBajo[otro];
+            precioMinimo[codigo] = Math.min(precioMinimo[codigo], otras.precioMinimo[otro]);
+            precioMaximo[codigo] = Math.max(precioMaximo[codigo], otras.precioMaximo[otro]);
+            if (precios != null && otras.precios != null) {
+                otras.precios.get(otro).forEach((precio, cantidad) -> precios.get(codigo).merge(precio, cantidad, Integer::sum));
+            }
+        }
+        return this;
+    }
+    
+    /**
+     * Obtiene las estadísticas de las categorías con algún producto, ordenadas por nombre
+     * @return Una entrada por categoría
+     */
+    public List<EstadisticasCategoria> resultado() {
+        List<EstadisticasCategoria> resultado = new ArrayList<>(numCategorias);
+        for (int codigo = 0; codigo < numCategorias; codigo++) {
+            if (numProductos[codigo] == 0) {
+                continue;
+            }
+            resultado.add(new EstadisticasCategoria(nombres[codigo], numProductos[codigo], stockTotal[codigo],
+                    BigDecimal.valueOf(valorCentimos[codigo], 2),
+                    BigDecimal.valueOf(precioMinimo[codigo], 2),
+                    BigDecimal.valueOf(precioMaximo[codigo], 2),
+                    numStockBajo[codigo]));
+        }
+        resultado.sort((a, b) -> a.getCategoria().compareToIgnoreCase(b.getCategoria()));
+        return resultado;
+    }
+    
+    /**
+     * Obtiene el código de una categoría, asignándole uno nuevo si es la primera vez que aparece
+     */
+    private int codificar(String categoria) {
+        Integer codigo = codigos.get(categoria);
+        if (codigo != null) {
+            return codigo;
+        }
+        
+        if (numCategorias == nombres.length) {
+            int capacidad = nombres.length * 2;
+            nombres = Arrays.copyOf(nombres, capacidad);
+            numProductos = Arrays.copyOf(numProductos, capacidad);
+            stockTotal = Arrays.copyOf(stockTotal, capacidad);
+            valorCentimos = Arrays.copyOf(valorCentimos, capacidad);
+            precioMinimo = Arrays.copyOf(precioMinimo, capacidad);
+            precioMaximo = Arrays.copyOf(precioMaximo, capacidad);
+            numStockBajo = Arrays.copyOf(numStockBajo, capacidad);
+        }
+        int nuevo = numCategorias++;
+        nombres[nuevo] = categoria;
+        precioMinimo[nuevo] = Long.MAX_VALUE;
+        precioMaximo[nuevo] = Long.MIN_VALUE;
+        if (precios != null) {
+            precios.add(new TreeMap<>());
+        }
+        codigos.put(categoria, nuevo);
+        return nuevo;
+    }
+}
@@ -0,0 +1,68 @@
+package com.empresa.inventario.model;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Estadísticas globales del inventario.
+ * Funciona también como acumulador: se puede calcular por partes y combinar los resultados parciales.
+ */
+public class EstadisticasInventario {
+    
+    private int totalProductos;
+    private long stockTotal;
+    private BigDecimal valorTotal = BigDecimal.ZERO;
+    private final Set<String> categorias = new HashSet<>();
+    
+    /**
+     * Añade un producto a las estadísticas
+     * @param producto Producto a acumular
+     */
+    public void acumular(Producto producto) {
+        totalProductos++;
+        stockTotal += producto.getStock();
+        valorTotal = valorTotal.add(producto.getPrecio().multiply(new BigDecimal(producto.getStock())));
+        categorias.add(producto.getCategoria());
+    }
+    
+    /**
+     * Combina estas estadísticas con otras calculadas por separado
+     * @param otras Estadísticas a añadir
+     * @return Estas mismas estadísticas, ya combinadas
+     */
+    public EstadisticasInventario combinar(EstadisticasInventario otras) {
+        totalProductos += otras.totalProductos;
+        stockTotal += otras.stockTotal;
+        valorTotal = valorTotal.add(otras.valorTotal);
+        categorias.addAll(otras.categorias);
+        return this;
+    }
+    
+    public int getTotalProductos() {
+        return totalProductos;
+    }
+    
+    public long getStockTotal() {
+        return stockTotal;
+    }
+    
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+    
+    public int getNumeroCategorias() {
+        return categorias.size();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(
+                "Total de productos: %d%n" +
+                "Stock total: %d unidades%n" +
+                "Valor total del inventario: %.2f EUR%n" +
+                "Número de categorías: %d",
+                totalProductos, stockTotal, valorTotal, categorias.size()
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package com.empresa.inventario.model;
+
+import java.util.Comparator;
+
+/**
+ * Criterios de ordenación disponibles para los listados de productos.
+ * Los empates se deshacen siempre por ID, para que la paginación sea estable.
+ */
+public enum OrdenProductos {
+    ID(Comparator.comparingInt(Producto::getIdProducto)),
+    NOMBRE(Comparator.comparing(Producto::getNombre, String.CASE_INSENSITIVE_ORDER)),
+    CATEGORIA(Comparator.comparing(Producto::getCategoria, String.CASE_INSENSITIVE_ORDER)),
+    PRECIO(Producto::compararPrecio),
+    STOCK(Comparator.comparingInt(Producto::getStock)),
+    VALOR(Producto::compararValorStock);
+    
+    private final Comparator<Producto> comparador;
+    
+    OrdenProductos(Comparator<Producto> comparador) {
+        this.comparador = comparador;
+    }
+    
+    /**
+     * Obtiene el comparador del criterio
+     * @param descendente true para ordenar de mayor a menor
+     * @return Comparador total (con desempate por ID ascendente)
+     */
+    public Comparator<Producto> comparador(boolean descendente) {
+        Comparator<Producto> base = descendente ? comparador.reversed() : comparador;
+        return base.thenComparingInt(Producto::getIdProducto);
+    }
+    
+    /**
+     * Obtiene el criterio a partir de su nombre, sin distinguir mayúsculas
+     * @param nombre Nombre del criterio (id, nombre, categoria, precio, stock, valor)
+     * @return Criterio de ordenación
+     * @throws IllegalArgumentException si el nombre no corresponde a ningún criterio
+     */
+    public static OrdenProductos desdeTexto(String nombre) {
+        for (OrdenProductos orden : values()) {
+            if (orden.name().equalsIgnoreCase(nombre.trim())) {
+                return orden;
+            }
+        }
+        throw new IllegalArgumentException("Criterio de ordenación no válido: " + nombre);
+    }
+}
@@ -2,19 +2,49 @@ package com.empresa.inventario.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Clase que representa un producto del inventario.
  * Implementa Serializable para facilitar la persistencia en ficheros.
+ *
+ * La representación en memoria es compacta porque puede haber millones de productos residentes:
+ * <ul>
+ *   <li>la categoría es una referencia compartida: todos los productos de una categoría apuntan
+ *       a la misma cadena en lugar de tener cada uno su copia;</li>
+ *   <li>el nombre se guarda como array de bytes en Latin-1 (un byte por carácter, sin el objeto
+ *       String) cuando todos sus caracteres caben en Latin-1, y como String si no;</li>
+ *   <li>el precio se guarda como long sin escala más su escala, sin BigDecimal; solo los precios
+ *       que no caben en un long conservan el BigDecimal.</li>
+ * </ul>
+ * Los getters devuelven los mismos valores que antes (String y BigDecimal), construidos al pedirlos.
+ * El informe de {@code herramientas.InformeMemoria} mide los bytes por producto.
  */
 public class Producto implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+    
+    /** Escala que indica que el producto no tiene precio (null) */
+    private static final byte SIN_PRECIO = Byte.MIN_VALUE;
+    
+    /** Máximo de categorías distintas que se comparten; las demás se guardan tal cual */
+    private static final int MAXIMO_CATEGORIAS_COMPARTIDAS = 10_000;
+    private static final Map<String, String> CATEGORIAS = new ConcurrentHashMap<>();
     
     private int idProducto;
-    private String nombre;
-    private String categoria;
-    private BigDecimal precio;
     private int stock;
+    
+    /** Nombre en Latin-1, o null si el nombre tiene otros caracteres (entonces está en nombreTexto) */
+    private byte[] nombreLatin1;
+    private String nombreTexto;
+    private String categoria;
+    
+    /** Precio = precioSinEscala × 10^-escalaPrecio, salvo si no cabe (entonces está en precioExtenso) */
+    private long precioSinEscala;
+    private byte escalaPrecio = SIN_PRECIO;
+    private BigDecimal precioExtenso;
 
     /**
      * Constructor por defecto
@@ -32,9 +62,9 @@ public class Producto implements Serializable {
      */
     public Producto(int idProducto, String nombre, String categoria, BigDecimal precio, int stock) {
         this.idProducto = idProducto;
-        this.nombre = nombre;
-        this.categoria = categoria;
-        this.precio = precio;
+        guardarNombre(nombre);
+        this.categoria = compartirCategoria(categoria);
+        guardarPrecio(precio);
         this.stock = stock;
     }
 
@@ -48,11 +78,23 @@ public class Producto implements Serializable {
     }
 
     public String getNombre() {
-        return nombre;
+        return nombreLatin1 != null ? new String(nombreLatin1, StandardCharsets.ISO_8859_1) : nombreTexto;
     }
 
     public void setNombre(String nombre) {
-        this.nombre = nombre;
+        guardarNombre(nombre);
+    }
+
+    /**
+     * Guarda el nombre en Latin-1 si es posible (lo usan el constructor y el setter)
+     */
+    private void guardarNombre(String nombre) {
+        this.nombreLatin1 = null;
+        this.nombreTexto = nombre;
+        if (nombre != null && esLatin1(nombre)) {
+            this.nombreLatin1 = nombre.getBytes(StandardCharsets.ISO_8859_1);
+            this.nombreTexto = null;
+        }
     }
 
     public String getCategoria() {
@@ -60,15 +102,75 @@ public class Producto implements Serializable {
     }
 
     public void setCategoria(String categoria) {
-        this.categoria = categoria;
+        this.categoria = compartirCategoria(categoria);
     }
 
     public BigDecimal getPrecio() {
-        return precio;
+        if (escalaPrecio == SIN_PRECIO) {
+            return precioExtenso;
+        }
+        return BigDecimal.valueOf(precioSinEscala, escalaPrecio);
     }
 
     public void setPrecio(BigDecimal precio) {
-        this.precio = precio;
+        guardarPrecio(precio);
+    }
+
+    /**
+     * Guarda el precio como long sin escala si cabe (lo usan el constructor y el setter)
+     */
+    private void guardarPrecio(BigDecimal precio) {
+        this.precioExtenso = null;
+        this.precioSinEscala = 0;
+        this.escalaPrecio = SIN_PRECIO;
+        if (precio == null) {
+            return;
+        }
+        if (precio.unscaledValue().bitLength() <= 63 && precio.scale() > SIN_PRECIO && precio.scale() <= Byte.MAX_VALUE) {
+            this.precioSinEscala = precio.unscaledValue().longValue();
+            this.escalaPrecio = (byte) precio.scale();
+        } else {
+            this.precioExtenso = precio;
+        }
+    }
+    
+    /**
+     * Precio en céntimos (redondeando si tiene más de dos decimales), sin crear un BigDecimal
+     * cuando el precio ya tiene dos decimales
+     * @throws NullPointerException si el producto no tiene precio
+     */
+    public long getPrecioCentimos() {
+        if (escalaPrecio == 2) {
+            return precioSinEscala;
+        }
+        return getPrecio().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+    
+    /**
+     * Compara el precio con el de otro producto; con la misma escala se comparan los long
+     * sin crear ningún BigDecimal
+     */
+    public int compararPrecio(Producto otro) {
+        if (escalaPrecio != SIN_PRECIO && escalaPrecio == otro.escalaPrecio) {
+            return Long.compare(precioSinEscala, otro.precioSinEscala);
+        }
+        return getPrecio().compareTo(otro.getPrecio());
+    }
+    
+    /**
+     * Compara el valor del stock (precio × stock) con el de otro producto, con aritmética de
+     * long mientras no haya desbordamiento
+     */
+    public int compararValorStock(Producto otro) {
+        if (escalaPrecio != SIN_PRECIO && escalaPrecio == otro.escalaPrecio) {
+            long valor = precioSinEscala * stock;
+            long valorOtro = otro.precioSinEscala * otro.stock;
+            if (Math.multiplyHigh(precioSinEscala, stock) == (valor >> 63)
+                    && Math.multiplyHigh(otro.precioSinEscala, otro.stock) == (valorOtro >> 63)) {
+                return Long.compare(valor, valorOtro);
+            }
+        }
+        return getValorStock().compareTo(otro.getValorStock());
     }
 
     public int getStock() {
@@ -79,12 +181,20 @@ public class Producto implements Serializable {
         this.stock = stock;
     }
 
+    /**
+     * Calcula el valor del stock del producto
+     * @return Precio × stock
+     */
+    public BigDecimal getValorStock() {
+        return getPrecio().multiply(BigDecimal.valueOf(stock));
+    }
+
     /**
      * Convierte el producto a formato CSV con separador punto y coma
      * @return String en formato: id;nombre;categoria;precio;stock
      */
     public String toCSV() {
-        return idProducto + ";" + nombre + ";" + categoria + ";" + precio + ";" + stock;
+        return idProducto + ";" + getNombre() + ";" + categoria + ";" + getPrecio() + ";" + stock;
     }
 
     /**
@@ -119,9 +229,40 @@ public class Producto implements Serializable {
     @Override
     public String toString() {
         return String.format("Producto[ID=%d, Nombre='%s', Categoría='%s', Precio=%.2f, Stock=%d]",
-                idProducto, nombre, categoria, precio, stock);
+                idProducto, getNombre(), categoria, getPrecio(), stock);
     }
 
+    /**
+     * Indica si todos los caracteres del texto caben en un byte (Latin-1)
+     */
+    private static boolean esLatin1(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Devuelve la copia compartida de una categoría, para que los productos de la misma
+     * categoría no tengan cada uno su propia cadena
+     */
+    private static String compartirCategoria(String categoria) {
+        if (categoria == null) {
+            return null;
+        }
+        String compartida = CATEGORIAS.get(categoria);
+        if (compartida != null) {
+            return compartida;
+        }
+        if (CATEGORIAS.size() >= MAXIMO_CATEGORIAS_COMPARTIDAS) {
+            return categoria;
+        }
+        compartida = CATEGORIAS.putIfAbsent(categoria, categoria);
+        return compartida != null ? compartida : categoria;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
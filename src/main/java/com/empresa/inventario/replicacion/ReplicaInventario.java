@@ -0,0 +1,294 @@
+package com.empresa.inventario.replicacion;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.MetricasReplicacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.service.InventarioService;
+import com.empresa.inventario.util.ConfiguracionUtil;
+import com.empresa.inventario.util.RegistroUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplica de solo lectura del inventario: se conecta al {@link ServidorReplicacion} de un
+ * primario y aplica sus cambios en el inventario local, que así puede atender búsquedas y
+ * estadísticas (por ejemplo con un {@link com.empresa.inventario.http.ServidorHttp} de solo lectura).
+ *
+ * Los eventos se aplican por lotes con una sola escritura del inventario, y tras cada lote se
+ * guarda en data/replicacion.pos la secuencia del último cambio del primario aplicado. Al
+ * reconectar (tras un corte o al reiniciar) se pide al primario el diario desde esa posición, o
+ * una instantánea si la réplica es nueva. Si la réplica se cae entre aplicar un lote y guardar la
+ * posición, el lote se vuelve a recibir; aplicarlo de nuevo deja el mismo resultado.
+ *
+ * El estado de la réplica se publica en las métricas de replicación
+ * ({@link RegistroMetricas#replicacion(String)}), con el retraso en eventos y en milisegundos.
+ * El inventario de la réplica solo debe cambiar por la replicación.
+ */
+public class ReplicaInventario {
+    
+    /** Eventos que se aplican como máximo con una escritura del inventario */
+    private static final int TAMANO_LOTE = 256;
+    
+    /** Espera entre intentos de conexión: empieza en el mínimo y se duplica hasta el máximo */
+    private static final long ESPERA_MINIMA_MS = 100;
+    private static final long ESPERA_MAXIMA_MS = 5000;
+    
+    private static final int TIEMPO_CONEXION_MS = 5000;
+    
+    /** Sin ningún mensaje del primario en este tiempo (varios latidos) se da la conexión por perdida */
+    private static final int TIEMPO_LECTURA_MS = 10_000;
+    
+    private static final MetricasOperacion METRICAS_APLICAR = RegistroMetricas.operacion("ReplicaInventario.aplicarCambios");
+    private static final MetricasOperacion METRICAS_INSTANTANEA = RegistroMetricas.operacion("ReplicaInventario.cargarInstantanea");
+    
+    private final InventarioService service;
+    private final String host;
+    private final int puerto;
+    private final Path archivoPosicion;
+    private final MetricasReplicacion metricas;
+    
+    private volatile boolean detenida;
+    private volatile Socket socket;
+    
+    /** Secuencia del último cambio del primario aplicado (0 = ninguno, se pide una instantánea) */
+    private long aplicada;
+    
+    /**
+     * Constructor de la réplica (no se conecta hasta llamar a {@link #iniciar()})
+     * @param service Servicio del inventario local
+     * @param host Máquina del primario
+     * @param puerto Puerto de replicación del primario
+     */
+    public ReplicaInventario(InventarioService service, String host, int puerto) {
+        this.service = service;
+        this.host = host;
+        this.puerto = puerto;
+        this.archivoPosicion = Paths.get(ConfiguracionUtil.rutaDatos("replicacion.pos"));
+        this.metricas = RegistroMetricas.replicacion(host + ":" + puerto);
+    }
+    
+    /**
+     * Empieza a seguir al primario en segundo plano; si no está disponible, se reintenta
+     * hasta llamar a {@link #detener()}
+     */
+    public void iniciar() {
+        aplicada = leerPosicion();
+        metricas.registrarAplicados(0, aplicada);
+        
+        Thread hilo = new Thread(this::replicar, "replica-inventario");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    /**
+     * Deja de seguir al primario
+     */
+    public void detener() {
+        detenida = true;
+        Socket actual = socket;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                // La conexión ya no se usa
+            }
+        }
+    }
+    
+    /**
+     * Obtiene las métricas de la réplica
+     * @return Métricas de replicación
+     */
+    public MetricasReplicacion getMetricas() {
+        return metricas;
+    }
+    
+    private void replicar() {
+        long espera = ESPERA_MINIMA_MS;
+        boolean primera = true;
+        while (!detenida) {
+            if (!primera) {
+                metricas.registrarReconexion();
+            }
+            primera = false;
+            
+            try (Socket conexion = new Socket()) {
+                socket = conexion;
+                conexion.connect(new InetSocketAddress(host, puerto), TIEMPO_CONEXION_MS);
+                conexion.setSoTimeout(TIEMPO_LECTURA_MS);
+                metricas.actualizarConexion(true);
+                espera = ESPERA_MINIMA_MS;
+                seguir(conexion);
+            } catch (IOException | RuntimeException e) {
+                // Mientras el primario no responde solo se avisa del primer intento fallido
+                if (!detenida && espera == ESPERA_MINIMA_MS) {
+                    System.err.println("Replicación desde " + host + ":" + puerto + " interrumpida: " + e.getMessage());
+                }
+            } finally {
+                metricas.actualizarConexion(false);
+            }
+            
+            if (!detenida) {
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+            }
+        }
+    }
+    
+    /**
+     * Saluda al primario con la posición de la réplica y aplica lo que envíe hasta que se corte
+     */
+    private void seguir(Socket conexion) throws IOException {
+        BufferedReader entrada = new BufferedReader(new InputStreamReader(conexion.getInputStream(),
+                StandardCharsets.UTF_8), 64 * 1024);
+        BufferedWriter salida = new BufferedWriter(new OutputStreamWriter(conexion.getOutputStream(),
+                StandardCharsets.UTF_8));
+        salida.write("DESDE " + aplicada);
+        salida.newLine();
+        salida.flush();
+        
+        List<EventoCambio> lote = new ArrayList<>();
+        String linea;
+        while ((linea = entrada.readLine()) != null) {
+            if (linea.startsWith("EVENTO ")) {
+                EventoCambio evento = EventoCambio.desdeLinea(linea.substring("EVENTO ".length()));
+                long ultima = lote.isEmpty() ? aplicada : lote.get(lote.size() - 1).getSecuencia();
+                if (evento.getSecuencia() <= ultima) {
+                    continue;
+                }
+                if (evento.getSecuencia() != ultima + 1) {
+                    // Falta algún cambio: se vuelve a empezar desde una instantánea
+                    aplicada = 0;
+                    throw new IOException("Falta el cambio " + (ultima + 1) + " del primario, se pedirá una instantánea");
+                }
+                metricas.actualizarPrimario(evento.getSecuencia());
+                lote.add(evento);
+                if (lote.size() >= TAMANO_LOTE || !entrada.ready()) {
+                    aplicar(lote);
+                }
+            } else if (linea.startsWith("LATIDO ")) {
+                aplicar(lote);
+                metricas.actualizarPrimario(leerNumero(linea, "LATIDO ".length()));
+            } else if (linea.startsWith("INSTANTANEA ")) {
+                aplicar(lote);
+                String[] partes = linea.split(" ");
+                if (partes.length != 3) {
+                    throw new IOException("Mensaje no válido del primario: " + linea);
+                }
+                cargarInstantanea(entrada, leerNumero(partes[1], 0), (int) leerNumero(partes[2], 0));
+            } else {
+                throw new IOException("Mensaje no válido del primario: " + linea);
+            }
+        }
+        aplicar(lote);
+    }
+    
+    /**
+     * Aplica un lote de eventos y guarda la nueva posición
+     */
+    private void aplicar(List<EventoCambio> lote) throws IOException {
+        if (lote.isEmpty()) {
+            return;
+        }
+        long inicio = METRICAS_APLICAR.iniciar();
+        try {
+            if (!service.aplicarCambiosReplicados(lote)) {
+                METRICAS_APLICAR.registrarError();
+                throw new IOException("No se pudieron guardar los cambios replicados");
+            }
+            long ultima = lote.get(lote.size() - 1).getSecuencia();
+            guardarPosicion(ultima);
+            metricas.registrarAplicados(lote.size(), ultima);
+            METRICAS_APLICAR.sumarFilasLeidas(lote.size());
+            lote.clear();
+        } finally {
+            METRICAS_APLICAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Lee los productos de una instantánea y sustituye con ellos el inventario local
+     */
+    private void cargarInstantanea(BufferedReader entrada, long secuencia, int numero) throws IOException {
+        long inicio = METRICAS_INSTANTANEA.iniciar();
+        try {
+            List<Producto> productos = new ArrayList<>(numero);
+            for (int i = 0; i < numero; i++) {
+                String linea = entrada.readLine();
+                if (linea == null) {
+                    throw new EOFException("Instantánea incompleta: " + i + " de " + numero + " productos");
+                }
+                productos.add(Producto.fromCSV(linea));
+            }
+            if (!service.sustituirInventario(productos)) {
+                throw new IOException("No se pudo guardar la instantánea del primario");
+            }
+            guardarPosicion(secuencia);
+            metricas.registrarInstantanea(secuencia);
+            METRICAS_INSTANTANEA.sumarFilasLeidas(numero);
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.REPLICACION, "Instantánea de " + numero
+                    + " productos cargada desde " + host + ":" + puerto + " (secuencia " + secuencia + ")");
+        } catch (IOException | RuntimeException e) {
+            METRICAS_INSTANTANEA.registrarError();
+            throw e;
+        } finally {
+            METRICAS_INSTANTANEA.finalizar(inicio);
+        }
+    }
+    
+    private static long leerNumero(String texto, int desde) throws IOException {
+        try {
+            return Long.parseLong(texto.substring(desde).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Mensaje no válido del primario: " + texto);
+        }
+    }
+    
+    private long leerPosicion() {
+        try {
+            if (Files.exists(archivoPosicion)) {
+                return Long.parseLong(new String(Files.readAllBytes(archivoPosicion), StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Posición de la réplica ilegible, se pedirá una instantánea: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * Guarda la posición de la réplica reemplazando el archivo de una vez, para que una caída
+     * no deje una posición a medio escribir
+     */
+    private void guardarPosicion(long secuencia) throws IOException {
+        Files.createDirectories(archivoPosicion.getParent());
+        Path temporal = archivoPosicion.resolveSibling(archivoPosicion.getFileName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporal.toFile()), StandardCharsets.UTF_8)) {
+            writer.write(Long.toString(secuencia));
+        }
+        Files.move(temporal, archivoPosicion, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        aplicada = secuencia;
+    }
+}
@@ -0,0 +1,344 @@
+package com.empresa.inventario.replicacion;
+
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.service.InventarioService;
+import com.empresa.inventario.util.ConfiguracionUtil;
+import com.empresa.inventario.util.RegistroUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servidor de replicación del primario: envía por TCP el diario de cambios del inventario a las
+ * réplicas ({@link ReplicaInventario}), que lo aplican en su propio inventario.
+ *
+ * El protocolo es de texto, una línea por mensaje en UTF-8. La réplica saluda con
+ * {@code DESDE n}, la secuencia del último cambio del primario que aplicó (0 si ninguno). Si el
+ * diario del primario llega hasta n, se le envía solo el resto del diario; si no (réplica nueva o
+ * diario más corto que su posición) se le envía antes una instantánea:
+ * <pre>
+ * INSTANTANEA s n     seguida de n líneas CSV de productos: el inventario completo tras el cambio s
+ * EVENTO linea        un cambio, en el mismo formato que el diario ({@link EventoCambio#toLinea()})
+ * LATIDO s            último cambio del primario; tras cada lote y cada segundo sin cambios
+ * </pre>
+ * Cada réplica se atiende en un hilo virtual con una suscripción propia al flujo de cambios, que
+ * solo pide al diario los eventos que caben en un lote; si la réplica lee despacio, la escritura
+ * en el socket se bloquea y el diario deja de leerse para ella sin acumular nada en memoria.
+ *
+ * Si otra aplicación cambia el archivo de inventario de una forma que no se publica como cambios
+ * (ver {@link InventarioService#alRecargarInventario}), se envía una instantánea nueva a todas las réplicas.
+ */
+public class ServidorReplicacion {
+    
+    /** Eventos que se envían como máximo antes de vaciar el socket y pedir más al diario */
+    private static final int TAMANO_LOTE = 256;
+    
+    /** Milisegundos sin cambios tras los que se envía un latido */
+    private static final long INTERVALO_LATIDO_MS = 1000;
+    
+    /** Milisegundos que se espera el saludo de una réplica recién conectada */
+    private static final int ESPERA_SALUDO_MS = 10_000;
+    
+    private static final MetricasOperacion METRICAS_INSTANTANEA = RegistroMetricas.operacion("ServidorReplicacion.enviarInstantanea");
+    private static final MetricasOperacion METRICAS_EVENTOS = RegistroMetricas.operacion("ServidorReplicacion.enviarEventos");
+    
+    /** Marca que deja en la cola de una conexión el fin del flujo de cambios */
+    private static final Object FIN = new Object();
+    
+    private final InventarioService service;
+    private final ServerSocket socket;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Conexion> conexiones = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Constructor del servidor (no acepta réplicas hasta llamar a {@link #iniciar()}). Escucha en
+     * la dirección de {@link ConfiguracionUtil#DIRECCION_REPLICACION}, por defecto solo la local.
+     * @param service Servicio del inventario primario
+     * @param puerto Puerto TCP en el que escuchar
+     * @throws IOException si no se puede abrir el puerto o resolver la dirección
+     */
+    public ServidorReplicacion(InventarioService service, int puerto) throws IOException {
+        this.service = service;
+        this.socket = new ServerSocket(puerto, 50, 
+                ConfiguracionUtil.direccionEscucha(ConfiguracionUtil.DIRECCION_REPLICACION));
+    }
+    
+    /**
+     * Empieza a aceptar réplicas en segundo plano
+     * @return false si el flujo de cambios está desactivado (no hay nada que replicar)
+     */
+    public boolean iniciar() {
+        if (service.obtenerUltimaSecuenciaCambios() < 0) {
+            System.err.println("La replicación necesita el flujo de cambios (inventario.cambios=true)");
+            return false;
+        }
+        service.alRecargarInventario(() -> conexiones.forEach(Conexion::resincronizar));
+        
+        Thread hilo = new Thread(this::aceptar, "replicacion-inventario");
+        hilo.setDaemon(true);
+        hilo.start();
+        return true;
+    }
+    
+    /**
+     * Deja de aceptar réplicas y cierra las conexiones abiertas
+     */
+    public void detener() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el servidor de replicación: " + e.getMessage());
+        }
+        conexiones.forEach(Conexion::cerrar);
+        ejecutor.shutdownNow();
+    }
+    
+    /**
+     * Obtiene el puerto en el que escucha el servidor
+     * @return Puerto TCP
+     */
+    public int getPuerto() {
+        return socket.getLocalPort();
+    }
+    
+    /**
+     * Obtiene el número de réplicas conectadas
+     * @return Réplicas conectadas
+     */
+    public int getNumReplicas() {
+        return conexiones.size();
+    }
+    
+    private void aceptar() {
+        while (!socket.isClosed()) {
+            try {
+                Socket cliente = socket.accept();
+                ejecutor.execute(() -> atender(cliente));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("Error al aceptar una réplica: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void atender(Socket cliente) {
+        Conexion conexion = new Conexion(cliente);
+        conexiones.add(conexion);
+        try {
+            conexion.ejecutar();
+        } catch (IOException | RuntimeException e) {
+            if (!socket.isClosed()) {
+                System.err.println("Réplica " + conexion.direccion + " desconectada: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            conexiones.remove(conexion);
+            conexion.cerrar();
+        }
+    }
+    
+    /**
+     * Conexión con una réplica
+     */
+    private final class Conexion {
+        private final Socket cliente;
+        private final String direccion;
+        private final AtomicBoolean pendienteInstantanea = new AtomicBoolean();
+        private BufferedWriter salida;
+        private volatile Receptor receptor;
+        
+        Conexion(Socket cliente) {
+            this.cliente = cliente;
+            this.direccion = String.valueOf(cliente.getRemoteSocketAddress());
+        }
+        
+        void ejecutar() throws IOException, InterruptedException {
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(cliente.getInputStream(),
+                    StandardCharsets.UTF_8));
+            salida = new BufferedWriter(new OutputStreamWriter(cliente.getOutputStream(), StandardCharsets.UTF_8));
+            
+            long aplicada = leerSaludo(entrada);
+            long ultima = service.obtenerUltimaSecuenciaCambios();
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.REPLICACION,
+                    "Réplica conectada desde " + direccion + " (secuencia " + aplicada + " de " + ultima + ")");
+            if (aplicada <= 0 || aplicada > ultima) {
+                enviarInstantanea();
+            } else {
+                receptor = new Receptor();
+                if (!service.suscribirCambiosDesde(aplicada + 1, receptor)) {
+                    throw new IOException("El flujo de cambios está desactivado");
+                }
+            }
+            
+            while (true) {
+                if (pendienteInstantanea.getAndSet(false)) {
+                    receptor.cancelar();
+                    enviarInstantanea();
+                }
+                Object elemento = receptor.cola.poll(INTERVALO_LATIDO_MS, TimeUnit.MILLISECONDS);
+                int enviados = 0;
+                long inicio = METRICAS_EVENTOS.iniciar();
+                while (elemento instanceof EventoCambio) {
+                    salida.write("EVENTO " + ((EventoCambio) elemento).toLinea());
+                    salida.newLine();
+                    enviados++;
+                    elemento = enviados < TAMANO_LOTE ? receptor.cola.poll() : null;
+                }
+                
+                salida.write("LATIDO " + service.obtenerUltimaSecuenciaCambios());
+                salida.newLine();
+                salida.flush();
+                if (enviados > 0) {
+                    METRICAS_EVENTOS.sumarFilasLeidas(enviados);
+                    METRICAS_EVENTOS.finalizar(inicio);
+                    receptor.pedir(enviados);
+                }
+                
+                if (elemento == FIN) {
+                    return;
+                }
+                if (elemento instanceof Throwable) {
+                    throw new IOException("Error al leer el diario de cambios: " + ((Throwable) elemento).getMessage());
+                }
+            }
+        }
+        
+        /**
+         * Lee el saludo de la réplica
+         * @return Secuencia del último cambio que aplicó
+         */
+        private long leerSaludo(BufferedReader entrada) throws IOException {
+            cliente.setSoTimeout(ESPERA_SALUDO_MS);
+            String saludo;
+            try {
+                saludo = entrada.readLine();
+            } catch (SocketTimeoutException e) {
+                throw new IOException("La réplica no ha saludado en " + ESPERA_SALUDO_MS + " ms");
+            }
+            cliente.setSoTimeout(0);
+            if (saludo == null || !saludo.startsWith("DESDE ")) {
+                throw new IOException("Saludo no válido: " + saludo);
+            }
+            try {
+                return Long.parseLong(saludo.substring("DESDE ".length()).trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Saludo no válido: " + saludo);
+            }
+        }
+        
+        /**
+         * Envía el inventario completo y deja suscrita la conexión a los cambios posteriores
+         */
+        private void enviarInstantanea() throws IOException {
+            long inicio = METRICAS_INSTANTANEA.iniciar();
+            try {
+                List<Producto> productos = new ArrayList<>();
+                Receptor nuevo = new Receptor();
+                long secuencia = service.recorrerYSuscribir(productos::add, nuevo);
+                if (secuencia < 0) {
+                    throw new IOException("No se ha podido recorrer el inventario");
+                }
+                receptor = nuevo;
+                
+                salida.write("INSTANTANEA " + secuencia + " " + productos.size());
+                salida.newLine();
+                for (Producto producto : productos) {
+                    salida.write(producto.toCSV());
+                    salida.newLine();
+                }
+                salida.flush();
+                METRICAS_INSTANTANEA.sumarFilasLeidas(productos.size());
+                RegistroUtil.registrar(RegistroUtil.TipoOperacion.REPLICACION, "Instantánea de "
+                        + productos.size() + " productos enviada a " + direccion + " (secuencia " + secuencia + ")");
+            } catch (IOException e) {
+                METRICAS_INSTANTANEA.registrarError();
+                throw e;
+            } finally {
+                METRICAS_INSTANTANEA.finalizar(inicio);
+            }
+        }
+        
+        /**
+         * Pide una instantánea nueva antes del siguiente lote
+         */
+        void resincronizar() {
+            pendienteInstantanea.set(true);
+        }
+        
+        void cerrar() {
+            if (receptor != null) {
+                receptor.cancelar();
+            }
+            try {
+                cliente.close();
+            } catch (IOException e) {
+                // La conexión ya no se usa
+            }
+        }
+    }
+    
+    /**
+     * Suscripción de una conexión al flujo de cambios. Los eventos esperan en una cola a que el
+     * hilo de la conexión los envíe; como solo se piden tantos como se han enviado, la cola nunca
+     * tiene más de un lote. Al enviar una instantánea nueva se cambia de receptor, y lo que llegue
+     * todavía al anterior se descarta con su cola.
+     */
+    private static final class Receptor implements Flow.Subscriber<EventoCambio> {
+        private final BlockingQueue<Object> cola = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription suscripcion;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            this.suscripcion = suscripcion;
+            suscripcion.request(TAMANO_LOTE);
+        }
+        
+        @Override
+        public void onNext(EventoCambio evento) {
+            cola.add(evento);
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            cola.add(error);
+        }
+        
+        @Override
+        public void onComplete() {
+            cola.add(FIN);
+        }
+        
+        void pedir(int numero) {
+            suscripcion.request(numero);
+        }
+        
+        void cancelar() {
+            if (suscripcion != null) {
+                suscripcion.cancel();
+            }
+        }
+    }
+}
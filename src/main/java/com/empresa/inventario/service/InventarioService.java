@@ -1,16 +1,42 @@
 package com.empresa.inventario.service;
 
+import com.empresa.inventario.alertas.MotorAlertasReabastecimiento;
+import com.empresa.inventario.alertas.PuntoReorden;
+import com.empresa.inventario.busqueda.AutocompletadoNombres;
+import com.empresa.inventario.cambios.EventoCambio;
+import com.empresa.inventario.cambios.PublicadorCambios;
+import com.empresa.inventario.dao.CursorInventario;
 import com.empresa.inventario.dao.InventarioDAO;
+import com.empresa.inventario.informes.ClasificacionProductos;
+import com.empresa.inventario.informes.PuntoStock;
+import com.empresa.inventario.informes.ResumenStock;
+import com.empresa.inventario.informes.SeriesStock;
+import com.empresa.inventario.informes.VistaEstadisticasCategorias;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.EstadisticasCategoria;
+import com.empresa.inventario.model.EstadisticasInventario;
+import com.empresa.inventario.model.OrdenProductos;
 import com.empresa.inventario.model.Producto;
 import com.empresa.inventario.util.BackupUtil;
+import com.empresa.inventario.util.ConfiguracionUtil;
 import com.empresa.inventario.util.RegistroUtil;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Servicio que encapsula la lógica de negocio para la gestión del inventario.
@@ -18,13 +44,42 @@ import java.util.Optional;
  */
 public class InventarioService {
     
+    // Métricas de cada operación (publicadas por JMX)
+    private static final MetricasOperacion METRICAS_LISTAR = RegistroMetricas.operacion("InventarioService.listarProductos");
+    private static final MetricasOperacion METRICAS_LISTAR_PAGINA = RegistroMetricas.operacion("InventarioService.listarPagina");
+    private static final MetricasOperacion METRICAS_RECORRER = RegistroMetricas.operacion("InventarioService.recorrerProductos");
+    private static final MetricasOperacion METRICAS_BUSCAR_ID = RegistroMetricas.operacion("InventarioService.buscarProductoPorId");
+    private static final MetricasOperacion METRICAS_BUSCAR_NOMBRE = RegistroMetricas.operacion("InventarioService.buscarProductosPorNombre");
+    private static final MetricasOperacion METRICAS_BUSCAR_CATEGORIA = RegistroMetricas.operacion("InventarioService.buscarProductosPorCategoria");
+    private static final MetricasOperacion METRICAS_BUSCAR_STOCK = RegistroMetricas.operacion("InventarioService.buscarProductosStockBajo");
+    private static final MetricasOperacion METRICAS_AGREGAR = RegistroMetricas.operacion("InventarioService.agregarProducto");
+    private static final MetricasOperacion METRICAS_MODIFICAR = RegistroMetricas.operacion("InventarioService.modificarProducto");
+    private static final MetricasOperacion METRICAS_ELIMINAR = RegistroMetricas.operacion("InventarioService.eliminarProducto");
+    private static final MetricasOperacion METRICAS_CREAR_BACKUP = RegistroMetricas.operacion("InventarioService.crearBackup");
+    private static final MetricasOperacion METRICAS_RESTAURAR_BACKUP = RegistroMetricas.operacion("InventarioService.restaurarBackup");
+    private static final MetricasOperacion METRICAS_ESTADISTICAS = RegistroMetricas.operacion("InventarioService.obtenerEstadisticas");
+    private static final MetricasOperacion METRICAS_COMPACTAR = RegistroMetricas.operacion("InventarioService.compactarInventario");
+    private static final MetricasOperacion METRICAS_LOTE = RegistroMetricas.operacion("InventarioService.procesarLote");
+    
+    /** Espera máxima a que las series de stock se pongan al día al arrancar */
+    private static final long ESPERA_SERIES_STOCK_MS = 10_000;
+    
     private final InventarioDAO inventarioDAO;
+    private MotorAlertasReabastecimiento alertasReabastecimiento;
+    private AutocompletadoNombres autocompletado;
+    private ClasificacionProductos clasificacion;
+    private VistaEstadisticasCategorias estadisticasCategorias;
+    private SeriesStock seriesStock;
+    
+    /** Suscripción de cada vista al flujo de cambios, para cancelarla al sustituir la vista */
+    private final Map<Object, SuscriptorVista> suscripcionesVistas = Collections.synchronizedMap(new IdentityHashMap<>());
     
     /**
      * Constructor del servicio
      */
     public InventarioService() {
         this.inventarioDAO = new InventarioDAO();
+        inventarioDAO.alRecargarArchivo(this::recargarVistas);
     }
     
     // ==================== OPERACIONES CRUD ====================
@@ -34,7 +89,55 @@ public class InventarioService {
      * @return Lista de productos
      */
     public List<Producto> listarProductos() {
-        return inventarioDAO.listarTodos();
+        return METRICAS_LISTAR.medir(inventarioDAO::listarTodos);
+    }
+    
+    /**
+     * Obtiene una página de productos ordenados (paginación por desplazamiento)
+     * @param desde Número de productos que se omiten al principio
+     * @param limite Número máximo de productos de la página
+     * @param orden Criterio de ordenación
+     * @param descendente true para ordenar de mayor a menor
+     * @return Productos de la página
+     */
+    public List<Producto> listarPagina(int desde, int limite, OrdenProductos orden, boolean descendente) {
+        return METRICAS_LISTAR_PAGINA.medir(() -> inventarioDAO.listarPagina(desde, limite, orden, descendente));
+    }
+    
+    /**
+     * Obtiene la página de productos que sigue a un ID, en orden de ID (paginación por clave)
+     * @param ultimoId Último ID de la página anterior (0 para la primera página)
+     * @param limite Número máximo de productos de la página
+     * @return Productos de la página
+     */
+    public List<Producto> listarDespuesDe(int ultimoId, int limite) {
+        return METRICAS_LISTAR_PAGINA.medir(() -> inventarioDAO.listarDespuesDe(ultimoId, limite));
+    }
+    
+    /**
+     * Abre un cursor para leer todos los productos por tramos, en el orden del archivo, sin
+     * retener el bloqueo del inventario entre un tramo y el siguiente
+     * @return Cursor abierto, que hay que cerrar al terminar
+     * @throws IOException si no se puede abrir el inventario
+     */
+    public CursorInventario abrirCursor() throws IOException {
+        return inventarioDAO.abrirCursor();
+    }
+    
+    /**
+     * Recorre todos los productos sin cargarlos a la vez en memoria
+     * @param accion Acción que se ejecuta con cada producto, en el orden del archivo
+     */
+    public void recorrerProductos(Consumer<Producto> accion) {
+        long inicio = METRICAS_RECORRER.iniciar();
+        try {
+            inventarioDAO.recorrerTodos(accion);
+        } catch (RuntimeException e) {
+            METRICAS_RECORRER.registrarError();
+            throw e;
+        } finally {
+            METRICAS_RECORRER.finalizar(inicio);
+        }
     }
     
     /**
@@ -43,7 +146,7 @@ public class InventarioService {
      * @return Optional con el producto si existe
      */
     public Optional<Producto> buscarProductoPorId(int id) {
-        return inventarioDAO.buscarPorId(id);
+        return METRICAS_BUSCAR_ID.medir(() -> inventarioDAO.buscarPorId(id));
     }
     
     /**
@@ -52,7 +155,7 @@ public class InventarioService {
      * @return Lista de productos que coinciden
      */
     public List<Producto> buscarProductosPorNombre(String nombre) {
-        return inventarioDAO.buscarPorNombre(nombre);
+        return METRICAS_BUSCAR_NOMBRE.medir(() -> inventarioDAO.buscarPorNombre(nombre));
     }
     
     /**
@@ -61,7 +164,7 @@ public class InventarioService {
      * @return Lista de productos de la categoría
      */
     public List<Producto> buscarProductosPorCategoria(String categoria) {
-        return inventarioDAO.buscarPorCategoria(categoria);
+        return METRICAS_BUSCAR_CATEGORIA.medir(() -> inventarioDAO.buscarPorCategoria(categoria));
     }
     
     /**
@@ -70,7 +173,7 @@ public class InventarioService {
      * @return Lista de productos con stock bajo
      */
     public List<Producto> buscarProductosStockBajo(int umbral) {
-        return inventarioDAO.buscarStockBajo(umbral);
+        return METRICAS_BUSCAR_STOCK.medir(() -> inventarioDAO.buscarStockBajo(umbral));
     }
     
     /**
@@ -82,28 +185,49 @@ public class InventarioService {
      * @return true si se añadió correctamente
      */
     public boolean agregarProducto(String nombre, String categoria, BigDecimal precio, int stock) {
-        // Validaciones
-        if (nombre == null || nombre.trim().isEmpty()) {
-            System.err.println("El nombre del producto no puede estar vacío");
-            return false;
-        }
-        if (categoria == null || categoria.trim().isEmpty()) {
-            System.err.println("La categoría no puede estar vacía");
-            return false;
-        }
-        if (precio == null || precio.compareTo(BigDecimal.ZERO) < 0) {
-            System.err.println("El precio debe ser un valor positivo");
-            return false;
-        }
-        if (stock < 0) {
-            System.err.println("El stock no puede ser negativo");
-            return false;
-        }
+        long inicio = METRICAS_AGREGAR.iniciar();
+        try {
+            // Validaciones
+            if (nombre == null || nombre.trim().isEmpty()) {
+                System.err.println("El nombre del producto no puede estar vacío");
+                METRICAS_AGREGAR.registrarError();
+                return false;
+            }
+            if (categoria == null || categoria.trim().isEmpty()) {
+                System.err.println("La categoría no puede estar vacía");
+                METRICAS_AGREGAR.registrarError();
+                return false;
+            }
+            if (precio == null || precio.compareTo(BigDecimal.ZERO) < 0) {
+                System.err.println("El precio debe ser un valor positivo");
+                METRICAS_AGREGAR.registrarError();
+                return false;
+            }
+            if (stock < 0) {
+                System.err.println("El stock no puede ser negativo");
+                METRICAS_AGREGAR.registrarError();
+                return false;
+            }
         
-        int nuevoId = inventarioDAO.generarNuevoId();
-        Producto producto = new Producto(nuevoId, nombre, categoria, precio, stock);
+            int nuevoId;
+            try {
+                nuevoId = inventarioDAO.generarNuevoId();
+            } catch (IllegalStateException e) {
+                // IDs agotados o inventario bloqueado por otro proceso
+                System.err.println("No se ha podido asignar un ID al producto: " + e.getMessage());
+                METRICAS_AGREGAR.registrarError();
+                return false;
+            }
+            Producto producto = new Producto(nuevoId, nombre, categoria, precio, stock);
         
-        return inventarioDAO.crear(producto);
+            boolean creado = inventarioDAO.crear(producto);
+            if (!creado) {
+                METRICAS_AGREGAR.registrarError();
+            }
+            return creado;
+        } finally {
+            METRICAS_AGREGAR.finalizar(inicio);
+        }
     }
     
     /**
@@ -113,43 +237,541 @@ public class InventarioService {
      * @param categoria Nueva categoría (null para no cambiar)
      * @param precio Nuevo precio (null para no cambiar)
      * @param stock Nuevo stock (null para no cambiar)
-     * @return true si se modificó correctamente
+     * @return true si se modificó correctamente; false si algún valor no es válido (sin cambiar
+     *         nada) o si no existe el producto
      */
     public boolean modificarProducto(int id, String nombre, String categoria, 
                                     BigDecimal precio, Integer stock) {
-        Optional<Producto> productoOpt = inventarioDAO.buscarPorId(id);
+        long inicio = METRICAS_MODIFICAR.iniciar();
+        try {
+            // Validaciones: un valor no válido rechaza la modificación completa
+            if (nombre != null && nombre.trim().isEmpty()) {
+                System.err.println("El nombre del producto no puede estar vacío");
+                METRICAS_MODIFICAR.registrarError();
+                return false;
+            }
+            if (categoria != null && categoria.trim().isEmpty()) {
+                System.err.println("La categoría no puede estar vacía");
+                METRICAS_MODIFICAR.registrarError();
+                return false;
+            }
+            if (precio != null && precio.compareTo(BigDecimal.ZERO) < 0) {
+                System.err.println("El precio debe ser un valor positivo");
+                METRICAS_MODIFICAR.registrarError();
+                return false;
+            }
+            if (stock != null && stock < 0) {
+                System.err.println("El stock no puede ser negativo");
+                METRICAS_MODIFICAR.registrarError();
+                return false;
+            }
         
-        if (!productoOpt.isPresent()) {
-            System.err.println("No se encontró el producto con ID: " + id);
+            Optional<Producto> productoOpt = inventarioDAO.buscarPorId(id);
+        
+            if (!productoOpt.isPresent()) {
+                System.err.println("No se encontró el producto con ID: " + id);
+                METRICAS_MODIFICAR.registrarError();
+                return false;
+            }
+        
+            Producto producto = productoOpt.get();
+        
+            // Actualizar solo los campos que no sean null
+            if (nombre != null) {
+                producto.setNombre(nombre);
+            }
+            if (categoria != null) {
+                producto.setCategoria(categoria);
+            }
+            if (precio != null) {
+                producto.setPrecio(precio);
+            }
+            if (stock != null) {
+                producto.setStock(stock);
+            }
+        
+            boolean actualizado = inventarioDAO.actualizar(producto);
+            if (!actualizado) {
+                METRICAS_MODIFICAR.registrarError();
+            }
+            return actualizado;
+        } finally {
+            METRICAS_MODIFICAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Elimina un producto del inventario
+     * @param id ID del producto a eliminar
+     * @return true si se eliminó correctamente
+     */
+    public boolean eliminarProducto(int id) {
+        return METRICAS_ELIMINAR.medirCondicion(() -> inventarioDAO.eliminar(id));
+    }
+    
+    /**
+     * Inicia una transacción para cambiar varios productos con una única escritura del inventario
+     * @return Transacción abierta, sin cambios pendientes
+     */
+    public TransaccionInventario iniciarTransaccion() {
+        return new TransaccionInventario(inventarioDAO);
+    }
+    
+    // ==================== FLUJO DE CAMBIOS ====================
+    
+    /**
+     * Suscribe a los cambios del inventario que se produzcan a partir de ahora
+     * @param suscriptor Suscriptor que recibe los eventos según la demanda que pida
+     * @return false si el flujo de cambios está desactivado
+     */
+    public boolean suscribirCambios(Flow.Subscriber<? super EventoCambio> suscriptor) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
+            return false;
+        }
+        publicador.subscribe(suscriptor);
+        return true;
+    }
+    
+    /**
+     * Suscribe un consumidor con nombre, que continúa desde el último evento que procesó
+     * (también tras reiniciar la aplicación)
+     * @param consumidor Nombre del consumidor
+     * @param suscriptor Suscriptor que recibe los eventos según la demanda que pida
+     * @return false si el flujo de cambios está desactivado
+     */
+    public boolean suscribirCambios(String consumidor, Flow.Subscriber<? super EventoCambio> suscriptor) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
+            return false;
+        }
+        publicador.suscribir(consumidor, suscriptor);
+        return true;
+    }
+    
+    /**
+     * Suscribe a los cambios a partir de una secuencia concreta del diario
+     * @param siguiente Secuencia del primer evento que se quiere recibir
+     * @param suscriptor Suscriptor que recibe los eventos según la demanda que pida
+     * @return false si el flujo de cambios está desactivado
+     */
+    public boolean suscribirCambiosDesde(long siguiente, Flow.Subscriber<? super EventoCambio> suscriptor) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
             return false;
         }
+        publicador.suscribirDesde(siguiente, suscriptor);
+        return true;
+    }
+    
+    /**
+     * Secuencia del último cambio publicado
+     * @return Secuencia (0 si no hay cambios), o -1 si el flujo de cambios está desactivado
+     */
+    public long obtenerUltimaSecuenciaCambios() {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        return publicador == null ? -1 : publicador.getUltimaSecuencia();
+    }
+    
+    /**
+     * Recorre el inventario y suscribe a los cambios posteriores al recorrido, sin que ningún
+     * cambio quede entre ambos (igual que las vistas internas del servicio). Permite copiar
+     * el inventario a otro sitio y mantener la copia al día.
+     * @param carga Recibe cada producto del recorrido
+     * @param suscriptor Suscriptor que recibe los cambios posteriores según la demanda que pida
+     * @return Secuencia del último cambio incluido en el recorrido, o -1 si el flujo de cambios está
+     *         desactivado o el inventario está bloqueado por otro proceso
+     */
+    public long recorrerYSuscribir(Consumer<Producto> carga, Flow.Subscriber<? super EventoCambio> suscriptor) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
+            return -1;
+        }
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().readLock())) {
+            return -1;
+        }
+        try {
+            inventarioDAO.recorrerTodos(carga);
+            long secuencia = publicador.getUltimaSecuencia();
+            publicador.suscribirDesde(secuencia + 1, suscriptor);
+            return secuencia;
+        } finally {
+            inventarioDAO.obtenerBloqueo().readLock().unlock();
+        }
+    }
+    
+    /**
+     * Registra una acción que se ejecuta cuando otra aplicación cambia el archivo de inventario
+     * de una forma que no se puede expresar como cambios (ver {@link InventarioDAO#alRecargarArchivo})
+     * @param oyente Acción a ejecutar
+     */
+    public void alRecargarInventario(Runnable oyente) {
+        inventarioDAO.alRecargarArchivo(oyente);
+    }
+    
+    // ==================== REPLICACIÓN ====================
+    
+    /**
+     * Aplica en este inventario los cambios recibidos de otro (el primario de una réplica) con una
+     * única escritura. Cada evento deja el producto como quedó en el origen, sin comprobar cómo
+     * estaba aquí, así que aplicar dos veces los mismos eventos no cambia el resultado.
+     * @param eventos Eventos del origen, en orden
+     * @return true si se guardaron los cambios
+     */
+    public boolean aplicarCambiosReplicados(List<EventoCambio> eventos) {
+        return inventarioDAO.aplicarCambios(productos -> {
+            for (EventoCambio evento : eventos) {
+                if (evento.getDespues() == null) {
+                    productos.remove(evento.getIdProducto());
+                } else {
+                    productos.put(evento.getIdProducto(), evento.getDespues());
+                }
+            }
+            return true;
+        });
+    }
+    
+    /**
+     * Sustituye todo el inventario por el recibido de otro (la instantánea del primario de una
+     * réplica) con una única escritura. Las vistas se actualizan con las diferencias.
+     * @param productos Productos del origen, en su orden
+     * @return true si se guardó el inventario
+     */
+    public boolean sustituirInventario(List<Producto> productos) {
+        return inventarioDAO.aplicarCambios(actuales -> {
+            actuales.clear();
+            for (Producto producto : productos) {
+                actuales.put(producto.getIdProducto(), producto);
+            }
+            return true;
+        });
+    }
+    
+    // ==================== ALERTAS DE REABASTECIMIENTO ====================
+    
+    /**
+     * Obtiene el motor de alertas de reabastecimiento, poniéndolo en marcha la primera vez.
+     * Al arrancar recorre el inventario una vez; después solo evalúa los productos que cambian.
+     * @return Motor de alertas, o null si el flujo de cambios está desactivado
+     */
+    public synchronized MotorAlertasReabastecimiento obtenerAlertasReabastecimiento() {
+        if (alertasReabastecimiento == null) {
+            alertasReabastecimiento = crearAlertasReabastecimiento();
+        }
+        return alertasReabastecimiento;
+    }
+    
+    private MotorAlertasReabastecimiento crearAlertasReabastecimiento() {
+        MotorAlertasReabastecimiento motor = new MotorAlertasReabastecimiento(
+                Paths.get(ConfiguracionUtil.rutaDatos("puntos_reorden.txt")),
+                new PuntoReorden(ConfiguracionUtil.PUNTO_REORDEN, ConfiguracionUtil.HISTERESIS_REORDEN));
+        return iniciarVista(motor, p -> motor.evaluar(null, p), "las alertas de reabastecimiento") ? motor : null;
+    }
+    
+    // ==================== AUTOCOMPLETADO ====================
+    
+    /**
+     * Sugiere productos cuyo nombre empieza por un prefijo
+     * @param prefijo Comienzo del nombre (sin distinguir mayúsculas ni tildes)
+     * @param k Número máximo de sugerencias
+     * @param criterio Criterio de ordenación de las sugerencias (de mayor a menor)
+     * @return Sugerencias; lista vacía si el autocompletado no está disponible
+     */
+    public List<Producto> autocompletarNombres(String prefijo, int k, AutocompletadoNombres.Criterio criterio) {
+        AutocompletadoNombres indice = obtenerAutocompletado();
+        return indice == null ? Collections.emptyList() : indice.autocompletar(prefijo, k, criterio);
+    }
+    
+    /**
+     * Obtiene el índice de autocompletado de nombres, construyéndolo la primera vez.
+     * Después se mantiene al día con el flujo de cambios, sin volver a recorrer el inventario.
+     * @return Índice, o null si el flujo de cambios está desactivado
+     */
+    public synchronized AutocompletadoNombres obtenerAutocompletado() {
+        if (autocompletado == null) {
+            autocompletado = crearAutocompletado();
+        }
+        return autocompletado;
+    }
+    
+    private AutocompletadoNombres crearAutocompletado() {
+        AutocompletadoNombres indice = new AutocompletadoNombres();
+        return iniciarVista(indice, p -> indice.aplicar(null, p), "el autocompletado de nombres") ? indice : null;
+    }
+    
+    // ==================== CLASIFICACIONES ====================
+    
+    /**
+     * Obtiene los k productos con mayor valor, precio o stock.
+     * Se leen de una clasificación mantenida con el flujo de cambios; si no está disponible,
+     * se calculan recorriendo el inventario.
+     * @param criterio Criterio (VALOR, PRECIO o STOCK)
+     * @param k Número máximo de productos
+     * @return Productos de mayor a menor según el criterio
+     * @throws IllegalArgumentException si el criterio no es valor, precio ni stock
+     */
+    public List<Producto> obtenerPrimeros(OrdenProductos criterio, int k) {
+        if (!ClasificacionProductos.CRITERIOS.contains(criterio)) {
+            throw new IllegalArgumentException("Solo hay clasificaciones por valor, precio y stock");
+        }
+        // Sin flujo de cambios no hay clasificación que mantener: se recorre directamente
+        ClasificacionProductos clasificaciones = inventarioDAO.obtenerPublicadorCambios() != null
+                ? obtenerClasificacion()
+                : null;
+        return clasificaciones != null
+                ? clasificaciones.primeros(criterio, k)
+                : inventarioDAO.listarPagina(0, k, criterio, true);
+    }
+    
+    /**
+     * Obtiene las clasificaciones de productos, construyéndolas la primera vez
+     * @return Clasificaciones, o null si el flujo de cambios está desactivado
+     */
+    public synchronized ClasificacionProductos obtenerClasificacion() {
+        if (clasificacion == null) {
+            clasificacion = crearClasificacion();
+        }
+        return clasificacion;
+    }
+    
+    private ClasificacionProductos crearClasificacion() {
+        ClasificacionProductos clasificaciones = new ClasificacionProductos();
+        return iniciarVista(clasificaciones, p -> clasificaciones.aplicar(null, p), "las clasificaciones de productos")
+                ? clasificaciones
+                : null;
+    }
+    
+    // ==================== SERIES DE STOCK ====================
+    
+    /**
+     * Obtiene los puntos de la serie de stock de un producto en un intervalo
+     * @param idProducto ID del producto
+     * @param desde Comienzo del intervalo en milisegundos desde 1970
+     * @param hasta Fin del intervalo en milisegundos desde 1970
+     * @return Puntos en orden cronológico; lista vacía si las series no están disponibles
+     */
+    public List<PuntoStock> consultarSerieStock(int idProducto, long desde, long hasta) {
+        SeriesStock series = obtenerSeriesStock();
+        return series == null ? Collections.emptyList() : series.consultar(idProducto, desde, hasta);
+    }
+    
+    /**
+     * Resume por horas o por días el stock de un producto (mínimo, máximo y último valor)
+     * @param idProducto ID del producto
+     * @param desde Comienzo del intervalo en milisegundos desde 1970
+     * @param hasta Fin del intervalo en milisegundos desde 1970
+     * @param resolucion Hora o día
+     * @return Resúmenes en orden cronológico; lista vacía si las series no están disponibles
+     * @throws IllegalArgumentException si el intervalo no es válido o tiene demasiados resúmenes
+     */
+    public List<ResumenStock> resumirStock(int idProducto, long desde, long hasta, SeriesStock.Resolucion resolucion) {
+        SeriesStock series = obtenerSeriesStock();
+        return series == null ? Collections.emptyList() : series.resumir(idProducto, desde, hasta, resolucion);
+    }
+    
+    /**
+     * Resume por horas o por días el stock total de una categoría
+     * @param categoria Nombre de la categoría (exacto)
+     * @param desde Comienzo del intervalo en milisegundos desde 1970
+     * @param hasta Fin del intervalo en milisegundos desde 1970
+     * @param resolucion Hora o día
+     * @return Resúmenes en orden cronológico; lista vacía si las series no están disponibles
+     * @throws IllegalArgumentException si el intervalo no es válido o tiene demasiados resúmenes
+     */
+    public List<ResumenStock> resumirStockCategoria(String categoria, long desde, long hasta,
+                                                   SeriesStock.Resolucion resolucion) {
+        SeriesStock series = obtenerSeriesStock();
+        return series == null ? Collections.emptyList() : series.resumirCategoria(categoria, desde, hasta, resolucion);
+    }
+    
+    /**
+     * Obtiene las series de stock, poniéndolas en marcha la primera vez.
+     * Si hay series guardadas se cargan y se ponen al día con los cambios del diario posteriores;
+     * si no, se construyen con los cambios de stock del registro de operaciones y el stock actual.
+     * @return Series, o null si el flujo de cambios está desactivado o el inventario está bloqueado
+     *         por otro proceso
+     */
+    public synchronized SeriesStock obtenerSeriesStock() {
+        if (seriesStock != null) {
+            return seriesStock;
+        }
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
+            System.err.println("No disponible sin el flujo de cambios (inventario.cambios=true): las series de stock");
+            return null;
+        }
         
-        Producto producto = productoOpt.get();
+        SeriesStock series = new SeriesStock(Paths.get(ConfiguracionUtil.rutaDatos("series_stock.bin")));
+        long ultimaSecuencia;
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().readLock())) {
+            return null;
+        }
+        try {
+            ultimaSecuencia = publicador.getUltimaSecuencia();
+            if (!series.cargar(ultimaSecuencia)) {
+                construirSeriesStock(series);
+                series.marcarSecuencia(ultimaSecuencia);
+                series.guardar();
+            }
+            publicador.suscribirDesde(series.getUltimaSecuencia() + 1, series);
+        } finally {
+            inventarioDAO.obtenerBloqueo().readLock().unlock();
+        }
         
-        // Actualizar solo los campos que no sean null
-        if (nombre != null && !nombre.trim().isEmpty()) {
-            producto.setNombre(nombre);
+        // Las series cargadas se ponen al día con los cambios pendientes del diario antes de consultarlas
+        try {
+            if (!series.esperarSecuencia(ultimaSecuencia, ESPERA_SERIES_STOCK_MS)) {
+                System.err.println("Las series de stock aún no incluyen todos los cambios del diario");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        if (categoria != null && !categoria.trim().isEmpty()) {
-            producto.setCategoria(categoria);
+        seriesStock = series;
+        return series;
+    }
+    
+    /**
+     * Construye las series desde cero: primero la historia de los productos actuales según el
+     * registro de operaciones y después un punto con el stock actual de cada producto
+     */
+    private void construirSeriesStock(SeriesStock series) {
+        Map<Integer, Producto> actuales = new HashMap<>();
+        inventarioDAO.recorrerTodos(p -> actuales.put(p.getIdProducto(), p));
+        try {
+            RegistroUtil.leerCambiosStock((instante, id, anterior, nuevo) -> {
+                Producto producto = actuales.get(id);
+                if (producto != null) {
+                    series.registrar(instante, id, nuevo, producto.getCategoria());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("No se pudo leer la historia de stock del registro: " + e.getMessage());
         }
-        if (precio != null && precio.compareTo(BigDecimal.ZERO) >= 0) {
-            producto.setPrecio(precio);
+        
+        long ahora = System.currentTimeMillis();
+        for (Producto producto : actuales.values()) {
+            series.registrar(ahora, producto.getIdProducto(), producto.getStock(), producto.getCategoria());
         }
-        if (stock != null && stock >= 0) {
-            producto.setStock(stock);
+    }
+    
+    /**
+     * Pone en marcha una vista que se mantiene al día con el flujo de cambios: la carga con un
+     * recorrido del inventario y la suscribe a los cambios posteriores. Con el bloqueo de lectura
+     * ningún cambio se publica entre el recorrido y la suscripción, así que la vista parte
+     * exactamente del estado recorrido y no pierde ni repite ningún cambio.
+     * @param vista Suscriptor que aplica los cambios
+     * @param carga Aplica cada producto del recorrido inicial
+     * @param descripcion Nombre de la vista para el mensaje de error (con artículo, en minúsculas)
+     * @return false si el flujo de cambios está desactivado
+     */
+    private boolean iniciarVista(Flow.Subscriber<EventoCambio> vista, Consumer<Producto> carga, String descripcion) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        if (publicador == null) {
+            System.err.println("No disponible sin el flujo de cambios (inventario.cambios=true): " + descripcion);
+            return false;
         }
         
-        return inventarioDAO.actualizar(producto);
+        SuscriptorVista suscriptor = new SuscriptorVista(vista);
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().readLock())) {
+            System.err.println("No se ha podido cargar " + descripcion);
+            return false;
+        }
+        try {
+            inventarioDAO.recorrerTodos(carga);
+            publicador.subscribe(suscriptor);
+        } finally {
+            inventarioDAO.obtenerBloqueo().readLock().unlock();
+        }
+        suscripcionesVistas.put(vista, suscriptor);
+        return true;
     }
     
+    // ==================== CAMBIOS EXTERNOS DEL INVENTARIO ====================
+    
     /**
-     * Elimina un producto del inventario
-     * @param id ID del producto a eliminar
-     * @return true si se eliminó correctamente
+     * Pone al día las vistas ya construidas cuando otra aplicación ha cambiado el archivo de
+     * inventario de una forma que no se puede expresar como cambios (por ejemplo, reescribiéndolo).
+     * Se ejecuta en el hilo del vigilante del DAO: cada vista se reconstruye aparte, sin bloquear
+     * las consultas, que siguen usando la anterior hasta que se sustituye. Las series de stock no
+     * se reconstruyen (perderían su historia): se concilian con el estado nuevo.
      */
-    public boolean eliminarProducto(int id) {
-        return inventarioDAO.eliminar(id);
+    private void recargarVistas() {
+        MotorAlertasReabastecimiento alertas;
+        AutocompletadoNombres indice;
+        ClasificacionProductos clasificaciones;
+        VistaEstadisticasCategorias estadisticas;
+        SeriesStock series;
+        synchronized (this) {
+            alertas = alertasReabastecimiento;
+            indice = autocompletado;
+            clasificaciones = clasificacion;
+            estadisticas = estadisticasCategorias;
+            series = seriesStock;
+        }
+        
+        sustituirVista(alertas, () -> {
+            MotorAlertasReabastecimiento motor = crearAlertasReabastecimiento();
+            if (motor != null) {
+                motor.heredarOyentes(alertas);
+            }
+            return motor;
+        }, motor -> alertasReabastecimiento = motor);
+        sustituirVista(indice, this::crearAutocompletado, nuevo -> autocompletado = nuevo);
+        sustituirVista(clasificaciones, this::crearClasificacion, nueva -> clasificacion = nueva);
+        sustituirVista(estadisticas, this::crearVistaEstadisticasCategorias, nueva -> estadisticasCategorias = nueva);
+        if (series != null) {
+            conciliarSeriesStock(series);
+        }
+    }
+    
+    /**
+     * Construye una vista nueva y, si se ha podido, la pone en lugar de la anterior y cancela la
+     * suscripción de esta
+     */
+    private <T> void sustituirVista(T anterior, Supplier<T> crear, Consumer<T> asignar) {
+        if (anterior == null) {
+            return;
+        }
+        T nueva = crear.get();
+        if (nueva == null) {
+            return;
+        }
+        synchronized (this) {
+            asignar.accept(nueva);
+        }
+        SuscriptorVista suscriptor = suscripcionesVistas.remove(anterior);
+        if (suscriptor != null) {
+            suscriptor.cancelar();
+        }
+    }
+    
+    /**
+     * Concilia las series de stock con el inventario recargado. Con el bloqueo de lectura no se
+     * publica ningún cambio mientras tanto, así que, tras esperar a que las series apliquen los
+     * ya publicados, el recorrido es exactamente el estado que les sigue.
+     */
+    private void conciliarSeriesStock(SeriesStock series) {
+        PublicadorCambios publicador = inventarioDAO.obtenerPublicadorCambios();
+        Map<Integer, Producto> actuales = new HashMap<>();
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().readLock())) {
+            System.err.println("Las series de stock no se han conciliado con el inventario recargado");
+            return;
+        }
+        try {
+            long ultimaSecuencia = publicador.getUltimaSecuencia();
+            inventarioDAO.recorrerTodos(p -> actuales.put(p.getIdProducto(), p));
+            if (!series.esperarSecuencia(ultimaSecuencia, ESPERA_SERIES_STOCK_MS)) {
+                System.err.println("Las series de stock no se han conciliado: aún no incluyen todos los cambios del diario");
+                return;
+            }
+            if (series.conciliar(System.currentTimeMillis(), actuales) > 0) {
+                series.guardar();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inventarioDAO.obtenerBloqueo().readLock().unlock();
+        }
     }
     
     // ==================== OPERACIONES DE BACKUP ====================
@@ -159,13 +781,30 @@ public class InventarioService {
      * @return Nombre del archivo de backup creado, o null si hubo error
      */
     public String crearBackup() {
+        long inicio = METRICAS_CREAR_BACKUP.iniciar();
+        // Bloqueo de lectura: la copia no debe coincidir con una reescritura del inventario
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().readLock())) {
+            METRICAS_CREAR_BACKUP.registrarError();
+            METRICAS_CREAR_BACKUP.finalizar(inicio);
+            return null;
+        }
         try {
+            // Con el formato de ranuras fijas el backup copia el CSV, que se vuelca antes
+            if (!inventarioDAO.exportarCsv()) {
+                METRICAS_CREAR_BACKUP.registrarError();
+                System.err.println("[ERROR] al crear la copia de seguridad: no se pudo volcar el inventario al CSV");
+                return null;
+            }
             String nombreBackup = BackupUtil.crearBackup();
             System.out.println("[INFO] Copia de seguridad creada exitosamente: " + nombreBackup);
             return nombreBackup;
         } catch (IOException e) {
+            METRICAS_CREAR_BACKUP.registrarError();
             System.err.println("[ERROR] al crear la copia de seguridad: " + e.getMessage());
             return null;
+        } finally {
+            inventarioDAO.obtenerBloqueo().readLock().unlock();
+            METRICAS_CREAR_BACKUP.finalizar(inicio);
         }
     }
     
@@ -188,13 +827,59 @@ public class InventarioService {
      * @return true si se restauró correctamente
      */
     public boolean restaurarBackup(String nombreBackup) {
+        long inicio = METRICAS_RESTAURAR_BACKUP.iniciar();
+        // Bloqueo de escritura: nadie puede leer el inventario mientras se sustituye
+        if (!InventarioDAO.bloquear(inventarioDAO.obtenerBloqueo().writeLock())) {
+            METRICAS_RESTAURAR_BACKUP.registrarError();
+            METRICAS_RESTAURAR_BACKUP.finalizar(inicio);
+            return false;
+        }
         try {
+            // Estado previo para publicar en el flujo de cambios lo que cambia con la restauración
+            Map<Integer, String> estadoAnterior = inventarioDAO.capturarEstado();
             BackupUtil.restaurarBackup(nombreBackup);
+            inventarioDAO.invalidarCache();
+            if (!inventarioDAO.importarCsv()) {
+                METRICAS_RESTAURAR_BACKUP.registrarError();
+                System.err.println("Error al restaurar el backup: no se pudo cargar en el almacén de ranuras fijas");
+                return false;
+            }
+            inventarioDAO.publicarCambiosDesde(estadoAnterior);
             System.out.println("✓ Backup restaurado exitosamente: " + nombreBackup);
             return true;
         } catch (IOException e) {
+            METRICAS_RESTAURAR_BACKUP.registrarError();
             System.err.println("Error al restaurar el backup: " + e.getMessage());
             return false;
+        } finally {
+            inventarioDAO.obtenerBloqueo().writeLock().unlock();
+            METRICAS_RESTAURAR_BACKUP.finalizar(inicio);
+        }
+    }
+    
+    // ==================== OPERACIONES POR LOTES ====================
+    
+    /**
+     * Procesa un lote de operaciones sin interacción, guardando todos los cambios
+     * con una única escritura del inventario
+     * @param entrada Origen de las líneas del lote
+     * @param salida Destino de los resultados de búsquedas y errores por línea
+     * @return Resumen del lote
+     * @throws IOException si ocurre un error al leer el lote
+     */
+    public ProcesadorLotes.ResumenLote procesarLote(BufferedReader entrada, PrintStream salida) throws IOException {
+        long inicio = METRICAS_LOTE.iniciar();
+        try {
+            ProcesadorLotes.ResumenLote resumen = new ProcesadorLotes(inventarioDAO, this).procesar(entrada, salida);
+            if (!resumen.isGuardado() || !resumen.getErrores().isEmpty()) {
+                METRICAS_LOTE.registrarError();
+            }
+            return resumen;
+        } catch (IOException e) {
+            METRICAS_LOTE.registrarError();
+            throw e;
+        } finally {
+            METRICAS_LOTE.finalizar(inicio);
         }
     }
     
@@ -207,7 +892,7 @@ public class InventarioService {
      */
     public String consultarHistorial(int numLineas) {
         StringBuilder historial = new StringBuilder();
-        String archivoRegistro = "data/registro.txt";
+        String archivoRegistro = ConfiguracionUtil.rutaDatos("registro.txt");
         
         try (BufferedReader reader = new BufferedReader(new FileReader(archivoRegistro))) {
             List<String> lineas = reader.lines().collect(java.util.stream.Collectors.toList());
@@ -229,6 +914,32 @@ public class InventarioService {
         return historial.length() > 0 ? historial.toString() : "No hay registros disponibles";
     }
     
+    // ==================== MANTENIMIENTO ====================
+    
+    /**
+     * Guarda la instantánea binaria del inventario si está obsoleta, y las series de stock si
+     * están en marcha. Se debe llamar al cerrar la aplicación para acelerar el siguiente arranque.
+     * @return true si la instantánea queda actualizada
+     */
+    public boolean guardarInstantanea() {
+        SeriesStock series;
+        synchronized (this) {
+            series = seriesStock;
+        }
+        if (series != null) {
+            series.guardar();
+        }
+        return inventarioDAO.guardarInstantanea();
+    }
+    
+    /**
+     * Compacta el archivo de inventario y regenera la instantánea binaria
+     * @return true si se compactó correctamente
+     */
+    public boolean compactarInventario() {
+        return METRICAS_COMPACTAR.medirCondicion(inventarioDAO::compactar);
+    }
+    
     // ==================== OPERACIONES ESTADÍSTICAS ====================
     
     /**
@@ -236,7 +947,52 @@ public class InventarioService {
      * @return String con información estadística
      */
     public String obtenerEstadisticas() {
-        return inventarioDAO.obtenerEstadisticas();
+        return calcularEstadisticas().toString();
+    }
+    
+    /**
+     * Calcula las estadísticas del inventario
+     * @return Estadísticas del inventario
+     */
+    public EstadisticasInventario calcularEstadisticas() {
+        return METRICAS_ESTADISTICAS.medir(inventarioDAO::calcularEstadisticas);
+    }
+    
+    /**
+     * Calcula las estadísticas de cada categoría recorriendo el inventario.
+     * Un producto cuenta con stock bajo si no supera el punto de reorden por defecto.
+     * @return Estadísticas por categoría, ordenadas por nombre
+     */
+    public List<EstadisticasCategoria> calcularEstadisticasCategorias() {
+        return inventarioDAO.calcularEstadisticasCategorias(ConfiguracionUtil.PUNTO_REORDEN);
+    }
+    
+    /**
+     * Obtiene las estadísticas de cada categoría de la vista mantenida con el flujo de cambios
+     * (construida la primera vez); si no está disponible, las calcula recorriendo el inventario.
+     * @return Estadísticas por categoría, ordenadas por nombre
+     */
+    public List<EstadisticasCategoria> obtenerEstadisticasCategorias() {
+        VistaEstadisticasCategorias vista = inventarioDAO.obtenerPublicadorCambios() != null
+                ? obtenerVistaEstadisticasCategorias()
+                : null;
+        return vista != null ? vista.obtener() : calcularEstadisticasCategorias();
+    }
+    
+    /**
+     * Obtiene la vista de estadísticas por categoría, construyéndola la primera vez
+     * @return Vista, o null si el flujo de cambios está desactivado
+     */
+    private synchronized VistaEstadisticasCategorias obtenerVistaEstadisticasCategorias() {
+        if (estadisticasCategorias == null) {
+            estadisticasCategorias = crearVistaEstadisticasCategorias();
+        }
+        return estadisticasCategorias;
+    }
+    
+    private VistaEstadisticasCategorias crearVistaEstadisticasCategorias() {
+        VistaEstadisticasCategorias vista = new VistaEstadisticasCategorias(ConfiguracionUtil.PUNTO_REORDEN);
+        return iniciarVista(vista, p -> vista.aplicar(null, p), "las estadísticas por categoría") ? vista : null;
     }
     
     /**
@@ -257,4 +1013,45 @@ public class InventarioService {
             return "Error al obtener información de backups: " + e.getMessage();
         }
     }
+    
+    /**
+     * Suscriptor que entrega los cambios a una vista y guarda la suscripción para poder
+     * cancelarla cuando la vista se sustituye
+     */
+    private static final class SuscriptorVista implements Flow.Subscriber<EventoCambio> {
+        private final Flow.Subscriber<EventoCambio> vista;
+        private volatile Flow.Subscription suscripcion;
+        
+        SuscriptorVista(Flow.Subscriber<EventoCambio> vista) {
+            this.vista = vista;
+        }
+        
+        void cancelar() {
+            Flow.Subscription actual = suscripcion;
+            if (actual != null) {
+                actual.cancel();
+            }
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            this.suscripcion = suscripcion;
+            vista.onSubscribe(suscripcion);
+        }
+        
+        @Override
+        public void onNext(EventoCambio evento) {
+            vista.onNext(evento);
+        }
+        
+        @Override
+        public void onError(Throwable error) {
+            vista.onError(error);
+        }
+        
+        @Override
+        public void onComplete() {
+            vista.onComplete();
+        }
+    }
 }
\ No newline at end of file
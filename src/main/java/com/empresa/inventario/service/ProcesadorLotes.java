@@ -0,0 +1,336 @@
+package com.empresa.inventario.service;
+
+import com.empresa.inventario.dao.InventarioDAO;
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.util.RegistroUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Procesador de lotes de operaciones sin interacción.
+ * Lee una operación por línea (de un archivo o de la entrada estándar), las aplica todas sobre
+ * el inventario cargado una sola vez en memoria y guarda el resultado con una única escritura
+ * sincronizada con el disco. Al final devuelve un resumen del lote.
+ *
+ * Formato de las líneas (separador punto y coma, las líneas vacías y las que empiezan por # se ignoran):
+ * <pre>
+ * alta;nombre;categoria;precio;stock
+ * modificar;id;nombre;categoria;precio;stock   (campos vacíos = sin cambios)
+ * baja;id
+ * ajustar;id;+N | -N                           (ajuste relativo del stock)
+ * buscar;id=N | nombre=texto | categoria=texto | stock&lt;=N
+ * backup                                       (se crea tras guardar el lote)
+ * </pre>
+ * También se aceptan los nombres en inglés: add, modify, delete, adjust, search.
+ */
+public class ProcesadorLotes {
+    
+    /** Nombres alternativos (en inglés) de los comandos */
+    private static final Map<String, String> ALIAS = Map.of(
+            "add", "alta",
+            "modify", "modificar",
+            "delete", "baja",
+            "adjust", "ajustar",
+            "search", "buscar");
+    
+    private final InventarioDAO inventarioDAO;
+    private final InventarioService service;
+    
+    /**
+     * Constructor del procesador de lotes
+     * @param inventarioDAO DAO sobre el que se aplican los cambios
+     * @param service Servicio usado para las copias de seguridad
+     */
+    ProcesadorLotes(InventarioDAO inventarioDAO, InventarioService service) {
+        this.inventarioDAO = inventarioDAO;
+        this.service = service;
+    }
+    
+    /**
+     * Procesa un lote completo
+     * @param entrada Origen de las líneas del lote
+     * @param salida Destino de los resultados de las búsquedas y los errores de cada línea
+     * @return Resumen del lote
+     * @throws IOException si ocurre un error al leer el lote
+     */
+    public ResumenLote procesar(BufferedReader entrada, PrintStream salida) throws IOException {
+        long inicio = System.nanoTime();
+        ResumenLote resumen = new ResumenLote();
+        
+        List<String> lineas = new ArrayList<>();
+        String linea;
+        while ((linea = entrada.readLine()) != null) {
+            lineas.add(linea);
+        }
+        
+        List<RegistroUtil.Entrada> auditoria = new ArrayList<>();
+        
+        // Se reserva de una vez un rango de IDs para todas las altas del lote
+        int numAltas = 0;
+        for (String texto : lineas) {
+            String comando = texto.trim().split(";", 2)[0].trim().toLowerCase();
+            if (ALIAS.getOrDefault(comando, comando).equals("alta")) {
+                numAltas++;
+            }
+        }
+        int[] siguienteId = new int[1];
+        try {
+            siguienteId[0] = numAltas > 0 ? inventarioDAO.reservarIds(numAltas) : 0;
+        } catch (IllegalStateException e) {
+            // IDs agotados o inventario bloqueado por otro proceso: el lote no se aplica
+            System.err.println("No se han podido reservar los IDs del lote: " + e.getMessage());
+            resumen.duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+            return resumen;
+        }
+        
+        boolean guardado = inventarioDAO.aplicarCambios(productos -> {
+            boolean hayCambios = false;
+            
+            for (int i = 0; i < lineas.size(); i++) {
+                String texto = lineas.get(i).trim();
+                if (texto.isEmpty() || texto.startsWith("#")) {
+                    continue;
+                }
+                
+                resumen.lineas++;
+                String[] partes = texto.split(";", -1);
+                String comando = partes[0].trim().toLowerCase();
+                comando = ALIAS.getOrDefault(comando, comando);
+                
+                try {
+                    switch (comando) {
+                        case "alta":
+                            comprobarCampos(partes, 5);
+                            Producto nuevo = new Producto(siguienteId[0]++, partes[1].trim(), partes[2].trim(),
+                                    new BigDecimal(partes[3].trim()), Integer.parseInt(partes[4].trim()));
+                            validar(nuevo);
+                            productos.put(nuevo.getIdProducto(), nuevo);
+                            auditoria.add(new RegistroUtil.Entrada(RegistroUtil.TipoOperacion.ALTA,
+                                    String.format("Producto ID=%d, Nombre='%s'", nuevo.getIdProducto(), nuevo.getNombre())));
+                            hayCambios = true;
+                            break;
+                        case "modificar":
+                            comprobarCampos(partes, 6);
+                            Producto actual = obtener(productos, partes[1]);
+                            Producto modificado = new Producto(actual.getIdProducto(),
+                                    partes[2].trim().isEmpty() ? actual.getNombre() : partes[2].trim(),
+                                    partes[3].trim().isEmpty() ? actual.getCategoria() : partes[3].trim(),
+                                    partes[4].trim().isEmpty() ? actual.getPrecio() : new BigDecimal(partes[4].trim()),
+                                    partes[5].trim().isEmpty() ? actual.getStock() : Integer.parseInt(partes[5].trim()));
+                            validar(modificado);
+                            productos.put(modificado.getIdProducto(), modificado);
+                            auditoria.add(new RegistroUtil.Entrada(RegistroUtil.TipoOperacion.MODIFICACION,
+                                    String.format("Producto ID=%d - Cambios: %s", modificado.getIdProducto(),
+                                            describirCambios(actual, modificado))));
+                            hayCambios = true;
+                            break;
+                        case "baja":
+                            comprobarCampos(partes, 2);
+                            Producto eliminado = obtener(productos, partes[1]);
+                            productos.remove(eliminado.getIdProducto());
+                            auditoria.add(new RegistroUtil.Entrada(RegistroUtil.TipoOperacion.BAJA,
+                                    String.format("Producto ID=%d, Nombre='%s'", eliminado.getIdProducto(), eliminado.getNombre())));
+                            hayCambios = true;
+                            break;
+                        case "ajustar":
+                            comprobarCampos(partes, 3);
+                            Producto ajustado = obtener(productos, partes[1]);
+                            int stockAnterior = ajustado.getStock();
+                            // En long: un ajuste grande no debe desbordar el int y dar un stock incorrecto
+                            long stockNuevo = (long) stockAnterior + Integer.parseInt(partes[2].trim().replace("+", ""));
+                            if (stockNuevo < 0) {
+                                throw new IllegalArgumentException("El stock no puede ser negativo");
+                            }
+                            if (stockNuevo > Integer.MAX_VALUE) {
+                                throw new IllegalArgumentException("El stock no puede superar " + Integer.MAX_VALUE);
+                            }
+                            productos.put(ajustado.getIdProducto(), new Producto(ajustado.getIdProducto(),
+                                    ajustado.getNombre(), ajustado.getCategoria(), ajustado.getPrecio(), (int) stockNuevo));
+                            auditoria.add(new RegistroUtil.Entrada(RegistroUtil.TipoOperacion.MODIFICACION,
+                                    String.format("Producto ID=%d - Cambios: Stock: %d -> %d; ",
+                                            ajustado.getIdProducto(), stockAnterior, stockNuevo)));
+                            hayCambios = true;
+                            break;
+                        case "buscar":
+                            comprobarCampos(partes, 2);
+                            List<Producto> encontrados = buscar(productos, partes[1].trim());
+                            salida.printf("[BUSCAR] Línea %d '%s': %d resultado(s)%n", i + 1, partes[1].trim(), encontrados.size());
+                            for (Producto p : encontrados) {
+                                salida.println("  " + p.toCSV());
+                            }
+                            break;
+                        case "backup":
+                            resumen.backupsPendientes++;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Comando desconocido: " + comando);
+                    }
+                    resumen.correctas++;
+                    resumen.porComando.merge(comando, 1, Integer::sum);
+                } catch (IllegalArgumentException e) {
+                    resumen.errores.add("Línea " + (i + 1) + ": " + e.getMessage());
+                    salida.println("[ERROR] Línea " + (i + 1) + ": " + e.getMessage());
+                }
+            }
+            
+            return hayCambios;
+        });
+        
+        resumen.guardado = guardado;
+        if (guardado) {
+            auditoria.add(new RegistroUtil.Entrada(RegistroUtil.TipoOperacion.LOTE,
+                    String.format("Lote procesado: %d operaciones correctas, %d errores",
+                            resumen.correctas, resumen.errores.size())));
+            RegistroUtil.registrarTodas(auditoria);
+            
+            for (int i = 0; i < resumen.backupsPendientes; i++) {
+                if (service.crearBackup() != null) {
+                    resumen.backupsCreados++;
+                }
+            }
+        }
+        
+        resumen.duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        return resumen;
+    }
+    
+    /**
+     * Comprueba que una línea tiene el número de campos esperado
+     */
+    private static void comprobarCampos(String[] partes, int esperados) {
+        if (partes.length != esperados) {
+            throw new IllegalArgumentException(String.format(
+                    "El comando '%s' necesita %d campos y tiene %d", partes[0].trim(), esperados, partes.length));
+        }
+    }
+    
+    /**
+     * Obtiene un producto existente a partir del texto de su ID
+     */
+    private static Producto obtener(Map<Integer, Producto> productos, String textoId) {
+        int id = Integer.parseInt(textoId.trim());
+        Producto producto = productos.get(id);
+        if (producto == null) {
+            throw new IllegalArgumentException("No se encontró el producto con ID: " + id);
+        }
+        return producto;
+    }
+    
+    /**
+     * Aplica las mismas validaciones que el alta desde el menú
+     * @throws IllegalArgumentException si algún campo no es válido
+     */
+    static void validar(Producto producto) {
+        if (producto.getNombre().isEmpty()) {
+            throw new IllegalArgumentException("El nombre del producto no puede estar vacío");
+        }
+        if (producto.getCategoria().isEmpty()) {
+            throw new IllegalArgumentException("La categoría no puede estar vacía");
+        }
+        if (producto.getPrecio() == null || producto.getPrecio().compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("El precio debe ser un valor positivo");
+        }
+        if (producto.getStock() < 0) {
+            throw new IllegalArgumentException("El stock no puede ser negativo");
+        }
+    }
+    
+    /**
+     * Busca en el inventario en memoria según un criterio id=, nombre=, categoria= o stock&lt;=
+     */
+    private static List<Producto> buscar(Map<Integer, Producto> productos, String criterio) {
+        Predicate<Producto> filtro;
+        if (criterio.startsWith("id=")) {
+            int id = Integer.parseInt(criterio.substring(3).trim());
+            filtro = p -> p.getIdProducto() == id;
+        } else if (criterio.startsWith("nombre=")) {
+            String nombre = criterio.substring(7).trim().toLowerCase();
+            filtro = p -> p.getNombre().toLowerCase().contains(nombre);
+        } else if (criterio.startsWith("categoria=")) {
+            String categoria = criterio.substring(10).trim();
+            filtro = p -> p.getCategoria().equalsIgnoreCase(categoria);
+        } else if (criterio.startsWith("stock<=")) {
+            int umbral = Integer.parseInt(criterio.substring(7).trim());
+            filtro = p -> p.getStock() <= umbral;
+        } else {
+            throw new IllegalArgumentException("Criterio de búsqueda no válido: " + criterio);
+        }
+        
+        List<Producto> resultados = new ArrayList<>();
+        for (Producto p : productos.values()) {
+            if (filtro.test(p)) {
+                resultados.add(p);
+            }
+        }
+        return resultados;
+    }
+    
+    /**
+     * Describe los cambios entre dos versiones de un producto con el formato del registro
+     */
+    private static String describirCambios(Producto anterior, Producto nuevo) {
+        StringBuilder cambios = new StringBuilder();
+        if (!anterior.getNombre().equals(nuevo.getNombre())) {
+            cambios.append(String.format("Nombre: '%s' -> '%s'; ", anterior.getNombre(), nuevo.getNombre()));
+        }
+        if (!anterior.getCategoria().equals(nuevo.getCategoria())) {
+            cambios.append(String.format("Categoría: '%s' -> '%s'; ", anterior.getCategoria(), nuevo.getCategoria()));
+        }
+        if (!anterior.getPrecio().equals(nuevo.getPrecio())) {
+            cambios.append(String.format("Precio: %.2f -> %.2f; ", anterior.getPrecio(), nuevo.getPrecio()));
+        }
+        if (anterior.getStock() != nuevo.getStock()) {
+            cambios.append(String.format("Stock: %d -> %d; ", anterior.getStock(), nuevo.getStock()));
+        }
+        return cambios.length() > 0 ? cambios.toString() : "Sin cambios";
+    }
+    
+    /**
+     * Resumen del resultado de un lote
+     */
+    public static class ResumenLote {
+        private int lineas;
+        private int correctas;
+        private final List<String> errores = new ArrayList<>();
+        private final Map<String, Integer> porComando = new TreeMap<>();
+        private int backupsPendientes;
+        private int backupsCreados;
+        private boolean guardado;
+        private long duracionMs;
+        
+        public int getCorrectas() {
+            return correctas;
+        }
+        
+        public List<String> getErrores() {
+            return errores;
+        }
+        
+        public boolean isGuardado() {
+            return guardado;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Operaciones leídas: %d%n", lineas));
+            sb.append(String.format("Operaciones correctas: %d%n", correctas));
+            sb.append(String.format("Operaciones con error: %d%n", errores.size()));
+            for (Map.Entry<String, Integer> entrada : porComando.entrySet()) {
+                sb.append(String.format("  %-10s %d%n", entrada.getKey(), entrada.getValue()));
+            }
+            sb.append(String.format("Backups creados: %d de %d%n", backupsCreados, backupsPendientes));
+            sb.append(String.format("Cambios guardados: %s%n", guardado ? "sí" : "NO"));
+            sb.append(String.format("Duración: %d ms", duracionMs));
+            return sb.toString();
+        }
+    }
+}
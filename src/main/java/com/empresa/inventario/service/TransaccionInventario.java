@@ -0,0 +1,280 @@
+package com.empresa.inventario.service;
+
+import com.empresa.inventario.dao.InventarioDAO;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+import com.empresa.inventario.model.Producto;
+import com.empresa.inventario.util.RegistroUtil;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Transacción sobre varios productos del inventario (unidad de trabajo).
+ * Las altas, modificaciones, ajustes de stock y bajas se acumulan sin tocar el inventario;
+ * al confirmar se validan todas contra el inventario actual y, si ninguna falla, se aplican
+ * con una única reescritura sincronizada con el disco y una única entrada en el registro.
+ * Si alguna falla no se aplica ninguna.
+ *
+ * Uso:
+ * <pre>
+ * TransaccionInventario tx = service.iniciarTransaccion();
+ * tx.modificar(5, null, null, new BigDecimal("9.95"), null);
+ * tx.ajustarStock(8, -3);
+ * tx.eliminar(12);
+ * if (!tx.confirmar()) {
+ *     tx.getErrores().forEach(System.err::println);
+ *     tx.deshacer();
+ * }
+ * </pre>
+ * No es segura para hilos: cada transacción la usa un único hilo.
+ */
+public class TransaccionInventario {
+    
+    private static final MetricasOperacion METRICAS_CONFIRMAR = RegistroMetricas.operacion("TransaccionInventario.confirmar");
+    
+    /** Estados de una transacción */
+    private enum Estado {
+        ABIERTA, CONFIRMADA, DESHECHA
+    }
+    
+    private final InventarioDAO inventarioDAO;
+    private final List<CambioPendiente> pendientes = new ArrayList<>();
+    private final List<String> errores = new ArrayList<>();
+    private Estado estado = Estado.ABIERTA;
+    
+    /**
+     * Constructor de la transacción
+     * @param inventarioDAO DAO sobre el que se confirman los cambios
+     */
+    TransaccionInventario(InventarioDAO inventarioDAO) {
+        this.inventarioDAO = inventarioDAO;
+    }
+    
+    /**
+     * Añade el alta de un producto; su ID se asigna al confirmar
+     * @param nombre Nombre del producto
+     * @param categoria Categoría del producto
+     * @param precio Precio del producto
+     * @param stock Stock inicial
+     */
+    public void agregar(String nombre, String categoria, BigDecimal precio, int stock) {
+        String descripcion = "Alta de '" + nombre + "'";
+        anadir(RegistroUtil.TipoOperacion.ALTA, descripcion, (productos, nuevoId) -> {
+            Producto nuevo = new Producto(nuevoId.getAsInt(), texto(nombre), texto(categoria), precio, stock);
+            ProcesadorLotes.validar(nuevo);
+            productos.put(nuevo.getIdProducto(), nuevo);
+            return nuevo.getIdProducto();
+        });
+    }
+    
+    /**
+     * Añade la modificación de un producto
+     * @param id ID del producto
+     * @param nombre Nuevo nombre (null o vacío para no cambiar)
+     * @param categoria Nueva categoría (null o vacía para no cambiar)
+     * @param precio Nuevo precio (null para no cambiar)
+     * @param stock Nuevo stock (null para no cambiar)
+     */
+    public void modificar(int id, String nombre, String categoria, BigDecimal precio, Integer stock) {
+        anadir(RegistroUtil.TipoOperacion.MODIFICACION, "Modificación de ID=" + id, (productos, nuevoId) -> {
+            Producto actual = obtener(productos, id);
+            Producto modificado = new Producto(id,
+                    texto(nombre).isEmpty() ? actual.getNombre() : texto(nombre),
+                    texto(categoria).isEmpty() ? actual.getCategoria() : texto(categoria),
+                    precio == null ? actual.getPrecio() : precio,
+                    stock == null ? actual.getStock() : stock);
+            ProcesadorLotes.validar(modificado);
+            productos.put(id, modificado);
+            return id;
+        });
+    }
+    
+    /**
+     * Añade un ajuste relativo del stock de un producto
+     * @param id ID del producto
+     * @param diferencia Unidades que se suman (positivo) o restan (negativo)
+     */
+    public void ajustarStock(int id, int diferencia) {
+        anadir(RegistroUtil.TipoOperacion.MODIFICACION, "Ajuste de stock de ID=" + id, (productos, nuevoId) -> {
+            Producto actual = obtener(productos, id);
+            long stockNuevo = (long) actual.getStock() + diferencia;
+            if (stockNuevo < 0 || stockNuevo > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("El stock no puede ser negativo");
+            }
+            productos.put(id, new Producto(id, actual.getNombre(), actual.getCategoria(),
+                    actual.getPrecio(), (int) stockNuevo));
+            return id;
+        });
+    }
+    
+    /**
+     * Añade la baja de un producto
+     * @param id ID del producto
+     */
+    public void eliminar(int id) {
+        anadir(RegistroUtil.TipoOperacion.BAJA, "Baja de ID=" + id, (productos, nuevoId) -> {
+            productos.remove(obtener(productos, id).getIdProducto());
+            return id;
+        });
+    }
+    
+    /**
+     * Valida y aplica todos los cambios pendientes con una única escritura del inventario.
+     * Si algún cambio no es válido no se aplica ninguno, los errores quedan en {@link #getErrores()}
+     * y la transacción sigue abierta para poder deshacerla.
+     * @return true si los cambios se guardaron
+     * @throws IllegalStateException si la transacción ya se confirmó o se deshizo
+     */
+    public boolean confirmar() {
+        comprobarAbierta();
+        long inicio = METRICAS_CONFIRMAR.iniciar();
+        try {
+            errores.clear();
+            if (pendientes.isEmpty()) {
+                estado = Estado.CONFIRMADA;
+                return true;
+            }
+            
+            // Se reserva de una vez un rango de IDs para todas las altas
+            int numAltas = 0;
+            for (CambioPendiente cambio : pendientes) {
+                if (cambio.tipo == RegistroUtil.TipoOperacion.ALTA) {
+                    numAltas++;
+                }
+            }
+            int[] siguienteId = new int[1];
+            try {
+                siguienteId[0] = numAltas > 0 ? inventarioDAO.reservarIds(numAltas) : 0;
+            } catch (IllegalStateException e) {
+                // IDs agotados o inventario bloqueado por otro proceso
+                errores.add("No se han podido reservar los IDs de las altas: " + e.getMessage());
+                METRICAS_CONFIRMAR.registrarError();
+                return false;
+            }
+            
+            Map<RegistroUtil.TipoOperacion, List<Integer>> afectados = new EnumMap<>(RegistroUtil.TipoOperacion.class);
+            boolean guardado = inventarioDAO.aplicarCambios(productos -> {
+                for (CambioPendiente cambio : pendientes) {
+                    try {
+                        int id = cambio.aplicacion.aplicar(productos, () -> siguienteId[0]++);
+                        afectados.computeIfAbsent(cambio.tipo, t -> new ArrayList<>()).add(id);
+                    } catch (IllegalArgumentException e) {
+                        errores.add(cambio.descripcion + ": " + e.getMessage());
+                    }
+                }
+                return errores.isEmpty();
+            });
+            
+            if (!errores.isEmpty() || !guardado) {
+                if (errores.isEmpty()) {
+                    errores.add("No se pudo guardar el inventario");
+                }
+                METRICAS_CONFIRMAR.registrarError();
+                return false;
+            }
+            
+            estado = Estado.CONFIRMADA;
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.TRANSACCION, describir(afectados));
+            return true;
+        } finally {
+            METRICAS_CONFIRMAR.finalizar(inicio);
+        }
+    }
+    
+    /**
+     * Descarta todos los cambios pendientes sin tocar el inventario
+     * @throws IllegalStateException si la transacción ya se confirmó o se deshizo
+     */
+    public void deshacer() {
+        comprobarAbierta();
+        pendientes.clear();
+        estado = Estado.DESHECHA;
+    }
+    
+    /**
+     * Número de cambios pendientes de confirmar
+     */
+    public int getNumPendientes() {
+        return pendientes.size();
+    }
+    
+    /**
+     * Errores de validación de la última confirmación fallida
+     */
+    public List<String> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+    
+    private void anadir(RegistroUtil.TipoOperacion tipo, String descripcion, Aplicacion aplicacion) {
+        comprobarAbierta();
+        pendientes.add(new CambioPendiente(tipo, descripcion, aplicacion));
+    }
+    
+    private void comprobarAbierta() {
+        if (estado != Estado.ABIERTA) {
+            throw new IllegalStateException("La transacción ya está " + estado.name().toLowerCase());
+        }
+    }
+    
+    private static String texto(String valor) {
+        return valor == null ? "" : valor.trim();
+    }
+    
+    /**
+     * Obtiene un producto existente en el inventario en memoria
+     */
+    private static Producto obtener(Map<Integer, Producto> productos, int id) {
+        Producto producto = productos.get(id);
+        if (producto == null) {
+            throw new IllegalArgumentException("No se encontró el producto con ID: " + id);
+        }
+        return producto;
+    }
+    
+    /**
+     * Resumen de la transacción para su única entrada en el registro
+     */
+    private static String describir(Map<RegistroUtil.TipoOperacion, List<Integer>> afectados) {
+        StringBuilder sb = new StringBuilder("Transacción confirmada");
+        for (Map.Entry<RegistroUtil.TipoOperacion, List<Integer>> entrada : afectados.entrySet()) {
+            sb.append(String.format("; %s: %d (IDs %s)", entrada.getKey().getDescripcion(),
+                    entrada.getValue().size(), entrada.getValue()));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Aplica un cambio sobre el inventario en memoria
+     */
+    @FunctionalInterface
+    private interface Aplicacion {
+        /**
+         * @param productos Inventario en memoria (ID -> producto)
+         * @param nuevoId Proporciona IDs de la reserva para las altas
+         * @return ID del producto afectado
+         * @throws IllegalArgumentException si el cambio no es válido
+         */
+        int aplicar(Map<Integer, Producto> productos, IntSupplier nuevoId);
+    }
+    
+    /**
+     * Cambio pendiente de confirmar
+     */
+    private static final class CambioPendiente {
+        private final RegistroUtil.TipoOperacion tipo;
+        private final String descripcion;
+        private final Aplicacion aplicacion;
+        
+        CambioPendiente(RegistroUtil.TipoOperacion tipo, String descripcion, Aplicacion aplicacion) {
+            this.tipo = tipo;
+            this.descripcion = descripcion;
+            this.aplicacion = aplicacion;
+        }
+    }
+}
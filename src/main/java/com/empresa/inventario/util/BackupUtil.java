@@ -1,5 +1,9 @@
 package com.empresa.inventario.util;
 
+import com.empresa.inventario.jfr.EventoBackup;
+import com.empresa.inventario.metricas.MetricasOperacion;
+import com.empresa.inventario.metricas.RegistroMetricas;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -14,10 +18,15 @@ import java.time.format.DateTimeFormatter;
  */
 public class BackupUtil {
     
-    private static final String DIRECTORIO_BACKUPS = "data/backups";
-    private static final String ARCHIVO_INVENTARIO = "data/inventario.txt";
+    private static final String DIRECTORIO_BACKUPS = ConfiguracionUtil.rutaDatos("backups");
+    private static final String ARCHIVO_INVENTARIO = ConfiguracionUtil.rutaDatos("inventario.txt");
     private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    // Métricas de cada operación (publicadas por JMX)
+    private static final MetricasOperacion METRICAS_CREAR = RegistroMetricas.operacion("BackupUtil.crearBackup");
+    private static final MetricasOperacion METRICAS_RESTAURAR = RegistroMetricas.operacion("BackupUtil.restaurarBackup");
+    private static final MetricasOperacion METRICAS_LISTAR = RegistroMetricas.operacion("BackupUtil.listarBackups");
+    
     /**
      * Crea una copia de seguridad del archivo de inventario.
      * El archivo de backup se guarda con el formato: inventario_backup_YYYY-MM-DD.txt
@@ -26,26 +35,43 @@ public class BackupUtil {
      * @throws IOException si ocurre un error al crear el backup
      */
     public static String crearBackup() throws IOException {
-        // Crear directorio de backups si no existe
-        crearDirectorioBackups();
-        
-        // Generar nombre único para el backup
-        String nombreBackup = generarNombreBackup();
-        Path rutaOrigen = Paths.get(ARCHIVO_INVENTARIO);
-        Path rutaDestino = Paths.get(DIRECTORIO_BACKUPS, nombreBackup);
-        
-        // Verificar que existe el archivo de inventario
-        if (!Files.exists(rutaOrigen)) {
-            throw new IOException("El archivo de inventario no existe: " + ARCHIVO_INVENTARIO);
+        EventoBackup evento = new EventoBackup();
+        evento.begin();
+        long inicio = METRICAS_CREAR.iniciar();
+        try {
+            // Crear directorio de backups si no existe
+            crearDirectorioBackups();
+        
+            // Generar nombre único para el backup
+            String nombreBackup = generarNombreBackup();
+            Path rutaOrigen = Paths.get(ARCHIVO_INVENTARIO);
+            Path rutaDestino = Paths.get(DIRECTORIO_BACKUPS, nombreBackup);
+        
+            // Verificar que existe el archivo de inventario
+            if (!Files.exists(rutaOrigen)) {
+                throw new IOException("El archivo de inventario no existe: " + ARCHIVO_INVENTARIO);
+            }
+        
+            // Copiar el archivo
+            Files.copy(rutaOrigen, rutaDestino, StandardCopyOption.REPLACE_EXISTING);
+            long tamano = Files.size(rutaDestino);
+            METRICAS_CREAR.sumarBytesLeidos(tamano);
+            METRICAS_CREAR.sumarBytesEscritos(tamano);
+            evento.archivo = nombreBackup;
+            evento.bytes = tamano;
+        
+            // Registrar la operación
+            RegistroUtil.registrarBackup(nombreBackup);
+        
+            return nombreBackup;
+        } catch (IOException e) {
+            METRICAS_CREAR.registrarError();
+            throw e;
+        } finally {
+            METRICAS_CREAR.finalizar(inicio);
+            evento.operacion = "CREAR";
+            evento.commit();
         }
-        
-        // Copiar el archivo
-        Files.copy(rutaOrigen, rutaDestino, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Registrar la operación
-        RegistroUtil.registrarBackup(nombreBackup);
-        
-        return nombreBackup;
     }
     
     /**
@@ -91,18 +117,26 @@ public class BackupUtil {
      * @throws IOException si ocurre un error al leer el directorio
      */
     public static String[] listarBackups() throws IOException {
-        Path directorio = Paths.get(DIRECTORIO_BACKUPS);
-        
-        if (!Files.exists(directorio)) {
-            return new String[0];
+        long inicio = METRICAS_LISTAR.iniciar();
+        try {
+            Path directorio = Paths.get(DIRECTORIO_BACKUPS);
+        
+            if (!Files.exists(directorio)) {
+                return new String[0];
+            }
+        
+            return Files.list(directorio)
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().startsWith("inventario_backup_"))
+                    .map(p -> p.getFileName().toString())
+                    .sorted()
+                    .toArray(String[]::new);
+        } catch (IOException e) {
+            METRICAS_LISTAR.registrarError();
+            throw e;
+        } finally {
+            METRICAS_LISTAR.finalizar(inicio);
         }
-        
-        return Files.list(directorio)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.getFileName().toString().startsWith("inventario_backup_"))
-                .map(p -> p.getFileName().toString())
-                .sorted()
-                .toArray(String[]::new);
     }
     
     /**
@@ -112,25 +146,46 @@ public class BackupUtil {
      * @throws IOException si ocurre un error durante la restauración
      */
     public static void restaurarBackup(String nombreBackup) throws IOException {
-        Path rutaBackup = Paths.get(DIRECTORIO_BACKUPS, nombreBackup);
-        Path rutaInventario = Paths.get(ARCHIVO_INVENTARIO);
-        
-        if (!Files.exists(rutaBackup)) {
-            throw new IOException("El backup especificado no existe: " + nombreBackup);
-        }
-        
-        // Crear un backup del archivo actual antes de restaurar
+        EventoBackup evento = new EventoBackup();
+        evento.begin();
+        long inicio = METRICAS_RESTAURAR.iniciar();
         try {
-            crearBackup();
+            Path rutaBackup = Paths.get(DIRECTORIO_BACKUPS, nombreBackup);
+            Path rutaInventario = Paths.get(ARCHIVO_INVENTARIO);
+        
+            if (!Files.exists(rutaBackup)) {
+                throw new IOException("El backup especificado no existe: " + nombreBackup);
+            }
+        
+            // Crear un backup del archivo actual antes de restaurar
+            try {
+                crearBackup();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudo crear backup de seguridad antes de restaurar");
+            }
+        
+            // Restaurar el backup: se copia a un temporal y se renombra, para que una caída
+            // a mitad de la copia no deje el inventario a medias
+            Path temporal = rutaInventario.resolveSibling(rutaInventario.getFileName() + ".tmp");
+            Files.copy(rutaBackup, temporal, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporal, rutaInventario, StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+            long tamano = Files.size(rutaInventario);
+            METRICAS_RESTAURAR.sumarBytesLeidos(tamano);
+            METRICAS_RESTAURAR.sumarBytesEscritos(tamano);
+            evento.bytes = tamano;
+        
+            RegistroUtil.registrar(RegistroUtil.TipoOperacion.BACKUP, 
+                    "Restaurado backup: " + nombreBackup);
         } catch (IOException e) {
-            System.err.println("Advertencia: No se pudo crear backup de seguridad antes de restaurar");
+            METRICAS_RESTAURAR.registrarError();
+            throw e;
+        } finally {
+            METRICAS_RESTAURAR.finalizar(inicio);
+            evento.operacion = "RESTAURAR";
+            evento.archivo = nombreBackup;
+            evento.commit();
         }
-        
-        // Restaurar el backup
-        Files.copy(rutaBackup, rutaInventario, StandardCopyOption.REPLACE_EXISTING);
-        
-        RegistroUtil.registrar(RegistroUtil.TipoOperacion.BACKUP, 
-                "Restaurado backup: " + nombreBackup);
     }
     
     /**
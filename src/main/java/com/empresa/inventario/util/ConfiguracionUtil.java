@@ -0,0 +1,119 @@
+package com.empresa.inventario.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Utilidad que centraliza la configuración del sistema.
+ * Los valores se leen de propiedades de sistema (-Dpropiedad=valor) con valores por defecto.
+ */
+public class ConfiguracionUtil {
+    
+    /** Directorio donde se guardan el inventario, el registro y los backups */
+    public static final String DIRECTORIO_DATOS = System.getProperty("inventario.datos", "data");
+    
+    /** Indica si los archivos grandes se escanean en paralelo */
+    public static final boolean ESCANEO_PARALELO = 
+            Boolean.parseBoolean(System.getProperty("inventario.escaneoParalelo", "true"));
+    
+    /** Indica si se usa la instantánea binaria (data/inventario.bin) para evitar parsear el CSV */
+    public static final boolean INSTANTANEA_BINARIA = 
+            Boolean.parseBoolean(System.getProperty("inventario.instantanea", "true"));
+    
+    /**
+     * Formato de almacenamiento del inventario: "csv" (inventario.txt, por defecto) o "fijo"
+     * (ranuras de tamaño fijo en inventario.dat, con escrituras posicionales)
+     */
+    public static final boolean FORMATO_FIJO = 
+            "fijo".equalsIgnoreCase(System.getProperty("inventario.formato", "csv"));
+    
+    /**
+     * Política de durabilidad de las escrituras: "sincrona" (fsync en cada escritura, por defecto),
+     * "agrupada" (un fsync cada inventario.durabilidad.intervalo ms para todas las escrituras
+     * del intervalo) o "sistema" (sin fsync; decide el sistema operativo)
+     */
+    public static final String DURABILIDAD = System.getProperty("inventario.durabilidad", "sincrona");
+    
+    /** Milisegundos entre sincronizaciones con la política de durabilidad agrupada */
+    public static final long INTERVALO_DURABILIDAD = Long.getLong("inventario.durabilidad.intervalo", 20);
+    
+    /** Indica si los cambios del inventario se publican en el flujo de cambios (data/cambios.log) */
+    public static final boolean FLUJO_CAMBIOS = 
+            Boolean.parseBoolean(System.getProperty("inventario.cambios", "true"));
+    
+    /**
+     * Indica si se vigila el directorio de datos para detectar los cambios que otras aplicaciones
+     * hacen en inventario.txt (solo con el formato CSV)
+     */
+    public static final boolean VIGILAR_INVENTARIO = 
+            Boolean.parseBoolean(System.getProperty("inventario.vigilar", "true"));
+    
+    /**
+     * Indica si el bloqueo del inventario se extiende a los demás procesos que usan el mismo
+     * directorio de datos, con bloqueos del sistema sobre data/inventario.lock
+     */
+    public static final boolean BLOQUEO_ENTRE_PROCESOS = 
+            Boolean.parseBoolean(System.getProperty("inventario.bloqueo.procesos", "true"));
+    
+    /** Milisegundos que se espera como máximo el bloqueo del inventario retenido por otro proceso */
+    public static final long ESPERA_BLOQUEO = Long.getLong("inventario.bloqueo.espera", 10_000);
+    
+    /** Punto de reorden por defecto: stock a partir del cual (incluido) se genera una alerta de reabastecimiento */
+    public static final int PUNTO_REORDEN = Integer.getInteger("inventario.reorden.punto", 10);
+    
+    /** Unidades por encima del punto de reorden que debe superar el stock para resolver la alerta */
+    public static final int HISTERESIS_REORDEN = Integer.getInteger("inventario.reorden.histeresis", 5);
+    
+    /** IDs que se reservan en disco de una vez en la secuencia de IDs de producto */
+    public static final int BLOQUE_IDS = Integer.getInteger("inventario.ids.bloque", 100);
+    
+    /** Segundos entre volcados de la instantánea de métricas a data/metricas.txt (0 = desactivado) */
+    public static final long INTERVALO_VOLCADO_METRICAS = 
+            Long.getLong("inventario.metricas.intervalo", 60);
+    
+    /** Puerto por defecto del servidor HTTP (modo --servidor) */
+    public static final int PUERTO_HTTP = Integer.getInteger("inventario.http.puerto", 8080);
+    
+    /**
+     * Dirección en la que escucha el servidor HTTP. Vacía (por defecto) solo atiende a la propia
+     * máquina; "0.0.0.0" atiende por todas las interfaces (el servidor no autentica)
+     */
+    public static final String DIRECCION_HTTP = System.getProperty("inventario.http.direccion", "");
+    
+    /** Puerto en el que el servidor (modo --servidor) envía los cambios a las réplicas (0 = sin replicación) */
+    public static final int PUERTO_REPLICACION = Integer.getInteger("inventario.replicacion.puerto", 0);
+    
+    /**
+     * Dirección en la que se aceptan réplicas. Vacía (por defecto) solo acepta conexiones de la
+     * propia máquina; "0.0.0.0" las acepta por todas las interfaces (la replicación no autentica)
+     */
+    public static final String DIRECCION_REPLICACION = System.getProperty("inventario.replicacion.direccion", "");
+    
+    /** Número máximo de consultas guardadas en la caché de resultados (0 = caché desactivada) */
+    public static final int CACHE_CONSULTAS_ENTRADAS = Integer.getInteger("inventario.cache.entradas", 128);
+    
+    /** Segundos que una consulta puede permanecer en la caché de resultados */
+    public static final long CACHE_CONSULTAS_SEGUNDOS = Long.getLong("inventario.cache.segundos", 300);
+    
+    /**
+     * Obtiene la ruta de un archivo dentro del directorio de datos
+     * @param nombreArchivo Nombre del archivo o subdirectorio
+     * @return Ruta relativa al directorio de datos configurado
+     */
+    public static String rutaDatos(String nombreArchivo) {
+        return DIRECTORIO_DATOS + "/" + nombreArchivo;
+    }
+    
+    /**
+     * Resuelve la dirección en la que escucha un servidor
+     * @param direccion Dirección configurada (nombre o IP); vacía para la interfaz local
+     * @return Dirección resuelta, o la de loopback si no se ha configurado ninguna
+     * @throws UnknownHostException si no se puede resolver la dirección configurada
+     */
+    public static InetAddress direccionEscucha(String direccion) throws UnknownHostException {
+        if (direccion == null || direccion.isBlank()) {
+            return InetAddress.getLoopbackAddress();
+        }
+        return InetAddress.getByName(direccion);
+    }
+}
@@ -1,10 +1,21 @@
 package com.empresa.inventario.util;
 
+import com.empresa.inventario.jfr.EventoRegistro;
+
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Utilidad para registrar todas las operaciones realizadas en el sistema.
@@ -12,9 +23,28 @@ import java.time.format.DateTimeFormatter;
  */
 public class RegistroUtil {
     
-    private static final String ARCHIVO_REGISTRO = "data/registro.txt";
+    private static final String ARCHIVO_REGISTRO = ConfiguracionUtil.rutaDatos("registro.txt");
     private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    /** Modificación con cambio de stock, tal como la escribe {@link #registrarModificacion(int, String)} */
+    private static final Pattern PATRON_CAMBIO_STOCK = Pattern.compile(
+            "^\\[([^\\]]+)\\] " + TipoOperacion.MODIFICACION.getDescripcion()
+            + ": Producto ID=(\\d+) - Cambios: .*Stock: (-?\\d+) -> (-?\\d+);");
+    
+    /**
+     * Receptor de los cambios de stock leídos del registro
+     */
+    @FunctionalInterface
+    public interface OyenteCambioStock {
+        /**
+         * @param instante Instante del cambio en milisegundos desde 1970
+         * @param idProducto ID del producto modificado
+         * @param stockAnterior Stock antes del cambio
+         * @param stockNuevo Stock después del cambio
+         */
+        void cambio(long instante, int idProducto, int stockAnterior, int stockNuevo);
+    }
+    
     /**
      * Tipos de operaciones que se pueden registrar
      */
@@ -26,7 +56,11 @@ public class RegistroUtil {
         LISTAR("LISTAR"),
         BACKUP("BACKUP"),
         CONSULTA_HISTORIAL("CONSULTA HISTORIAL"),
-        INICIALIZACION("INICIALIZACIÓN");
+        INICIALIZACION("INICIALIZACIÓN"),
+        LOTE("LOTE"),
+        TRANSACCION("TRANSACCIÓN"),
+        CAMBIO_EXTERNO("CAMBIO EXTERNO"),
+        REPLICACION("REPLICACIÓN");
         
         private final String descripcion;
         
@@ -45,6 +79,9 @@ public class RegistroUtil {
      * @param detalle Detalles adicionales de la operación
      */
     public static void registrar(TipoOperacion tipo, String detalle) {
+        EventoRegistro evento = new EventoRegistro();
+        evento.begin();
+        
         String timestamp = LocalDateTime.now().format(FORMATO_FECHA);
         String entrada = String.format("[%s] %s: %s", timestamp, tipo.getDescripcion(), detalle);
         
@@ -54,6 +91,48 @@ public class RegistroUtil {
         } catch (IOException e) {
             System.err.println("Error al escribir en el registro: " + e.getMessage());
         }
+        
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.tipo = tipo.name();
+            evento.bytes = (entrada + System.lineSeparator()).getBytes(Charset.defaultCharset()).length;
+            evento.commit();
+        }
+    }
+    
+    /**
+     * Entrada del registro pendiente de escribir, para registrar varias operaciones a la vez
+     */
+    public static class Entrada {
+        private final TipoOperacion tipo;
+        private final String detalle;
+        
+        public Entrada(TipoOperacion tipo, String detalle) {
+            this.tipo = tipo;
+            this.detalle = detalle;
+        }
+    }
+    
+    /**
+     * Registra varias operaciones abriendo el archivo de registro una sola vez.
+     * Todas las entradas comparten la misma fecha y hora.
+     * @param entradas Entradas a registrar, en orden
+     */
+    public static void registrarTodas(List<Entrada> entradas) {
+        if (entradas.isEmpty()) {
+            return;
+        }
+        
+        String timestamp = LocalDateTime.now().format(FORMATO_FECHA);
+        
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ARCHIVO_REGISTRO, true))) {
+            for (Entrada entrada : entradas) {
+                writer.write(String.format("[%s] %s: %s", timestamp, entrada.tipo.getDescripcion(), entrada.detalle));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al escribir en el registro: " + e.getMessage());
+        }
     }
     
     /**
@@ -119,6 +198,43 @@ public class RegistroUtil {
         registrar(TipoOperacion.CONSULTA_HISTORIAL, "Consulta del registro de operaciones");
     }
     
+    /**
+     * Recorre en orden los cambios de stock ("Stock: X -> Y") registrados en el archivo de registro
+     * @param oyente Recibe cada cambio
+     * @return Número de cambios de stock encontrados
+     * @throws IOException si no se puede leer el registro
+     */
+    public static int leerCambiosStock(OyenteCambioStock oyente) throws IOException {
+        if (!new File(ARCHIVO_REGISTRO).exists()) {
+            return 0;
+        }
+        
+        int cambios = 0;
+        ZoneId zona = ZoneId.systemDefault();
+        try (BufferedReader reader = new BufferedReader(new FileReader(ARCHIVO_REGISTRO))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (!linea.contains("Stock: ")) {
+                    continue;
+                }
+                Matcher coincidencia = PATRON_CAMBIO_STOCK.matcher(linea);
+                if (!coincidencia.find()) {
+                    continue;
+                }
+                try {
+                    long instante = LocalDateTime.parse(coincidencia.group(1), FORMATO_FECHA)
+                            .atZone(zona).toInstant().toEpochMilli();
+                    oyente.cambio(instante, Integer.parseInt(coincidencia.group(2)),
+                            Integer.parseInt(coincidencia.group(3)), Integer.parseInt(coincidencia.group(4)));
+                    cambios++;
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    System.err.println("Cambio de stock ilegible en el registro: " + linea);
+                }
+            }
+        }
+        return cambios;
+    }
+    
     /**
      * Registra el inicio del sistema
      */